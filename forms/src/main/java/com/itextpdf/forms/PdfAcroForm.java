@@ -71,11 +71,16 @@ import com.itextpdf.kernel.pdf.tagutils.TagTreePointer;
 import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -567,6 +572,42 @@ public class PdfAcroForm extends PdfObjectWrapper<PdfDictionary> {
         return fields.get(fieldName);
     }
 
+    /**
+     * Sets the values of many {@link PdfFormField form field}s at once, e.g. the values of a record
+     * from a data source. All the values are set first, and the appearance streams of the changed fields
+     * are regenerated afterwards in one pass, see {@link PdfFormField#regenerateFields(java.util.Collection)}.
+     * Names of fields which aren't present in the form are ignored.
+     *
+     * @param values the values mapped to the names of the {@link PdfFormField form field}s
+     * @return this {@link PdfAcroForm} instance
+     */
+    public PdfAcroForm setFieldValues(Map<String, String> values) {
+        return setFieldValues(values.entrySet().iterator());
+    }
+
+    /**
+     * Sets the values of many {@link PdfFormField form field}s at once, like {@link #setFieldValues(Map)} does,
+     * but takes the field names and values from a stream of entries, e.g. the columns of a record read
+     * from a data source, which is consumed once and doesn't need to be collected into a map first.
+     * If a name occurs several times, the last value is kept.
+     *
+     * @param values the names of the {@link PdfFormField form field}s with their values
+     * @return this {@link PdfAcroForm} instance
+     */
+    public PdfAcroForm setFieldValues(Iterator<? extends Map.Entry<String, String>> values) {
+        Map<String, PdfFormField> fields = getFormFields();
+        List<PdfFormField> fieldsToRegenerate = new ArrayList<>();
+        while (values.hasNext()) {
+            Map.Entry<String, String> entry = values.next();
+            PdfFormField field = fields.get(entry.getKey());
+            if (field != null) {
+                field.setValueWithoutRegeneration(entry.getValue(), fieldsToRegenerate);
+            }
+        }
+        PdfFormField.regenerateFields(fieldsToRegenerate);
+        return this;
+    }
+
     /**
      * Gets the attribute generateAppearance, which tells {@link #flattenFields()}
      * to generate an appearance Stream for all {@link PdfFormField form field}s
@@ -612,27 +653,8 @@ public class PdfAcroForm extends PdfObjectWrapper<PdfDictionary> {
         if (document.isAppendMode()) {
             throw new PdfException(PdfException.FieldFlatteningIsNotSupportedInAppendMode);
         }
-        Set<PdfFormField> fields;
-        if (fieldsForFlattening.size() == 0) {
-            this.fields.clear();
-            fields = new LinkedHashSet<>(getFormFields().values());
-        } else {
-            fields = new LinkedHashSet<>();
-            for (PdfFormField field : fieldsForFlattening) {
-                fields.addAll(prepareFieldsForFlattening(field));
-            }
-        }
-
-        // In case of appearance resources and page resources are the same object, it would not be possible to add
-        // the xObject to the page resources. So in that case we would copy page resources and use the copy for
-        // xObject, so that circular reference is avoided.
-        // We copy beforehand firstly not to produce a copy every time, and secondly not to copy all the
-        // xObjects that have already been added to the page resources.
-        Map<Integer, PdfObject> initialPageResourceClones = new LinkedHashMap<>();
-        for (int i = 1; i <= document.getNumberOfPages(); i++) {
-            PdfObject resources = document.getPage(i).getPdfObject().getAsDictionary(PdfName.Resources);
-            initialPageResourceClones.put(i, resources == null ? null : resources.clone());
-        }
+        Set<PdfFormField> fields = getFieldsForFlattening();
+        Map<Integer, PdfObject> initialPageResourceClones = getInitialPageResourceClones();
 
         PdfPage page;
         for (PdfFormField field : fields) {
@@ -648,65 +670,12 @@ public class PdfAcroForm extends PdfObjectWrapper<PdfDictionary> {
                 tagPointer = document.getTagStructureContext().removeAnnotationTag(annotation);
             }
 
-            PdfDictionary appDic = fieldObject.getAsDictionary(PdfName.AP);
-            PdfObject asNormal = null;
-            if (appDic != null) {
-                asNormal = appDic.getAsStream(PdfName.N);
-                if (asNormal == null) {
-                    asNormal = appDic.getAsDictionary(PdfName.N);
-                }
-            }
-            if (generateAppearance) {
-                if (appDic == null || asNormal == null) {
-                    field.regenerateField();
-                    appDic = fieldObject.getAsDictionary(PdfName.AP);
-                }
-            }
-            if (appDic != null) {
-                PdfObject normal = appDic.get(PdfName.N);
-                PdfFormXObject xObject = null;
-                if (normal.isStream()) {
-                    xObject = new PdfFormXObject((PdfStream) normal);
-                } else if (normal.isDictionary()) {
-                    PdfName as = fieldObject.getAsName(PdfName.AS);
-                    if (((PdfDictionary) normal).getAsStream(as) != null) {
-                        xObject = new PdfFormXObject(((PdfDictionary) normal).getAsStream(as));
-                        xObject.makeIndirect(document);
-                    }
-                }
-
-                // Subtype is required key, if there is no Subtype it is invalid XObject. DEVSIX-725
-                if (xObject != null && xObject.getPdfObject().get(PdfName.Subtype) != null) {
-                    Rectangle annotBBox = fieldObject.getAsRectangle(PdfName.Rect);
-                    if (page.isFlushed()) {
-                        throw new PdfException(PdfException.PageAlreadyFlushedUseAddFieldAppearanceToPageMethodBeforePageFlushing);
-                    }
-                    PdfCanvas canvas = new PdfCanvas(page);
-
-                    // Here we avoid circular reference which might occur when page resources and the appearance xObject's
-                    // resources are the same object
-                    PdfObject xObjectResources = xObject.getPdfObject().get(PdfName.Resources);
-                    PdfObject pageResources = page.getResources().getPdfObject();
-                    if (xObjectResources != null && pageResources != null &&
-                            xObjectResources == pageResources) {
-                        xObject.getPdfObject().put(PdfName.Resources, initialPageResourceClones.get(document.getPageNumber(page)));
-                    }
-
-                    if (tagPointer != null) {
-                        tagPointer.setPageForTagging(page);
-                        TagReference tagRef = tagPointer.getTagReference();
-                        canvas.openTag(tagRef);
-                    }
-
-                    AffineTransform at = calcFieldAppTransformToAnnotRect(xObject, annotBBox);
-                    float[] m = new float[6];
-                    at.getMatrix(m);
-                    canvas.addXObject(xObject, m[0], m[1], m[2], m[3], m[4], m[5]);
-
-                    if (tagPointer != null) {
-                        canvas.closeTag();
-                    }
+            PdfFormXObject xObject = getAppearanceForFlattening(field);
+            if (xObject != null) {
+                if (page.isFlushed()) {
+                    throw new PdfException(PdfException.PageAlreadyFlushedUseAddFieldAppearanceToPageMethodBeforePageFlushing);
                 }
+                drawAppearanceForFlattening(new PdfCanvas(page), page, fieldObject, xObject, tagPointer, initialPageResourceClones);
             }
 
             PdfArray fFields = getFields();
@@ -726,13 +695,123 @@ public class PdfAcroForm extends PdfObjectWrapper<PdfDictionary> {
             }
         }
 
-        getPdfObject().remove(PdfName.NeedAppearances);
-        if (fieldsForFlattening.size() == 0) {
-            getFields().clear();
+        finishFlattening();
+    }
+
+    /**
+     * Flattens interactive {@link PdfFormField form field}s in the document like {@link #flattenFields()},
+     * but processes the fields page by page. The pages of all the widgets are found in a single pass over the
+     * annotations of the document, and the appearances of all the fields of a page are drawn into
+     * a single content stream appended to that page, instead of into a new content stream per field.
+     * This makes flattening of forms with many fields on many pages considerably faster.
+     * <p>
+     * The pages are processed in the document order and the fields of a page in the order of the field tree,
+     * so the flattened content only differs from the one of {@link #flattenFields()} by the number of the
+     * content streams it is split into.
+     */
+    public void flattenFieldsByPage() {
+        if (document.isAppendMode()) {
+            throw new PdfException(PdfException.FieldFlatteningIsNotSupportedInAppendMode);
         }
-        if (getFields().isEmpty()) {
-            document.getCatalog().remove(PdfName.AcroForm);
+        Set<PdfFormField> fields = getFieldsForFlattening();
+        Map<Integer, PdfObject> initialPageResourceClones = getInitialPageResourceClones();
+
+        Map<PdfDictionary, PdfPage> annotationPages = new IdentityHashMap<>();
+        for (int i = 1; i <= document.getNumberOfPages(); i++) {
+            PdfPage page = document.getPage(i);
+            if (page.isFlushed()) {
+                continue;
+            }
+            PdfArray annots = page.getPdfObject().getAsArray(PdfName.Annots);
+            if (annots != null) {
+                for (int j = 0; j < annots.size(); j++) {
+                    PdfDictionary annot = annots.getAsDictionary(j);
+                    if (annot != null && !annotationPages.containsKey(annot)) {
+                        annotationPages.put(annot, page);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<PdfFormField>> pageFields = new TreeMap<>();
+        Map<Integer, PdfPage> pages = new HashMap<>();
+        for (PdfFormField field : fields) {
+            PdfDictionary fieldObject = field.getPdfObject();
+            PdfPage page;
+            PdfDictionary pageDic = fieldObject.getAsDictionary(PdfName.P);
+            if (pageDic != null) {
+                page = document.getPage(pageDic);
+            } else {
+                page = annotationPages.get(fieldObject);
+            }
+            if (page == null) {
+                continue;
+            }
+            int pageNumber = document.getPageNumber(page);
+            List<PdfFormField> fieldsOnPage = pageFields.get(pageNumber);
+            if (fieldsOnPage == null) {
+                fieldsOnPage = new ArrayList<>();
+                pageFields.put(pageNumber, fieldsOnPage);
+                pages.put(pageNumber, page);
+            }
+            fieldsOnPage.add(field);
+        }
+
+        Set<PdfDictionary> removedFields = Collections.newSetFromMap(new IdentityHashMap<PdfDictionary, Boolean>());
+        for (Map.Entry<Integer, List<PdfFormField>> entry : pageFields.entrySet()) {
+            PdfPage page = pages.get(entry.getKey());
+            PdfCanvas canvas = null;
+            for (PdfFormField field : entry.getValue()) {
+                PdfDictionary fieldObject = field.getPdfObject();
+                PdfAnnotation annotation = PdfAnnotation.makeAnnotation(fieldObject);
+                TagTreePointer tagPointer = null;
+                if (annotation != null && document.isTagged()) {
+                    tagPointer = document.getTagStructureContext().removeAnnotationTag(annotation);
+                }
+
+                PdfFormXObject xObject = getAppearanceForFlattening(field);
+                if (xObject != null) {
+                    if (page.isFlushed()) {
+                        throw new PdfException(PdfException.PageAlreadyFlushedUseAddFieldAppearanceToPageMethodBeforePageFlushing);
+                    }
+                    if (canvas == null) {
+                        canvas = new PdfCanvas(page);
+                    }
+                    drawAppearanceForFlattening(canvas, page, fieldObject, xObject, tagPointer, initialPageResourceClones);
+                }
+
+                removedFields.add(fieldObject);
+                if (annotation != null) {
+                    page.removeAnnotation(annotation);
+                }
+                PdfDictionary parent = fieldObject.getAsDictionary(PdfName.Parent);
+                if (parent != null) {
+                    PdfArray kids = parent.getAsArray(PdfName.Kids);
+                    kids.remove(fieldObject);
+                    if (kids.isEmpty()) {
+                        removedFields.add(parent);
+                    }
+                }
+            }
+        }
+
+        // remove the flattened fields from the root fields array in one pass rather than one search per field
+        PdfArray fFields = getFields();
+        List<PdfObject> remainingFields = new ArrayList<>(fFields.size());
+        for (int i = 0; i < fFields.size(); i++) {
+            PdfObject fieldObject = fFields.get(i);
+            if (!removedFields.contains(fieldObject)) {
+                remainingFields.add(fFields.get(i, false));
+            }
+        }
+        if (remainingFields.size() != fFields.size()) {
+            fFields.clear();
+            for (PdfObject fieldObject : remainingFields) {
+                fFields.add(fieldObject);
+            }
         }
+
+        finishFlattening();
     }
 
     /**
@@ -1072,6 +1151,116 @@ public class PdfAcroForm extends PdfObjectWrapper<PdfDictionary> {
         return dictionary;
     }
 
+    private Set<PdfFormField> getFieldsForFlattening() {
+        Set<PdfFormField> fields;
+        if (fieldsForFlattening.size() == 0) {
+            this.fields.clear();
+            fields = new LinkedHashSet<>(getFormFields().values());
+        } else {
+            fields = new LinkedHashSet<>();
+            for (PdfFormField field : fieldsForFlattening) {
+                fields.addAll(prepareFieldsForFlattening(field));
+            }
+        }
+        return fields;
+    }
+
+    private Map<Integer, PdfObject> getInitialPageResourceClones() {
+        // In case of appearance resources and page resources are the same object, it would not be possible to add
+        // the xObject to the page resources. So in that case we would copy page resources and use the copy for
+        // xObject, so that circular reference is avoided.
+        // We copy beforehand firstly not to produce a copy every time, and secondly not to copy all the
+        // xObjects that have already been added to the page resources.
+        Map<Integer, PdfObject> initialPageResourceClones = new LinkedHashMap<>();
+        for (int i = 1; i <= document.getNumberOfPages(); i++) {
+            PdfObject resources = document.getPage(i).getPdfObject().getAsDictionary(PdfName.Resources);
+            initialPageResourceClones.put(i, resources == null ? null : resources.clone());
+        }
+        return initialPageResourceClones;
+    }
+
+    /**
+     * Gets the normal appearance of the field to be drawn on the page, generating it if needed and allowed.
+     *
+     * @return the appearance, or null if the field has no valid appearance
+     */
+    private PdfFormXObject getAppearanceForFlattening(PdfFormField field) {
+        PdfDictionary fieldObject = field.getPdfObject();
+        PdfDictionary appDic = fieldObject.getAsDictionary(PdfName.AP);
+        PdfObject asNormal = null;
+        if (appDic != null) {
+            asNormal = appDic.getAsStream(PdfName.N);
+            if (asNormal == null) {
+                asNormal = appDic.getAsDictionary(PdfName.N);
+            }
+        }
+        if (generateAppearance) {
+            if (appDic == null || asNormal == null) {
+                field.regenerateField();
+                appDic = fieldObject.getAsDictionary(PdfName.AP);
+            }
+        }
+        if (appDic == null) {
+            return null;
+        }
+        PdfObject normal = appDic.get(PdfName.N);
+        PdfFormXObject xObject = null;
+        if (normal.isStream()) {
+            xObject = new PdfFormXObject((PdfStream) normal);
+        } else if (normal.isDictionary()) {
+            PdfName as = fieldObject.getAsName(PdfName.AS);
+            if (((PdfDictionary) normal).getAsStream(as) != null) {
+                xObject = new PdfFormXObject(((PdfDictionary) normal).getAsStream(as));
+                xObject.makeIndirect(document);
+            }
+        }
+
+        // Subtype is required key, if there is no Subtype it is invalid XObject. DEVSIX-725
+        if (xObject != null && xObject.getPdfObject().get(PdfName.Subtype) != null) {
+            return xObject;
+        }
+        return null;
+    }
+
+    private void drawAppearanceForFlattening(PdfCanvas canvas, PdfPage page, PdfDictionary fieldObject, PdfFormXObject xObject,
+                                             TagTreePointer tagPointer, Map<Integer, PdfObject> initialPageResourceClones) {
+        Rectangle annotBBox = fieldObject.getAsRectangle(PdfName.Rect);
+
+        // Here we avoid circular reference which might occur when page resources and the appearance xObject's
+        // resources are the same object
+        PdfObject xObjectResources = xObject.getPdfObject().get(PdfName.Resources);
+        PdfObject pageResources = page.getResources().getPdfObject();
+        if (xObjectResources != null && pageResources != null &&
+                xObjectResources == pageResources) {
+            xObject.getPdfObject().put(PdfName.Resources, initialPageResourceClones.get(document.getPageNumber(page)));
+        }
+
+        if (tagPointer != null) {
+            tagPointer.setPageForTagging(page);
+            TagReference tagRef = tagPointer.getTagReference();
+            canvas.openTag(tagRef);
+        }
+
+        AffineTransform at = calcFieldAppTransformToAnnotRect(xObject, annotBBox);
+        float[] m = new float[6];
+        at.getMatrix(m);
+        canvas.addXObject(xObject, m[0], m[1], m[2], m[3], m[4], m[5]);
+
+        if (tagPointer != null) {
+            canvas.closeTag();
+        }
+    }
+
+    private void finishFlattening() {
+        getPdfObject().remove(PdfName.NeedAppearances);
+        if (fieldsForFlattening.size() == 0) {
+            getFields().clear();
+        }
+        if (getFields().isEmpty()) {
+            document.getCatalog().remove(PdfName.AcroForm);
+        }
+    }
+
     private PdfPage getFieldPage(PdfDictionary annotDic) {
         PdfDictionary pageDic = annotDic.getAsDictionary(PdfName.P);
         if (pageDic != null) {
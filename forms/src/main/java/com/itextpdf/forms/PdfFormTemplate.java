@@ -0,0 +1,196 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.forms;
+
+import com.itextpdf.forms.fields.PdfFormField;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.itextpdf.kernel.pdf.StampingProperties;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A form template which is read and analysed once and then filled many times, e.g. once per customer.
+ * <p>
+ * The template bytes are kept in memory and shared read-only by all the fills, and the names of the form
+ * fields are resolved to their object numbers when the template is created, so a fill neither walks the field tree
+ * nor parses the XFA form of the template. Every filled document is written in append mode: the template bytes are
+ * copied as they are and only the changed fields and their new appearance streams are appended to them.
+ * <p>
+ * If the template is a hybrid AcroForm and XFA form, the XFA form is removed from the filled documents which have
+ * changed fields, the same way flattening does, so that XFA-aware viewers don't show the data of the template.
+ * <p>
+ * A template can be filled by several threads at the same time.
+ */
+public class PdfFormTemplate {
+
+    private final byte[] template;
+    private final Map<String, Integer> fieldObjectNumbers;
+    private final boolean hasXfaForm;
+
+    /**
+     * Creates a template from the bytes of a PDF document with an AcroForm.
+     *
+     * @param template the template document, the array shall not be modified afterwards
+     * @throws IOException if the template can not be read
+     */
+    public PdfFormTemplate(byte[] template) throws IOException {
+        this.template = template;
+        Map<String, Integer> objectNumbers = new LinkedHashMap<>();
+        boolean xfa = false;
+        PdfDocument document = new PdfDocument(createReader());
+        try {
+            PdfAcroForm form = PdfAcroForm.getAcroForm(document, false);
+            if (form != null) {
+                xfa = form.getPdfObject().containsKey(PdfName.XFA);
+                for (Map.Entry<String, PdfFormField> entry : form.getFormFields().entrySet()) {
+                    PdfIndirectReference reference = entry.getValue().getPdfObject().getIndirectReference();
+                    if (reference != null) {
+                        objectNumbers.put(entry.getKey(), reference.getObjNumber());
+                    }
+                }
+            }
+        } finally {
+            document.close();
+        }
+        this.fieldObjectNumbers = Collections.unmodifiableMap(objectNumbers);
+        this.hasXfaForm = xfa;
+    }
+
+    /**
+     * Creates a template from a PDF file with an AcroForm.
+     *
+     * @param templatePath the path to the template document
+     * @throws IOException if the template can not be read
+     */
+    public PdfFormTemplate(String templatePath) throws IOException {
+        this(readFile(templatePath));
+    }
+
+    /**
+     * Gets the names of the fields of the template.
+     *
+     * @return the field names, in the order of the field tree
+     */
+    public Set<String> getFieldNames() {
+        return fieldObjectNumbers.keySet();
+    }
+
+    /**
+     * Fills the template with the given values and writes the filled document.
+     * Names of fields which aren't present in the template are ignored.
+     *
+     * @param values the values mapped to the names of the form fields
+     * @param output the stream the filled document is written to, it is closed afterwards
+     * @throws IOException if the document can not be written
+     */
+    public void fill(Map<String, String> values, OutputStream output) throws IOException {
+        PdfDocument document = new PdfDocument(createReader(), new PdfWriter(output), new StampingProperties().useAppendMode());
+        try {
+            List<PdfFormField> fieldsToRegenerate = new ArrayList<>(values.size());
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                Integer objectNumber = fieldObjectNumbers.get(entry.getKey());
+                if (objectNumber == null) {
+                    continue;
+                }
+                PdfObject fieldObject = document.getPdfObject((int) objectNumber);
+                PdfFormField field = PdfFormField.makeFormField(fieldObject, document);
+                if (field != null) {
+                    field.setValueWithoutRegeneration(entry.getValue(), fieldsToRegenerate);
+                }
+            }
+            PdfFormField.regenerateFields(fieldsToRegenerate);
+            if (hasXfaForm && !fieldsToRegenerate.isEmpty()) {
+                removeXfaForm(document);
+            }
+        } finally {
+            document.close();
+        }
+    }
+
+    /*
+     * The XFA datasets still hold the values of the template, so the XFA form is dropped and the viewers
+     * fall back to the AcroForm, like it is done when the fields are flattened.
+     */
+    private static void removeXfaForm(PdfDocument document) {
+        PdfDictionary acroForm = document.getCatalog().getPdfObject().getAsDictionary(PdfName.AcroForm);
+        if (acroForm != null && acroForm.remove(PdfName.XFA) != null) {
+            if (acroForm.isIndirect()) {
+                acroForm.setModified();
+            } else {
+                document.getCatalog().setModified();
+            }
+        }
+    }
+
+    private PdfReader createReader() throws IOException {
+        return new PdfReader(new RandomAccessSourceFactory().createSource(template), new ReaderProperties());
+    }
+
+    private static byte[] readFile(String path) throws IOException {
+        InputStream input = new FileInputStream(path);
+        try {
+            return StreamUtil.inputStreamToArray(input);
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.forms.fields;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.util.TextUtil;
+import com.itextpdf.kernel.font.PdfFont;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calculates the font size of the auto-sized text fields.
+ * <p>
+ * The glyph widths of the font are cached in primitive arrays, so that measuring a text does not look up the glyphs
+ * of the font over and over again. A fitter is shared by the fields using the same font while they are regenerated
+ * with {@link PdfFormField#regenerateFields(java.util.Collection)}, see {@link SharedAppearanceResolution}, and
+ * the fitted sizes are reused by the fields with the same value and bounding box.
+ * <p>
+ * Shall be used only in {@link PdfFormField}.
+ */
+final class FontSizeFitter {
+
+    private static final int PAGE_SIZE = 256;
+
+    private final PdfFont font;
+    private final int[][] widthPages = new int[(Character.MAX_VALUE + 1) / PAGE_SIZE][];
+    private final Map<FittedText, Float> fittedSizes = new HashMap<>();
+
+    FontSizeFitter(PdfFont font) {
+        this.font = font;
+    }
+
+    /**
+     * Gets the width of the text, the same as {@link PdfFont#getWidth(String)}.
+     *
+     * @param text the text
+     * @return the width in 1000 normalized units
+     */
+    int getWidth(String text) {
+        int total = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (TextUtil.isSurrogatePair(text, i)) {
+                total += font.getWidth(TextUtil.convertToUtf32(text, i));
+                i++;
+            } else {
+                total += getCharWidth(text.charAt(i));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the largest font size the single line text fits the available width with,
+     * or the height-based size if it is smaller.
+     *
+     * @param text           the text
+     * @param availableWidth the width available for the text
+     * @param maxFontSize    the font size which fits the available height
+     * @return the font size
+     */
+    float fitSingleLine(String text, float availableWidth, float maxFontSize) {
+        FittedText key = new FittedText(text, availableWidth, maxFontSize);
+        Float fitted = fittedSizes.get(key);
+        if (fitted != null) {
+            return (float) fitted;
+        }
+        float fontSize = maxFontSize;
+        float baseWidth = getWidth(text) / (float) FontProgram.UNITS_NORMALIZATION;
+        if (baseWidth != 0) {
+            fontSize = Math.min(fontSize, availableWidth / baseWidth);
+        }
+        fittedSizes.put(key, fontSize);
+        return fontSize;
+    }
+
+    /**
+     * Gets the number of glyph width pages of 256 chars measured so far.
+     *
+     * @return the number of cached pages
+     */
+    int getCachedPageCount() {
+        int count = 0;
+        for (int[] page : widthPages) {
+            if (page != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of different texts and areas the font size has been fitted for.
+     *
+     * @return the number of cached font sizes
+     */
+    int getFittedSizeCount() {
+        return fittedSizes.size();
+    }
+
+    private int getCharWidth(char ch) {
+        int[] page = widthPages[ch / PAGE_SIZE];
+        if (page == null) {
+            page = new int[PAGE_SIZE];
+            int first = ch - ch % PAGE_SIZE;
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                page[i] = font.getWidth(first + i);
+            }
+            widthPages[ch / PAGE_SIZE] = page;
+        }
+        return page[ch % PAGE_SIZE];
+    }
+
+    /**
+     * The text and the area a font size is fitted for.
+     */
+    private static final class FittedText {
+        private final String text;
+        private final float availableWidth;
+        private final float maxFontSize;
+
+        FittedText(String text, float availableWidth, float maxFontSize) {
+            this.text = text;
+            this.availableWidth = availableWidth;
+            this.maxFontSize = maxFontSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FittedText that = (FittedText) o;
+            return Float.compare(that.availableWidth, availableWidth) == 0
+                    && Float.compare(that.maxFontSize, maxFontSize) == 0
+                    && text.equals(that.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = text.hashCode();
+            result = 31 * result + Float.floatToIntBits(availableWidth);
+            result = 31 * result + Float.floatToIntBits(maxFontSize);
+            return result;
+        }
+    }
+}
@@ -94,6 +94,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -206,6 +209,12 @@ public class PdfFormField extends PdfObjectWrapper<PdfDictionary> {
     protected PdfFormXObject form;
     protected PdfAConformanceLevel pdfAConformanceLevel;
 
+    /**
+     * The font and default appearance resolution shared by the fields regenerated
+     * with {@link #regenerateFields(Collection)}, or null outside of such a regeneration.
+     */
+    private transient SharedAppearanceResolution sharedResolution;
+
     /**
      * Creates a form field as a wrapper object around a {@link PdfDictionary}.
      * This {@link PdfDictionary} must be an indirect object.
@@ -1201,6 +1210,36 @@ public class PdfFormField extends PdfObjectWrapper<PdfDictionary> {
         return this;
     }
 
+    /**
+     * Sets a value to the field and to its kids like {@link #setValue(String)} does, but doesn't generate
+     * the appearance streams. The fields which appearance needs to be regenerated are added to the passed collection
+     * instead, so that the appearances of many fields can be regenerated in one pass with
+     * {@link #regenerateFields(Collection)} once all the values are set.
+     *
+     * @param value              of the field
+     * @param fieldsToRegenerate the collection the fields which appearance needs to be regenerated are added to
+     * @return the field
+     */
+    public PdfFormField setValueWithoutRegeneration(String value, Collection<PdfFormField> fieldsToRegenerate) {
+        PdfName ft = getFormType();
+        if (ft == null || !ft.equals(PdfName.Btn)) {
+            PdfArray kids = getKids();
+            if (kids != null) {
+                for (int i = 0; i < kids.size(); i++) {
+                    PdfObject kid = kids.get(i);
+                    PdfFormField field = new PdfFormField((PdfDictionary) kid);
+                    field.font = font;
+                    field.fontSize = fontSize;
+                    field.setValueWithoutRegeneration(value, fieldsToRegenerate);
+                }
+            }
+        }
+
+        setValue(value, false);
+        fieldsToRegenerate.add(this);
+        return this;
+    }
+
     /**
      * Set text field value with given font and size
      *
@@ -2166,6 +2205,36 @@ public class PdfFormField extends PdfObjectWrapper<PdfDictionary> {
         return true;
     }
 
+    /**
+     * Regenerates the appearance streams of many fields in one pass. The default appearance strings and
+     * the default font are resolved once and shared by all the regenerated fields of the same document,
+     * and a field passed several times, e.g. by several {@link #setValueWithoutRegeneration(String, Collection)} calls,
+     * is regenerated only once. The fields may belong to different documents.
+     *
+     * @param fields the fields to regenerate
+     * @return whether or not the regeneration of all the fields was successful.
+     */
+    public static boolean regenerateFields(Collection<PdfFormField> fields) {
+        return regenerateFields(fields, new SharedAppearanceResolution());
+    }
+
+    static boolean regenerateFields(Collection<PdfFormField> fields, SharedAppearanceResolution resolution) {
+        Set<PdfDictionary> regenerated = Collections.newSetFromMap(new IdentityHashMap<PdfDictionary, Boolean>());
+        boolean result = true;
+        for (PdfFormField field : fields) {
+            if (!regenerated.add(field.getPdfObject())) {
+                continue;
+            }
+            field.sharedResolution = resolution;
+            try {
+                result &= field.regenerateField();
+            } finally {
+                field.sharedResolution = null;
+            }
+        }
+        return result;
+    }
+
     /**
      * According to spec (ISO-32000-1, 12.7.3.3) zero font size should interpretaded as auto size.
      */
@@ -2192,22 +2261,22 @@ public class PdfFormField extends PdfObjectWrapper<PdfDictionary> {
         int[] fontBbox = localFont.getFontProgram().getFontMetrics().getBbox();
         fs = height / (fontBbox[2] - fontBbox[1]) * FontProgram.UNITS_NORMALIZATION;
 
-        float baseWidth = localFont.getWidth(value, 1);
-        if (baseWidth != 0) {
-            float availableWidth = Math.max(bBox.getWidth() - borderWidth * 2, 0);
-            // This constant is taken based on what was the resultant padding in previous version of this algorithm in case border width was zero.
-            float absMaxPadding = 4f;
-            // relative value is quite big in order to preserve visible padding on small field sizes. This constant is taken arbitrary, based on visual similarity to Acrobat behaviour.
-            float relativePaddingForSmallSizes = 0.15f;
-            // with current constants, if availableWidth is less than ~26 points, padding will be made relative
-            if (availableWidth * relativePaddingForSmallSizes < absMaxPadding) {
-                availableWidth -= availableWidth * relativePaddingForSmallSizes * 2;
-            } else {
-                availableWidth -= absMaxPadding * 2;
-            }
-            fs = Math.min(fs, availableWidth / baseWidth);
+        float availableWidth = Math.max(bBox.getWidth() - borderWidth * 2, 0);
+        // This constant is taken based on what was the resultant padding in previous version of this algorithm in case border width was zero.
+        float absMaxPadding = 4f;
+        // relative value is quite big in order to preserve visible padding on small field sizes. This constant is taken arbitrary, based on visual similarity to Acrobat behaviour.
+        float relativePaddingForSmallSizes = 0.15f;
+        // with current constants, if availableWidth is less than ~26 points, padding will be made relative
+        if (availableWidth * relativePaddingForSmallSizes < absMaxPadding) {
+            availableWidth -= availableWidth * relativePaddingForSmallSizes * 2;
+        } else {
+            availableWidth -= absMaxPadding * 2;
         }
-        return fs;
+        return getFontSizeFitter(localFont).fitSingleLine(value, availableWidth, fs);
+    }
+
+    private FontSizeFitter getFontSizeFitter(PdfFont localFont) {
+        return sharedResolution != null ? sharedResolution.getFontSizeFitter(localFont) : new FontSizeFitter(localFont);
     }
 
     /**
@@ -2658,7 +2727,8 @@ public class PdfFormField extends PdfObjectWrapper<PdfDictionary> {
             PdfDictionary defaultFontDic = defaultResources != null ? defaultResources.getAsDictionary(PdfName.Font) : null;
             PdfString defaultAppearance = getDefaultAppearance();
             if ((normalFontDic != null || defaultFontDic != null) && defaultAppearance != null) {
-                dab = splitDAelements(defaultAppearance.toUnicodeString());
+                dab = sharedResolution != null ? sharedResolution.getDaElements(defaultAppearance.toUnicodeString())
+                        : splitDAelements(defaultAppearance.toUnicodeString());
                 Object fontNameObj = dab[DA_FONT];
                 if (fontNameObj != null) {
                     daFontName = new PdfName(fontNameObj.toString());
@@ -2680,7 +2750,7 @@ public class PdfFormField extends PdfObjectWrapper<PdfDictionary> {
             fontAndSize[0] = daFont;
             fontAndSize[2] = daFontName;
         } else {
-            fontAndSize[0] = PdfFontFactory.createFont();
+            fontAndSize[0] = sharedResolution != null ? sharedResolution.getDefaultFont(document) : PdfFontFactory.createFont();
         }
 
         if (fontSize >= 0) {
@@ -0,0 +1,104 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.forms.fields;
+
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.font.PdfType3Font;
+import com.itextpdf.kernel.pdf.PdfDocument;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the parsed default appearance strings, the default fonts and the font size fitters while many fields
+ * are regenerated with {@link PdfFormField#regenerateFields(java.util.Collection)}. Lives only as long as
+ * one regeneration pass.
+ * <p>
+ * A font is bound to the document it is added to, so the fields of every document get their own default font.
+ * <p>
+ * Shall be used only in {@link PdfFormField}.
+ */
+final class SharedAppearanceResolution {
+
+    private final Map<String, Object[]> daElements = new HashMap<>();
+    private final Map<PdfDocument, PdfFont> defaultFonts = new IdentityHashMap<>();
+    private final Map<PdfFont, FontSizeFitter> fontSizeFitters = new IdentityHashMap<>();
+
+    Object[] getDaElements(String da) {
+        Object[] elements = daElements.get(da);
+        if (elements == null) {
+            elements = PdfFormField.splitDAelements(da);
+            daElements.put(da, elements);
+        }
+        return elements;
+    }
+
+    PdfFont getDefaultFont(PdfDocument document) throws IOException {
+        PdfFont defaultFont = defaultFonts.get(document);
+        if (defaultFont == null) {
+            defaultFont = PdfFontFactory.createFont();
+            defaultFonts.put(document, defaultFont);
+        }
+        return defaultFont;
+    }
+
+    /**
+     * Gets the font size fitter shared by the fields using the font. Type 3 fonts get a new fitter every time,
+     * since glyphs can be added to them.
+     */
+    FontSizeFitter getFontSizeFitter(PdfFont font) {
+        if (font instanceof PdfType3Font) {
+            return new FontSizeFitter(font);
+        }
+        FontSizeFitter fitter = fontSizeFitters.get(font);
+        if (fitter == null) {
+            fitter = new FontSizeFitter(font);
+            fontSizeFitters.put(font, fitter);
+        }
+        return fitter;
+    }
+}
@@ -0,0 +1,410 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.forms.xfa;
+
+import com.itextpdf.forms.PdfAcroForm;
+import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.PdfVersion;
+import com.itextpdf.kernel.pdf.VersionConforming;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+/**
+ * Fills XFA field values by rewriting the datasets packet as a stream of XML events,
+ * without building the DOM of the whole XFA package like {@link XfaForm} does.
+ * <p>
+ * The datasets are read twice: once to collect the SOM names of the data nodes, which are
+ * used to resolve the passed field names the same way {@link XfaForm#setXfaFieldValue(String, String)} does,
+ * and once to copy the events to the output, replacing the content of the resolved data nodes.
+ * When the XFA entry is an array of packets, only the datasets stream is rewritten and all
+ * the other packets are left untouched. When the XFA entry is a single stream,
+ * the whole stream is copied event by event.
+ * <p>
+ * Unlike {@link XfaForm#setXfaFieldValue(String, String)}, no data nodes are created for
+ * names which are not present in the datasets; such names are reported back to the caller.
+ */
+public class XfaDatasetsFiller {
+
+    private static final String DATASETS = "datasets";
+    private static final String DATA = "data";
+    private static final String DATA_NODE = "dataNode";
+    private static final String DATA_VALUE = "dataValue";
+    private static final QName DATA_NODE_NAME = new QName(XfaForm.XFA_DATA_SCHEMA, DATA_NODE);
+
+    private final Map<String, String> fieldValues;
+
+    /**
+     * Creates a filler for the passed field values.
+     *
+     * @param fieldValues a map of complete or partial XFA field names to their new values
+     */
+    public XfaDatasetsFiller(Map<String, String> fieldValues) {
+        this.fieldValues = new LinkedHashMap<>(fieldValues);
+    }
+
+    /**
+     * Fills the XFA form of the passed document.
+     * The XFA entry is read straight from the {@code AcroForm} dictionary of the catalog,
+     * so neither a {@link PdfAcroForm} nor an {@link XfaForm} is created.
+     *
+     * @param pdfDocument the document which XFA form is to be filled
+     * @return the names of the field values which were not found in the datasets
+     * @throws IOException on error
+     */
+    public Set<String> fill(PdfDocument pdfDocument) throws IOException {
+        if (pdfDocument == null) {
+            throw new IllegalArgumentException("PdfDocument shall not be null");
+        }
+        return fill(pdfDocument.getCatalog().getPdfObject().getAsDictionary(PdfName.AcroForm), pdfDocument);
+    }
+
+    /**
+     * Fills the XFA form of the passed {@link PdfAcroForm}.
+     *
+     * @param acroForm the {@link PdfAcroForm} which XFA form is to be filled
+     * @return the names of the field values which were not found in the datasets
+     * @throws IOException on error
+     */
+    public Set<String> fill(PdfAcroForm acroForm) throws IOException {
+        if (acroForm == null || acroForm.getPdfDocument() == null) {
+            throw new IllegalArgumentException("PdfAcroForm and PdfAcroForm's document shall not be null");
+        }
+        return fill(acroForm.getPdfObject(), acroForm.getPdfDocument());
+    }
+
+    private Set<String> fill(PdfDictionary acroFormDictionary, PdfDocument document) throws IOException {
+        Set<String> notFound = new LinkedHashSet<>(fieldValues.keySet());
+        if (acroFormDictionary == null) {
+            return notFound;
+        }
+        PdfObject xfa = acroFormDictionary.get(PdfName.XFA);
+        if (xfa == null || VersionConforming.validatePdfVersionForDeprecatedFeatureLogError(document, PdfVersion.PDF_2_0, VersionConforming.DEPRECATED_XFA_FORMS)) {
+            return notFound;
+        }
+        PdfStream stream = null;
+        if (xfa.isArray()) {
+            PdfArray ar = (PdfArray) xfa;
+            for (int k = 0; k + 1 < ar.size(); k += 2) {
+                PdfString s = ar.getAsString(k);
+                if (s != null && DATASETS.equals(s.toString())) {
+                    stream = ar.getAsStream(k + 1);
+                    break;
+                }
+            }
+        } else if (xfa.isStream()) {
+            stream = (PdfStream) xfa;
+        }
+        if (stream == null) {
+            return notFound;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        notFound = fill(stream.getBytes(), out);
+        if (notFound.size() < fieldValues.size()) {
+            stream.setData(out.toByteArray());
+            stream.setCompressionLevel(document.getWriter().getCompressionLevel());
+            stream.setModified();
+        }
+        return notFound;
+    }
+
+    /**
+     * Fills the datasets contained in the passed XML, which is either a datasets packet
+     * or a complete XDP document, and writes the result to the passed stream in UTF-8.
+     *
+     * @param xml the datasets packet or the complete XDP document
+     * @param out the stream to write the filled XML to
+     * @return the names of the field values which were not found in the datasets
+     * @throws IOException on error
+     */
+    public Set<String> fill(byte[] xml, OutputStream out) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        Set<String> notFound = resolveNames(collectDataNodeNames(xml), values);
+        try {
+            rewrite(xml, values, out);
+        } catch (XMLStreamException e) {
+            throw new PdfException(e);
+        }
+        return notFound;
+    }
+
+    private Set<String> resolveNames(Set<String> names, Map<String, String> values) {
+        AcroFieldsSearch fieldsSearch = new AcroFieldsSearch(names);
+        Xml2Som datasetsSearch = new Xml2Som();
+        datasetsSearch.setInverseSearch(new HashMap<String, InverseStore>());
+        for (String name : names) {
+            Xml2Som.inverseSearchAdd(datasetsSearch.getInverseSearch(), Xml2Som.splitParts(name), name);
+        }
+
+        Set<String> notFound = new LinkedHashSet<>();
+        for (Map.Entry<String, String> entry : fieldValues.entrySet()) {
+            String name = entry.getKey();
+            String fieldName = fieldsSearch.getAcroShort2LongName().containsKey(name) ? fieldsSearch.getAcroShort2LongName().get(name) : fieldsSearch.inverseSearchGlobal(Xml2Som.splitParts(name));
+            String datasetsName = null;
+            if (fieldName != null) {
+                String shortName = Xml2Som.getShortName(fieldName);
+                datasetsName = names.contains(shortName) ? shortName : datasetsSearch.inverseSearchGlobal(Xml2Som.splitParts(shortName));
+            }
+            if (datasetsName == null) {
+                notFound.add(name);
+            } else {
+                values.put(datasetsName, entry.getValue());
+            }
+        }
+        return notFound;
+    }
+
+    private static Set<String> collectDataNodeNames(byte[] xml) {
+        Set<String> names = new LinkedHashSet<>();
+        DataNodeNames dataNodeNames = new DataNodeNames();
+        try {
+            XMLStreamReader reader = createInputFactory().createXMLStreamReader(new ByteArrayInputStream(xml));
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = dataNodeNames.startElement(reader.getNamespaceURI(), reader.getLocalName(),
+                                DATA_VALUE.equals(reader.getAttributeValue(XfaForm.XFA_DATA_SCHEMA, DATA_NODE)));
+                        if (name != null) {
+                            names.add(name);
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        dataNodeNames.endElement();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new PdfException(e);
+        }
+        return names;
+    }
+
+    private static void rewrite(byte[] xml, Map<String, String> values, OutputStream out) throws XMLStreamException {
+        XMLEventReader reader = createInputFactory().createXMLEventReader(new ByteArrayInputStream(xml));
+        XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+        XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+        DataNodeNames dataNodeNames = new DataNodeNames();
+        try {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartDocument()) {
+                    // the output is always UTF-8, so the original encoding declaration shall not be copied
+                    if (hasXmlDeclaration(xml)) {
+                        writer.add(eventFactory.createStartDocument("UTF-8", "1.0"));
+                    }
+                    continue;
+                }
+                if (event.isStartElement()) {
+                    StartElement start = event.asStartElement();
+                    Attribute dataNode = start.getAttributeByName(DATA_NODE_NAME);
+                    String name = dataNodeNames.startElement(start.getName().getNamespaceURI(), start.getName().getLocalPart(),
+                            dataNode != null && DATA_VALUE.equals(dataNode.getValue()));
+                    if (name != null && values.containsKey(name)) {
+                        // the same as XfaForm#setNodeText: the content is replaced and the node becomes a data value
+                        writer.add(eventFactory.createStartElement(start.getName(), withoutDataNode(start), start.getNamespaces()));
+                        writer.add(eventFactory.createCharacters(values.get(name)));
+                        skipContent(reader);
+                        writer.add(reader.nextEvent());
+                        dataNodeNames.endElement();
+                        continue;
+                    }
+                } else if (event.isEndElement()) {
+                    dataNodeNames.endElement();
+                }
+                writer.add(event);
+            }
+            writer.flush();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+    }
+
+    /**
+     * Skips the content of the current element, so that the next event is its end element.
+     */
+    private static void skipContent(XMLEventReader reader) throws XMLStreamException {
+        int depth = 0;
+        while (depth > 0 || !reader.peek().isEndElement()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                ++depth;
+            } else if (event.isEndElement()) {
+                --depth;
+            }
+        }
+    }
+
+    private static Iterator<Attribute> withoutDataNode(StartElement start) {
+        List<Attribute> attributes = new ArrayList<>();
+        Iterator<?> it = start.getAttributes();
+        while (it.hasNext()) {
+            Attribute attribute = (Attribute) it.next();
+            if (!DATA_NODE_NAME.equals(attribute.getName())) {
+                attributes.add(attribute);
+            }
+        }
+        return attributes.iterator();
+    }
+
+    private static boolean hasXmlDeclaration(byte[] xml) {
+        int i = 0;
+        // skip UTF-8 byte order mark
+        if (xml.length >= 3 && (xml[0] & 0xff) == 0xef && (xml[1] & 0xff) == 0xbb && (xml[2] & 0xff) == 0xbf) {
+            i = 3;
+        }
+        while (i < xml.length && Character.isWhitespace((char) xml[i])) {
+            ++i;
+        }
+        return xml.length - i >= 5 && xml[i] == '<' && xml[i + 1] == '?' && xml[i + 2] == 'x' && xml[i + 3] == 'm' && xml[i + 4] == 'l';
+    }
+
+    // Prevents XXE attacks
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Gives the data nodes the same SOM names as {@link Xml2SomDatasets} does while the elements
+     * are visited in document order. Only the children of the first {@code xfa:data} element
+     * of the {@code xfa:datasets} element are named.
+     */
+    private static final class DataNodeNames {
+        private final Stack<String> stack = new Stack<>();
+        // children counters of the open elements within xfa:data, null if the children are not named
+        private final Stack<Map<String, Integer>> counters = new Stack<>();
+        private final Stack<Boolean> named = new Stack<>();
+        private int depth = 0;
+        private int datasetsDepth = -1;
+        private boolean dataVisited = false;
+
+        String startElement(String namespace, String localName, boolean dataValue) {
+            ++depth;
+            if (!counters.isEmpty()) {
+                Map<String, Integer> siblings = counters.peek();
+                if (siblings == null) {
+                    counters.push(null);
+                    named.push(false);
+                    return null;
+                }
+                String s = Xml2Som.escapeSom(localName);
+                Integer i = siblings.get(s);
+                i = i == null ? 0 : i + 1;
+                siblings.put(s, i);
+                stack.push(String.format("%s[%s]", s, i.toString()));
+                counters.push(dataValue ? null : new HashMap<String, Integer>());
+                named.push(true);
+                return printStack();
+            }
+            if (XfaForm.XFA_DATA_SCHEMA.equals(namespace)) {
+                if (DATASETS.equals(localName) && datasetsDepth < 0) {
+                    datasetsDepth = depth;
+                } else if (DATA.equals(localName) && !dataVisited && depth == datasetsDepth + 1) {
+                    dataVisited = true;
+                    counters.push(new HashMap<String, Integer>());
+                    named.push(false);
+                }
+            }
+            return null;
+        }
+
+        void endElement() {
+            if (!counters.isEmpty()) {
+                counters.pop();
+                if (named.pop()) {
+                    stack.pop();
+                }
+            } else if (depth == datasetsDepth) {
+                datasetsDepth = -1;
+            }
+            --depth;
+        }
+
+        private String printStack() {
+            StringBuilder s = new StringBuilder();
+            for (int k = 0; k < stack.size(); ++k) {
+                s.append('.').append(stack.get(k));
+            }
+            return s.substring(1);
+        }
+    }
+}
@@ -46,8 +46,10 @@ import com.itextpdf.forms.fields.PdfFormField;
 import com.itextpdf.forms.fields.PdfTextFormField;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
 import com.itextpdf.kernel.utils.CompareTool;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.type.IntegrationTest;
@@ -201,4 +203,51 @@ public class FormFieldFlatteningTest extends ExtendedITextTest {
 
         Assert.assertNull(new CompareTool().compareByContent(dest, cmp, destinationFolder, "diff_"));
     }
+
+    @Test
+    public void flattenFieldsByPageTest() throws IOException {
+        String src = sourceFolder + "formFlatteningSource.pdf";
+        String dest = destinationFolder + "flattenFieldsByPageTest.pdf";
+        String reference = destinationFolder + "flattenFieldsByPageTest_reference.pdf";
+
+        PdfDocument doc = new PdfDocument(new PdfReader(src), new PdfWriter(reference));
+        PdfAcroForm.getAcroForm(doc, true).flattenFields();
+        doc.close();
+
+        doc = new PdfDocument(new PdfReader(src), new PdfWriter(dest));
+        PdfAcroForm.getAcroForm(doc, true).flattenFieldsByPage();
+        doc.close();
+
+        PdfDocument flattened = new PdfDocument(new PdfReader(dest));
+        PdfDocument expected = new PdfDocument(new PdfReader(reference));
+        Assert.assertNull(flattened.getCatalog().getPdfObject().get(PdfName.AcroForm));
+        Assert.assertEquals(expected.getNumberOfPages(), flattened.getNumberOfPages());
+        for (int i = 1; i <= flattened.getNumberOfPages(); i++) {
+            Assert.assertEquals(expected.getPage(i).getAnnotsSize(), flattened.getPage(i).getAnnotsSize());
+            Assert.assertEquals(PdfTextExtractor.getTextFromPage(expected.getPage(i)),
+                    PdfTextExtractor.getTextFromPage(flattened.getPage(i)));
+        }
+        flattened.close();
+        expected.close();
+    }
+
+    @Test
+    public void partialFlattenFieldsByPageTest() throws IOException {
+        String src = sourceFolder + "formFlatteningSource.pdf";
+        String dest = destinationFolder + "partialFlattenFieldsByPageTest.pdf";
+
+        PdfDocument doc = new PdfDocument(new PdfReader(src), new PdfWriter(dest));
+        PdfAcroForm form = PdfAcroForm.getAcroForm(doc, true);
+        int fieldCount = form.getFormFields().size();
+        String flattenedField = form.getFormFields().keySet().iterator().next();
+        form.partialFormFlattening(flattenedField);
+        form.flattenFieldsByPage();
+        doc.close();
+
+        PdfDocument flattened = new PdfDocument(new PdfReader(dest));
+        PdfAcroForm flattenedForm = PdfAcroForm.getAcroForm(flattened, false);
+        Assert.assertNull(flattenedForm.getField(flattenedField));
+        Assert.assertEquals(fieldCount - 1, flattenedForm.getFormFields().size());
+        flattened.close();
+    }
 }
@@ -49,10 +49,14 @@ import com.itextpdf.forms.fields.PdfTextFormField;
 import com.itextpdf.io.LogMessageConstant;
 import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
 import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfString;
@@ -71,8 +75,15 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Category(IntegrationTest.class)
 public class PdfFormFieldTest extends ExtendedITextTest {
@@ -533,4 +544,171 @@ public class PdfFormFieldTest extends ExtendedITextTest {
             Assert.fail(errorMessage);
         }
     }
+
+    @Test
+    public void setFieldValuesTest() throws IOException, InterruptedException {
+        String outPdf = destinationFolder + "setFieldValuesTest.pdf";
+        String cmpPdf = sourceFolder + "cmp_formRegenerateWithInvalidDefaultAppearance01.pdf";
+        String srcPdf = sourceFolder + "invalidDA.pdf";
+
+        PdfDocument pdfDoc = new PdfDocument(new PdfReader(srcPdf), new PdfWriter(outPdf));
+        PdfAcroForm form = PdfAcroForm.getAcroForm(pdfDoc, true);
+
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("Text1", "New field value");
+        values.put("Text2", "New field value");
+        values.put("Text3", "New field value");
+        values.put("NotExistingField", "Ignored value");
+        form.setFieldValues(values);
+
+        Assert.assertEquals("New field value", form.getField("Text2").getValueAsString());
+        Assert.assertNull(form.getField("NotExistingField"));
+
+        pdfDoc.close();
+
+        CompareTool compareTool = new CompareTool();
+        String errorMessage = compareTool.compareByContent(outPdf, cmpPdf, destinationFolder, "diff_");
+        if (errorMessage != null) {
+            Assert.fail(errorMessage);
+        }
+    }
+
+    @Test
+    public void setFieldValuesFromIteratorTest() throws IOException, InterruptedException {
+        String outPdf = destinationFolder + "setFieldValuesFromIteratorTest.pdf";
+        String cmpPdf = sourceFolder + "cmp_formRegenerateWithInvalidDefaultAppearance01.pdf";
+        String srcPdf = sourceFolder + "invalidDA.pdf";
+
+        PdfDocument pdfDoc = new PdfDocument(new PdfReader(srcPdf), new PdfWriter(outPdf));
+        PdfAcroForm form = PdfAcroForm.getAcroForm(pdfDoc, true);
+
+        List<Map.Entry<String, String>> record = new ArrayList<>();
+        record.add(new AbstractMap.SimpleEntry<>("Text1", "Overwritten value"));
+        record.add(new AbstractMap.SimpleEntry<>("Text1", "New field value"));
+        record.add(new AbstractMap.SimpleEntry<>("Text2", "New field value"));
+        record.add(new AbstractMap.SimpleEntry<>("Text3", "New field value"));
+        record.add(new AbstractMap.SimpleEntry<>("NotExistingField", "Ignored value"));
+        form.setFieldValues(record.iterator());
+
+        Assert.assertEquals("New field value", form.getField("Text1").getValueAsString());
+
+        pdfDoc.close();
+
+        CompareTool compareTool = new CompareTool();
+        String errorMessage = compareTool.compareByContent(outPdf, cmpPdf, destinationFolder, "diff_");
+        if (errorMessage != null) {
+            Assert.fail(errorMessage);
+        }
+    }
+
+    @Test
+    public void regenerateFieldsOnceTest() throws IOException {
+        PdfDocument pdfDoc = new PdfDocument(new PdfReader(sourceFolder + "formFieldFile.pdf"),
+                new PdfWriter(new ByteArrayOutputStream()));
+        PdfAcroForm form = PdfAcroForm.getAcroForm(pdfDoc, false);
+
+        List<PdfFormField> fieldsToRegenerate = new ArrayList<>();
+        PdfFormField field = form.getField("Text1");
+        field.setValueWithoutRegeneration("First value", fieldsToRegenerate);
+        field.setValueWithoutRegeneration("Second value", fieldsToRegenerate);
+        Assert.assertEquals(2, fieldsToRegenerate.size());
+        Assert.assertEquals("Second value", field.getValueAsString());
+
+        Assert.assertTrue(PdfFormField.regenerateFields(fieldsToRegenerate));
+        Assert.assertNotNull(field.getPdfObject().getAsDictionary(PdfName.AP).getAsStream(PdfName.N));
+
+        pdfDoc.close();
+    }
+
+    @Test
+    public void regenerateFieldsOfSeveralDocumentsTest() throws IOException {
+        ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[2];
+        PdfDocument[] documents = new PdfDocument[2];
+        List<PdfFormField> fieldsToRegenerate = new ArrayList<>();
+        for (int i = 0; i < documents.length; i++) {
+            outputs[i] = new ByteArrayOutputStream();
+            documents[i] = new PdfDocument(new PdfWriter(outputs[i]));
+            PdfPage page = documents[i].addNewPage();
+            // a field without a font in its default appearance and without default resources uses the default font
+            PdfDictionary fieldDictionary = new PdfDictionary();
+            fieldDictionary.put(PdfName.Type, PdfName.Annot);
+            fieldDictionary.put(PdfName.Subtype, PdfName.Widget);
+            fieldDictionary.put(PdfName.FT, PdfName.Tx);
+            fieldDictionary.put(PdfName.T, new PdfString("Text" + i));
+            fieldDictionary.put(PdfName.Rect, new PdfArray(new Rectangle(36, 700, 200, 30)));
+            fieldDictionary.makeIndirect(documents[i]);
+            PdfFormField field = PdfFormField.makeFormField(fieldDictionary, documents[i]);
+            PdfAcroForm.getAcroForm(documents[i], true).addField(field, page);
+            field.setValueWithoutRegeneration("Value " + i, fieldsToRegenerate);
+        }
+
+        Assert.assertTrue(PdfFormField.regenerateFields(fieldsToRegenerate));
+        PdfDictionary firstFonts = getNormalAppearanceFonts(fieldsToRegenerate.get(0));
+        PdfDictionary secondFonts = getNormalAppearanceFonts(fieldsToRegenerate.get(1));
+        PdfObject firstFont = firstFonts.get(firstFonts.keySet().iterator().next(), false);
+        PdfObject secondFont = secondFonts.get(secondFonts.keySet().iterator().next(), false);
+        Assert.assertSame(documents[0], firstFont.getIndirectReference().getDocument());
+        Assert.assertSame(documents[1], secondFont.getIndirectReference().getDocument());
+
+        for (int i = 0; i < documents.length; i++) {
+            documents[i].close();
+            PdfDocument result = new PdfDocument(new PdfReader(new ByteArrayInputStream(outputs[i].toByteArray())));
+            Assert.assertEquals("Value " + i, PdfAcroForm.getAcroForm(result, false).getField("Text" + i).getValueAsString());
+            result.close();
+        }
+    }
+
+    @Test
+    public void multilineAutoSizeLongTextTest() throws IOException, InterruptedException {
+        String outPdf = destinationFolder + "multilineAutoSizeLongText.pdf";
+        String cmpPdf = sourceFolder + "cmp_multilineAutoSizeLongText.pdf";
+
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(outPdf));
+        PdfAcroForm form = PdfAcroForm.getAcroForm(pdfDoc, true);
+        String value = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt "
+                + "ut labore et dolore magna aliqua.\nUt enim ad minim veniam, quis nostrud exercitation ullamco "
+                + "laboris nisi ut aliquip ex ea commodo consequat.";
+        PdfTextFormField field = PdfFormField.createMultilineText(pdfDoc, new Rectangle(36, 650, 200, 80), "longText",
+                value, PdfFontFactory.createFont(StandardFonts.HELVETICA), 0);
+        form.addField(field);
+        // auto-size is not supported for multiline fields, the text is drawn with the minimal font size
+        Assert.assertEquals(4, getNormalAppearanceFontSize(field), 1e-4);
+
+        pdfDoc.close();
+
+        Assert.assertNull(new CompareTool().compareByContent(outPdf, cmpPdf, destinationFolder, "diff_"));
+    }
+
+    @Test
+    public void singleLineAutoSizeTest() throws IOException, InterruptedException {
+        String outPdf = destinationFolder + "singleLineAutoSize.pdf";
+        String cmpPdf = sourceFolder + "cmp_singleLineAutoSize.pdf";
+
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(outPdf));
+        PdfAcroForm form = PdfAcroForm.getAcroForm(pdfDoc, true);
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        String[] values = {"", "short", "A somewhat longer value of the field",
+                "A value which is much too long to be written with the default font size in this narrow field"};
+        float[] heights = {20, 30, 40, 20};
+        for (int i = 0; i < values.length; i++) {
+            form.addField(PdfFormField.createText(pdfDoc, new Rectangle(36, 700 - 60 * i, 150, heights[i]),
+                    "text" + i, values[i], font, 0));
+        }
+
+        pdfDoc.close();
+
+        Assert.assertNull(new CompareTool().compareByContent(outPdf, cmpPdf, destinationFolder, "diff_"));
+    }
+
+    private static float getNormalAppearanceFontSize(PdfFormField field) {
+        String content = new String(field.getPdfObject().getAsDictionary(PdfName.AP).getAsStream(PdfName.N).getBytes());
+        Matcher matcher = Pattern.compile("([0-9.]+) Tf").matcher(content);
+        Assert.assertTrue(matcher.find());
+        return Float.parseFloat(matcher.group(1));
+    }
+
+    private static PdfDictionary getNormalAppearanceFonts(PdfFormField field) {
+        return field.getPdfObject().getAsDictionary(PdfName.AP).getAsStream(PdfName.N)
+                .getAsDictionary(PdfName.Resources).getAsDictionary(PdfName.Font);
+    }
 }
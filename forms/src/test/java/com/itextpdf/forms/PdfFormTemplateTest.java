@@ -0,0 +1,156 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.forms;
+
+import com.itextpdf.forms.xfa.XfaForm;
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+@Category(IntegrationTest.class)
+public class PdfFormTemplateTest extends ExtendedITextTest {
+
+    public static final String sourceFolder = "./src/test/resources/com/itextpdf/forms/PdfFormFieldTest/";
+    public static final String xfaSourceFolder = "./src/test/resources/com/itextpdf/forms/xfa/XFAFormTest/";
+
+    @Test
+    public void fillTemplateTwiceTest() throws IOException {
+        PdfFormTemplate template = new PdfFormTemplate(sourceFolder + "formFieldFile.pdf");
+        Assert.assertEquals(6, template.getFieldNames().size());
+        Assert.assertTrue(template.getFieldNames().contains("Text1"));
+
+        byte[] first = fill(template, "First customer");
+        byte[] second = fill(template, "Second customer");
+
+        assertFilled(first, "First customer");
+        assertFilled(second, "Second customer");
+    }
+
+    @Test
+    public void templateBytesCopiedTest() throws IOException {
+        byte[] templateBytes = Files.readAllBytes(Paths.get(sourceFolder + "formFieldFile.pdf"));
+        PdfFormTemplate template = new PdfFormTemplate(templateBytes);
+        byte[] filled = fill(template, "Customer");
+
+        // the filled document is an incremental update of the template
+        Assert.assertTrue(filled.length > templateBytes.length);
+        Assert.assertArrayEquals(templateBytes, Arrays.copyOf(filled, templateBytes.length));
+    }
+
+    @Test
+    public void unknownFieldIgnoredTest() throws IOException {
+        PdfFormTemplate template = new PdfFormTemplate(sourceFolder + "formFieldFile.pdf");
+        Map<String, String> values = new HashMap<>();
+        values.put("NotExistingField", "value");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        template.fill(values, output);
+
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(output.toByteArray())));
+        Assert.assertEquals("TestField", PdfAcroForm.getAcroForm(document, false).getField("Text1").getValueAsString());
+        document.close();
+    }
+
+    @Test
+    public void xfaRemovedFromFilledHybridFormTest() throws IOException {
+        // a hybrid form: the AcroForm fields of formFieldFile.pdf together with an XFA form
+        ByteArrayOutputStream hybrid = new ByteArrayOutputStream();
+        PdfDocument hybridDocument = new PdfDocument(new PdfReader(sourceFolder + "formFieldFile.pdf"), new PdfWriter(hybrid));
+        PdfAcroForm hybridForm = PdfAcroForm.getAcroForm(hybridDocument, false);
+        new XfaForm(new FileInputStream(xfaSourceFolder + "xfa.xml")).write(hybridForm);
+        Assert.assertTrue(hybridForm.getPdfObject().containsKey(PdfName.XFA));
+        hybridDocument.close();
+
+        PdfFormTemplate template = new PdfFormTemplate(hybrid.toByteArray());
+        byte[] filled = fill(template, "Customer");
+        assertFilled(filled, "Customer");
+
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(filled)));
+        PdfAcroForm form = PdfAcroForm.getAcroForm(document, false);
+        Assert.assertFalse(form.hasXfaForm());
+        Assert.assertNull(form.getPdfObject().get(PdfName.XFA));
+        document.close();
+    }
+
+    @Test
+    public void xfaKeptWhenNothingFilledTest() throws IOException {
+        PdfFormTemplate template = new PdfFormTemplate(xfaSourceFolder + "TextField1.pdf");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        template.fill(new HashMap<String, String>(), output);
+
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(output.toByteArray())));
+        Assert.assertTrue(PdfAcroForm.getAcroForm(document, false).hasXfaForm());
+        document.close();
+    }
+
+    private static byte[] fill(PdfFormTemplate template, String value) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        values.put("Text1", value);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        template.fill(values, output);
+        return output.toByteArray();
+    }
+
+    private static void assertFilled(byte[] filled, String value) throws IOException {
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(filled)));
+        PdfAcroForm form = PdfAcroForm.getAcroForm(document, false);
+        Assert.assertEquals(value, form.getField("Text1").getValueAsString());
+        Assert.assertNotNull(form.getField("Text1").getPdfObject().getAsDictionary(PdfName.AP).getAsStream(PdfName.N));
+        document.close();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.forms.fields;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Category(UnitTest.class)
+public class FontSizeFitterTest extends ExtendedITextTest {
+
+    @Test
+    public void cachedWidthTest() throws IOException {
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        FontSizeFitter fitter = new FontSizeFitter(font);
+
+        String text = "The quick brown fox jumps over the lazy dog";
+        Assert.assertEquals(font.getWidth(text), fitter.getWidth(text));
+        Assert.assertEquals(font.getWidth(text), fitter.getWidth(text));
+        Assert.assertEquals(1, fitter.getCachedPageCount());
+    }
+
+    @Test
+    public void fitSingleLineTest() throws IOException {
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        FontSizeFitter fitter = new FontSizeFitter(font);
+        String text = "Some field value";
+
+        float expected = 100 / font.getWidth(text, 1);
+        Assert.assertEquals(expected, fitter.fitSingleLine(text, 100, 50), 1e-4);
+        Assert.assertEquals(expected, fitter.fitSingleLine(text, 100, 50), 1e-4);
+        Assert.assertEquals(5, fitter.fitSingleLine(text, 100, 5), 1e-4);
+        Assert.assertEquals(20, fitter.fitSingleLine("", 100, 20), 1e-4);
+        Assert.assertEquals(3, fitter.getFittedSizeCount());
+    }
+
+    @Test
+    public void fittedSizeReusedForSameValueAndAreaTest() throws IOException {
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        pdfDoc.addNewPage();
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        List<PdfFormField> fieldsToRegenerate = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            // the first three fields have the same size and value, the last one is wider
+            float width = i < 3 ? 200 : 300;
+            PdfTextFormField field = PdfFormField.createText(pdfDoc, new Rectangle(36, 700 - 40 * i, width, 30), "text" + i, "", font, 0);
+            field.setValueWithoutRegeneration("The same value", fieldsToRegenerate);
+        }
+
+        SharedAppearanceResolution resolution = new SharedAppearanceResolution();
+        Assert.assertTrue(PdfFormField.regenerateFields(fieldsToRegenerate, resolution));
+        Assert.assertEquals(2, resolution.getFontSizeFitter(font).getFittedSizeCount());
+        pdfDoc.close();
+    }
+
+    @Test
+    public void fitterSharedByFieldsWithSameFontTest() throws IOException {
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        pdfDoc.addNewPage();
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        List<PdfFormField> fieldsToRegenerate = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            PdfTextFormField field = PdfFormField.createText(pdfDoc, new Rectangle(36, 700 - 40 * i, 200, 30), "text" + i, "", font, 0);
+            field.setValueWithoutRegeneration("Value of the field " + i, fieldsToRegenerate);
+        }
+
+        SharedAppearanceResolution resolution = new SharedAppearanceResolution();
+        Assert.assertTrue(PdfFormField.regenerateFields(fieldsToRegenerate, resolution));
+        FontSizeFitter fitter = resolution.getFontSizeFitter(font);
+        // the widths measured for the first field are reused by the other ones
+        Assert.assertEquals(1, fitter.getCachedPageCount());
+        Assert.assertSame(fitter, resolution.getFontSizeFitter(font));
+        Assert.assertNotSame(fitter, new SharedAppearanceResolution().getFontSizeFitter(font));
+        pdfDoc.close();
+    }
+}
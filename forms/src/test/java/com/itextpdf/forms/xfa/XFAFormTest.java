@@ -43,15 +43,29 @@
 package com.itextpdf.forms.xfa;
 
 import com.itextpdf.forms.PdfAcroForm;
+import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.utils.CompareTool;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.type.IntegrationTest;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -141,4 +155,97 @@ public class XFAFormTest extends ExtendedITextTest {
         Assert.assertNull(name);
     }
 
+    @Test
+    public void fillDatasetsStreamingTest() throws IOException {
+        String inFileName = sourceFolder + "TextField1.pdf";
+        String outFileName = destinationFolder + "fillDatasetsStreamingTest.pdf";
+
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(inFileName), new PdfWriter(outFileName));
+        Map<String, String> values = new HashMap<>();
+        values.put("TextField1", "Streamed value");
+        values.put("NoSuchField", "value");
+        Set<String> notFound = new XfaDatasetsFiller(values).fill(pdfDocument);
+        pdfDocument.close();
+        Assert.assertEquals(Collections.singleton("NoSuchField"), notFound);
+
+        PdfDocument original = new PdfDocument(new PdfReader(inFileName));
+        PdfDocument filled = new PdfDocument(new PdfReader(outFileName));
+        XfaForm xfaForm = new XfaForm(filled);
+        Assert.assertEquals("Streamed value", xfaForm.getXfaFieldValue("TextField1"));
+        PdfArray originalPackets = PdfAcroForm.getAcroForm(original, false).getPdfObject().getAsArray(PdfName.XFA);
+        PdfArray filledPackets = PdfAcroForm.getAcroForm(filled, false).getPdfObject().getAsArray(PdfName.XFA);
+        for (int k = 1; k < originalPackets.size(); k += 2) {
+            if (!"datasets".equals(originalPackets.getAsString(k - 1).toString())) {
+                Assert.assertArrayEquals(originalPackets.getAsStream(k).getBytes(), filledPackets.getAsStream(k).getBytes());
+            }
+        }
+        original.close();
+        filled.close();
+    }
+
+    @Test
+    public void fillDatasetsWithoutXfaFormTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos));
+        pdfDocument.addNewPage();
+        // the template packet is not well-formed, so building the DOM of the whole XFA package fails
+        PdfArray packets = new PdfArray();
+        packets.add(new PdfString("preamble"));
+        packets.add(createPacket(pdfDocument, "<xdp:xdp xmlns:xdp=\"http://ns.adobe.com/xdp/\">"));
+        packets.add(new PdfString("template"));
+        String template = "<template xmlns=\"http://www.xfa.org/schema/xfa-template/3.3/\"><subform>";
+        packets.add(createPacket(pdfDocument, template));
+        packets.add(new PdfString("datasets"));
+        packets.add(createPacket(pdfDocument, "<xfa:datasets xmlns:xfa=\"http://www.xfa.org/schema/xfa-data/1.0/\">"
+                + "<xfa:data><form1><Name>Old</Name></form1></xfa:data></xfa:datasets>"));
+        packets.add(new PdfString("postamble"));
+        packets.add(createPacket(pdfDocument, "</xdp:xdp>"));
+        PdfDictionary acroForm = new PdfDictionary();
+        acroForm.put(PdfName.Fields, new PdfArray());
+        acroForm.put(PdfName.XFA, packets);
+        pdfDocument.getCatalog().put(PdfName.AcroForm, acroForm);
+
+        try {
+            new XfaForm(pdfDocument);
+            Assert.fail("XfaForm is expected to fail on the malformed template packet");
+        } catch (PdfException expected) {
+        }
+        Set<String> notFound = new XfaDatasetsFiller(Collections.singletonMap("Name", "New")).fill(pdfDocument);
+        Assert.assertTrue(notFound.isEmpty());
+        Assert.assertEquals(template, new String(packets.getAsStream(3).getBytes(), StandardCharsets.UTF_8));
+        String datasets = new String(packets.getAsStream(5).getBytes(), StandardCharsets.UTF_8);
+        Assert.assertTrue(datasets.contains("<Name>New</Name>"));
+        pdfDocument.close();
+    }
+
+    private static PdfStream createPacket(PdfDocument pdfDocument, String xml) {
+        return (PdfStream) new PdfStream(xml.getBytes(StandardCharsets.UTF_8)).makeIndirect(pdfDocument);
+    }
+
+    @Test
+    public void fillDatasetsXmlTest() throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<xdp:xdp xmlns:xdp=\"http://ns.adobe.com/xdp/\">"
+                + "<template xmlns=\"http://www.xfa.org/schema/xfa-template/3.3/\"><subform name=\"form1\"/></template>"
+                + "<xfa:datasets xmlns:xfa=\"http://www.xfa.org/schema/xfa-data/1.0/\"><xfa:data><form1>"
+                + "<Name>Old</Name><Name>Second</Name>"
+                + "<Address xfa:dataNode=\"dataGroup\"/>"
+                + "<Notes xfa:dataNode=\"dataValue\"><body xmlns=\"http://www.w3.org/1999/xhtml\"><p>rich</p></body></Notes>"
+                + "</form1></xfa:data></xfa:datasets></xdp:xdp>";
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("form1[0].Name[1]", "New & second");
+        values.put("Notes", "plain");
+        values.put("Address", "Street");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Set<String> notFound = new XfaDatasetsFiller(values).fill(xml.getBytes(StandardCharsets.UTF_8), out);
+        Assert.assertTrue(notFound.isEmpty());
+
+        XfaForm xfaForm = new XfaForm(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals("Old", XfaForm.getNodeText(xfaForm.findDatasetsNode("form1[0].Name[0]")));
+        Assert.assertEquals("New & second", XfaForm.getNodeText(xfaForm.findDatasetsNode("form1[0].Name[1]")));
+        Assert.assertEquals("plain", XfaForm.getNodeText(xfaForm.findDatasetsNode("form1[0].Notes[0]")));
+        Assert.assertEquals("Street", XfaForm.getNodeText(xfaForm.findDatasetsNode("form1[0].Address[0]")));
+        Assert.assertNull(xfaForm.findDatasetsNode("form1[0].Address[0]").getAttributes()
+                .getNamedItemNS(XfaForm.XFA_DATA_SCHEMA, "dataNode"));
+    }
 }
@@ -116,6 +116,7 @@ public class IOException extends RuntimeException {
     public static final String Jbig2ImageException = "JBIG2 image exception.";
     public static final String Jpeg2000ImageException = "JPEG2000 image exception.";
     public static final String JpegImageException = "JPEG image exception.";
+    public static final String LayoutTablesOfClosedFontCannotBeRead = "Layout tables of a closed font cannot be read.";
     public static final String MissingTagsForOjpegCompression = "Missing tag(s) for OJPEG compression";
     public static final String NValueIsNotSupported = "N value {1} is not supported.";
     public static final String NotAtTrueTypeFile = "{0} is not a true type file";
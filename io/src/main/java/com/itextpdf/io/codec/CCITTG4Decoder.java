@@ -0,0 +1,326 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec;
+
+import java.util.Arrays;
+
+/**
+ * Table driven decoder for CCITT Group 4 (T.6) compressed data.
+ * <p>
+ * Compressed bits are read through a 64-bit accumulator, every run length code is resolved
+ * with a single lookup in a table indexed by the longest code of its color and black runs are
+ * written into the packed output buffer a whole byte at a time.
+ * <p>
+ * The decoder produces the same output as {@link TIFFFaxDecoder#decodeT6(byte[], byte[], int, int, long)}.
+ * Streams that use constructs this decoder does not handle itself (uncompressed mode extensions,
+ * unknown or invalid codes, corrupted data) are passed to {@link TIFFFaxDecoder}, so error recovery
+ * and exceptions are exactly those of the original decoder.
+ */
+public class CCITTG4Decoder {
+
+    private static final int WHITE_TABLE_BITS = 12;
+    private static final int BLACK_TABLE_BITS = 13;
+
+    // Entries hold (code length << 16) | run length, 0 marks an invalid code
+    private static final int[] whiteRuns = buildRunTable(CCITTG4Encoder.TIFFFaxWhiteCodes, WHITE_TABLE_BITS);
+    private static final int[] blackRuns = buildRunTable(CCITTG4Encoder.TIFFFaxBlackCodes, BLACK_TABLE_BITS);
+
+    private int fillOrder;
+    private int w;
+    private int h;
+    private boolean recoverFromImageError;
+
+    private byte[] data;
+    // Compressed bits not consumed yet, aligned to the most significant bit
+    private long bitBuffer;
+    private int bitCount;
+    private int nextByte;
+
+    /**
+     * @param fillOrder The fill order of the compressed data bytes.
+     * @param w width
+     * @param h height
+     */
+    public CCITTG4Decoder(int fillOrder, int w, int h) {
+        this.fillOrder = fillOrder;
+        this.w = w;
+        this.h = h;
+    }
+
+    public void setRecoverFromImageError(boolean recoverFromImageError) {
+        this.recoverFromImageError = recoverFromImageError;
+    }
+
+    /**
+     * Decodes T.6 compressed data into a packed, zero-filled buffer with one bit per pixel.
+     *
+     * @param buffer the zero-filled output buffer, (w + 7) / 8 bytes per row
+     * @param compData the compressed data
+     * @param startX the bit offset at which each decoded row starts
+     * @param height the number of rows to decode
+     * @param tiffT6Options the TIFF T6Options value
+     */
+    public void decodeT6(byte[] buffer, byte[] compData, int startX, int height, long tiffT6Options) {
+        boolean decoded;
+        try {
+            decoded = (fillOrder == 1 || fillOrder == 2) && (tiffT6Options & 0x02) == 0
+                    && decodeRows(buffer, compData, startX, height, (tiffT6Options & 0x04) != 0);
+        } catch (IndexOutOfBoundsException e) {
+            decoded = false;
+        }
+        if (!decoded) {
+            Arrays.fill(buffer, (byte) 0);
+            TIFFFaxDecoder decoder = new TIFFFaxDecoder(fillOrder, w, h);
+            decoder.setRecoverFromImageError(recoverFromImageError);
+            decoder.decodeT6(buffer, compData, startX, height, tiffT6Options);
+        }
+    }
+
+    private boolean decodeRows(byte[] buffer, byte[] compData, int startX, int height, boolean byteAligned) {
+        data = compData;
+        bitBuffer = 0;
+        bitCount = 0;
+        nextByte = 0;
+
+        int scanlineStride = (w + 7) / 8;
+        int lastByte = data.length - 1;
+
+        int[] prevChangingElems = new int[2 * w];
+        int[] currChangingElems = new int[2 * w];
+        int[] temp;
+
+        // Assume invisible preceding row of all white pixels
+        int changingElemSize = 0;
+        currChangingElems[changingElemSize++] = w;
+        currChangingElems[changingElemSize++] = w;
+
+        // Reference changing elements, kept across calls as TIFFFaxDecoder does
+        int b1 = 0;
+        int b2 = 0;
+        int lineOffset = 0;
+
+        for (int lines = 0; lines < height; lines++) {
+            int a0 = -1;
+            boolean isWhite = true;
+
+            temp = prevChangingElems;
+            prevChangingElems = currChangingElems;
+            currChangingElems = temp;
+            int currIndex = 0;
+            int lastChangingElement = 0;
+
+            int bitOffset = startX;
+
+            if (byteAligned) {
+                int bitsLeft = 8 - (int) (consumedBits() & 7);
+                if (bitsLeft < 8) {
+                    fill();
+                    if (peek(bitsLeft) != 0) {
+                        return false;
+                    }
+                    skip(bitsLeft);
+                }
+            }
+
+            while (bitOffset < w && (consumedBits() >>> 3) < lastByte) {
+                // Find b1 and b2 on the reference line
+                int start = lastChangingElement > 0 ? lastChangingElement - 1 : 0;
+                start = isWhite ? start & ~0x1 : start | 0x1;
+                int i = start;
+                for (; i < changingElemSize; i += 2) {
+                    int temp1 = prevChangingElems[i];
+                    if (temp1 > a0) {
+                        lastChangingElement = i;
+                        b1 = temp1;
+                        break;
+                    }
+                }
+                if (i + 1 < changingElemSize) {
+                    b2 = prevChangingElems[i + 1];
+                }
+
+                if (bitCount < 32) {
+                    fill();
+                }
+                int entry = TIFFFaxDecoder.twoDCodes[peek(7)] & 0xff;
+                int code = (entry & 0x78) >>> 3;
+                skip(entry & 0x07);
+
+                if (code == 0) { // Pass
+                    if (!isWhite) {
+                        fillBlack(buffer, lineOffset, bitOffset, b2 - bitOffset);
+                    }
+                    bitOffset = a0 = b2;
+                } else if (code == 1) { // Horizontal
+                    int first = decodeRun(isWhite ? whiteRuns : blackRuns, isWhite ? WHITE_TABLE_BITS : BLACK_TABLE_BITS);
+                    if (first < 0) {
+                        return false;
+                    }
+                    if (!isWhite) {
+                        fillBlack(buffer, lineOffset, bitOffset, first);
+                    }
+                    bitOffset += first;
+                    currChangingElems[currIndex++] = bitOffset;
+
+                    int second = decodeRun(isWhite ? blackRuns : whiteRuns, isWhite ? BLACK_TABLE_BITS : WHITE_TABLE_BITS);
+                    if (second < 0) {
+                        return false;
+                    }
+                    if (isWhite) {
+                        fillBlack(buffer, lineOffset, bitOffset, second);
+                    }
+                    bitOffset += second;
+                    currChangingElems[currIndex++] = bitOffset;
+
+                    a0 = bitOffset;
+                } else if (code <= 8) { // Vertical
+                    int a1 = b1 + (code - 5);
+                    currChangingElems[currIndex++] = a1;
+                    if (!isWhite) {
+                        fillBlack(buffer, lineOffset, bitOffset, a1 - bitOffset);
+                    }
+                    bitOffset = a0 = a1;
+                    isWhite = !isWhite;
+                } else {
+                    // Extensions and unknown codes are left to TIFFFaxDecoder
+                    return false;
+                }
+            }
+
+            if (currIndex < currChangingElems.length) {
+                currChangingElems[currIndex++] = bitOffset;
+            }
+            changingElemSize = currIndex;
+
+            lineOffset += scanlineStride;
+        }
+        return true;
+    }
+
+    // Returns the length of the run, or -1 if an invalid code is found
+    private int decodeRun(int[] table, int tableBits) {
+        int runLength = 0;
+        for (;;) {
+            if (bitCount < 32) {
+                fill();
+            }
+            int entry = table[peek(tableBits)];
+            if (entry == 0) {
+                return -1;
+            }
+            skip(entry >>> 16);
+            int run = entry & 0xffff;
+            runLength += run;
+            if (run < 64) {
+                // Terminating code
+                return runLength;
+            }
+        }
+    }
+
+    private long consumedBits() {
+        return ((long) nextByte << 3) - bitCount;
+    }
+
+    private int peek(int bits) {
+        return (int) (bitBuffer >>> (64 - bits));
+    }
+
+    private void skip(int bits) {
+        bitBuffer <<= bits;
+        bitCount -= bits;
+    }
+
+    // Tops up the accumulator, bytes past the end of data read as zeros
+    private void fill() {
+        while (bitCount <= 56) {
+            int b = nextByte < data.length ? data[nextByte] & 0xff : 0;
+            if (fillOrder == 2) {
+                b = TIFFFaxDecoder.flipTable[b] & 0xff;
+            }
+            ++nextByte;
+            bitBuffer |= (long) b << (56 - bitCount);
+            bitCount += 8;
+        }
+    }
+
+    private static void fillBlack(byte[] buffer, int lineOffset, int bitOffset, int numBits) {
+        if (numBits <= 0) {
+            return;
+        }
+        int firstBit = (lineOffset << 3) + bitOffset;
+        int lastBit = firstBit + numBits - 1;
+        int firstByte = firstBit >> 3;
+        int lastByte = lastBit >> 3;
+        int firstMask = 0xff >>> (firstBit & 0x7);
+        int lastMask = (0xff << (7 - (lastBit & 0x7))) & 0xff;
+        if (firstByte == lastByte) {
+            buffer[firstByte] |= (byte) (firstMask & lastMask);
+        } else {
+            buffer[firstByte] |= (byte) firstMask;
+            for (int k = firstByte + 1; k < lastByte; ++k) {
+                buffer[k] = (byte) 0xff;
+            }
+            buffer[lastByte] |= (byte) lastMask;
+        }
+    }
+
+    private static int[] buildRunTable(int[][] codes, int tableBits) {
+        int[] table = new int[1 << tableBits];
+        for (int[] code : codes) {
+            int runLength = code[CCITTG4Encoder.RUNLEN];
+            if (runLength < 0) {
+                // EOL and invalid codes stay 0
+                continue;
+            }
+            int length = code[CCITTG4Encoder.LENGTH];
+            int first = code[CCITTG4Encoder.CODE] << (tableBits - length);
+            int last = first + (1 << (tableBits - length));
+            for (int k = first; k < last; ++k) {
+                table[k] = (length << 16) | runLength;
+            }
+        }
+        return table;
+    }
+}
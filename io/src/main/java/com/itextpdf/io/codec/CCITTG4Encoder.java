@@ -342,9 +342,9 @@ public class CCITTG4Encoder {
             4, 4, 4, 4, 4, 4, 4, 4, 5, 5, 5, 5, 6, 6, 7, 8	/* 0xf0 - 0xff */
     };
 
-    private static final int LENGTH = 0; /* bit length of g3 code */
-    private static final int CODE = 1;   /* g3 code */
-    private static final int RUNLEN = 2; /* run length in bits */
+    static final int LENGTH = 0; /* bit length of g3 code */
+    static final int CODE = 1;   /* g3 code */
+    static final int RUNLEN = 2; /* run length in bits */
 
     private static final int EOL = 0x001; /* EOL code value - 0000 0000 0000 1 */
 
@@ -354,7 +354,7 @@ public class CCITTG4Encoder {
     private static final int G3CODE_EOF = -3;     /* end of input data */
     private static final int G3CODE_INCOMP = -4;  /* incomplete run code */
 
-    private int[][] TIFFFaxWhiteCodes = {
+    static final int[][] TIFFFaxWhiteCodes = {
             { 8, 0x35, 0 },	/* 0011 0101 */
             { 6, 0x7, 1 },	/* 0001 11 */
             { 4, 0x7, 2 },	/* 0111 */
@@ -466,7 +466,7 @@ public class CCITTG4Encoder {
             { 12, 0x0, G3CODE_INVALID }	/* 0000 0000 0000 */
     };
 
-    private int[][] TIFFFaxBlackCodes = {
+    static final int[][] TIFFFaxBlackCodes = {
             { 10, 0x37, 0 },	/* 0000 1101 11 */
             { 3, 0x2, 1 },	/* 010 */
             { 2, 0x3, 2 },	/* 11 */
@@ -26,11 +26,13 @@ final class IntReader {
    * NB: intLen should be less or equal to intBuffer length.
    */
   static void convert(IntReader ir, int intLen) {
-    for (int i = 0; i < intLen; ++i) {
-      ir.intBuffer[i] = ((ir.byteBuffer[i * 4] & 0xFF))
-          | ((ir.byteBuffer[(i * 4) + 1] & 0xFF) << 8)
-          | ((ir.byteBuffer[(i * 4) + 2] & 0xFF) << 16)
-          | ((ir.byteBuffer[(i * 4) + 3] & 0xFF) << 24);
+    byte[] byteBuffer = ir.byteBuffer;
+    int[] intBuffer = ir.intBuffer;
+    for (int i = 0, j = 0; i < intLen; ++i, j += 4) {
+      intBuffer[i] = (byteBuffer[j] & 0xFF)
+          | ((byteBuffer[j + 1] & 0xFF) << 8)
+          | ((byteBuffer[j + 2] & 0xFF) << 16)
+          | (byteBuffer[j + 3] << 24);
     }
   }
 }
@@ -0,0 +1,156 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.io.font;
+
+import com.itextpdf.io.font.woff2.Woff2Converter;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the results of WOFF and WOFF2 to sfnt conversion, so that the same web font passed
+ * to {@link FontProgramFactory} several times, e.g. by a number of HTML documents referencing it,
+ * is decompressed only once. Entries are keyed by the SHA-256 digest of the compressed font bytes
+ * and evicted in least recently used order once the total size of decoded fonts exceeds
+ * {@link #MAX_CACHED_BYTES}.
+ * <p>
+ * The returned arrays are shared between callers and shall not be modified.
+ */
+final class DecodedWebFontCache {
+
+    /**
+     * The maximum total size of decoded font programs held by the cache.
+     */
+    static final int MAX_CACHED_BYTES = 32 * 1024 * 1024;
+
+    private static final byte WOFF = 1;
+    private static final byte WOFF2 = 2;
+
+    private static final Map<ByteBuffer, byte[]> decodedFonts = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedBytes = 0;
+
+    private DecodedWebFontCache() {
+    }
+
+    /**
+     * Converts WOFF font bytes to sfnt, reusing the result of a previous conversion of the same bytes.
+     *
+     * @param woffBytes the WOFF font program
+     * @return the sfnt font program
+     * @throws java.io.IOException if the font cannot be decompressed
+     */
+    static byte[] convertWoff(byte[] woffBytes) throws java.io.IOException {
+        ByteBuffer key = createKey(WOFF, woffBytes);
+        byte[] decoded = get(key);
+        if (decoded == null) {
+            decoded = WoffConverter.convert(woffBytes);
+            put(key, decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * Converts WOFF2 font bytes to sfnt, reusing the result of a previous conversion of the same bytes.
+     *
+     * @param woff2Bytes the WOFF2 font program
+     * @return the sfnt font program
+     */
+    static byte[] convertWoff2(byte[] woff2Bytes) {
+        ByteBuffer key = createKey(WOFF2, woff2Bytes);
+        byte[] decoded = get(key);
+        if (decoded == null) {
+            decoded = Woff2Converter.convert(woff2Bytes);
+            put(key, decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * Removes all the decoded fonts from the cache.
+     */
+    static synchronized void clear() {
+        decodedFonts.clear();
+        cachedBytes = 0;
+    }
+
+    static synchronized int size() {
+        return decodedFonts.size();
+    }
+
+    private static synchronized byte[] get(ByteBuffer key) {
+        return decodedFonts.get(key);
+    }
+
+    private static synchronized void put(ByteBuffer key, byte[] decoded) {
+        if (decoded.length > MAX_CACHED_BYTES) {
+            return;
+        }
+        byte[] previous = decodedFonts.put(key, decoded);
+        if (previous != null) {
+            cachedBytes -= previous.length;
+        }
+        cachedBytes += decoded.length;
+        Iterator<byte[]> eldest = decodedFonts.values().iterator();
+        while (cachedBytes > MAX_CACHED_BYTES && eldest.hasNext()) {
+            cachedBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    private static ByteBuffer createKey(byte format, byte[] compressed) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        md.update(format);
+        md.update(compressed);
+        return ByteBuffer.wrap(md.digest());
+    }
+}
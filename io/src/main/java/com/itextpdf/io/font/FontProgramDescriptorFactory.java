@@ -44,7 +44,6 @@ package com.itextpdf.io.font;
 
 import com.itextpdf.io.IOException;
 import com.itextpdf.io.font.constants.StandardFonts;
-import com.itextpdf.io.font.woff2.Woff2Converter;
 
 public final class FontProgramDescriptorFactory {
     private static boolean FETCH_CACHED_FIRST = true;
@@ -78,9 +77,9 @@ public final class FontProgramDescriptorFactory {
             } else if (fontNameLowerCase.endsWith(".woff") || fontNameLowerCase.endsWith(".woff2")) {
                 byte[] fontProgram;
                 if (fontNameLowerCase.endsWith(".woff")) {
-                    fontProgram = WoffConverter.convert(FontProgramFactory.readFontBytesFromPath(baseName));
+                    fontProgram = DecodedWebFontCache.convertWoff(FontProgramFactory.readFontBytesFromPath(baseName));
                 } else {
-                    fontProgram = Woff2Converter.convert(FontProgramFactory.readFontBytesFromPath(baseName));
+                    fontProgram = DecodedWebFontCache.convertWoff2(FontProgramFactory.readFontBytesFromPath(baseName));
                 }
                 fontDescriptor = fetchTrueTypeFontDescriptor(fontProgram);
             } else {
@@ -174,9 +174,9 @@ public final class FontProgramFactory {
             if (fontProgram != null) {
                 try {
                     if (WoffConverter.isWoffFont(fontProgram)) {
-                        fontProgram = WoffConverter.convert(fontProgram);
+                        fontProgram = DecodedWebFontCache.convertWoff(fontProgram);
                     } else if (Woff2Converter.isWoff2Font(fontProgram)) {
-                        fontProgram = Woff2Converter.convert(fontProgram);
+                        fontProgram = DecodedWebFontCache.convertWoff2(fontProgram);
                     }
                     fontBuilt = new TrueTypeFont(fontProgram);
                 } catch (Exception ignored) {
@@ -210,13 +210,13 @@ public final class FontProgramFactory {
                 }
                 if (".woff".equals(fontFileExtension)) {
                     try {
-                        fontProgram = WoffConverter.convert(fontProgram);
+                        fontProgram = DecodedWebFontCache.convertWoff(fontProgram);
                     } catch (IllegalArgumentException woffException) {
                         throw new IOException(IOException.InvalidWoffFile, woffException);
                     }
                 } else { // ".woff2".equals(fontFileExtension)
                     try {
-                        fontProgram = Woff2Converter.convert(fontProgram);
+                        fontProgram = DecodedWebFontCache.convertWoff2(fontProgram);
                     } catch (FontCompressionException woff2Exception) {
                         throw new IOException(IOException.InvalidWoff2File, woff2Exception);
                     }
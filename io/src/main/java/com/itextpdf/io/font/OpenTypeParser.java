@@ -235,8 +235,8 @@ class OpenTypeParser implements Serializable, Closeable {
 
     public OpenTypeParser(String ttcPath, int ttcIndex) throws java.io.IOException {
         this.ttcIndex = ttcIndex;
-        raf = new RandomAccessFileOrArray(new RandomAccessSourceFactory().createBestSource(ttcPath));
-        initializeSfntTables();
+        raf = new RandomAccessFileOrArray(SharedFontSources.obtain(ttcPath));
+        initializeSfntTablesOrClose();
     }
 
     public OpenTypeParser(String name) throws java.io.IOException {
@@ -245,8 +245,8 @@ class OpenTypeParser implements Serializable, Closeable {
         if (ttcName.length() < name.length()) {
             ttcIndex = Integer.parseInt(name.substring(ttcName.length() + 1));
         }
-        raf = new RandomAccessFileOrArray(new RandomAccessSourceFactory().createBestSource(fileName));
-        initializeSfntTables();
+        raf = new RandomAccessFileOrArray(SharedFontSources.obtain(fileName));
+        initializeSfntTablesOrClose();
     }
 
     /**
@@ -387,6 +387,19 @@ class OpenTypeParser implements Serializable, Closeable {
         raf = null;
     }
 
+    private void initializeSfntTablesOrClose() throws java.io.IOException {
+        boolean initialized = false;
+        try {
+            initializeSfntTables();
+            initialized = true;
+        } finally {
+            if (!initialized) {
+                // release the shared source reference of a file that is not a valid font
+                close();
+            }
+        }
+    }
+
     private void initializeSfntTables() throws java.io.IOException {
         tables = new LinkedHashMap<>();
         if (ttcIndex >= 0) {
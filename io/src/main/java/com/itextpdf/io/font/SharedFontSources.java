@@ -0,0 +1,152 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.io.font;
+
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.io.source.ThreadSafeRandomAccessSource;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares a single {@link IRandomAccessSource} between all the font programs opened from the same file,
+ * including all the faces of a TrueType collection. Files are memory mapped by
+ * {@link RandomAccessSourceFactory#createBestSource(String)}, resources are read into memory once.
+ * <p>
+ * Every {@link #obtain(String)} call returns a separate reference; the shared source is closed when
+ * the last reference is closed.
+ */
+final class SharedFontSources {
+
+    private static final Map<String, SharedSource> sources = new HashMap<>();
+
+    private SharedFontSources() {
+    }
+
+    /**
+     * Gets a reference to the shared source of the passed font file or resource.
+     *
+     * @param filename the name of the font file or resource
+     * @return the source reference, which shall be closed once it is not used anymore
+     * @throws java.io.IOException if the source cannot be created
+     */
+    static IRandomAccessSource obtain(String filename) throws java.io.IOException {
+        String key = createKey(filename);
+        synchronized (sources) {
+            SharedSource shared = sources.get(key);
+            if (shared == null) {
+                IRandomAccessSource source = new RandomAccessSourceFactory().createBestSource(filename);
+                shared = new SharedSource(key, new ThreadSafeRandomAccessSource(source));
+                sources.put(key, shared);
+            }
+            shared.references++;
+            return new SourceReference(shared);
+        }
+    }
+
+    static int size() {
+        synchronized (sources) {
+            return sources.size();
+        }
+    }
+
+    private static void release(SharedSource shared) throws java.io.IOException {
+        synchronized (sources) {
+            if (--shared.references == 0) {
+                sources.remove(shared.key);
+                shared.source.close();
+            }
+        }
+    }
+
+    private static String createKey(String filename) throws java.io.IOException {
+        File file = new File(filename);
+        if (file.canRead()) {
+            // a modified file shall not be served from a stale mapping
+            return file.getCanonicalPath() + '|' + file.lastModified() + '|' + file.length();
+        }
+        return filename;
+    }
+
+    private static class SharedSource {
+        final String key;
+        final IRandomAccessSource source;
+        int references;
+
+        SharedSource(String key, IRandomAccessSource source) {
+            this.key = key;
+            this.source = source;
+        }
+    }
+
+    private static class SourceReference implements IRandomAccessSource {
+        private final SharedSource shared;
+        private boolean closed;
+
+        SourceReference(SharedSource shared) {
+            this.shared = shared;
+        }
+
+        public int get(long position) throws java.io.IOException {
+            return shared.source.get(position);
+        }
+
+        public int get(long position, byte[] bytes, int off, int len) throws java.io.IOException {
+            return shared.source.get(position, bytes, off, len);
+        }
+
+        public long length() {
+            return shared.source.length();
+        }
+
+        public synchronized void close() throws java.io.IOException {
+            if (!closed) {
+                closed = true;
+                release(shared);
+            }
+        }
+    }
+}
@@ -81,7 +81,7 @@ public class TrueTypeCollection {
         if (!FileUtil.fileExists(ttcPath)) {
             throw new IOException(IOException.FontFile1NotFound).setMessageParams(ttcPath);
         }
-        raf = new RandomAccessFileOrArray(new RandomAccessSourceFactory().createBestSource(ttcPath));
+        raf = new RandomAccessFileOrArray(SharedFontSources.obtain(ttcPath));
         this.ttcPath = ttcPath;
         initFontSize();
     }
@@ -72,6 +72,8 @@ public class TrueTypeFont extends FontProgram {
     private GlyphSubstitutionTableReader gsubTable;
     private GlyphPositioningTableReader gposTable;
     private OpenTypeGdefTableReader gdefTable;
+    private boolean layoutTablesRead;
+    private boolean closed;
 
     /**
      * The map containing the kerning information. It represents the content of
@@ -192,14 +194,17 @@ public class TrueTypeFont extends FontProgram {
     }
 
     public GlyphSubstitutionTableReader getGsubTable() {
+        ensureLayoutTablesRead();
         return gsubTable;
     }
 
     public GlyphPositioningTableReader getGposTable() {
+        ensureLayoutTablesRead();
         return gposTable;
     }
 
     public OpenTypeGdefTableReader getGdefTable() {
+        ensureLayoutTablesRead();
         return gdefTable;
     }
 
@@ -326,13 +331,34 @@ public class TrueTypeFont extends FontProgram {
             avgWidth /= codeToGlyph.size();
         }
 
-        readGdefTable();
-        readGsubTable();
-        readGposTable();
-
         isVertical = false;
     }
 
+    /**
+     * GDEF, GSUB and GPOS tables are only needed for advanced typography, and parsing them is
+     * expensive for large CJK fonts, so they are read on the first request rather than on font construction.
+     */
+    private synchronized void ensureLayoutTablesRead() {
+        if (layoutTablesRead) {
+            return;
+        }
+        if (closed) {
+            throw new IOException(IOException.LayoutTablesOfClosedFontCannotBeRead);
+        }
+        if (fontParser == null) {
+            return;
+        }
+        try {
+            readGdefTable();
+            readGsubTable();
+            readGposTable();
+        } catch (java.io.IOException e) {
+            throw new IOException(IOException.IoException, e);
+        }
+        // the tables are read again on the next request if reading failed
+        layoutTablesRead = true;
+    }
+
     /**
      * Gets the code pages supported by the font.
      *
@@ -358,9 +384,10 @@ public class TrueTypeFont extends FontProgram {
         return ret;
     }
 
-    public void close() throws java.io.IOException {
+    public synchronized void close() throws java.io.IOException {
         if (fontParser != null) {
             fontParser.close();
+            closed = true;
         }
         fontParser = null;
     }
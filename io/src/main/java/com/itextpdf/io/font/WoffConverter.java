@@ -42,10 +42,13 @@
  */
 package com.itextpdf.io.font;
 
-import java.io.ByteArrayInputStream;
+import com.itextpdf.io.util.ZlibCodecPool;
+
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.InflaterInputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
 
 class WoffConverter {
 
@@ -182,38 +185,42 @@ class WoffConverter {
         }
 
         for (TableDirectory td : tdList) {
-            byte[] compressedData = new byte[(int) td.compLength];
-            byte[] uncompressedData;
-            System.arraycopy(woffBytes, (int) td.offset, compressedData, 0, (int) td.compLength);
             int expectedUncompressedLen = (int) td.origLengthVal;
             if (td.compLength > td.origLengthVal) {
                 throw new IllegalArgumentException();
             }
             if (td.compLength != td.origLengthVal) {
-                ByteArrayInputStream stream = new ByteArrayInputStream(compressedData);
-                InflaterInputStream zip = new InflaterInputStream(stream);
-                uncompressedData = new byte[expectedUncompressedLen];
-                int bytesRead = 0;
-                while (expectedUncompressedLen - bytesRead > 0) {
-                    int readRes = zip.read(uncompressedData, bytesRead, expectedUncompressedLen - bytesRead);
-                    if (readRes < 0) {
-                        throw new IllegalArgumentException();
-                    }
-                    bytesRead += readRes;
-                }
-                if (zip.read() >= 0) {
-                    throw new IllegalArgumentException();
-                }
+                inflateTable(woffBytes, (int) td.offset, (int) td.compLength, otfBytes, td.outOffset, expectedUncompressedLen);
             } else {
-                uncompressedData = compressedData;
+                System.arraycopy(woffBytes, (int) td.offset, otfBytes, td.outOffset, expectedUncompressedLen);
             }
-
-            System.arraycopy(uncompressedData, 0, otfBytes, td.outOffset, expectedUncompressedLen);
         }
 
         return otfBytes;
     }
 
+    private static void inflateTable(byte[] src, int srcPos, int srcLen, byte[] dest, int destPos, int destLen) throws java.io.IOException {
+        Inflater inflater = ZlibCodecPool.obtainInflater();
+        try {
+            inflater.setInput(src, srcPos, srcLen);
+            int bytesRead = 0;
+            while (bytesRead < destLen) {
+                int readRes = inflater.inflate(dest, destPos + bytesRead, destLen - bytesRead);
+                if (readRes == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException();
+                }
+                bytesRead += readRes;
+            }
+            if (!inflater.finished() && inflater.inflate(new byte[1]) != 0) {
+                throw new IllegalArgumentException();
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        } finally {
+            ZlibCodecPool.releaseInflater(inflater);
+        }
+    }
+
     private static long bytesToUInt(byte[] b, int start) {
         return (b[start] & 0xFFL) << 24
                 | (b[start + 1] & 0xFFL) << 16
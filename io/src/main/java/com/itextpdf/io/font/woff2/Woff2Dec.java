@@ -740,7 +740,7 @@ class Woff2Dec {
         try {
             BrotliInputStream stream = new BrotliInputStream(new ByteArrayInputStream(src_buf, src_offset, src_length));
             while (remain > 0) {
-                int read = stream.read(dst_buf, dst_offset, dst_length);
+                int read = stream.read(dst_buf, dst_offset + dst_length - remain, remain);
                 if (read < 0) {
                     throw new FontCompressionException(FontCompressionException.BROTLI_DECODING_FAILED);
                 }
@@ -44,6 +44,7 @@
 package com.itextpdf.io.image;
 
 import com.itextpdf.io.IOException;
+import com.itextpdf.io.codec.CCITTG4Decoder;
 import com.itextpdf.io.codec.CCITTG4Encoder;
 import com.itextpdf.io.codec.TIFFConstants;
 import com.itextpdf.io.codec.TIFFDirectory;
@@ -253,7 +254,9 @@ class TiffImageHelper {
                             break;
                         case TIFFConstants.COMPRESSION_CCITTFAX4:
                             try {
-                                decoder.decodeT6(outBuf, im, 0, height, tiffT6Options);
+                                CCITTG4Decoder g4Decoder = new CCITTG4Decoder(fillOrder, w, height);
+                                g4Decoder.setRecoverFromImageError(recoverFromImageError);
+                                g4Decoder.decodeT6(outBuf, im, 0, height, tiffT6Options);
                             } catch (IOException e) {
                                 if (!recoverFromImageError) {
                                     throw e;
@@ -48,7 +48,7 @@ import java.io.Serializable;
 /**
  * A RandomAccessSource that is based on an underlying byte array
  */
-class ArrayRandomAccessSource implements IRandomAccessSource, Serializable {
+class ArrayRandomAccessSource implements IRandomAccessSource, IByteBufferSource, Serializable {
 
     private static final long serialVersionUID = 8497059230517630513L;
 
@@ -78,6 +78,18 @@ class ArrayRandomAccessSource implements IRandomAccessSource, Serializable {
         return len;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long get(long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        if (array == null) throw new IllegalStateException("Already closed");
+        if (position >= array.length || length <= 0)
+            return 0;
+        int count = (int) Math.min(length, array.length - position);
+        consumer.accept(java.nio.ByteBuffer.wrap(array, (int) position, count));
+        return count;
+    }
+
     public long length() {
         return array.length;
     }
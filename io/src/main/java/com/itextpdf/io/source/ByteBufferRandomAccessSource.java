@@ -71,7 +71,7 @@ import static java.lang.invoke.MethodType.methodType;
  * A RandomAccessSource that is based on an underlying {@link java.nio.ByteBuffer}.  This class takes steps to ensure that the byte buffer
  * is completely freed from memory during {@link ByteBufferRandomAccessSource#close()}
  */
-class ByteBufferRandomAccessSource implements IRandomAccessSource, Serializable {
+class ByteBufferRandomAccessSource implements IRandomAccessSource, IByteBufferSource, Serializable {
 
     private static final long serialVersionUID = -1477190062876186034L;
     /**
@@ -132,6 +132,22 @@ class ByteBufferRandomAccessSource implements IRandomAccessSource, Serializable
         return bytesFromThisBuffer;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long get(long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        int limit = ((Buffer) byteBuffer).limit();
+        if (position >= limit || length <= 0) {
+            return 0;
+        }
+        int count = (int) Math.min(length, limit - position);
+        // a duplicate keeps the position and limit of the shared buffer intact
+        java.nio.ByteBuffer slice = byteBuffer.duplicate();
+        ((Buffer) slice).position((int) position);
+        ((Buffer) slice).limit((int) position + count);
+        consumer.accept(slice);
+        return count;
+    }
 
     /**
      * {@inheritDoc}
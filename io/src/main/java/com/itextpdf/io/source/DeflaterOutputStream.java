@@ -43,14 +43,27 @@
  */
 package com.itextpdf.io.source;
 
+import com.itextpdf.io.util.ZlibCodecPool;
+
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.zip.Deflater;
 
+/**
+ * Deflates data written to it into the underlying stream.
+ * The {@link Deflater} is taken from a per-thread pool and given back when the stream is finished,
+ * so the stream must not be written to after {@link #finish()}.
+ */
 public class DeflaterOutputStream extends java.util.zip.DeflaterOutputStream {
 
+    private boolean finished;
+
+    public DeflaterOutputStream(OutputStream out, int level, int strategy, int size) {
+        super(out, ZlibCodecPool.obtainDeflater(level, strategy), size);
+    }
+
     public DeflaterOutputStream(OutputStream out, int level, int size) {
-        super(out, new Deflater(level), size);
+        this(out, level, Deflater.DEFAULT_STRATEGY, size);
     }
 
     public DeflaterOutputStream(OutputStream out, int level) {
@@ -69,7 +82,10 @@ public class DeflaterOutputStream extends java.util.zip.DeflaterOutputStream {
 
     @Override
     public void finish() throws IOException {
-        super.finish();
-        def.end();
+        if (!finished) {
+            super.finish();
+            finished = true;
+            ZlibCodecPool.releaseDeflater(def);
+        }
     }
 }
@@ -58,7 +58,7 @@ import org.slf4j.LoggerFactory;
  * A RandomAccessSource that is based on an underlying {@link java.nio.channels.FileChannel}.
  * The entire channel will be mapped into memory for efficient reads.
  */
-public class FileChannelRandomAccessSource implements IRandomAccessSource {
+public class FileChannelRandomAccessSource implements IRandomAccessSource, IByteBufferSource {
 
     /**
      * The channel this source is based on
@@ -115,6 +115,13 @@ public class FileChannelRandomAccessSource implements IRandomAccessSource {
         return source.get(position, bytes, off, len);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long get(long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        return source.get(position, length, consumer);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -45,7 +45,7 @@ package com.itextpdf.io.source;
 
 import java.io.Serializable;
 
-public class GetBufferedRandomAccessSource implements IRandomAccessSource, Serializable {
+public class GetBufferedRandomAccessSource implements IRandomAccessSource, IByteBufferSource, Serializable {
 
     private static final long serialVersionUID = -8922625738755763494L;
     private final IRandomAccessSource source;
@@ -87,6 +87,13 @@ public class GetBufferedRandomAccessSource implements IRandomAccessSource, Seria
         return source.get(position, bytes, off, len);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long get(long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        return RandomAccessSourceUtil.read(source, position, length, consumer);
+    }
+
     /**
      * {@inheritDoc}
      */
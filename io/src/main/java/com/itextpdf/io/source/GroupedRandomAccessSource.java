@@ -54,7 +54,7 @@ import org.slf4j.LoggerFactory;
  * A RandomAccessSource that is based on a set of underlying sources,
  * treating the sources as if they were a contiguous block of data.
  */
-class GroupedRandomAccessSource implements IRandomAccessSource, Serializable {
+class GroupedRandomAccessSource implements IRandomAccessSource, IByteBufferSource, Serializable {
 
     private static final long serialVersionUID = 3417070797788862099L;
     /**
@@ -201,6 +201,24 @@ class GroupedRandomAccessSource implements IRandomAccessSource, Serializable {
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public long get(long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        long passed = 0;
+        while (passed < length) {
+            SourceEntry entry = getSourceEntryForOffset(position + passed);
+            if (entry == null) // we have run out of data to read from
+                break;
+            long offN = entry.offsetN(position + passed);
+            long count = RandomAccessSourceUtil.read(entry.source, offN, Math.min(length - passed, entry.source.length() - offN), consumer);
+            if (count <= 0)
+                break;
+            passed += count;
+        }
+        return passed;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -47,7 +47,7 @@ package com.itextpdf.io.source;
  * A RandomAccessSource that is wraps another RandomAccessSource but does not propagate close().  This is useful when
  * passing a RandomAccessSource to a method that would normally close the source.
  */
-public class IndependentRandomAccessSource implements IRandomAccessSource {
+public class IndependentRandomAccessSource implements IRandomAccessSource, IByteBufferSource {
     /**
      * The source
      */
@@ -76,6 +76,13 @@ public class IndependentRandomAccessSource implements IRandomAccessSource {
         return source.get(position, bytes, off, len);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long get(long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        return RandomAccessSourceUtil.read(source, position, length, consumer);
+    }
+
     /**
      * {@inheritDoc}
      */
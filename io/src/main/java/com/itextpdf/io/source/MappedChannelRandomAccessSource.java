@@ -51,7 +51,7 @@ import java.nio.channels.FileChannel;
  * This class is an internal implementation detail of the {@link FileChannelRandomAccessSource} class and
  * shouldn't be used by general iText users.
  */
-class MappedChannelRandomAccessSource implements IRandomAccessSource {
+class MappedChannelRandomAccessSource implements IRandomAccessSource, IByteBufferSource {
     /**
      * The underlying channel
      */
@@ -122,6 +122,15 @@ class MappedChannelRandomAccessSource implements IRandomAccessSource {
         return source.get(position, bytes, off, len);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long get(long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        if (source == null)
+            throw new java.io.IOException("RandomAccessSource not opened");
+        return source.get(position, length, consumer);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,106 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This file is a helper class for internal usage only.
+ * Be aware that it's API and functionality may be changed in future.
+ */
+public final class RandomAccessSourceUtil {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private RandomAccessSourceUtil() {
+    }
+
+    /**
+     * Passes the content of the specified ranges of the source to the consumer. Memory mapped and byte array
+     * based sources are passed as {@link ByteBuffer} views of their content, other sources are read to
+     * an intermediate buffer.
+     *
+     * @param source   the source to read
+     * @param ranges   the ranges to read, as pairs of start position and length
+     * @param consumer the consumer of the content
+     * @return the total number of bytes passed to the consumer
+     * @throws java.io.IOException in case of any reading error
+     */
+    public static long read(IRandomAccessSource source, long[] ranges, IByteBufferConsumer consumer) throws java.io.IOException {
+        long total = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            total += read(source, ranges[i], ranges[i + 1], consumer);
+        }
+        return total;
+    }
+
+    /**
+     * Passes the content of the specified region of the source to the consumer.
+     *
+     * @param source   the source to read
+     * @param position the position of the first byte to read
+     * @param length   the number of bytes to read
+     * @param consumer the consumer of the content
+     * @return the number of bytes passed to the consumer, which is less than {@code length} if the region exceeds the source
+     * @throws java.io.IOException in case of any reading error
+     */
+    public static long read(IRandomAccessSource source, long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        long passed = 0;
+        if (source instanceof IByteBufferSource) {
+            passed = ((IByteBufferSource) source).get(position, length, consumer);
+        }
+        if (passed < length) {
+            byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, length - passed)];
+            while (passed < length) {
+                int count = source.get(position + passed, buffer, 0, (int) Math.min(buffer.length, length - passed));
+                if (count <= 0) {
+                    break;
+                }
+                consumer.accept(ByteBuffer.wrap(buffer, 0, count));
+                passed += count;
+            }
+        }
+        return passed;
+    }
+}
@@ -44,7 +44,7 @@ package com.itextpdf.io.source;
 
 import java.io.IOException;
 
-public class ThreadSafeRandomAccessSource implements IRandomAccessSource {
+public class ThreadSafeRandomAccessSource implements IRandomAccessSource, IByteBufferSource {
     private final IRandomAccessSource source;
     private final Object lockObj = new Object();
     
@@ -66,6 +66,13 @@ public class ThreadSafeRandomAccessSource implements IRandomAccessSource {
         }
     }
 
+    @Override
+    public long get(long position, long length, IByteBufferConsumer consumer) throws IOException {
+        synchronized (lockObj) {
+            return RandomAccessSourceUtil.read(source, position, length, consumer);
+        }
+    }
+
     @Override
     public long length() {
         synchronized (lockObj) {
@@ -49,7 +49,7 @@ import java.io.Serializable;
  * A RandomAccessSource that wraps another RandomAccessSource and provides a window of it at a specific offset and over
  * a specific length.  Position 0 becomes the offset position in the underlying source.
  */
-public class WindowRandomAccessSource implements IRandomAccessSource, Serializable {
+public class WindowRandomAccessSource implements IRandomAccessSource, IByteBufferSource, Serializable {
     private static final long serialVersionUID = -8539987600466289182L;
     /**
      * The source
@@ -108,6 +108,16 @@ public class WindowRandomAccessSource implements IRandomAccessSource, Serializab
         return source.get(offset + position, bytes, off, (int)toRead);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long get(long position, long length, IByteBufferConsumer consumer) throws java.io.IOException {
+        if (position >= this.length)
+            return 0;
+        long toRead = Math.min(length, this.length - position);
+        return RandomAccessSourceUtil.read(source, offset + position, toRead, consumer);
+    }
+
     /**
      * {@inheritDoc}
      * Note that the length will be adjusted to read from the corrected location in the underlying source
@@ -77,7 +77,8 @@ public final class FilterUtil {
      */
     public static byte[] flateDecode(byte[] input, boolean strict) {
         ByteArrayInputStream stream = new ByteArrayInputStream(input);
-        InflaterInputStream zip = new InflaterInputStream(stream);
+        Inflater inflater = ZlibCodecPool.obtainInflater();
+        InflaterInputStream zip = new InflaterInputStream(stream, inflater);
         ByteArrayOutputStream output = new ByteArrayOutputStream();
         byte[] b = new byte[strict ? 4092 : 1];
         try {
@@ -98,6 +99,7 @@ public final class FilterUtil {
                 //Log the error
                 LOGGER.error(e.getMessage(),e);
             }
+            ZlibCodecPool.releaseInflater(inflater);
         }
     }
 
@@ -0,0 +1,139 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.util;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This file is a helper class for internal usage only.
+ * Be aware that it's API and functionality may be changed in future.
+ * <p>
+ * Keeps a few idle {@link Deflater} and {@link Inflater} instances per thread, so that compressing or
+ * decompressing many small streams does not allocate and free native zlib state for every stream.
+ * Instances are handed out by the {@code obtain} methods and must be given back with the matching
+ * {@code release} method once the caller no longer touches them.
+ */
+public final class ZlibCodecPool {
+
+    private static final int MAX_IDLE_PER_THREAD = 4;
+
+    private static final ThreadLocal<ArrayDeque<Deflater>> deflaters = new ThreadLocal<ArrayDeque<Deflater>>() {
+        @Override
+        protected ArrayDeque<Deflater> initialValue() {
+            return new ArrayDeque<>(MAX_IDLE_PER_THREAD);
+        }
+    };
+
+    private static final ThreadLocal<ArrayDeque<Inflater>> inflaters = new ThreadLocal<ArrayDeque<Inflater>>() {
+        @Override
+        protected ArrayDeque<Inflater> initialValue() {
+            return new ArrayDeque<>(MAX_IDLE_PER_THREAD);
+        }
+    };
+
+    private ZlibCodecPool() {
+    }
+
+    /**
+     * Gets a deflater in its initial state configured with the passed level and strategy.
+     *
+     * @param level    the compression level, see {@link Deflater#setLevel(int)}
+     * @param strategy the compression strategy, see {@link Deflater#setStrategy(int)}
+     * @return a deflater, which shall be returned with {@link #releaseDeflater(Deflater)}
+     */
+    public static Deflater obtainDeflater(int level, int strategy) {
+        Deflater deflater = deflaters.get().pollLast();
+        if (deflater == null) {
+            deflater = new Deflater(level);
+        } else {
+            deflater.setLevel(level);
+        }
+        deflater.setStrategy(strategy);
+        return deflater;
+    }
+
+    /**
+     * Gives a deflater back to the pool of the current thread. The deflater is reset,
+     * or ended if the pool is already full.
+     *
+     * @param deflater the deflater obtained with {@link #obtainDeflater(int, int)}
+     */
+    public static void releaseDeflater(Deflater deflater) {
+        ArrayDeque<Deflater> idle = deflaters.get();
+        if (idle.size() < MAX_IDLE_PER_THREAD) {
+            deflater.reset();
+            idle.addLast(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Gets an inflater in its initial state.
+     *
+     * @return an inflater, which shall be returned with {@link #releaseInflater(Inflater)}
+     */
+    public static Inflater obtainInflater() {
+        Inflater inflater = inflaters.get().pollLast();
+        return inflater != null ? inflater : new Inflater();
+    }
+
+    /**
+     * Gives an inflater back to the pool of the current thread. The inflater is reset,
+     * or ended if the pool is already full.
+     *
+     * @param inflater the inflater obtained with {@link #obtainInflater()}
+     */
+    public static void releaseInflater(Inflater inflater) {
+        ArrayDeque<Inflater> idle = inflaters.get();
+        if (idle.size() < MAX_IDLE_PER_THREAD) {
+            inflater.reset();
+            idle.addLast(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.codec;
+
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class CCITTG4DecoderTest {
+
+    @Test
+    public void decodeRandomBlocksTest() {
+        int width = 1001;
+        int height = 300;
+        byte[] image = createImage(width, height, 8, new Random(7));
+        byte[] compressed = CCITTG4Encoder.compress(image, width, height);
+
+        byte[] decoded = decodeT6(width, height, compressed, 1);
+        Assert.assertArrayEquals(image, decoded);
+        Assert.assertArrayEquals(decodeT6Legacy(width, height, compressed, 1), decoded);
+    }
+
+    @Test
+    public void decodeLongRunsTest() {
+        int width = 6000;
+        int height = 40;
+        byte[] image = createImage(width, height, 2600, new Random(11));
+        byte[] compressed = CCITTG4Encoder.compress(image, width, height);
+
+        byte[] decoded = decodeT6(width, height, compressed, 1);
+        Assert.assertArrayEquals(image, decoded);
+        Assert.assertArrayEquals(decodeT6Legacy(width, height, compressed, 1), decoded);
+    }
+
+    @Test
+    public void decodeReversedFillOrderTest() {
+        int width = 523;
+        int height = 100;
+        byte[] image = createImage(width, height, 30, new Random(3));
+        byte[] compressed = CCITTG4Encoder.compress(image, width, height);
+        TIFFFaxDecoder.reverseBits(compressed);
+
+        byte[] decoded = decodeT6(width, height, compressed, 2);
+        Assert.assertArrayEquals(image, decoded);
+        Assert.assertArrayEquals(decodeT6Legacy(width, height, compressed, 2), decoded);
+    }
+
+    @Test
+    public void decodeCorruptedDataTest() {
+        int width = 640;
+        int height = 80;
+        Random random = new Random(5);
+        byte[] compressed = CCITTG4Encoder.compress(createImage(width, height, 20, random), width, height);
+        for (int i = 0; i < 50; ++i) {
+            byte[] corrupted = compressed.clone();
+            corrupted[random.nextInt(corrupted.length)] ^= (byte) (1 << random.nextInt(8));
+
+            String expected;
+            try {
+                expected = new String(decodeT6Legacy(width, height, corrupted, 1), "ISO-8859-1");
+            } catch (Exception e) {
+                expected = e.getClass().getName();
+            }
+            String actual;
+            try {
+                actual = new String(decodeT6(width, height, corrupted, 1), "ISO-8859-1");
+            } catch (Exception e) {
+                actual = e.getClass().getName();
+            }
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    private static byte[] decodeT6(int width, int height, byte[] compressed, int fillOrder) {
+        byte[] buffer = new byte[(width + 7) / 8 * height];
+        new CCITTG4Decoder(fillOrder, width, height).decodeT6(buffer, compressed, 0, height, 0);
+        return buffer;
+    }
+
+    private static byte[] decodeT6Legacy(int width, int height, byte[] compressed, int fillOrder) {
+        byte[] buffer = new byte[(width + 7) / 8 * height];
+        new TIFFFaxDecoder(fillOrder, width, height).decodeT6(buffer, compressed, 0, height, 0);
+        return buffer;
+    }
+
+    // Rows made of random length runs, each row copying part of the previous one to exercise vertical mode
+    private static byte[] createImage(int width, int height, int maxRun, Random random) {
+        int stride = (width + 7) / 8;
+        byte[] image = new byte[stride * height];
+        for (int y = 0; y < height; ++y) {
+            if (y > 0 && random.nextBoolean()) {
+                System.arraycopy(image, (y - 1) * stride, image, y * stride, stride);
+            }
+            int x = random.nextInt(maxRun);
+            while (x < width) {
+                int run = 1 + random.nextInt(maxRun);
+                boolean black = random.nextBoolean();
+                for (int k = x; k < Math.min(width, x + run); ++k) {
+                    int mask = 0x80 >> (k & 7);
+                    if (black) {
+                        image[y * stride + (k >> 3)] |= (byte) mask;
+                    } else {
+                        image[y * stride + (k >> 3)] &= (byte) ~mask;
+                    }
+                }
+                x += run + random.nextInt(maxRun);
+            }
+        }
+        return image;
+    }
+}
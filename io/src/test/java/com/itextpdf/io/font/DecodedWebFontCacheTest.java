@@ -0,0 +1,103 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.font;
+
+import com.itextpdf.io.font.woff2.Woff2Converter;
+import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+@Category(UnitTest.class)
+public class DecodedWebFontCacheTest {
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/io/font/woff2/w3c/decoder/";
+
+    @Before
+    public void clearCache() {
+        DecodedWebFontCache.clear();
+    }
+
+    @Test
+    public void woff2DecodedOnceTest() throws IOException {
+        byte[] woff2 = readFile(sourceFolder + "validation-checksum-001.woff2");
+        byte[] decoded = DecodedWebFontCache.convertWoff2(woff2);
+        Assert.assertArrayEquals(Woff2Converter.convert(woff2), decoded);
+
+        byte[] sameContent = woff2.clone();
+        Assert.assertSame(decoded, DecodedWebFontCache.convertWoff2(sameContent));
+        Assert.assertEquals(1, DecodedWebFontCache.size());
+    }
+
+    @Test
+    public void differentFontsCachedSeparatelyTest() throws IOException {
+        byte[] first = DecodedWebFontCache.convertWoff2(readFile(sourceFolder + "validation-checksum-001.woff2"));
+        byte[] second = DecodedWebFontCache.convertWoff2(readFile(sourceFolder + "validation-loca-format-001.woff2"));
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(2, DecodedWebFontCache.size());
+    }
+
+    @Test
+    public void createFontFromCachedWoff2Test() throws IOException {
+        byte[] woff2 = readFile(sourceFolder + "validation-checksum-001.woff2");
+        FontProgram first = FontProgramFactory.createFont(woff2, false);
+        FontProgram second = FontProgramFactory.createFont(woff2, false);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first.getFontNames().getFontName(), second.getFontNames().getFontName());
+        Assert.assertEquals(1, DecodedWebFontCache.size());
+    }
+
+    private static byte[] readFile(String path) throws IOException {
+        InputStream is = new FileInputStream(path);
+        try {
+            return StreamUtil.inputStreamToArray(is);
+        } finally {
+            is.close();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.font;
+
+import com.itextpdf.io.font.otf.OpenTypeGdefTableReader;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+
+@Category(UnitTest.class)
+public class SharedFontSourcesTest {
+    private static final String fontPath = "./src/test/resources/com/itextpdf/io/font/woff2/w3c/format/cmp_valid-001.ttf";
+
+    @Test
+    public void fontsOfSameFileShareSourceTest() throws IOException {
+        int initialSize = SharedFontSources.size();
+        TrueTypeFont first = new TrueTypeFont(fontPath);
+        TrueTypeFont second = new TrueTypeFont(fontPath);
+        Assert.assertEquals(initialSize + 1, SharedFontSources.size());
+        Assert.assertArrayEquals(first.getFontStreamBytes(), second.getFontStreamBytes());
+
+        first.close();
+        Assert.assertEquals(initialSize + 1, SharedFontSources.size());
+        // the source shall still be readable by the font which is not closed yet
+        Assert.assertNotNull(second.getGdefTable());
+
+        second.close();
+        Assert.assertEquals(initialSize, SharedFontSources.size());
+    }
+
+    @Test
+    public void layoutTablesReadOnRequestTest() throws IOException {
+        TrueTypeFont font = new TrueTypeFont(fontPath);
+        Assert.assertNotNull(font.getGdefTable());
+        Assert.assertSame(font.getGdefTable(), font.getGdefTable());
+        font.close();
+    }
+
+    @Test
+    public void closingDoesNotReadLayoutTablesTest() throws IOException {
+        TrueTypeFont font = new TrueTypeFont(fontPath);
+        font.close();
+        try {
+            font.getGsubTable();
+            Assert.fail("Layout tables of a closed font shall not be read");
+        } catch (com.itextpdf.io.IOException e) {
+            Assert.assertEquals(com.itextpdf.io.IOException.LayoutTablesOfClosedFontCannotBeRead, e.getMessage());
+        }
+    }
+
+    @Test
+    public void layoutTablesReadAfterClosingAreKeptTest() throws IOException {
+        TrueTypeFont font = new TrueTypeFont(fontPath);
+        OpenTypeGdefTableReader gdefTable = font.getGdefTable();
+        font.close();
+        Assert.assertSame(gdefTable, font.getGdefTable());
+    }
+
+    @Test
+    public void layoutTablesReadAgainAfterFailureTest() throws IOException {
+        TrueTypeFont font = new TrueTypeFont(fontPath) {
+            private boolean failed;
+
+            @Override
+            protected void readGsubTable() throws IOException {
+                if (!failed) {
+                    failed = true;
+                    throw new IOException("Broken GSUB table");
+                }
+                super.readGsubTable();
+            }
+        };
+        try {
+            font.getGdefTable();
+            Assert.fail("The failure of reading the layout tables shall be thrown");
+        } catch (com.itextpdf.io.IOException expected) {
+        }
+        Assert.assertNotNull(font.getGdefTable());
+        font.close();
+    }
+
+    @Test
+    public void invalidFontReleasesSourceTest() {
+        int initialSize = SharedFontSources.size();
+        try {
+            new TrueTypeFont("./src/test/resources/com/itextpdf/io/font/woff2/w3c/format/valid-001.woff2");
+            Assert.fail("WOFF2 file shall not be parsed as sfnt");
+        } catch (Exception expected) {
+        }
+        Assert.assertEquals(initialSize, SharedFontSources.size());
+    }
+}
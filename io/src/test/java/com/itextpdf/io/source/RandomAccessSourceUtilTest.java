@@ -0,0 +1,174 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.io.source;
+
+import com.itextpdf.io.util.FileUtil;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+@Category(UnitTest.class)
+public class RandomAccessSourceUtilTest extends ExtendedITextTest {
+
+    private static final long[] RANGES = {0, 1000, 5000, 70000, 99000, 1000};
+
+    private static final String destinationFolder = "./target/test/com/itextpdf/io/source/RandomAccessSourceUtilTest/";
+
+    @BeforeClass
+    public static void beforeClass() {
+        createDestinationFolder(destinationFolder);
+    }
+
+    @Test
+    public void arraySourceRangesTest() throws IOException, NoSuchAlgorithmException {
+        byte[] data = createData(100000);
+        IRandomAccessSource source = new RandomAccessSourceFactory().createSource(data);
+        Assert.assertArrayEquals(digestByStream(source), digestBySlices(source));
+    }
+
+    @Test
+    public void mappedFileSourceRangesTest() throws IOException, NoSuchAlgorithmException {
+        File file = writeFile(createData(100000));
+        IRandomAccessSource source = new RandomAccessSourceFactory().createBestSource(file.getAbsolutePath());
+        try {
+            Assert.assertArrayEquals(digestByStream(source), digestBySlices(source));
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    public void pagedFileSourceRangesTest() throws IOException, NoSuchAlgorithmException {
+        File file = writeFile(createData(100000));
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        // pages of 8192 bytes, so that the ranges span several pages, only two of which are mapped at once
+        IRandomAccessSource source = new PagedChannelRandomAccessSource(raf.getChannel(), 8192, 2);
+        try {
+            Assert.assertArrayEquals(digestByStream(source), digestBySlices(source));
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    public void rafSourceRangesTest() throws IOException, NoSuchAlgorithmException {
+        File file = writeFile(createData(100000));
+        IRandomAccessSource source = new RandomAccessSourceFactory().createSource(new RandomAccessFile(file, "r"));
+        try {
+            Assert.assertArrayEquals(digestByStream(source), digestBySlices(source));
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    public void rangeExceedingSourceTest() throws IOException {
+        byte[] data = createData(1000);
+        IRandomAccessSource source = new IndependentRandomAccessSource(new RandomAccessSourceFactory().createSource(data));
+        final byte[] passed = new byte[2000];
+        final int[] count = {0};
+        long read = RandomAccessSourceUtil.read(source, 900, 500, new IByteBufferConsumer() {
+            @Override
+            public void accept(ByteBuffer buffer) {
+                int remaining = buffer.remaining();
+                buffer.get(passed, count[0], remaining);
+                count[0] += remaining;
+            }
+        });
+        Assert.assertEquals(100, read);
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 900, 1000), Arrays.copyOf(passed, count[0]));
+    }
+
+    private static byte[] digestByStream(IRandomAccessSource source) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        RASInputStream stream = new RASInputStream(new RandomAccessSourceFactory().createRanged(new IndependentRandomAccessSource(source), RANGES));
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = stream.read(buf)) > 0) {
+            md.update(buf, 0, n);
+        }
+        return md.digest();
+    }
+
+    private static byte[] digestBySlices(IRandomAccessSource source) throws IOException, NoSuchAlgorithmException {
+        final MessageDigest md = MessageDigest.getInstance("SHA-256");
+        long read = RandomAccessSourceUtil.read(source, RANGES, new IByteBufferConsumer() {
+            @Override
+            public void accept(ByteBuffer buffer) {
+                md.update(buffer);
+            }
+        });
+        Assert.assertEquals(72000, read);
+        return md.digest();
+    }
+
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    private static File writeFile(byte[] data) throws IOException {
+        File file = FileUtil.createTempFile(destinationFolder);
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(data);
+        } finally {
+            fos.close();
+        }
+        return file;
+    }
+}
@@ -67,4 +67,16 @@ public class CompressionConstants {
      * A possible compression level.
      */
     public static final int BEST_COMPRESSION = java.util.zip.Deflater.BEST_COMPRESSION;
+    /**
+     * A possible compression strategy.
+     */
+    public static final int DEFAULT_STRATEGY = java.util.zip.Deflater.DEFAULT_STRATEGY;
+    /**
+     * A possible compression strategy, suited for data with small values of a somewhat random distribution.
+     */
+    public static final int FILTERED = java.util.zip.Deflater.FILTERED;
+    /**
+     * A possible compression strategy, fastest but without string matching.
+     */
+    public static final int HUFFMAN_ONLY = java.util.zip.Deflater.HUFFMAN_ONLY;
 }
@@ -44,6 +44,7 @@
 package com.itextpdf.kernel.pdf;
 
 import com.itextpdf.kernel.pdf.colorspace.PdfCieBasedCs;
+import com.itextpdf.kernel.pdf.colorspace.SharedIccProfile;
 
 import java.io.InputStream;
 
@@ -90,6 +91,18 @@ public class PdfOutputIntent extends PdfObjectWrapper<PdfDictionary> {
         getPdfObject().put(PdfName.DestOutputProfile, stream);
     }
 
+    /**
+     * Sets the destination output profile from a profile shared between documents. The profile is
+     * neither read nor compressed again, which pays off when many documents with the same output intent are created.
+     * Note that the profile is written compressed with the default level whatever the compression level of the writer is,
+     * use {@link #setDestOutputProfile(InputStream)} if the writer settings shall apply.
+     *
+     * @param iccProfile the shared ICC profile
+     */
+    public void setDestOutputProfile(SharedIccProfile iccProfile) {
+        getPdfObject().put(PdfName.DestOutputProfile, iccProfile.createStream());
+    }
+
     public PdfString getInfo() {
         return getPdfObject().getAsString(PdfName.Info);
     }
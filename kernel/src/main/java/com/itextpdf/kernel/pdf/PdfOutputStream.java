@@ -301,7 +301,7 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
                 }
                 if (toCompress && (allowCompression || userDefinedCompression)) {
                     updateCompressionFilter(pdfStream);
-                    fout = def = new DeflaterOutputStream(fout, pdfStream.getCompressionLevel(), 0x8000);
+                    fout = def = new DeflaterOutputStream(fout, pdfStream.getCompressionLevel(), getCompressionStrategy(pdfStream), 0x8000);
                 }
                 this.write((PdfDictionary) pdfStream);
                 writeBytes(PdfOutputStream.stream);
@@ -342,7 +342,7 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
                     if (toCompress && !containsFlateFilter(pdfStream) && (allowCompression || userDefinedCompression)) { // compress
                         updateCompressionFilter(pdfStream);
                         byteArrayStream = new ByteArrayOutputStream();
-                        DeflaterOutputStream zip = new DeflaterOutputStream(byteArrayStream, pdfStream.getCompressionLevel());
+                        DeflaterOutputStream zip = new DeflaterOutputStream(byteArrayStream, pdfStream.getCompressionLevel(), getCompressionStrategy(pdfStream), 512);
                         if (pdfStream instanceof PdfObjectStream) {
                             PdfObjectStream objectStream = (PdfObjectStream) pdfStream;
                             ((ByteArrayOutputStream) objectStream.getIndexStream().getOutputStream()).writeTo(zip);
@@ -454,6 +454,10 @@ public class PdfOutputStream extends OutputStream<PdfOutputStream> {
         }
     }
 
+    private int getCompressionStrategy(PdfStream pdfStream) {
+        return document != null ? document.getWriter().getCompressionStrategy(pdfStream) : CompressionConstants.DEFAULT_STRATEGY;
+    }
+
     protected byte[] decodeFlateBytes(PdfStream stream, byte[] bytes) {
         PdfObject filterObject = stream.get(PdfName.Filter);
         if (filterObject == null) {
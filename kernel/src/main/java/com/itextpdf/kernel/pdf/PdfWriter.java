@@ -162,6 +162,25 @@ public class PdfWriter extends PdfOutputStream implements Serializable {
         return properties.compressionLevel;
     }
 
+    /**
+     * Gets the deflate strategy for the passed stream, based on its /Subtype or /Type entry.
+     *
+     * @param stream the stream to be compressed.
+     * @return compression strategy.
+     */
+    int getCompressionStrategy(PdfStream stream) {
+        if (!properties.streamCompressionStrategies.isEmpty()) {
+            Integer strategy = properties.streamCompressionStrategies.get(stream.getAsName(PdfName.Subtype));
+            if (strategy == null) {
+                strategy = properties.streamCompressionStrategies.get(stream.getAsName(PdfName.Type));
+            }
+            if (strategy != null) {
+                return (int) strategy;
+            }
+        }
+        return properties.compressionStrategy;
+    }
+
     /**
      * Sets default compression level for @see PdfStream.
      * For more details @see {@link java.util.zip.Deflater}.
@@ -45,6 +45,8 @@ package com.itextpdf.kernel.pdf;
 
 import java.io.Serializable;
 import java.security.cert.Certificate;
+import java.util.HashMap;
+import java.util.Map;
 
 public class WriterProperties implements Serializable {
 
@@ -52,6 +54,16 @@ public class WriterProperties implements Serializable {
 
     protected int compressionLevel;
 
+    /**
+     * The default deflate strategy for compressed streams.
+     */
+    protected int compressionStrategy;
+
+    /**
+     * Deflate strategies of streams with specific /Subtype or /Type values.
+     */
+    protected Map<PdfName, Integer> streamCompressionStrategies;
+
     /**
      * Indicates if to use full compression (using object streams).
      */
@@ -82,6 +94,8 @@ public class WriterProperties implements Serializable {
         debugMode = false;
         addUAXmpMetadata = false;
         compressionLevel = CompressionConstants.DEFAULT_COMPRESSION;
+        compressionStrategy = CompressionConstants.DEFAULT_STRATEGY;
+        streamCompressionStrategies = new HashMap<>();
         isFullCompression = null;
         encryptionProperties = new EncryptionProperties();
     }
@@ -136,6 +150,35 @@ public class WriterProperties implements Serializable {
         return this;
     }
 
+    /**
+     * Defines the deflate strategy used for compressed streams of the document.
+     * See {@link CompressionConstants#DEFAULT_STRATEGY}, {@link CompressionConstants#FILTERED}
+     * and {@link CompressionConstants#HUFFMAN_ONLY}.
+     *
+     * @param compressionStrategy {@link CompressionConstants} strategy value.
+     * @return this {@code WriterProperties} instance
+     */
+    public WriterProperties setCompressionStrategy(int compressionStrategy) {
+        this.compressionStrategy = compressionStrategy;
+        return this;
+    }
+
+    /**
+     * Defines the deflate strategy used for compressed streams of a specific type, for instance
+     * {@link CompressionConstants#HUFFMAN_ONLY} for {@link PdfName#Image} streams, which spends little CPU
+     * on data that hardly compresses anyway. The stream type is matched against the /Subtype entry of
+     * the stream dictionary first and against its /Type entry otherwise.
+     * Streams of other types use the strategy set by {@link #setCompressionStrategy(int)}.
+     *
+     * @param streamType          the /Subtype or /Type value of the stream, e.g. {@link PdfName#Image} or {@link PdfName#XRef}
+     * @param compressionStrategy {@link CompressionConstants} strategy value.
+     * @return this {@code WriterProperties} instance
+     */
+    public WriterProperties setCompressionStrategy(PdfName streamType, int compressionStrategy) {
+        this.streamCompressionStrategies.put(streamType, compressionStrategy);
+        return this;
+    }
+
     /**
      * Defines if full compression mode is enabled. If enabled, not only the content of the pdf document will be
      * compressed, but also the pdf document inner structure.
@@ -230,8 +230,19 @@ public abstract class PdfCieBasedCs extends PdfColorSpace {
 
         public static PdfStream getIccProfileStream(IccProfile iccProfile) {
             PdfStream stream = new PdfStream(iccProfile.getData());
-            stream.put(PdfName.N, new PdfNumber(iccProfile.getNumComponents()));
-            switch (iccProfile.getNumComponents()) {
+            putIccProfileEntries(stream, iccProfile.getNumComponents());
+            return stream;
+        }
+
+        public static PdfStream getIccProfileStream(IccProfile iccProfile, float[] range) {
+            PdfStream stream = getIccProfileStream(iccProfile);
+            stream.put(PdfName.Range, new PdfArray(range));
+            return stream;
+        }
+
+        static void putIccProfileEntries(PdfStream stream, int numComponents) {
+            stream.put(PdfName.N, new PdfNumber(numComponents));
+            switch (numComponents) {
                 case 1:
                     stream.put(PdfName.Alternate, PdfName.DeviceGray);
                     break;
@@ -244,13 +255,6 @@ public abstract class PdfCieBasedCs extends PdfColorSpace {
                 default:
                     break;
             }
-            return stream;
-        }
-
-        public static PdfStream getIccProfileStream(IccProfile iccProfile, float[] range) {
-            PdfStream stream = getIccProfileStream(iccProfile);
-            stream.put(PdfName.Range, new PdfArray(range));
-            return stream;
         }
 
         private static PdfArray getInitialPdfArray(final InputStream iccStream, final float[] range) {
@@ -0,0 +1,228 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.colorspace;
+
+import com.itextpdf.io.colors.IccProfile;
+import com.itextpdf.io.util.ZlibCodecPool;
+import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * An ICC profile which is parsed and compressed once and then shared between documents.
+ * <p>
+ * The instances are immutable and cached by the content of the profile, so creating output intents
+ * or ICC based color spaces for many documents from the same profile does not parse and compress
+ * the profile for every document. Every call of {@link #createStream()} creates a new
+ * {@link PdfStream}, because a stream can't be shared between documents, but all such streams share
+ * the same compressed bytes, which are written to the document as is. That's why such streams
+ * are compressed with the default level even if the writer uses another compression level.
+ */
+public final class SharedIccProfile {
+
+    private static final int MAX_CACHED_PROFILES = 16;
+
+    private static final Map<ProfileKey, SharedIccProfile> profiles = new LinkedHashMap<ProfileKey, SharedIccProfile>(16, 0.75f, true) {
+        private static final long serialVersionUID = -2837213718462375316L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ProfileKey, SharedIccProfile> eldest) {
+            return size() > MAX_CACHED_PROFILES;
+        }
+    };
+
+    // the streams created from the shared profiles, so that their profiles can be found without decoding them
+    private static final Map<PdfStream, SharedIccProfile> streams = new WeakHashMap<>();
+
+    private final IccProfile iccProfile;
+    private final byte[] compressedData;
+    private final String colorSpaceName;
+    private final String deviceClass;
+
+    private SharedIccProfile(IccProfile iccProfile) {
+        this.iccProfile = iccProfile;
+        this.compressedData = compress(iccProfile.getData());
+        this.colorSpaceName = IccProfile.getIccColorSpaceName(iccProfile.getData());
+        this.deviceClass = IccProfile.getIccDeviceClass(iccProfile.getData());
+    }
+
+    /**
+     * Gets the shared profile read from the stream.
+     *
+     * @param iccStream the stream containing the profile
+     * @return the shared profile with the same content as the read profile
+     */
+    public static SharedIccProfile getInstance(InputStream iccStream) {
+        return getInstance(IccProfile.getInstance(iccStream));
+    }
+
+    /**
+     * Gets the shared profile with the same content as the passed profile.
+     *
+     * @param iccProfile the profile
+     * @return the shared profile
+     */
+    public static SharedIccProfile getInstance(IccProfile iccProfile) {
+        ProfileKey key = new ProfileKey(iccProfile.getData());
+        synchronized (profiles) {
+            SharedIccProfile profile = profiles.get(key);
+            if (profile == null) {
+                // the data is copied, so that the profile stays unchanged whatever happens to the passed one
+                byte[] data = key.data.clone();
+                profile = new SharedIccProfile(IccProfile.getInstance(data, iccProfile.getNumComponents()));
+                profiles.put(new ProfileKey(data), profile);
+            }
+            return profile;
+        }
+    }
+
+    /**
+     * Gets the shared profile which the stream was created from by {@link #createStream()}.
+     *
+     * @param stream an ICC profile stream
+     * @return the shared profile, or {@code null} if the stream was not created from a shared profile
+     */
+    public static SharedIccProfile getSharedProfile(PdfStream stream) {
+        synchronized (streams) {
+            return streams.get(stream);
+        }
+    }
+
+    /**
+     * Creates a new ICC profile stream, which contains the compressed profile.
+     *
+     * @return the ICC profile stream
+     */
+    public PdfStream createStream() {
+        PdfStream stream = new PdfStream(compressedData);
+        stream.put(PdfName.Filter, PdfName.FlateDecode);
+        PdfCieBasedCs.IccBased.putIccProfileEntries(stream, iccProfile.getNumComponents());
+        synchronized (streams) {
+            streams.put(stream, this);
+        }
+        return stream;
+    }
+
+    /**
+     * Gets the number of color components of the profile.
+     *
+     * @return the number of components
+     */
+    public int getNumComponents() {
+        return iccProfile.getNumComponents();
+    }
+
+    /**
+     * Gets the color space of the profile, see {@link IccProfile#getIccColorSpaceName(byte[])}.
+     *
+     * @return the color space name
+     */
+    public String getColorSpaceName() {
+        return colorSpaceName;
+    }
+
+    /**
+     * Gets the device class of the profile, see {@link IccProfile#getIccDeviceClass(byte[])}.
+     *
+     * @return the device class
+     */
+    public String getDeviceClass() {
+        return deviceClass;
+    }
+
+    /**
+     * Gets a copy of the profile data.
+     *
+     * @return the uncompressed profile
+     */
+    public byte[] getData() {
+        return iccProfile.getData().clone();
+    }
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = ZlibCodecPool.obtainDeflater(CompressionConstants.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+            DeflaterOutputStream zip = new DeflaterOutputStream(out, deflater);
+            zip.write(data);
+            zip.finish();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new PdfException(PdfException.IoException, e);
+        } finally {
+            ZlibCodecPool.releaseDeflater(deflater);
+        }
+    }
+
+    private static final class ProfileKey {
+        private final byte[] data;
+        private final int hash;
+
+        ProfileKey(byte[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ProfileKey && hash == ((ProfileKey) o).hash && Arrays.equals(data, ((ProfileKey) o).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -44,8 +44,8 @@
 package com.itextpdf.kernel.pdf.filters;
 
 import com.itextpdf.kernel.PdfException;
+import com.itextpdf.io.codec.CCITTG4Decoder;
 import com.itextpdf.io.codec.TIFFConstants;
-import com.itextpdf.io.codec.TIFFFaxDecoder;
 import com.itextpdf.io.codec.TIFFFaxDecompressor;
 import com.itextpdf.kernel.pdf.PdfBoolean;
 import com.itextpdf.kernel.pdf.PdfDictionary;
@@ -102,7 +102,7 @@ public class CCITTFaxDecodeFilter  implements IFilterHandler {
         else {
             long tiffT6Options = 0;
             tiffT6Options |= byteAlign ? TIFFConstants.GROUP4OPT_FILLBITS : 0;
-            TIFFFaxDecoder deca = new TIFFFaxDecoder(1, width, height);
+            CCITTG4Decoder deca = new CCITTG4Decoder(1, width, height);
             deca.decodeT6(outBuf, b, 0, height, tiffT6Options);
         }
         if (!blackIs1) {
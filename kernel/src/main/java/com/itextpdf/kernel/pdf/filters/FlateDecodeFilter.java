@@ -43,6 +43,7 @@
  */
 package com.itextpdf.kernel.pdf.filters;
 
+import com.itextpdf.io.util.ZlibCodecPool;
 import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfName;
@@ -51,8 +52,8 @@ import com.itextpdf.kernel.pdf.PdfObject;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 /**
@@ -120,7 +121,8 @@ public class FlateDecodeFilter implements IFilterHandler {
      */
     public static byte[] flateDecode(byte[] in, boolean strict) {
         ByteArrayInputStream stream = new ByteArrayInputStream(in);
-        InflaterInputStream zip = new InflaterInputStream(stream);
+        Inflater inflater = ZlibCodecPool.obtainInflater();
+        InflaterInputStream zip = new InflaterInputStream(stream, inflater);
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         byte[] b = new byte[strict ? 4092 : 1];
         try {
@@ -135,10 +137,15 @@ public class FlateDecodeFilter implements IFilterHandler {
             if (strict)
                 return null;
             return out.toByteArray();
+        } finally {
+            ZlibCodecPool.releaseInflater(inflater);
         }
     }
 
     /**
+     * Reverts the TIFF or PNG predictor applied to the data. The rows are decoded
+     * in place, so the content of the input array is changed.
+     *
      * @param in           Input byte array.
      * @param decodeParams PdfDictionary of decodeParams.
      * @return a byte array
@@ -165,12 +172,8 @@ public class FlateDecodeFilter implements IFilterHandler {
         obj = dic.get(PdfName.BitsPerComponent);
         if (obj != null && obj.getType() == PdfObject.NUMBER)
             bpc = ((PdfNumber) obj).intValue();
-        DataInputStream dataStream = new DataInputStream(new ByteArrayInputStream(in));
-        ByteArrayOutputStream fout = new ByteArrayOutputStream(in.length);
         int bytesPerPixel = colors * bpc / 8;
         int bytesPerRow = (colors * width * bpc + 7) / 8;
-        byte[] curr = new byte[bytesPerRow];
-        byte[] prior = new byte[bytesPerRow];
         if (predictor == 2) {
             if (bpc == 8) {
                 int numRows = in.length / bytesPerRow;
@@ -183,83 +186,84 @@ public class FlateDecodeFilter implements IFilterHandler {
             }
             return in;
         }
-        // Decode the (sub)image row-by-row
-        while (true) {
-            // Read the filter type byte and a row of data
-            int filter;
-            try {
-                filter = dataStream.read();
-                if (filter < 0) {
-                    return fout.toByteArray();
-                }
-                dataStream.readFully(curr, 0, bytesPerRow);
-            } catch (Exception e) {
-                return fout.toByteArray();
-            }
+        // Decode the (sub)image row-by-row in place: each row loses its filter type byte
+        // and is moved right behind the previous decoded row, which serves as the prior row.
+        // An incomplete last row is dropped.
+        int numRows = in.length / (bytesPerRow + 1);
+        int curr = 0;
+        for (int row = 0; row < numRows; row++) {
+            int filter = in[curr + row] & 0xff;
+            System.arraycopy(in, curr + row + 1, in, curr, bytesPerRow);
+            int rowEnd = curr + bytesPerRow;
 
             switch (filter) {
                 case 0: //PNG_FILTER_NONE
                     break;
                 case 1: //PNG_FILTER_SUB
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        curr[i] += curr[i - bytesPerPixel];
+                    for (int i = curr + bytesPerPixel; i < rowEnd; i++) {
+                        in[i] += in[i - bytesPerPixel];
                     }
                     break;
                 case 2: //PNG_FILTER_UP
-                    for (int i = 0; i < bytesPerRow; i++) {
-                        curr[i] += prior[i];
+                    if (row > 0) {
+                        for (int i = curr; i < rowEnd; i++) {
+                            in[i] += in[i - bytesPerRow];
+                        }
                     }
                     break;
                 case 3: //PNG_FILTER_AVERAGE
-                    for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += (byte) (prior[i] / 2);
-                    }
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        curr[i] += (byte) (((curr[i - bytesPerPixel] & 0xff) + (prior[i] & 0xff)) / 2);
+                    if (row > 0) {
+                        for (int i = curr; i < curr + bytesPerPixel; i++) {
+                            in[i] += (byte) ((in[i - bytesPerRow] & 0xff) / 2);
+                        }
+                        for (int i = curr + bytesPerPixel; i < rowEnd; i++) {
+                            in[i] += (byte) (((in[i - bytesPerPixel] & 0xff) + (in[i - bytesPerRow] & 0xff)) / 2);
+                        }
+                    } else {
+                        for (int i = curr + bytesPerPixel; i < rowEnd; i++) {
+                            in[i] += (byte) ((in[i - bytesPerPixel] & 0xff) / 2);
+                        }
                     }
                     break;
                 case 4: //PNG_FILTER_PAETH
-                    for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += prior[i];
-                    }
-
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        int a = curr[i - bytesPerPixel] & 0xff;
-                        int b = prior[i] & 0xff;
-                        int c = prior[i - bytesPerPixel] & 0xff;
+                    if (row > 0) {
+                        for (int i = curr; i < curr + bytesPerPixel; i++) {
+                            in[i] += in[i - bytesPerRow];
+                        }
+                        for (int i = curr + bytesPerPixel; i < rowEnd; i++) {
+                            int a = in[i - bytesPerPixel] & 0xff;
+                            int b = in[i - bytesPerRow] & 0xff;
+                            int c = in[i - bytesPerRow - bytesPerPixel] & 0xff;
 
-                        int p = a + b - c;
-                        int pa = Math.abs(p - a);
-                        int pb = Math.abs(p - b);
-                        int pc = Math.abs(p - c);
+                            int p = a + b - c;
+                            int pa = Math.abs(p - a);
+                            int pb = Math.abs(p - b);
+                            int pc = Math.abs(p - c);
 
-                        int ret;
+                            int ret;
 
-                        if (pa <= pb && pa <= pc) {
-                            ret = a;
-                        } else if (pb <= pc) {
-                            ret = b;
-                        } else {
-                            ret = c;
+                            if (pa <= pb && pa <= pc) {
+                                ret = a;
+                            } else if (pb <= pc) {
+                                ret = b;
+                            } else {
+                                ret = c;
+                            }
+                            in[i] += (byte) ret;
+                        }
+                    } else {
+                        // With a zero prior row the Paeth predictor is the left byte
+                        for (int i = curr + bytesPerPixel; i < rowEnd; i++) {
+                            in[i] += in[i - bytesPerPixel];
                         }
-                        curr[i] += (byte) ret;
                     }
                     break;
                 default:
                     // Error -- unknown filter type
                     throw new PdfException(PdfException.PngFilterUnknown);
             }
-            try {
-                fout.write(curr);
-            } catch (IOException ioe) {
-                // Never happens
-                assert true : "Happens!";
-            }
-
-            // Swap curr and prior
-            byte[] tmp = prior;
-            prior = curr;
-            curr = tmp;
+            curr = rowEnd;
         }
+        return Arrays.copyOf(in, curr);
     }
 }
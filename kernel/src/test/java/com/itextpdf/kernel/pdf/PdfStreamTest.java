@@ -47,6 +47,8 @@ import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
 import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
 import com.itextpdf.kernel.utils.CompareTool;
 import com.itextpdf.test.ExtendedITextTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -112,4 +114,47 @@ public class PdfStreamTest extends ExtendedITextTest {
         Assert.assertArrayEquals(imgBytes1, cmpImgBytes1);
         Assert.assertArrayEquals(imgBytes2, cmpImgBytes2);
     }
+
+    @Test
+    public void compressionStrategyPerStreamTypeTest() throws IOException {
+        byte[] data = new byte[30000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 7 * 13);
+        }
+
+        byte[] defaultPdf = createDocumentWithImageStream(new WriterProperties(), data);
+        byte[] huffmanPdf = createDocumentWithImageStream(new WriterProperties()
+                .setCompressionStrategy(CompressionConstants.FILTERED)
+                .setCompressionStrategy(PdfName.Image, CompressionConstants.HUFFMAN_ONLY), data);
+
+        PdfDocument defaultDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(defaultPdf)));
+        PdfDocument huffmanDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(huffmanPdf)));
+        PdfStream defaultImage = defaultDocument.getPage(1).getResources().getResource(PdfName.XObject).getAsStream(new PdfName("Im1"));
+        PdfStream huffmanImage = huffmanDocument.getPage(1).getResources().getResource(PdfName.XObject).getAsStream(new PdfName("Im1"));
+
+        Assert.assertArrayEquals(data, defaultImage.getBytes());
+        Assert.assertArrayEquals(data, huffmanImage.getBytes());
+        // Without string matching the periodic data compresses much worse
+        Assert.assertTrue(huffmanImage.getBytes(false).length > 2 * defaultImage.getBytes(false).length);
+        Assert.assertArrayEquals(defaultDocument.getPage(1).getContentBytes(), huffmanDocument.getPage(1).getContentBytes());
+
+        defaultDocument.close();
+        huffmanDocument.close();
+    }
+
+    private static byte[] createDocumentWithImageStream(WriterProperties properties, byte[] data) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument document = new PdfDocument(new PdfWriter(baos, properties));
+        PdfStream image = (PdfStream) new PdfStream(data).makeIndirect(document);
+        image.put(PdfName.Type, PdfName.XObject);
+        image.put(PdfName.Subtype, PdfName.Image);
+        image.put(PdfName.Width, new PdfNumber(100));
+        image.put(PdfName.Height, new PdfNumber(100));
+        image.put(PdfName.ColorSpace, PdfName.DeviceRGB);
+        image.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        PdfPage page = document.addNewPage();
+        new PdfCanvas(page).addXObject(new PdfImageXObject(image), 10, 10, 100).rectangle(10, 10, 100, 100).stroke();
+        document.close();
+        return baos.toByteArray();
+    }
 }
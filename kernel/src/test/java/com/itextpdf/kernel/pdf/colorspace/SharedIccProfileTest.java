@@ -0,0 +1,142 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.colorspace;
+
+import com.itextpdf.io.colors.IccProfile;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfOutputIntent;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+@Category(UnitTest.class)
+public class SharedIccProfileTest extends ExtendedITextTest {
+
+    public static final String sourceFolder = "./src/test/resources/com/itextpdf/kernel/pdf/PdfCanvasTest/";
+
+    @Test
+    public void sameProfileIsSharedTest() throws IOException {
+        SharedIccProfile profile1 = SharedIccProfile.getInstance(new FileInputStream(sourceFolder + "CIERGB.icc"));
+        SharedIccProfile profile2 = SharedIccProfile.getInstance(new FileInputStream(sourceFolder + "CIERGB.icc"));
+        SharedIccProfile profile3 = SharedIccProfile.getInstance(new FileInputStream(sourceFolder + "BlackWhite.icc"));
+
+        Assert.assertSame(profile1, profile2);
+        Assert.assertNotSame(profile1, profile3);
+        Assert.assertEquals(3, profile1.getNumComponents());
+        Assert.assertEquals("RGB ", profile1.getColorSpaceName());
+    }
+
+    @Test
+    public void passedProfileDataIsCopiedTest() throws IOException {
+        byte[] data = Files.readAllBytes(Paths.get(sourceFolder + "CIERGB.icc"));
+        byte[] copy = data.clone();
+        SharedIccProfile profile = SharedIccProfile.getInstance(IccProfile.getInstance(data));
+        data[data.length - 1] ^= 1;
+
+        Assert.assertArrayEquals(copy, profile.getData());
+        Assert.assertSame(profile, SharedIccProfile.getInstance(IccProfile.getInstance(copy)));
+    }
+
+    @Test
+    public void createdStreamTest() throws IOException {
+        byte[] data = Files.readAllBytes(Paths.get(sourceFolder + "CIERGB.icc"));
+        SharedIccProfile profile = SharedIccProfile.getInstance(IccProfile.getInstance(data));
+
+        PdfStream stream1 = profile.createStream();
+        PdfStream stream2 = profile.createStream();
+        Assert.assertNotSame(stream1, stream2);
+        Assert.assertSame(profile, SharedIccProfile.getSharedProfile(stream1));
+        Assert.assertSame(profile, SharedIccProfile.getSharedProfile(stream2));
+        Assert.assertNull(SharedIccProfile.getSharedProfile(new PdfStream(data)));
+
+        Assert.assertEquals(PdfName.FlateDecode, stream1.get(PdfName.Filter));
+        Assert.assertEquals(3, stream1.getAsNumber(PdfName.N).intValue());
+        Assert.assertArrayEquals(data, stream1.getBytes());
+    }
+
+    @Test
+    public void legacyProfileStreamIsNotCompressedTest() throws IOException {
+        byte[] data = Files.readAllBytes(Paths.get(sourceFolder + "CIERGB.icc"));
+        PdfStream stream = PdfCieBasedCs.IccBased.getIccProfileStream(new ByteArrayInputStream(data));
+
+        // the stream is compressed by the writer, according to the compression level of the document
+        Assert.assertNull(stream.get(PdfName.Filter));
+        Assert.assertNull(SharedIccProfile.getSharedProfile(stream));
+        Assert.assertArrayEquals(data, stream.getBytes());
+    }
+
+    @Test
+    public void sharedProfileInSeveralDocumentsTest() throws IOException {
+        SharedIccProfile profile = SharedIccProfile.getInstance(new FileInputStream(sourceFolder + "CIERGB.icc"));
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            PdfDocument pdfDoc = new PdfDocument(new PdfWriter(baos));
+            pdfDoc.addNewPage();
+            PdfOutputIntent outputIntent = new PdfOutputIntent("Custom", "", "http://www.color.org", "CIE RGB", null);
+            outputIntent.setDestOutputProfile(profile);
+            pdfDoc.addOutputIntent(outputIntent);
+            pdfDoc.close();
+
+            pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+            PdfDictionary writtenOutputIntent = pdfDoc.getCatalog().getPdfObject().getAsArray(PdfName.OutputIntents).getAsDictionary(0);
+            PdfStream destOutputProfile = writtenOutputIntent.getAsStream(PdfName.DestOutputProfile);
+            Assert.assertEquals(PdfName.FlateDecode, destOutputProfile.get(PdfName.Filter));
+            Assert.assertArrayEquals(profile.getData(), destOutputProfile.getBytes());
+            pdfDoc.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.kernel.pdf.filters;
+
+import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.test.annotations.type.UnitTest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+
+@Category(UnitTest.class)
+public class FlateDecodeFilterTest {
+
+    @Rule
+    public ExpectedException junitExpectedException = ExpectedException.none();
+
+    @Test
+    public void decodePngPredictorAllFilterTypesTest() {
+        int colors = 3;
+        int width = 17;
+        int bytesPerRow = colors * width;
+        byte[] image = new byte[bytesPerRow * 12];
+        new Random(42).nextBytes(image);
+
+        // Rows use filter types 0 to 4 in turn, including the first row with an all zero prior row
+        byte[] encoded = new byte[(bytesPerRow + 1) * 12];
+        for (int row = 0; row < 12; row++) {
+            encodeRow(image, row, bytesPerRow, colors, row % 5, encoded, row * (bytesPerRow + 1));
+        }
+
+        byte[] decoded = FlateDecodeFilter.decodePredictor(encoded, createDecodeParams(15, colors, width));
+        Assert.assertArrayEquals(image, decoded);
+    }
+
+    @Test
+    public void decodePngPredictorFirstRowTest() {
+        int bytesPerRow = 10;
+        byte[] image = new byte[bytesPerRow];
+        new Random(1).nextBytes(image);
+        for (int filter = 0; filter < 5; filter++) {
+            byte[] encoded = new byte[bytesPerRow + 1];
+            encodeRow(image, 0, bytesPerRow, 2, filter, encoded, 0);
+            Assert.assertArrayEquals(image, FlateDecodeFilter.decodePredictor(encoded, createDecodeParams(12, 2, 5)));
+        }
+    }
+
+    @Test
+    public void decodePngPredictorIncompleteRowTest() {
+        byte[] encoded = {0, 1, 2, 3, 2, 1, 1, 1, 0, 9};
+        byte[] decoded = FlateDecodeFilter.decodePredictor(encoded, createDecodeParams(12, 1, 3));
+        Assert.assertArrayEquals(new byte[] {1, 2, 3, 2, 3, 4}, decoded);
+    }
+
+    @Test
+    public void decodePngPredictorUnknownFilterTest() {
+        junitExpectedException.expect(PdfException.class);
+        junitExpectedException.expectMessage(PdfException.PngFilterUnknown);
+
+        FlateDecodeFilter.decodePredictor(new byte[] {0, 1, 2, 7, 1, 2}, createDecodeParams(12, 1, 2));
+    }
+
+    private static PdfDictionary createDecodeParams(int predictor, int colors, int columns) {
+        PdfDictionary decodeParams = new PdfDictionary();
+        decodeParams.put(PdfName.Predictor, new PdfNumber(predictor));
+        decodeParams.put(PdfName.Colors, new PdfNumber(colors));
+        decodeParams.put(PdfName.Columns, new PdfNumber(columns));
+        return decodeParams;
+    }
+
+    private static void encodeRow(byte[] image, int row, int bytesPerRow, int bytesPerPixel, int filter, byte[] out, int outOffset) {
+        out[outOffset] = (byte) filter;
+        int rowStart = row * bytesPerRow;
+        for (int i = 0; i < bytesPerRow; i++) {
+            int x = image[rowStart + i] & 0xff;
+            int a = i >= bytesPerPixel ? image[rowStart + i - bytesPerPixel] & 0xff : 0;
+            int b = row > 0 ? image[rowStart + i - bytesPerRow] & 0xff : 0;
+            int c = row > 0 && i >= bytesPerPixel ? image[rowStart + i - bytesPerRow - bytesPerPixel] & 0xff : 0;
+            int predicted;
+            switch (filter) {
+                case 1:
+                    predicted = a;
+                    break;
+                case 2:
+                    predicted = b;
+                    break;
+                case 3:
+                    predicted = (a + b) / 2;
+                    break;
+                case 4:
+                    int p = a + b - c;
+                    int pa = Math.abs(p - a);
+                    int pb = Math.abs(p - b);
+                    int pc = Math.abs(p - c);
+                    predicted = pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+                    break;
+                default:
+                    predicted = 0;
+            }
+            out[outOffset + 1 + i] = (byte) (x - predicted);
+        }
+    }
+}
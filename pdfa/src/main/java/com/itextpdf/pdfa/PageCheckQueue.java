@@ -0,0 +1,199 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the page checks of a {@link PdfADocument} on an {@link Executor}. The checks of a document
+ * are run one after another in the order they were submitted, so they never run concurrently
+ * with each other, while they do run concurrently with the thread which writes the document.
+ * The same executor can therefore be shared by several documents.
+ */
+final class PageCheckQueue {
+
+    private final Executor executor;
+    // the checks which have not been started yet
+    private final Deque<PageCheck> waiting = new ArrayDeque<>();
+    // all the checks whose outcome has not been taken by the writing thread yet, in the order they were submitted
+    private final Deque<PageCheck> submitted = new ArrayDeque<>();
+    private boolean running = false;
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            while (true) {
+                PageCheck check;
+                synchronized (PageCheckQueue.this) {
+                    check = waiting.poll();
+                    if (check == null) {
+                        running = false;
+                        PageCheckQueue.this.notifyAll();
+                        return;
+                    }
+                }
+                check.run();
+            }
+        }
+    };
+
+    PageCheckQueue(Executor executor) {
+        this.executor = executor;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Submits the check to be run after all the previously submitted ones.
+     *
+     * @param check the check to run
+     */
+    void submit(Runnable check) {
+        PageCheck pageCheck = new PageCheck(check);
+        boolean start;
+        synchronized (this) {
+            waiting.add(pageCheck);
+            submitted.add(pageCheck);
+            start = !running;
+            running = true;
+        }
+        if (start) {
+            try {
+                executor.execute(drain);
+            } catch (RejectedExecutionException e) {
+                drain.run();
+            }
+        }
+    }
+
+    /**
+     * Checks whether some of the submitted checks are still running or waiting to be run.
+     *
+     * @return {@code true} if not all the submitted checks are finished
+     */
+    synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the number of the submitted checks whose outcome has not been taken yet.
+     *
+     * @return the number of the unfinished checks and of the finished ones which have not been taken yet
+     */
+    synchronized int getSubmittedCount() {
+        return submitted.size();
+    }
+
+    /**
+     * Waits until all the submitted checks are finished.
+     */
+    void awaitFinished() {
+        boolean interrupted = false;
+        synchronized (this) {
+            while (running) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // the checks shall be finished before the document goes on, so the interruption is only restored
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes the outcome of the finished checks in the order they were submitted, up to the first check
+     * which is not finished yet, and rethrows the first failure found.
+     */
+    void throwFirstFailure() {
+        while (true) {
+            PageCheck check;
+            synchronized (this) {
+                check = submitted.peek();
+                if (check == null || !check.finished) {
+                    return;
+                }
+                submitted.poll();
+            }
+            if (check.failure instanceof RuntimeException) {
+                throw (RuntimeException) check.failure;
+            } else if (check.failure instanceof Error) {
+                throw (Error) check.failure;
+            }
+        }
+    }
+
+    private final class PageCheck implements Runnable {
+        private final Runnable check;
+        // guarded by the queue
+        private boolean finished = false;
+        private Throwable failure;
+
+        PageCheck(Runnable check) {
+            this.check = check;
+        }
+
+        @Override
+        public void run() {
+            Throwable failure = null;
+            try {
+                check.run();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            synchronized (PageCheckQueue.this) {
+                this.failure = failure;
+                finished = true;
+            }
+        }
+    }
+}
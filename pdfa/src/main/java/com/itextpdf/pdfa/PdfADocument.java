@@ -44,6 +44,7 @@
 package com.itextpdf.pdfa;
 
 import com.itextpdf.io.LogMessageConstant;
+import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.kernel.log.CounterManager;
 import com.itextpdf.kernel.log.ICounter;
@@ -77,7 +78,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * This class extends {@link PdfDocument} and is in charge of creating files
@@ -94,8 +100,17 @@ import java.util.List;
 public class PdfADocument extends PdfDocument {
 
     private static final long serialVersionUID = -5908390625367471894L;
+
+    // the page checks which may be submitted before the writing thread waits for them to finish
+    private static final int MAX_SUBMITTED_PAGE_CHECKS = 16;
+
     protected PdfAChecker checker;
 
+    private transient PageCheckQueue pageCheckQueue;
+    // the objects which are not read by the submitted page checks, so they can be flushed while the checks are running
+    private transient Set<PdfObject> releasedObjects;
+    private transient List<DeferredFlush> deferredFlushes;
+
     /**
      * Constructs a new PdfADocument for writing purposes, i.e. from scratch. A
      * PDF/A file has a conformance level, and must have an explicit output
@@ -197,7 +212,11 @@ public class PdfADocument extends PdfDocument {
                 checker.checkColor(gState.getFillColor(), currentColorSpaces, true);
                 break;
             case PAGE:
-                checker.checkSinglePage((PdfPage) obj);
+                if (pageCheckQueue != null && !isClosing) {
+                    submitPageCheck((PdfPage) obj);
+                } else {
+                    checker.checkSinglePage((PdfPage) obj);
+                }
                 break;
             case STROKE_COLOR:
                 gState = (CanvasGraphicsState) obj;
@@ -248,16 +267,54 @@ public class PdfADocument extends PdfDocument {
         }
     }
 
+    /**
+     * Makes the page and resource checks of the pages flushed with {@link PdfPage#flush(boolean)}
+     * run on the passed executor, so that the writing thread can go on with the next pages.
+     * The checks of a document are run one after another, so one executor can be shared by
+     * several documents. A violation found by these checks is thrown when a next page is flushed
+     * or when the document is closed, rather than when the violating page is flushed.
+     * <p>
+     * The checks read the page dictionary as it was when the page was flushed, while the indirect
+     * objects it refers to, such as XObjects and annotations, are read when the checks run. Such objects
+     * are therefore not flushed while the checks are running, even if they are flushed explicitly;
+     * they are flushed as soon as the checks are finished. Objects which are shared between pages
+     * shall not be modified after the first page which uses them is flushed.
+     * <p>
+     * Documents opened in stamping mode always run the checks on the writing thread,
+     * because their objects are read lazily by the {@link PdfReader}.
+     *
+     * @param executor the executor to run the page checks on, or {@code null} to run them on the writing thread
+     * @return this {@link PdfADocument} instance
+     */
+    public PdfADocument setPageCheckExecutor(Executor executor) {
+        if (pageCheckQueue != null) {
+            finishPageChecks();
+            pageCheckQueue = null;
+        }
+        if (executor != null && reader == null) {
+            pageCheckQueue = new PageCheckQueue(executor);
+            releasedObjects = Collections.newSetFromMap(new IdentityHashMap<PdfObject, Boolean>());
+            deferredFlushes = new ArrayList<>();
+        }
+        return this;
+    }
+
     @Override
     protected void checkIsoConformance() {
+        if (pageCheckQueue != null) {
+            finishPageChecks();
+        }
         checker.checkDocument(catalog);
     }
 
     @Override
     protected void flushObject(PdfObject pdfObject, boolean canBeInObjStm) throws IOException {
         markObjectAsMustBeFlushed(pdfObject);
+        if (pageCheckQueue != null && !isClosing && deferFlush(pdfObject, canBeInObjStm)) {
+            return;
+        }
         if (isClosing || checker.objectIsChecked(pdfObject)) {
-            super.flushObject(pdfObject, canBeInObjStm);
+            writeObject(pdfObject, canBeInObjStm);
         } else {
             //suppress the call
             //TODO log unsuccessful call
@@ -296,6 +353,74 @@ public class PdfADocument extends PdfDocument {
         return CounterManager.getInstance().getCounters(PdfADocument.class);
     }
 
+    private void submitPageCheck(PdfPage page) {
+        pageCheckQueue.throwFirstFailure();
+        if (pageCheckQueue.getSubmittedCount() >= MAX_SUBMITTED_PAGE_CHECKS) {
+            // the objects of the pages are kept until the checks are finished, so they shall not pile up
+            finishPageChecks();
+        } else {
+            flushDeferredObjectsIfIdle();
+        }
+        Runnable check = checker.createPageCheck(page);
+        if (check != null) {
+            releasedObjects.add(page.getPdfObject());
+            for (int i = 0; i < page.getContentStreamCount(); i++) {
+                releasedObjects.add(page.getContentStream(i));
+            }
+            pageCheckQueue.submit(check);
+        }
+    }
+
+    /**
+     * Waits for the submitted page checks, flushes the objects which were deferred
+     * and throws the first violation found by the checks.
+     */
+    private void finishPageChecks() {
+        pageCheckQueue.awaitFinished();
+        flushDeferredObjectsIfIdle();
+        pageCheckQueue.throwFirstFailure();
+    }
+
+    private boolean deferFlush(PdfObject pdfObject, boolean canBeInObjStm) {
+        if (!flushDeferredObjectsIfIdle()) {
+            if (releasedObjects.remove(pdfObject)) {
+                return false;
+            }
+            deferredFlushes.add(new DeferredFlush(pdfObject, canBeInObjStm));
+            return true;
+        }
+        return false;
+    }
+
+    private boolean flushDeferredObjectsIfIdle() {
+        if (pageCheckQueue.isRunning()) {
+            return false;
+        }
+        releasedObjects.clear();
+        try {
+            flushDeferredObjects();
+        } catch (IOException e) {
+            throw new PdfException(PdfException.CannotFlushObject, e);
+        }
+        return true;
+    }
+
+    private void flushDeferredObjects() throws IOException {
+        for (DeferredFlush deferredFlush : deferredFlushes) {
+            PdfObject pdfObject = deferredFlush.pdfObject;
+            // the objects which are still not checked are flushed on closing, the same as if the checks were not deferred
+            if (!pdfObject.isFlushed() && checker.objectIsChecked(pdfObject)) {
+                writeObject(pdfObject, deferredFlush.canBeInObjStm);
+            }
+        }
+        deferredFlushes.clear();
+    }
+
+    private void writeObject(PdfObject pdfObject, boolean canBeInObjStm) throws IOException {
+        super.flushObject(pdfObject, canBeInObjStm);
+        checker.objectFlushed(pdfObject);
+    }
+
     private static PdfVersion getPdfVersionForPdfA(PdfAConformanceLevel conformanceLevel) {
         PdfVersion version;
         switch (conformanceLevel.getPart()) {
@@ -314,4 +439,14 @@ public class PdfADocument extends PdfDocument {
         }
         return version;
     }
+
+    private static final class DeferredFlush {
+        private final PdfObject pdfObject;
+        private final boolean canBeInObjStm;
+
+        DeferredFlush(PdfObject pdfObject, boolean canBeInObjStm) {
+            this.pdfObject = pdfObject;
+            this.canBeInObjStm = canBeInObjStm;
+        }
+    }
 }
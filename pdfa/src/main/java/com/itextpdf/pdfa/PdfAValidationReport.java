@@ -0,0 +1,106 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa;
+
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of validating an existing document with {@link PdfAValidator}.
+ */
+public class PdfAValidationReport {
+
+    private final PdfAConformanceLevel conformanceLevel;
+    private final List<PdfAViolation> violations = new ArrayList<>();
+
+    /**
+     * Creates an empty report.
+     *
+     * @param conformanceLevel the conformance level the document is validated against
+     */
+    public PdfAValidationReport(PdfAConformanceLevel conformanceLevel) {
+        this.conformanceLevel = conformanceLevel;
+    }
+
+    /**
+     * Gets the conformance level the document was validated against.
+     *
+     * @return a {@link PdfAConformanceLevel}
+     */
+    public PdfAConformanceLevel getConformanceLevel() {
+        return conformanceLevel;
+    }
+
+    /**
+     * Checks whether no violations were found.
+     *
+     * @return {@code true} if the document conforms to the conformance level
+     */
+    public boolean isCompliant() {
+        return violations.isEmpty();
+    }
+
+    /**
+     * Gets the found violations in the order they were found.
+     *
+     * @return an unmodifiable list of the violations
+     */
+    public List<PdfAViolation> getViolations() {
+        return Collections.unmodifiableList(violations);
+    }
+
+    /**
+     * Adds a violation to the report.
+     *
+     * @param exception    the exception which describes the violation
+     * @param objectNumber the number of the indirect object which violates the specification, or 0
+     * @param pageNumber   the number of the page on which the violation was found, or 0
+     */
+    public void addViolation(PdfAConformanceException exception, int objectNumber, int pageNumber) {
+        violations.add(new PdfAViolation(exception, objectNumber, pageNumber));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa;
+
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.xmp.XMPException;
+import com.itextpdf.kernel.xmp.XMPMetaFactory;
+import com.itextpdf.pdfa.checker.PdfA1Checker;
+import com.itextpdf.pdfa.checker.PdfA2Checker;
+import com.itextpdf.pdfa.checker.PdfA3Checker;
+import com.itextpdf.pdfa.checker.PdfAChecker;
+
+/**
+ * Validates an existing document against the PDF/A specification without modifying it.
+ * <p>
+ * Unlike {@link PdfADocument}, which refuses to write a non-compliant document by throwing
+ * {@link PdfAConformanceException} on the first violation, the validator collects all the violations
+ * found by the same checkers into a {@link PdfAValidationReport}. The document-wide requirements,
+ * the pages and their resources are checked first, every shared resource being visited once,
+ * and then every indirect object is checked in the order of object numbers and released right
+ * after its check, so that the objects of a big document are not kept in memory all at once.
+ * <p>
+ * Note that the content streams are not processed, so the requirements to the operators and colors
+ * used in the content, which are checked by {@link PdfADocument} while the content is written,
+ * are not validated.
+ */
+public class PdfAValidator {
+
+    /**
+     * Validates the document against the conformance level declared in its XMP metadata.
+     *
+     * @param document the document opened in reading mode
+     * @return the report with the found violations
+     */
+    public PdfAValidationReport validate(PdfDocument document) {
+        return validate(document, getConformanceLevel(document));
+    }
+
+    /**
+     * Validates the document against the passed conformance level.
+     *
+     * @param document         the document opened in reading mode
+     * @param conformanceLevel the conformance level to validate against
+     * @return the report with the found violations
+     */
+    public PdfAValidationReport validate(PdfDocument document, PdfAConformanceLevel conformanceLevel) {
+        if (document.getWriter() != null) {
+            throw new IllegalArgumentException("The document to validate shall be opened in reading mode");
+        }
+        PdfAChecker checker = createChecker(conformanceLevel);
+        PdfAValidationReport report = new PdfAValidationReport(conformanceLevel);
+        checker.checkDocument(document.getCatalog(), report);
+
+        for (int objNum = 1; objNum < document.getNumberOfPdfObjects(); objNum++) {
+            PdfObject object = document.getPdfObject(objNum);
+            if (object == null) {
+                continue;
+            }
+            try {
+                checker.checkPdfObject(object);
+            } catch (PdfAConformanceException e) {
+                report.addViolation(e, objNum, 0);
+            }
+            if (!object.isReleaseForbidden()) {
+                object.release();
+            }
+        }
+        return report;
+    }
+
+    private static PdfAConformanceLevel getConformanceLevel(PdfDocument document) {
+        byte[] existingXmpMetadata = document.getXmpMetadata();
+        if (existingXmpMetadata == null) {
+            throw new PdfAConformanceException(PdfAConformanceException.DOCUMENT_TO_READ_FROM_SHALL_BE_A_PDFA_CONFORMANT_FILE_WITH_VALID_XMP_METADATA);
+        }
+        PdfAConformanceLevel conformanceLevel;
+        try {
+            conformanceLevel = PdfAConformanceLevel.getConformanceLevel(XMPMetaFactory.parseFromBuffer(existingXmpMetadata));
+        } catch (XMPException exc) {
+            throw new PdfAConformanceException(PdfAConformanceException.DOCUMENT_TO_READ_FROM_SHALL_BE_A_PDFA_CONFORMANT_FILE_WITH_VALID_XMP_METADATA);
+        }
+        if (conformanceLevel == null) {
+            throw new PdfAConformanceException(PdfAConformanceException.DOCUMENT_TO_READ_FROM_SHALL_BE_A_PDFA_CONFORMANT_FILE_WITH_VALID_XMP_METADATA);
+        }
+        return conformanceLevel;
+    }
+
+    private static PdfAChecker createChecker(PdfAConformanceLevel conformanceLevel) {
+        switch (conformanceLevel.getPart()) {
+            case "1":
+                return new PdfA1Checker(conformanceLevel);
+            case "2":
+                return new PdfA2Checker(conformanceLevel);
+            default:
+                return new PdfA3Checker(conformanceLevel);
+        }
+    }
+}
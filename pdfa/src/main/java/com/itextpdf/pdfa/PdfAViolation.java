@@ -0,0 +1,117 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa;
+
+/**
+ * A violation of the PDF/A specification found by {@link PdfAValidator}.
+ */
+public class PdfAViolation {
+
+    private final PdfAConformanceException exception;
+    private final int objectNumber;
+    private final int pageNumber;
+
+    /**
+     * Creates a violation.
+     *
+     * @param exception    the exception which describes the violation
+     * @param objectNumber the number of the indirect object which violates the specification,
+     *                     or 0 if the object is direct or the violation is not related to a single object
+     * @param pageNumber   the number of the page on which the violation was found,
+     *                     or 0 if it was not found while checking a page
+     */
+    public PdfAViolation(PdfAConformanceException exception, int objectNumber, int pageNumber) {
+        this.exception = exception;
+        this.objectNumber = objectNumber;
+        this.pageNumber = pageNumber;
+    }
+
+    /**
+     * Gets the description of the violation.
+     *
+     * @return the message of the violation
+     */
+    public String getMessage() {
+        return exception.getMessage();
+    }
+
+    /**
+     * Gets the exception which would have been thrown for this violation by {@link PdfADocument}.
+     *
+     * @return the exception which describes the violation
+     */
+    public PdfAConformanceException getException() {
+        return exception;
+    }
+
+    /**
+     * Gets the number of the indirect object which violates the specification.
+     *
+     * @return the object number, or 0 if the object is direct or the violation is not related to a single object
+     */
+    public int getObjectNumber() {
+        return objectNumber;
+    }
+
+    /**
+     * Gets the number of the page on which the violation was found.
+     *
+     * @return the page number, or 0 if the violation was not found while checking a page
+     */
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getMessage());
+        if (pageNumber > 0) {
+            sb.append(" (page ").append(pageNumber).append(')');
+        }
+        if (objectNumber > 0) {
+            sb.append(" (object ").append(objectNumber).append(')');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,242 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa.checker;
+
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.colorspace.PdfColorSpace;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers the objects which have already been checked by a {@link PdfAChecker}.
+ * <p>
+ * Indirect objects are tracked by their object and generation numbers rather than by instance,
+ * so an object stays checked even if it was released and read again, and the objects of the
+ * first generation, which are the vast majority, take a single bit each. Direct objects
+ * are tracked by instance. The store is thread-safe, so the pages can be checked
+ * in another thread than the one which writes the document.
+ */
+public class CheckedObjects implements Serializable {
+
+    private static final long serialVersionUID = 1436283710624597312L;
+
+    private final BitSet firstGeneration = new BitSet();
+    private final Set<Long> otherGenerations = new HashSet<>();
+    private final Set<PdfObject> directObjects = Collections.newSetFromMap(new IdentityHashMap<PdfObject, Boolean>());
+    private final Map<Long, PdfColorSpace> indirectColorSpaces = new HashMap<>();
+    private final Map<PdfObject, PdfColorSpace> directColorSpaces = new IdentityHashMap<>();
+
+    /**
+     * Marks the object as checked.
+     *
+     * @param object the object to mark
+     * @return {@code true} if the object has not been checked before
+     */
+    public synchronized boolean add(PdfObject object) {
+        PdfIndirectReference reference = object.getIndirectReference();
+        if (reference == null) {
+            return directObjects.add(object);
+        }
+        if (reference.getGenNumber() == 0) {
+            if (firstGeneration.get(reference.getObjNumber())) {
+                return false;
+            }
+            firstGeneration.set(reference.getObjNumber());
+            // the object might have been marked before it was made indirect
+            return directObjects.isEmpty() || !directObjects.remove(object);
+        }
+        return otherGenerations.add(getKey(reference)) & (directObjects.isEmpty() || !directObjects.remove(object));
+    }
+
+    /**
+     * Checks whether the object has been marked as checked.
+     *
+     * @param object the object to look for
+     * @return {@code true} if the object has been checked
+     */
+    public synchronized boolean contains(PdfObject object) {
+        PdfIndirectReference reference = object.getIndirectReference();
+        if (reference != null) {
+            boolean checked = reference.getGenNumber() == 0 ? firstGeneration.get(reference.getObjNumber())
+                    : otherGenerations.contains(getKey(reference));
+            if (checked) {
+                return true;
+            }
+        }
+        return !directObjects.isEmpty() && directObjects.contains(object);
+    }
+
+    /**
+     * Gets the color space which was found for the checked image.
+     *
+     * @param image the image
+     * @return the color space of the image, or {@code null} if it is not known
+     */
+    public synchronized PdfColorSpace getColorSpace(PdfObject image) {
+        PdfIndirectReference reference = image.getIndirectReference();
+        PdfColorSpace colorSpace = reference == null ? null : indirectColorSpaces.get(getKey(reference));
+        return colorSpace != null ? colorSpace : directColorSpaces.get(image);
+    }
+
+    /**
+     * Remembers the color space which was found for the checked image.
+     *
+     * @param image      the image
+     * @param colorSpace the color space of the image
+     */
+    public synchronized void setColorSpace(PdfObject image, PdfColorSpace colorSpace) {
+        PdfIndirectReference reference = image.getIndirectReference();
+        if (reference == null) {
+            directColorSpaces.put(image, colorSpace);
+        } else {
+            indirectColorSpaces.put(getKey(reference), colorSpace);
+        }
+    }
+
+    /**
+     * Gets the number of the objects which have been marked as checked.
+     *
+     * @return the number of the checked objects
+     */
+    public synchronized int size() {
+        return firstGeneration.cardinality() + otherGenerations.size() + directObjects.size();
+    }
+
+    /**
+     * Gets a {@link Set} view of the checked objects, backed by this store.
+     * Only {@code add}, {@code contains} and {@code size} are supported, because the instances
+     * of the checked indirect objects are not retained.
+     *
+     * @return the set view of the checked objects
+     */
+    Set<PdfObject> asSet() {
+        return new CheckedObjectSet();
+    }
+
+    /**
+     * Gets a {@link Map} view of the color spaces of the checked images, backed by this store.
+     * Only {@code get}, {@code put}, {@code containsKey} and {@code size} are supported.
+     *
+     * @return the map view of the color spaces of the checked images
+     */
+    Map<PdfObject, PdfColorSpace> colorSpacesAsMap() {
+        return new ColorSpaceMap();
+    }
+
+    private static Long getKey(PdfIndirectReference reference) {
+        return ((long) reference.getObjNumber() << 32) | reference.getGenNumber();
+    }
+
+    private final class CheckedObjectSet extends AbstractSet<PdfObject> implements Serializable {
+
+        private static final long serialVersionUID = -2390417627545146542L;
+
+        @Override
+        public boolean add(PdfObject object) {
+            return CheckedObjects.this.add(object);
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return object instanceof PdfObject && CheckedObjects.this.contains((PdfObject) object);
+        }
+
+        @Override
+        public int size() {
+            return CheckedObjects.this.size();
+        }
+
+        @Override
+        public Iterator<PdfObject> iterator() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final class ColorSpaceMap extends AbstractMap<PdfObject, PdfColorSpace> implements Serializable {
+
+        private static final long serialVersionUID = 5514212432165093713L;
+
+        @Override
+        public PdfColorSpace get(Object image) {
+            return image instanceof PdfObject ? getColorSpace((PdfObject) image) : null;
+        }
+
+        @Override
+        public PdfColorSpace put(PdfObject image, PdfColorSpace colorSpace) {
+            synchronized (CheckedObjects.this) {
+                PdfColorSpace previous = getColorSpace(image);
+                setColorSpace(image, colorSpace);
+                return previous;
+            }
+        }
+
+        @Override
+        public boolean containsKey(Object image) {
+            return get(image) != null;
+        }
+
+        @Override
+        public int size() {
+            synchronized (CheckedObjects.this) {
+                return indirectColorSpaces.size() + directColorSpaces.size();
+            }
+        }
+
+        @Override
+        public Set<Entry<PdfObject, PdfColorSpace>> entrySet() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -142,18 +142,21 @@ public class PdfA1Checker extends PdfAChecker {
             colorSpace = ((PdfSpecialCs.DeviceN) colorSpace).getBaseCs();
         }
 
-        if (colorSpace instanceof PdfDeviceCs.Rgb) {
-            if (cmykIsUsed) {
-                throw new PdfAConformanceException(PdfAConformanceException.DEVICERGB_AND_DEVICECMYK_COLORSPACES_CANNOT_BE_USED_BOTH_IN_ONE_FILE);
-            }
-            rgbIsUsed = true;
-        } else if (colorSpace instanceof PdfDeviceCs.Cmyk) {
-            if (rgbIsUsed) {
-                throw new PdfAConformanceException(PdfAConformanceException.DEVICERGB_AND_DEVICECMYK_COLORSPACES_CANNOT_BE_USED_BOTH_IN_ONE_FILE);
+        // the pages may be checked in another thread, so the usages are checked and updated at once
+        synchronized (this) {
+            if (colorSpace instanceof PdfDeviceCs.Rgb) {
+                if (cmykIsUsed) {
+                    throw new PdfAConformanceException(PdfAConformanceException.DEVICERGB_AND_DEVICECMYK_COLORSPACES_CANNOT_BE_USED_BOTH_IN_ONE_FILE);
+                }
+                rgbIsUsed = true;
+            } else if (colorSpace instanceof PdfDeviceCs.Cmyk) {
+                if (rgbIsUsed) {
+                    throw new PdfAConformanceException(PdfAConformanceException.DEVICERGB_AND_DEVICECMYK_COLORSPACES_CANNOT_BE_USED_BOTH_IN_ONE_FILE);
+                }
+                cmykIsUsed = true;
+            } else if (colorSpace instanceof PdfDeviceCs.Gray) {
+                grayIsUsed = true;
             }
-            cmykIsUsed = true;
-        } else if (colorSpace instanceof PdfDeviceCs.Gray) {
-            grayIsUsed = true;
         }
     }
 
@@ -268,7 +271,7 @@ public class PdfA1Checker extends PdfAChecker {
     protected void checkImage(PdfStream image, PdfDictionary currentColorSpaces) {
         PdfColorSpace colorSpace = null;
         if (isAlreadyChecked(image)) {
-            colorSpace = checkedObjectsColorspace.get(image);
+            colorSpace = checkedObjectStore.getColorSpace(image);
             checkColorSpace(colorSpace, currentColorSpaces, true, null);
             return;
         }
@@ -276,7 +279,7 @@ public class PdfA1Checker extends PdfAChecker {
         if (colorSpaceObj != null) {
             colorSpace = PdfColorSpace.makeColorSpace(colorSpaceObj);
             checkColorSpace(colorSpace, currentColorSpaces, true, null);
-            checkedObjectsColorspace.put(image, colorSpace);
+            checkedObjectStore.setColorSpace(image, colorSpace);
         }
 
         if (image.containsKey(PdfName.Alternates)) {
@@ -43,7 +43,6 @@
  */
 package com.itextpdf.pdfa.checker;
 
-import com.itextpdf.io.colors.IccProfile;
 import com.itextpdf.io.font.PdfEncodings;
 import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.io.image.Jpeg2000ImageData;
@@ -105,7 +104,9 @@ public class PdfA2Checker extends PdfA1Checker {
     static final int MIN_PAGE_SIZE = 3;
     private static final long serialVersionUID = -5937712517954260687L;
 
-    private boolean transparencyIsUsed = false;
+    private volatile boolean transparencyIsUsed = false;
+    // the current colour space flags are only set when a colour is set on a canvas (fill != null), which is
+    // always done in the writing thread, so the page checks run by the executor never touch them
     private boolean currentFillCsIsIccBasedCMYK = false;
     private boolean currentStrokeCsIsIccBasedCMYK = false;
 
@@ -227,8 +228,7 @@ public class PdfA2Checker extends PdfA1Checker {
         }
 
         if (fill != null && colorSpace instanceof PdfCieBasedCs.IccBased) {
-            byte[] iccBytes = ((PdfArray) colorSpace.getPdfObject()).getAsStream(1).getBytes();
-            if (ICC_COLOR_SPACE_CMYK.equals(IccProfile.getIccColorSpaceName(iccBytes))) {
+            if (ICC_COLOR_SPACE_CMYK.equals(getIccColorSpaceName(((PdfArray) colorSpace.getPdfObject()).getAsStream(1)))) {
                 if ((boolean) fill) {
                     currentFillCsIsIccBasedCMYK = true;
                 } else {
@@ -632,12 +632,12 @@ public class PdfA2Checker extends PdfA1Checker {
         }
 
         if (destOutputProfile != null) {
-            String deviceClass = IccProfile.getIccDeviceClass(((PdfStream) destOutputProfile).getBytes());
+            String deviceClass = getIccDeviceClass((PdfStream) destOutputProfile);
             if (!ICC_DEVICE_CLASS_OUTPUT_PROFILE.equals(deviceClass) && !ICC_DEVICE_CLASS_MONITOR_PROFILE.equals(deviceClass)) {
                 throw new PdfAConformanceException(PdfAConformanceException.PROFILE_STREAM_OF_OUTPUTINTENT_SHALL_BE_OUTPUT_PROFILE_PRTR_OR_MONITOR_PROFILE_MNTR);
             }
 
-            String cs = IccProfile.getIccColorSpaceName(((PdfStream) destOutputProfile).getBytes());
+            String cs = getIccColorSpaceName((PdfStream) destOutputProfile);
             if (!ICC_COLOR_SPACE_RGB.equals(cs) && !ICC_COLOR_SPACE_CMYK.equals(cs) && !ICC_COLOR_SPACE_GRAY.equals(cs)) {
                 throw new PdfAConformanceException(PdfAConformanceException.OUTPUT_INTENT_COLOR_SPACE_SHALL_BE_EITHER_GRAY_RGB_OR_CMYK);
             }
@@ -680,7 +680,7 @@ public class PdfA2Checker extends PdfA1Checker {
     protected void checkImage(PdfStream image, PdfDictionary currentColorSpaces) {
         PdfColorSpace colorSpace = null;
         if (isAlreadyChecked(image)) {
-            colorSpace = checkedObjectsColorspace.get(image);
+            colorSpace = checkedObjectStore.getColorSpace(image);
             checkColorSpace(colorSpace, currentColorSpaces, true, null);
             return;
         }
@@ -689,7 +689,7 @@ public class PdfA2Checker extends PdfA1Checker {
         if (colorSpaceObj != null) {
             colorSpace = PdfColorSpace.makeColorSpace(colorSpaceObj);
             checkColorSpace(colorSpace, currentColorSpaces, true, null);
-            checkedObjectsColorspace.put(image, colorSpace);
+            checkedObjectStore.setColorSpace(image, colorSpace);
         }
 
         if (image.containsKey(PdfName.Alternates)) {
@@ -756,17 +756,17 @@ public class PdfA2Checker extends PdfA1Checker {
                                 case 1:
                                     PdfDeviceCs.Gray deviceGrayCs = new PdfDeviceCs.Gray();
                                     checkColorSpace(deviceGrayCs, currentColorSpaces, true, null);
-                                    checkedObjectsColorspace.put(image, deviceGrayCs);
+                                    checkedObjectStore.setColorSpace(image, deviceGrayCs);
                                     break;
                                 case 3:
                                     PdfDeviceCs.Rgb deviceRgbCs = new PdfDeviceCs.Rgb();
                                     checkColorSpace(deviceRgbCs, currentColorSpaces, true, null);
-                                    checkedObjectsColorspace.put(image, deviceRgbCs);
+                                    checkedObjectStore.setColorSpace(image, deviceRgbCs);
                                     break;
                                 case 12:
                                     PdfDeviceCs.Cmyk deviceCmykCs = new PdfDeviceCs.Cmyk();
                                     checkColorSpace(deviceCmykCs, currentColorSpaces, true, null);
-                                    checkedObjectsColorspace.put(image, deviceCmykCs);
+                                    checkedObjectStore.setColorSpace(image, deviceCmykCs);
                                     break;
                             }
                         }
@@ -836,32 +836,34 @@ public class PdfA2Checker extends PdfA1Checker {
     }
 
     private void checkSeparationCS(PdfArray separation) {
-        if (separationColorSpaces.containsKey(separation.getAsName(0))) {
-            boolean altCSIsTheSame;
-            boolean tintTransformIsTheSame;
-
-            PdfArray sameNameSeparation = separationColorSpaces.get(separation.getAsName(0));
-            PdfObject cs1 = separation.get(2);
-            PdfObject cs2 = sameNameSeparation.get(2);
-            altCSIsTheSame = isAltCSIsTheSame(cs1, cs2);
-            // TODO(DEVSIX-1672) in fact need to check if objects content is equal. ISO 19005-2, 6.2.4.4 "Separation and DeviceN colour spaces":
-            // In evaluating equivalence, the PDF objects shall be compared, rather than the computational
-            // result of the use of those PDF objects. Compression and whether or not an object is direct or indirect shall be ignored.
-            PdfObject f1Obj = separation.get(3);
-            PdfObject f2Obj = sameNameSeparation.get(3);
-            //Can be a stream or dict
-            boolean bothAllowedType = (f1Obj.getType() == f2Obj.getType()) && (f1Obj.isDictionary() || f1Obj.isStream());
-            //Check if the indirect references are equal
-            tintTransformIsTheSame = bothAllowedType && f1Obj.equals(f2Obj);
-
-
-            if (!altCSIsTheSame || !tintTransformIsTheSame) {
-                throw new PdfAConformanceException(PdfAConformanceException.TINT_TRANSFORM_AND_ALTERNATE_SPACE_SHALL_BE_THE_SAME_FOR_THE_ALL_SEPARATION_CS_WITH_THE_SAME_NAME);
+        // the pages may be checked in another thread, so the separation is looked up and registered at once
+        synchronized (this) {
+            if (separationColorSpaces.containsKey(separation.getAsName(0))) {
+                boolean altCSIsTheSame;
+                boolean tintTransformIsTheSame;
+
+                PdfArray sameNameSeparation = separationColorSpaces.get(separation.getAsName(0));
+                PdfObject cs1 = separation.get(2);
+                PdfObject cs2 = sameNameSeparation.get(2);
+                altCSIsTheSame = isAltCSIsTheSame(cs1, cs2);
+                // TODO(DEVSIX-1672) in fact need to check if objects content is equal. ISO 19005-2, 6.2.4.4 "Separation and DeviceN colour spaces":
+                // In evaluating equivalence, the PDF objects shall be compared, rather than the computational
+                // result of the use of those PDF objects. Compression and whether or not an object is direct or indirect shall be ignored.
+                PdfObject f1Obj = separation.get(3);
+                PdfObject f2Obj = sameNameSeparation.get(3);
+                //Can be a stream or dict
+                boolean bothAllowedType = (f1Obj.getType() == f2Obj.getType()) && (f1Obj.isDictionary() || f1Obj.isStream());
+                //Check if the indirect references are equal
+                tintTransformIsTheSame = bothAllowedType && f1Obj.equals(f2Obj);
+
+
+                if (!altCSIsTheSame || !tintTransformIsTheSame) {
+                    throw new PdfAConformanceException(PdfAConformanceException.TINT_TRANSFORM_AND_ALTERNATE_SPACE_SHALL_BE_THE_SAME_FOR_THE_ALL_SEPARATION_CS_WITH_THE_SAME_NAME);
+                }
+            } else {
+                separationColorSpaces.put(separation.getAsName(0), separation);
             }
-        } else {
-            separationColorSpaces.put(separation.getAsName(0), separation);
         }
-
     }
 
     private boolean isAltCSIsTheSame(PdfObject cs1, PdfObject cs2) {
@@ -43,9 +43,12 @@
  */
 package com.itextpdf.pdfa.checker;
 
+import com.itextpdf.io.IOException;
 import com.itextpdf.io.colors.IccProfile;
+import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.font.PdfTrueTypeFont;
 import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
 import com.itextpdf.kernel.pdf.PdfArray;
@@ -60,11 +63,13 @@ import com.itextpdf.kernel.pdf.PdfStream;
 import com.itextpdf.kernel.pdf.PdfString;
 import com.itextpdf.kernel.pdf.canvas.CanvasGraphicsState;
 import com.itextpdf.kernel.pdf.colorspace.PdfColorSpace;
+import com.itextpdf.kernel.pdf.colorspace.SharedIccProfile;
+import com.itextpdf.pdfa.PdfAConformanceException;
+import com.itextpdf.pdfa.PdfAValidationReport;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -132,9 +137,9 @@ public abstract class PdfAChecker implements Serializable {
     protected String pdfAOutputIntentColorSpace;
 
     protected int gsStackDepth = 0;
-    protected boolean rgbIsUsed = false;
-    protected boolean cmykIsUsed = false;
-    protected boolean grayIsUsed = false;
+    protected volatile boolean rgbIsUsed = false;
+    protected volatile boolean cmykIsUsed = false;
+    protected volatile boolean grayIsUsed = false;
 
     /**
      * Contains some objects that are already checked.
@@ -145,8 +150,35 @@ public abstract class PdfAChecker implements Serializable {
      * that shall be checked are able to be changed) shouldn't be marked as checked if they are not to be
      * flushed immediately.
      */
-    protected Set<PdfObject> checkedObjects = new HashSet<>();
-    protected Map<PdfObject, PdfColorSpace> checkedObjectsColorspace = new HashMap<>();
+    protected final CheckedObjects checkedObjectStore = new CheckedObjects();
+
+    /**
+     * A {@link Set} view of {@link #checkedObjectStore}. Only {@code add}, {@code contains} and {@code size}
+     * are supported, because the instances of the checked indirect objects are not retained.
+     *
+     * @deprecated use {@link #checkedObjectStore} instead. Will be removed in 7.2.
+     */
+    @Deprecated
+    protected Set<PdfObject> checkedObjects = checkedObjectStore.asSet();
+
+    /**
+     * A {@link Map} view of the image color spaces remembered by {@link #checkedObjectStore}.
+     * Only {@code get}, {@code put}, {@code containsKey} and {@code size} are supported.
+     *
+     * @deprecated use {@link CheckedObjects#getColorSpace(PdfObject)} and
+     * {@link CheckedObjects#setColorSpace(PdfObject, PdfColorSpace)} of {@link #checkedObjectStore} instead.
+     * Will be removed in 7.2.
+     */
+    @Deprecated
+    protected Map<PdfObject, PdfColorSpace> checkedObjectsColorspace = checkedObjectStore.colorSpacesAsMap();
+
+    // the color spaces of the ICC profile streams, which otherwise are decoded on every use of an ICC based color;
+    // the streams are removed once they are flushed, see objectFlushed(PdfObject)
+    private transient Map<PdfStream, String> iccColorSpaceNames;
+
+    // the report of the ongoing validation, violations are thrown if it's null
+    private transient PdfAValidationReport validationReport;
+    private transient int validatedPageNumber;
 
     protected PdfAChecker(PdfAConformanceLevel conformanceLevel) {
         this.conformanceLevel = conformanceLevel;
@@ -164,16 +196,68 @@ public abstract class PdfAChecker implements Serializable {
         PdfDictionary catalogDict = catalog.getPdfObject();
         setPdfAOutputIntentColorSpace(catalogDict);
 
-        checkOutputIntents(catalogDict);
-        checkMetaData(catalogDict);
-        checkCatalogValidEntries(catalogDict);
-        checkTrailer(catalog.getDocument().getTrailer());
-        checkLogicalStructure(catalogDict);
-        checkForm(catalogDict.getAsDictionary(PdfName.AcroForm));
+        try {
+            checkOutputIntents(catalogDict);
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, catalogDict);
+        }
+        try {
+            checkMetaData(catalogDict);
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, catalogDict);
+        }
+        try {
+            checkCatalogValidEntries(catalogDict);
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, catalogDict);
+        }
+        try {
+            checkTrailer(catalog.getDocument().getTrailer());
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, null);
+        }
+        try {
+            checkLogicalStructure(catalogDict);
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, catalogDict);
+        }
+        try {
+            checkForm(catalogDict.getAsDictionary(PdfName.AcroForm));
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, catalogDict.get(PdfName.AcroForm));
+        }
         checkOutlines(catalogDict);
         checkPages(catalog.getDocument());
-        checkOpenAction(catalogDict.get(PdfName.OpenAction));
-        checkColorsUsages();
+        try {
+            checkOpenAction(catalogDict.get(PdfName.OpenAction));
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, catalogDict.get(PdfName.OpenAction));
+        }
+        try {
+            checkColorsUsages();
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, null);
+        }
+    }
+
+    /**
+     * This method checks the same requirements as {@link #checkDocument(PdfCatalog)}, but instead of
+     * throwing an exception on the first violation, it adds every violation to the passed report
+     * and goes on with the next check. The document is expected to be opened in reading mode, so
+     * resources which are shared between pages and XObjects are checked only once,
+     * and the fonts found in the resources are checked as well.
+     *
+     * @param catalog The catalog being checked
+     * @param report  the report to add the violations to
+     */
+    public void checkDocument(PdfCatalog catalog, PdfAValidationReport report) {
+        validationReport = report;
+        try {
+            checkDocument(catalog);
+        } finally {
+            validationReport = null;
+            validatedPageNumber = 0;
+        }
     }
 
     /**
@@ -186,6 +270,40 @@ public abstract class PdfAChecker implements Serializable {
     }
 
 
+    /**
+     * Prepares the check of all requirements that must be fulfilled by a page in a
+     * PDF/A document, so that it can be run later, possibly in another thread, while
+     * the page is being flushed. The page dictionary and its direct content are copied,
+     * so the page itself and its content streams are marked as checked right away.
+     * The indirect objects referred to by the page, such as XObjects and annotations,
+     * are read when the check is run, so they shall not be flushed or modified until then.
+     *
+     * @param page the page that must be checked
+     * @return the check of the page, or {@code null} if the page has already been checked
+     */
+    public Runnable createPageCheck(PdfPage page) {
+        PdfDictionary pageDict = page.getPdfObject();
+        if (isAlreadyChecked(pageDict)) {
+            return null;
+        }
+        final PdfDictionary pageSnapshot = (PdfDictionary) pageDict.clone();
+        PdfDictionary resources = pageSnapshot.getAsDictionary(PdfName.Resources);
+        if (resources == null) {
+            resources = (PdfDictionary) page.getResources().getPdfObject().clone();
+        }
+        final PdfDictionary resourcesSnapshot = resources;
+        int contentStreamCount = page.getContentStreamCount();
+        for (int j = 0; j < contentStreamCount; ++j) {
+            checkedObjectStore.add(page.getContentStream(j));
+        }
+        return new Runnable() {
+            @Override
+            public void run() {
+                checkPageDictionary(pageSnapshot, resourcesSnapshot);
+            }
+        };
+    }
+
     /**
      * This method checks the requirements that must be fulfilled by a COS
      * object in a PDF/A document.
@@ -229,7 +347,23 @@ public abstract class PdfAChecker implements Serializable {
      * @return whether or not the object has already been checked
      */
     public boolean objectIsChecked(PdfObject object) {
-        return checkedObjects.contains(object);
+        return checkedObjectStore.contains(object);
+    }
+
+    /**
+     * Releases the data kept for the object while checking it. This method is called
+     * by the document once the object is written and can't be checked anymore.
+     *
+     * @param object the flushed object
+     */
+    public void objectFlushed(PdfObject object) {
+        if (object.isStream()) {
+            synchronized (this) {
+                if (iccColorSpaceNames != null) {
+                    iccColorSpaceNames.remove((PdfStream) object);
+                }
+            }
+        }
     }
 
     /**
@@ -241,7 +375,7 @@ public abstract class PdfAChecker implements Serializable {
     public void checkTagStructureElement(PdfObject obj) {
         // We don't check tag structure as there are no strict constraints,
         // so we just mark tag structure elements to be able to flush them
-        checkedObjects.add(obj);
+        checkedObjectStore.add(obj);
     }
 
     /**
@@ -335,6 +469,10 @@ public abstract class PdfAChecker implements Serializable {
     protected void checkResources(PdfDictionary resources) {
         if (resources == null)
             return;
+        // The document can't change during validation, so the shared resources are not visited again.
+        // Otherwise new resources may have been added since the previous check.
+        if (validationReport != null && isAlreadyChecked(resources))
+            return;
 
         PdfDictionary xObjects = resources.getAsDictionary(PdfName.XObject);
         PdfDictionary shadings = resources.getAsDictionary(PdfName.Shading);
@@ -342,18 +480,22 @@ public abstract class PdfAChecker implements Serializable {
 
         if (xObjects != null) {
             for (PdfObject xObject : xObjects.values()) {
-                PdfStream xObjStream = (PdfStream) xObject;
-                PdfObject subtype = null;
-                boolean isFlushed = xObjStream.isFlushed();
-                if (!isFlushed) {
-                    subtype = xObjStream.get(PdfName.Subtype);
-                }
+                try {
+                    PdfStream xObjStream = (PdfStream) xObject;
+                    PdfObject subtype = null;
+                    boolean isFlushed = xObjStream.isFlushed();
+                    if (!isFlushed) {
+                        subtype = xObjStream.get(PdfName.Subtype);
+                    }
 
-                if (PdfName.Image.equals(subtype)
-                        || isFlushed) { // if flushed still may be need to check colorspace in given context
-                    checkImage(xObjStream, resources.getAsDictionary(PdfName.ColorSpace));
-                } else if (PdfName.Form.equals(subtype)) {
-                    checkFormXObject(xObjStream);
+                    if (PdfName.Image.equals(subtype)
+                            || isFlushed) { // if flushed still may be need to check colorspace in given context
+                        checkImage(xObjStream, resources.getAsDictionary(PdfName.ColorSpace));
+                    } else if (PdfName.Form.equals(subtype)) {
+                        checkFormXObject(xObjStream);
+                    }
+                } catch (PdfAConformanceException e) {
+                    reportViolation(e, xObject);
                 }
             }
         }
@@ -362,7 +504,11 @@ public abstract class PdfAChecker implements Serializable {
             for (PdfObject shading : shadings.values()) {
                 PdfDictionary shadingDict = (PdfDictionary) shading;
                 if (!isAlreadyChecked(shadingDict)) {
-                    checkColorSpace(PdfColorSpace.makeColorSpace(shadingDict.get(PdfName.ColorSpace)), resources.getAsDictionary(PdfName.ColorSpace), true, null);
+                    try {
+                        checkColorSpace(PdfColorSpace.makeColorSpace(shadingDict.get(PdfName.ColorSpace)), resources.getAsDictionary(PdfName.ColorSpace), true, null);
+                    } catch (PdfAConformanceException e) {
+                        reportViolation(e, shadingDict);
+                    }
                 }
             }
         }
@@ -377,6 +523,53 @@ public abstract class PdfAChecker implements Serializable {
                 }
             }
         }
+
+        if (validationReport != null) {
+            // when a document is created, the fonts are checked by the document itself
+            checkFontResources(resources.getAsDictionary(PdfName.Font));
+        }
+    }
+
+    /**
+     * Gets the color space of the ICC profile. The profile is not decoded if the stream
+     * was created from a {@link SharedIccProfile}, and it is decoded once otherwise.
+     *
+     * @param iccStream the ICC profile stream
+     * @return the color space name, see {@link IccProfile#getIccColorSpaceName(byte[])}
+     */
+    protected String getIccColorSpaceName(PdfStream iccStream) {
+        String colorSpaceName = null;
+        synchronized (this) {
+            if (iccColorSpaceNames != null) {
+                colorSpaceName = iccColorSpaceNames.get(iccStream);
+            }
+        }
+        if (colorSpaceName == null) {
+            SharedIccProfile sharedProfile = SharedIccProfile.getSharedProfile(iccStream);
+            colorSpaceName = sharedProfile != null ? sharedProfile.getColorSpaceName() : IccProfile.getIccColorSpaceName(iccStream.getBytes());
+            // a flushed stream can't be used anymore, so there is no point in keeping it
+            if (!iccStream.isFlushed()) {
+                synchronized (this) {
+                    if (iccColorSpaceNames == null) {
+                        iccColorSpaceNames = new IdentityHashMap<>();
+                    }
+                    iccColorSpaceNames.put(iccStream, colorSpaceName);
+                }
+            }
+        }
+        return colorSpaceName;
+    }
+
+    /**
+     * Gets the device class of the ICC profile. The profile is not decoded if the stream
+     * was created from a {@link SharedIccProfile}.
+     *
+     * @param iccStream the ICC profile stream
+     * @return the device class, see {@link IccProfile#getIccDeviceClass(byte[])}
+     */
+    protected String getIccDeviceClass(PdfStream iccStream) {
+        SharedIccProfile sharedProfile = SharedIccProfile.getSharedProfile(iccStream);
+        return sharedProfile != null ? sharedProfile.getDeviceClass() : IccProfile.getIccDeviceClass(iccStream.getBytes());
     }
 
     protected static boolean checkFlag(int flags, int flag) {
@@ -390,11 +583,7 @@ public abstract class PdfAChecker implements Serializable {
     }
 
     protected boolean isAlreadyChecked(PdfDictionary dictionary) {
-        if (checkedObjects.contains(dictionary)) {
-            return true;
-        }
-        checkedObjects.add(dictionary);
-        return false;
+        return !checkedObjectStore.add(dictionary);
     }
 
     protected void checkResourcesOfAppearanceStreams(PdfDictionary appearanceStreamsDict) {
@@ -414,8 +603,10 @@ public abstract class PdfAChecker implements Serializable {
 
     private void checkPages(PdfDocument document) {
         for (int i = 1; i <= document.getNumberOfPages(); i++) {
+            validatedPageNumber = i;
             checkPage(document.getPage(i));
         }
+        validatedPageNumber = 0;
     }
 
     private void checkPage(PdfPage page) {
@@ -423,16 +614,31 @@ public abstract class PdfAChecker implements Serializable {
 
         if (isAlreadyChecked(pageDict)) return;
 
-        checkPageObject(pageDict, page.getResources().getPdfObject());
-        PdfDictionary pageResources = page.getResources().getPdfObject();
-        checkResources(pageResources);
-        checkAnnotations(pageDict);
-        checkPageSize(pageDict);
-
+        // PdfResources is not needed for the checks, so it is not built if the page has its own resources dictionary
+        PdfDictionary pageResources = pageDict.getAsDictionary(PdfName.Resources);
+        if (pageResources == null) {
+            pageResources = page.getResources().getPdfObject();
+        }
+        checkPageDictionary(pageDict, pageResources);
 
         int contentStreamCount = page.getContentStreamCount();
         for (int j = 0; j < contentStreamCount; ++j) {
-            checkedObjects.add(page.getContentStream(j));
+            checkedObjectStore.add(page.getContentStream(j));
+        }
+    }
+
+    private void checkPageDictionary(PdfDictionary pageDict, PdfDictionary pageResources) {
+        try {
+            checkPageObject(pageDict, pageResources);
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, pageDict);
+        }
+        checkResources(pageResources);
+        checkAnnotations(pageDict);
+        try {
+            checkPageSize(pageDict);
+        } catch (PdfAConformanceException e) {
+            reportViolation(e, pageDict);
         }
     }
 
@@ -447,10 +653,14 @@ public abstract class PdfAChecker implements Serializable {
         if (annots != null) {
             for (int i = 0; i < annots.size(); i++) {
                 PdfDictionary annot = annots.getAsDictionary(i);
-                checkAnnotation(annot);
-                PdfDictionary action = annot.getAsDictionary(PdfName.A);
-                if (action != null) {
-                    checkAction(action);
+                try {
+                    checkAnnotation(annot);
+                    PdfDictionary action = annot.getAsDictionary(PdfName.A);
+                    if (action != null) {
+                        checkAction(action);
+                    }
+                } catch (PdfAConformanceException e) {
+                    reportViolation(e, annot);
                 }
             }
         }
@@ -462,7 +672,11 @@ public abstract class PdfAChecker implements Serializable {
             for (PdfDictionary outline : getOutlines(outlines)) {
                 PdfDictionary action = outline.getAsDictionary(PdfName.A);
                 if (action != null) {
-                    checkAction(action);
+                    try {
+                        checkAction(action);
+                    } catch (PdfAConformanceException e) {
+                        reportViolation(e, outline);
+                    }
                 }
             }
         }
@@ -484,6 +698,47 @@ public abstract class PdfAChecker implements Serializable {
         return outlines;
     }
 
+    private void checkFontResources(PdfDictionary fonts) {
+        if (fonts == null)
+            return;
+        for (PdfObject font : fonts.values()) {
+            if (font.isDictionary() && !isAlreadyChecked((PdfDictionary) font)) {
+                try {
+                    checkFont(PdfFontFactory.createFont((PdfDictionary) font));
+                } catch (PdfAConformanceException e) {
+                    reportViolation(e, font);
+                } catch (PdfException e) {
+                    reportUnreadableFont(e, font);
+                } catch (IOException e) {
+                    reportUnreadableFont(e, font);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the violation to the report of the ongoing validation, or throws it if there is no validation.
+     */
+    private void reportViolation(PdfAConformanceException violation, PdfObject object) {
+        if (validationReport == null) {
+            throw violation;
+        }
+        int objectNumber = object != null && object.getIndirectReference() != null ? object.getIndirectReference().getObjNumber() : 0;
+        validationReport.addViolation(violation, objectNumber, validatedPageNumber);
+    }
+
+    /**
+     * Adds a font which can't be read to the report of the ongoing validation, so that a malformed or
+     * unsupported font doesn't abort the validation. Rethrows the exception if there is no validation.
+     */
+    private void reportUnreadableFont(RuntimeException exception, PdfObject font) {
+        if (validationReport == null) {
+            throw exception;
+        }
+        reportViolation((PdfAConformanceException) new PdfAConformanceException(PdfAConformanceException.THE_FONT_CANNOT_BE_READ_0)
+                .setMessageParams(exception.getMessage()), font);
+    }
+
     private void setPdfAOutputIntentColorSpace(PdfDictionary catalog) {
         PdfArray outputIntents = catalog.getAsArray(PdfName.OutputIntents);
         if (outputIntents == null)
@@ -508,7 +763,7 @@ public abstract class PdfAChecker implements Serializable {
         if (outputIntent != null) {
             PdfStream destOutputProfile = outputIntent.getAsStream(PdfName.DestOutputProfile);
             if (destOutputProfile != null) {
-                String intentCS = IccProfile.getIccColorSpaceName(destOutputProfile.getBytes());
+                String intentCS = getIccColorSpaceName(destOutputProfile);
                 this.pdfAOutputIntentColorSpace = intentCS;
             }
         }
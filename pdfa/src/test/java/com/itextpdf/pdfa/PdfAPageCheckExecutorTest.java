@@ -0,0 +1,236 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa;
+
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.colors.Separation;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfOutputIntent;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.colorspace.PdfColorSpace;
+import com.itextpdf.kernel.pdf.colorspace.PdfDeviceCs;
+import com.itextpdf.kernel.pdf.function.PdfFunction;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import com.itextpdf.kernel.utils.CompareTool;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Category(IntegrationTest.class)
+public class PdfAPageCheckExecutorTest extends ExtendedITextTest {
+    public static final String sourceFolder = "./src/test/resources/com/itextpdf/pdfa/";
+    public static final String destinationFolder = "./target/test/com/itextpdf/pdfa/PdfAPageCheckExecutorTest/";
+
+    @BeforeClass
+    public static void beforeClass() {
+        createOrClearDestinationFolder(destinationFolder);
+    }
+
+    @Test
+    public void sameDocumentAsWithChecksOnWritingThreadTest() throws IOException, InterruptedException {
+        String syncPdf = destinationFolder + "pagesCheckedOnWritingThread.pdf";
+        String asyncPdf = destinationFolder + "pagesCheckedOnExecutor.pdf";
+        createDocumentWithImages(syncPdf, null);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            createDocumentWithImages(asyncPdf, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertNull(new CompareTool().compareByContent(asyncPdf, syncPdf, destinationFolder, "diff_"));
+    }
+
+    @Test
+    public void objectsFlushedAfterPendingChecksTest() throws IOException {
+        ManualExecutor executor = new ManualExecutor();
+        PdfADocument doc = createDocument(destinationFolder + "objectsFlushedAfterPendingChecks.pdf");
+        doc.setPageCheckExecutor(executor);
+        PdfImageXObject image = new PdfImageXObject(ImageDataFactory.create(sourceFolder + "Desert.jpg"));
+        image.makeIndirect(doc);
+
+        PdfPage firstPage = doc.addNewPage();
+        new PdfCanvas(firstPage).addXObject(image, new Rectangle(30, 300, 300, 300));
+        firstPage.flush(true);
+        // the page is checked on a copy of its dictionary, so it is flushed right away
+        Assert.assertTrue(firstPage.isFlushed());
+        Assert.assertEquals(1, executor.getPendingCount());
+        // the image is read by the pending check, so it is not flushed yet
+        image.flush();
+        Assert.assertFalse(image.isFlushed());
+
+        executor.runPending();
+        PdfPage secondPage = doc.addNewPage();
+        new PdfCanvas(secondPage).addXObject(image, new Rectangle(30, 300, 300, 300));
+        secondPage.flush(true);
+        Assert.assertTrue(image.isFlushed());
+        Assert.assertTrue(secondPage.isFlushed());
+
+        executor.runPending();
+        doc.close();
+    }
+
+    @Test
+    public void violationThrownOnClosingTest() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        PdfADocument doc = createDocument(destinationFolder + "violationThrownOnClosing.pdf");
+        try {
+            doc.setPageCheckExecutor(executor);
+            PdfPage page = doc.addNewPage();
+            page.getPdfObject().put(PdfName.AA, new PdfDictionary());
+            page.flush(true);
+            doc.close();
+            Assert.fail("The violation of the page shall be thrown on closing");
+        } catch (PdfAConformanceException e) {
+            Assert.assertEquals(PdfAConformanceException.THE_PAGE_DICTIONARY_SHALL_NOT_CONTAIN_AA_ENTRY, e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void violationThrownOnNextPageFlushTest() throws IOException {
+        ManualExecutor executor = new ManualExecutor();
+        PdfADocument doc = createDocument(destinationFolder + "violationThrownOnNextPageFlush.pdf");
+        doc.setPageCheckExecutor(executor);
+        PdfPage firstPage = doc.addNewPage();
+        firstPage.getPdfObject().put(PdfName.AA, new PdfDictionary());
+        firstPage.flush(true);
+        executor.runPending();
+
+        try {
+            doc.addNewPage().flush(true);
+            Assert.fail("The violation of the first page shall be thrown when the next page is flushed");
+        } catch (PdfAConformanceException e) {
+            Assert.assertEquals(PdfAConformanceException.THE_PAGE_DICTIONARY_SHALL_NOT_CONTAIN_AA_ENTRY, e.getMessage());
+        }
+        // the violation is thrown once, the same as when the page is checked on the writing thread
+        doc.addNewPage().flush(true);
+        executor.runPending();
+        doc.close();
+    }
+
+    @Test
+    public void sameNameSeparationsCheckedWhileWritingTest() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        PdfADocument doc = createDocument(destinationFolder + "sameNameSeparationsCheckedWhileWriting.pdf");
+        try {
+            doc.setPageCheckExecutor(executor);
+            PdfColorSpace alternateSpace = new PdfDeviceCs.Rgb();
+            PdfFunction.Type2 tintTransform = new PdfFunction.Type2(new PdfArray(new float[]{0, 1}),
+                    new PdfArray(new float[]{0, 1, 0, 1, 0, 1}), new PdfArray(new float[]{0, 0, 0}),
+                    new PdfArray(new float[]{1, 1, 1}), new PdfNumber(1));
+            for (int i = 0; i < 50; i++) {
+                PdfPage page = doc.addNewPage();
+                PdfCanvas canvas = new PdfCanvas(page);
+                // every page gets its own separation array with the same name, which is registered or compared
+                // by the writing thread and by the page checks running on the executor at the same time
+                for (int j = 0; j < 10; j++) {
+                    canvas.setColor(new Separation("separationTest" + j, alternateSpace, tintTransform, 0.5f), true)
+                            .rectangle(30 + 20 * j, 650, 20, 100).fill();
+                }
+                page.flush(true);
+            }
+            doc.close();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void createDocumentWithImages(String outPdf, Executor executor) throws IOException {
+        PdfADocument doc = createDocument(outPdf);
+        doc.setPageCheckExecutor(executor);
+        PdfImageXObject image = new PdfImageXObject(ImageDataFactory.create(sourceFolder + "Desert.jpg"));
+        for (int i = 0; i < 10; i++) {
+            PdfPage page = doc.addNewPage();
+            PdfCanvas canvas = new PdfCanvas(page);
+            canvas.setFillColor(ColorConstants.BLUE).rectangle(30, 650, 100 + 20 * i, 100).fill();
+            canvas.addXObject(image, new Rectangle(30, 300, 300, 300));
+            page.flush(true);
+        }
+        doc.close();
+    }
+
+    private static PdfADocument createDocument(String outPdf) throws IOException {
+        return new PdfADocument(new PdfWriter(outPdf), PdfAConformanceLevel.PDF_A_2B, new PdfOutputIntent("Custom", "",
+                "http://www.color.org", "sRGB IEC61966-2.1", new FileInputStream(sourceFolder + "sRGB Color Space Profile.icm")));
+    }
+
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> pending = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        int getPendingCount() {
+            return pending.size();
+        }
+
+        void runPending() {
+            while (!pending.isEmpty()) {
+                pending.remove(0).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.annot.PdfFileAttachmentAnnotation;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+@Category(IntegrationTest.class)
+public class PdfAValidatorTest extends ExtendedITextTest {
+
+    public static final String sourceFolder = "./src/test/resources/com/itextpdf/pdfa/";
+
+    @Test
+    public void validateCompliantDocumentTest() throws IOException {
+        PdfDocument document = new PdfDocument(new PdfReader(sourceFolder + "cmp/PdfAFlushingTest/cmp_pdfA1b_flushingTest01.pdf"));
+        PdfAValidationReport report = new PdfAValidator().validate(document);
+        document.close();
+
+        Assert.assertEquals(PdfAConformanceLevel.PDF_A_1B, report.getConformanceLevel());
+        Assert.assertTrue(report.getViolations().toString(), report.isCompliant());
+    }
+
+    @Test
+    public void validateAllViolationsTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument document = new PdfDocument(new PdfWriter(baos));
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        for (int i = 0; i < 3; i++) {
+            new PdfCanvas(document.addNewPage()).beginText().setFontAndSize(font, 12).moveText(36, 700).showText("Hello").endText();
+        }
+        document.getPage(2).addAnnotation(new PdfFileAttachmentAnnotation(new Rectangle(100, 100, 100, 100)));
+        document.close();
+
+        document = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        PdfAValidationReport report = new PdfAValidator().validate(document, PdfAConformanceLevel.PDF_A_1B);
+        document.close();
+
+        Assert.assertFalse(report.isCompliant());
+        int fontViolations = 0;
+        boolean annotationViolationFound = false;
+        boolean documentViolationFound = false;
+        for (PdfAViolation violation : report.getViolations()) {
+            if (violation.getMessage().startsWith("All the fonts must be embedded")) {
+                ++fontViolations;
+                Assert.assertEquals(1, violation.getPageNumber());
+                Assert.assertTrue(violation.getObjectNumber() > 0);
+            } else if (violation.getPageNumber() == 2) {
+                annotationViolationFound = true;
+            } else if (violation.getPageNumber() == 0) {
+                documentViolationFound = true;
+            }
+        }
+        // the font is shared by all the pages, so it is reported once
+        Assert.assertEquals(1, fontViolations);
+        Assert.assertTrue(annotationViolationFound);
+        Assert.assertTrue(documentViolationFound);
+    }
+
+    @Test
+    public void unreadableFontReportedTest() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument document = new PdfDocument(new PdfWriter(baos));
+        PdfDictionary font = new PdfDictionary();
+        font.put(PdfName.Type, PdfName.Font);
+        font.put(PdfName.Subtype, new PdfName("Unsupported"));
+        font.makeIndirect(document);
+        PdfDictionary fonts = new PdfDictionary();
+        fonts.put(new PdfName("F1"), font);
+        PdfDictionary resources = new PdfDictionary();
+        resources.put(PdfName.Font, fonts);
+        document.addNewPage().getPdfObject().put(PdfName.Resources, resources);
+        document.close();
+
+        document = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        PdfAValidationReport report = new PdfAValidator().validate(document, PdfAConformanceLevel.PDF_A_1B);
+        document.close();
+
+        // the font which can't be read is reported, and the validation goes on
+        boolean fontViolationFound = false;
+        for (PdfAViolation violation : report.getViolations()) {
+            if (violation.getMessage().startsWith("The font cannot be read")) {
+                fontViolationFound = true;
+                Assert.assertEquals(1, violation.getPageNumber());
+                Assert.assertTrue(violation.getObjectNumber() > 0);
+            }
+        }
+        Assert.assertTrue(fontViolationFound);
+    }
+}
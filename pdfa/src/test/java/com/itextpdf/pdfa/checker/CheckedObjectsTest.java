@@ -0,0 +1,109 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa.checker;
+
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.colorspace.PdfColorSpace;
+import com.itextpdf.kernel.pdf.colorspace.PdfDeviceCs;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Map;
+import java.util.Set;
+
+@Category(UnitTest.class)
+public class CheckedObjectsTest extends ExtendedITextTest {
+
+    @Test
+    public void indirectAndDirectObjectsTest() {
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        pdfDocument.addNewPage();
+        CheckedObjects checkedObjects = new CheckedObjects();
+        PdfDictionary direct = new PdfDictionary();
+        PdfDictionary indirect = (PdfDictionary) new PdfDictionary().makeIndirect(pdfDocument);
+
+        Assert.assertTrue(checkedObjects.add(direct));
+        Assert.assertFalse(checkedObjects.add(direct));
+        Assert.assertTrue(checkedObjects.add(indirect));
+        Assert.assertFalse(checkedObjects.add(indirect));
+        Assert.assertTrue(checkedObjects.contains(direct));
+        Assert.assertTrue(checkedObjects.contains(indirect));
+        Assert.assertFalse(checkedObjects.contains(new PdfDictionary()));
+        Assert.assertEquals(2, checkedObjects.size());
+
+        // an object marked before it was made indirect is not counted twice
+        direct.makeIndirect(pdfDocument);
+        Assert.assertFalse(checkedObjects.add(direct));
+        Assert.assertEquals(2, checkedObjects.size());
+        pdfDocument.close();
+    }
+
+    @Test
+    public void deprecatedViewsAreBackedByStoreTest() {
+        CheckedObjects checkedObjects = new CheckedObjects();
+        Set<PdfObject> set = checkedObjects.asSet();
+        Map<PdfObject, PdfColorSpace> colorSpaces = checkedObjects.colorSpacesAsMap();
+        PdfDictionary first = new PdfDictionary();
+        PdfDictionary second = new PdfDictionary();
+
+        Assert.assertTrue(set.add(first));
+        Assert.assertTrue(checkedObjects.contains(first));
+        Assert.assertTrue(checkedObjects.add(second));
+        Assert.assertTrue(set.contains(second));
+        Assert.assertEquals(2, set.size());
+
+        PdfColorSpace colorSpace = new PdfDeviceCs.Rgb();
+        Assert.assertNull(colorSpaces.put(first, colorSpace));
+        Assert.assertSame(colorSpace, checkedObjects.getColorSpace(first));
+        Assert.assertTrue(colorSpaces.containsKey(first));
+        Assert.assertFalse(colorSpaces.containsKey(second));
+        Assert.assertEquals(1, colorSpaces.size());
+    }
+}
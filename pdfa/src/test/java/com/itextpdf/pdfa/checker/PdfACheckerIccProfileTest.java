@@ -0,0 +1,116 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.pdfa.checker;
+
+import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.colorspace.PdfCieBasedCs;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+@Category(UnitTest.class)
+public class PdfACheckerIccProfileTest extends ExtendedITextTest {
+
+    public static final String sourceFolder = "./src/test/resources/com/itextpdf/pdfa/";
+
+    @Rule
+    public ExpectedException junitExpectedException = ExpectedException.none();
+
+    @Test
+    public void flushedProfileIsReleasedTest() throws IOException {
+        PdfA2Checker checker = new PdfA2Checker(PdfAConformanceLevel.PDF_A_2B);
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        pdfDocument.addNewPage();
+        PdfStream iccStream = createProfileStream(pdfDocument);
+
+        Assert.assertEquals("RGB ", checker.getIccColorSpaceName(iccStream));
+        // the name is taken from the cache
+        Assert.assertEquals("RGB ", checker.getIccColorSpaceName(iccStream));
+        iccStream.flush();
+        checker.objectFlushed(iccStream);
+        pdfDocument.close();
+
+        // the stream is not cached anymore, so the flushed profile is read again
+        junitExpectedException.expect(PdfException.class);
+        junitExpectedException.expectMessage(PdfException.CannotOperateWithFlushedPdfStream);
+        checker.getIccColorSpaceName(iccStream);
+    }
+
+    @Test
+    public void profilesAreNotSerializedTest() throws IOException, ClassNotFoundException {
+        PdfA2Checker checker = new PdfA2Checker(PdfAConformanceLevel.PDF_A_2B);
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        pdfDocument.addNewPage();
+        Assert.assertEquals("RGB ", checker.getIccColorSpaceName(createProfileStream(pdfDocument)));
+
+        java.io.ByteArrayOutputStream serialized = new java.io.ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(serialized);
+        out.writeObject(checker);
+        out.close();
+        PdfA2Checker deserialized = (PdfA2Checker) new ObjectInputStream(new ByteArrayInputStream(serialized.toByteArray())).readObject();
+
+        Assert.assertEquals("RGB ", deserialized.getIccColorSpaceName(createProfileStream(pdfDocument)));
+        pdfDocument.close();
+    }
+
+    private static PdfStream createProfileStream(PdfDocument pdfDocument) throws IOException {
+        PdfStream iccStream = PdfCieBasedCs.IccBased.getIccProfileStream(new FileInputStream(sourceFolder + "sRGB Color Space Profile.icm"));
+        iccStream.makeIndirect(pdfDocument);
+        return iccStream;
+    }
+}
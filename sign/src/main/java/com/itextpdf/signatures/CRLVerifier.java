@@ -46,9 +46,11 @@ package com.itextpdf.signatures;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.security.GeneralSecurityException;
+import java.security.PublicKey;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
@@ -156,6 +158,10 @@ public class CRLVerifier extends RootStoreVerifier {
             if (crlurl == null)
                 return null;
             LOGGER.info("Getting CRL from " + crlurl);
+            if (revocationDataCache != null) {
+                byte[] crl = revocationDataCache.getCrl(new URL(crlurl));
+                return (X509CRL) SignUtils.parseCrlFromStream(new ByteArrayInputStream(crl));
+            }
             return (X509CRL) SignUtils.parseCrlFromStream(new URL(crlurl).openStream());
         }
         catch(IOException e) {
@@ -176,7 +182,7 @@ public class CRLVerifier extends RootStoreVerifier {
         // check if the CRL was issued by the issuer
         if (crlIssuer != null) {
             try {
-                crl.verify(crlIssuer.getPublicKey());
+                verifySignature(crl, crlIssuer.getPublicKey());
                 return true;
             } catch (GeneralSecurityException e) {
                 LOGGER.warn("CRL not issued by the same authority as the certificate that is being checked");
@@ -190,7 +196,7 @@ public class CRLVerifier extends RootStoreVerifier {
             for (X509Certificate anchor : SignUtils.getCertificates(rootStore)) {
                 try {
                     // check if the crl was signed by a trusted party (indirect CRLs)
-                    crl.verify(anchor.getPublicKey());
+                    verifySignature(crl, anchor.getPublicKey());
                     return true;
                 } catch (GeneralSecurityException e) {
                     continue;
@@ -202,4 +208,12 @@ public class CRLVerifier extends RootStoreVerifier {
         }
         return false;
     }
+
+    private void verifySignature(X509CRL crl, PublicKey key) throws GeneralSecurityException {
+        if (validationCache != null) {
+            validationCache.verifyCrl(crl, key);
+        } else {
+            crl.verify(key);
+        }
+    }
 }
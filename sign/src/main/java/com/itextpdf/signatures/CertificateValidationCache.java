@@ -0,0 +1,334 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe cache of the results of the expensive checks done by the verifiers extending
+ * {@link CertificateVerifier}, which can be shared between verifiers, e.g. between the {@link LtvVerifier}s
+ * of many documents signed with the same few certificates, so that every certificate chain is checked only once.
+ * <p>
+ * The cache keeps the outcome of certificate, CRL and OCSP response signature checks, keyed by the fingerprints
+ * of the checked object and of the key or certificate it was checked against, as well as the parsed CRLs and
+ * OCSP responses of the document security stores. Only checks which depend on nothing but the checked objects
+ * are cached, the trust decisions depending on the configuration of a verifier, like the root store used to find
+ * an OCSP responder, are made by every verifier again. Every entry is only kept for the time to live, after which
+ * the check is done again. The expired entries are swept from time to time when new results are added,
+ * and the oldest entries are dropped once the cache holds more than the maximum number of entries, so that
+ * results for superseded CRLs and OCSP responses do not pile up in a long-running verifier.
+ */
+public class CertificateValidationCache {
+
+    /**
+     * The default time to live of the cached results, in milliseconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 60 * 60 * 1000L;
+
+    /**
+     * The default maximum number of cached results.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private static final String CERTIFICATE_SIGNATURE = "cert:";
+    private static final String CRL_SIGNATURE = "crl:";
+    private static final String OCSP_SIGNATURE = "ocsp:";
+    private static final String PARSED_CRL = "parsedcrl:";
+    private static final String PARSED_OCSP = "parsedocsp:";
+
+    private final ConcurrentMap<String, CachedResult> cache = new ConcurrentHashMap<>();
+    private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+    private volatile long nextSweep;
+    private final Object sweepLock = new Object();
+
+    /**
+     * Sets how long the results are kept.
+     *
+     * @param timeToLive the time to live in milliseconds
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Sets the maximum number of cached results. When it is exceeded, the expired results and then
+     * the results which expire first are removed.
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size shall be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Removes all the cached results.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Gets the number of cached results.
+     *
+     * @return the number of entries, including the expired ones which haven't been swept yet
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Verifies that the certificate was signed with the private key corresponding to the given public key.
+     *
+     * @param cert the certificate to check
+     * @param key  the public key of the issuer
+     * @throws GeneralSecurityException the exception thrown by {@link Certificate#verify(PublicKey)}
+     */
+    void verifyCertificate(X509Certificate cert, PublicKey key) throws GeneralSecurityException {
+        String cacheKey = CERTIFICATE_SIGNATURE + fingerprint(cert.getEncoded()) + '|' + fingerprint(key.getEncoded());
+        CachedResult cached = getValid(cacheKey);
+        if (cached == null) {
+            try {
+                cert.verify(key);
+                cached = put(cacheKey, Boolean.TRUE);
+            } catch (GeneralSecurityException e) {
+                put(cacheKey, e);
+                throw e;
+            }
+        }
+        if (cached.value instanceof GeneralSecurityException) {
+            throw cachedFailure((GeneralSecurityException) cached.value);
+        }
+    }
+
+    /**
+     * Verifies that the CRL was signed with the private key corresponding to the given public key.
+     *
+     * @param crl the CRL to check
+     * @param key the public key of the CRL issuer
+     * @throws GeneralSecurityException the exception thrown by {@link X509CRL#verify(PublicKey)}
+     */
+    void verifyCrl(X509CRL crl, PublicKey key) throws GeneralSecurityException {
+        String cacheKey = CRL_SIGNATURE + fingerprint(crl.getEncoded()) + '|' + fingerprint(key.getEncoded());
+        CachedResult cached = getValid(cacheKey);
+        if (cached == null) {
+            try {
+                crl.verify(key);
+                cached = put(cacheKey, Boolean.TRUE);
+            } catch (GeneralSecurityException e) {
+                put(cacheKey, e);
+                throw e;
+            }
+        }
+        if (cached.value instanceof GeneralSecurityException) {
+            throw cachedFailure((GeneralSecurityException) cached.value);
+        }
+    }
+
+    /**
+     * Checks if the OCSP response verifies against the given responder certificate.
+     *
+     * @param ocspResp      the OCSP response
+     * @param responderCert the responder certificate
+     * @return true if the OCSP response verifies against the responder certificate
+     */
+    boolean isOcspSignatureValid(BasicOCSPResp ocspResp, Certificate responderCert) {
+        String cacheKey;
+        try {
+            cacheKey = OCSP_SIGNATURE + fingerprint(ocspResp.getEncoded()) + '|' + fingerprint(responderCert.getEncoded());
+        } catch (Exception e) {
+            return false;
+        }
+        CachedResult cached = getValid(cacheKey);
+        if (cached == null) {
+            boolean valid;
+            try {
+                valid = SignUtils.isSignatureValid(ocspResp, responderCert, "BC");
+            } catch (Exception e) {
+                valid = false;
+            }
+            cached = put(cacheKey, Boolean.valueOf(valid));
+        }
+        return Boolean.TRUE.equals(cached.value);
+    }
+
+    /**
+     * Gets the parsed CRL, parsing it if it is not cached.
+     *
+     * @param encoded the encoded CRL
+     * @return the CRL
+     */
+    X509CRL getCrl(byte[] encoded) throws GeneralSecurityException, IOException {
+        String cacheKey = PARSED_CRL + fingerprint(encoded);
+        CachedResult cached = getValid(cacheKey);
+        if (cached == null) {
+            cached = put(cacheKey, SignUtils.parseCrlFromStream(new ByteArrayInputStream(encoded)));
+        }
+        return (X509CRL) cached.value;
+    }
+
+    /**
+     * Gets the parsed basic OCSP response, parsing it if it is not cached.
+     *
+     * @param encoded the encoded OCSP response (not just the basic response)
+     * @return the basic OCSP response, or null if the response status is not successful
+     */
+    BasicOCSPResp getOcspResponse(byte[] encoded) throws GeneralSecurityException, IOException {
+        String cacheKey = PARSED_OCSP + fingerprint(encoded);
+        CachedResult cached = getValid(cacheKey);
+        if (cached == null) {
+            OCSPResp ocspResponse = new OCSPResp(encoded);
+            BasicOCSPResp basicResponse = null;
+            if (ocspResponse.getStatus() == 0) {
+                try {
+                    basicResponse = (BasicOCSPResp) ocspResponse.getResponseObject();
+                } catch (OCSPException e) {
+                    throw new GeneralSecurityException(e.toString());
+                }
+            }
+            cached = put(cacheKey, basicResponse);
+        }
+        return (BasicOCSPResp) cached.value;
+    }
+
+    private CachedResult getValid(String key) {
+        CachedResult cached = cache.get(key);
+        if (cached != null && cached.expires <= System.currentTimeMillis()) {
+            cache.remove(key, cached);
+            cached = null;
+        }
+        return cached;
+    }
+
+    private CachedResult put(String key, Object value) {
+        long now = System.currentTimeMillis();
+        if (now >= nextSweep || cache.size() >= maxSize) {
+            sweep(now);
+        }
+        CachedResult cached = new CachedResult(value, now + timeToLive);
+        cache.put(key, cached);
+        return cached;
+    }
+
+    /**
+     * Removes the expired entries, and if the cache is still full, the entries which expire first,
+     * down to three quarters of the maximum size so that the next sweep is not due right away.
+     */
+    private void sweep(long now) {
+        synchronized (sweepLock) {
+            if (now < nextSweep && cache.size() < maxSize) {
+                return;
+            }
+            nextSweep = now + Math.max(timeToLive, 0);
+            Iterator<Map.Entry<String, CachedResult>> iterator = cache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getValue().expires <= now) {
+                    iterator.remove();
+                }
+            }
+            if (cache.size() >= maxSize) {
+                List<Map.Entry<String, CachedResult>> entries = new ArrayList<>(cache.entrySet());
+                Collections.sort(entries, new Comparator<Map.Entry<String, CachedResult>>() {
+                    @Override
+                    public int compare(Map.Entry<String, CachedResult> o1, Map.Entry<String, CachedResult> o2) {
+                        return Long.compare(o1.getValue().expires, o2.getValue().expires);
+                    }
+                });
+                int toRemove = entries.size() - maxSize * 3 / 4;
+                for (int i = 0; i < toRemove; i++) {
+                    cache.remove(entries.get(i).getKey(), entries.get(i).getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new exception for a cached failure, so that the same instance is never thrown
+     * on several threads.
+     */
+    private static GeneralSecurityException cachedFailure(GeneralSecurityException cause) {
+        return new GeneralSecurityException(cause.getMessage(), cause);
+    }
+
+    private static String fingerprint(byte[] encoded) throws GeneralSecurityException {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(encoded);
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class CachedResult {
+        final Object value;
+        final long expires;
+
+        CachedResult(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
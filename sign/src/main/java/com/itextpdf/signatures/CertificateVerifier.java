@@ -65,6 +65,9 @@ public class CertificateVerifier {
     /** Indicates if going online to verify a certificate is allowed. */
     protected boolean onlineCheckingAllowed = true;
 
+    /** A cache for the results of the signature checks, may be null. */
+    protected CertificateValidationCache validationCache = null;
+
     /**
      * Creates the final CertificateVerifier in a chain of verifiers.
      *
@@ -83,6 +86,16 @@ public class CertificateVerifier {
         this.onlineCheckingAllowed = onlineCheckingAllowed;
     }
 
+    /**
+     * Sets the cache for the results of the signature checks,
+     * so that verifying many signatures with the same certificate chain checks every certificate only once.
+     *
+     * @param validationCache the cache to use, or null to do all the checks on every verification
+     */
+    public void setValidationCache(CertificateValidationCache validationCache) {
+        this.validationCache = validationCache;
+    }
+
     /**
      * Checks the validity of the certificate, and calls the next
      * verifier in the chain, if any.
@@ -100,15 +113,26 @@ public class CertificateVerifier {
             signCert.checkValidity(signDate);
         // Check if the signature is valid
         if (issuerCert != null) {
-            signCert.verify(issuerCert.getPublicKey());
+            verifySignature(signCert, issuerCert.getPublicKey());
         }
         // Also in case, the certificate is self-signed
         else {
-            signCert.verify(signCert.getPublicKey());
+            verifySignature(signCert, signCert.getPublicKey());
         }
         List<VerificationOK> result = new ArrayList<>();
         if (verifier != null)
             result.addAll(verifier.verify(signCert, issuerCert, signDate));
         return result;
     }
+
+    /**
+     * Verifies the signature of the certificate, using the validation cache if it is set.
+     */
+    void verifySignature(X509Certificate cert, PublicKey key) throws GeneralSecurityException {
+        if (validationCache != null) {
+            validationCache.verifyCertificate(cert, key);
+        } else {
+            cert.verify(key);
+        }
+    }
 }
@@ -0,0 +1,216 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TSAClientBouncyCastle} which can be shared by the signers of many documents signed concurrently.
+ * <p>
+ * It limits the number of timestamp requests sent to the Time Stamp Authority at the same time, other requests
+ * wait for their turn. The HTTP connections are kept alive and reused between requests by the connection cache of
+ * the JVM, which keeps at most <code>http.maxConnections</code> (5 by default) idle connections per server, so
+ * that system property should not be lower than the number of concurrent requests.
+ * <p>
+ * The client also collects the number of requests and their latency, and separately the time spent waiting for
+ * a free request slot.
+ */
+public class ConcurrentTSAClientBouncyCastle extends TSAClientBouncyCastle {
+
+    /**
+     * The default maximum number of concurrent requests.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    private final Semaphore requestPermits;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failedRequestCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private final AtomicLong totalQueueWait = new AtomicLong();
+    private final AtomicLong maxQueueWait = new AtomicLong();
+
+    /**
+     * Creates an instance of a TSAClient that sends at most {@link #DEFAULT_MAX_CONCURRENT_REQUESTS} requests at once.
+     *
+     * @param url String - Time Stamp Authority URL (i.e. "http://tsatest1.digistamp.com/TSA")
+     */
+    public ConcurrentTSAClientBouncyCastle(String url) {
+        this(url, null, null, DEFAULTTOKENSIZE, DEFAULTHASHALGORITHM, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    /**
+     * Creates an instance of a TSAClient.
+     *
+     * @param url                   String - Time Stamp Authority URL (i.e. "http://tsatest1.digistamp.com/TSA")
+     * @param username              String - user(account) name
+     * @param password              String - password
+     * @param tokSzEstimate         int - estimated size of received time stamp token (DER encoded)
+     * @param digestAlgorithm       the hash algorithm of the data imprint
+     * @param maxConcurrentRequests the maximum number of requests sent to the Time Stamp Authority at the same time
+     */
+    public ConcurrentTSAClientBouncyCastle(String url, String username, String password, int tokSzEstimate, String digestAlgorithm,
+                                           int maxConcurrentRequests) {
+        super(url, username, password, tokSzEstimate, digestAlgorithm);
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("The maximum number of concurrent requests shall be positive");
+        }
+        this.requestPermits = new Semaphore(maxConcurrentRequests, true);
+    }
+
+    /**
+     * Gets the number of timestamp requests sent, including the failed ones.
+     *
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Gets the number of timestamp requests that failed on the communication level.
+     *
+     * @return the number of failed requests
+     */
+    public long getFailedRequestCount() {
+        return failedRequestCount.get();
+    }
+
+    /**
+     * Gets the average latency of the timestamp requests, not including the time spent waiting for a free request slot.
+     *
+     * @return the average latency in milliseconds, or 0 if no request has been sent yet
+     */
+    public double getAverageLatencyMillis() {
+        long count = requestCount.get();
+        return count == 0 ? 0 : (double) totalLatency.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the largest latency of a timestamp request, not including the time spent waiting for a free request slot.
+     *
+     * @return the largest latency in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+        return (double) maxLatency.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the average time the timestamp requests spent waiting for a free request slot.
+     *
+     * @return the average waiting time in milliseconds, or 0 if no request has been sent yet
+     */
+    public double getAverageQueueWaitMillis() {
+        long count = requestCount.get();
+        return count == 0 ? 0 : (double) totalQueueWait.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the longest time a timestamp request spent waiting for a free request slot.
+     *
+     * @return the longest waiting time in milliseconds
+     */
+    public double getMaxQueueWaitMillis() {
+        return (double) maxQueueWait.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the number of requests which can be sent right now without waiting.
+     *
+     * @return the number of free request slots
+     */
+    public int getAvailableRequestSlots() {
+        return requestPermits.availablePermits();
+    }
+
+    /**
+     * Waits for a free request slot and gets the timestamp response.
+     *
+     * @return - byte[] - TSA response, raw bytes (RFC 3161 encoded)
+     * @throws IOException
+     */
+    @Override
+    protected byte[] getTSAResponse(byte[] requestBytes) throws IOException {
+        long queued = System.nanoTime();
+        try {
+            requestPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a timestamp request slot");
+        }
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            byte[] response = super.getTSAResponse(requestBytes);
+            succeeded = true;
+            return response;
+        } finally {
+            requestPermits.release();
+            recordRequest(start - queued, System.nanoTime() - start, succeeded);
+        }
+    }
+
+    private void recordRequest(long queueWait, long latency, boolean succeeded) {
+        requestCount.incrementAndGet();
+        if (!succeeded) {
+            failedRequestCount.incrementAndGet();
+        }
+        totalQueueWait.addAndGet(queueWait);
+        updateMax(maxQueueWait, queueWait);
+        totalLatency.addAndGet(latency);
+        updateMax(maxLatency, latency);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+}
@@ -75,6 +75,11 @@ public class CrlClientOnline implements ICrlClient {
      */
     protected List<URL> urls = new ArrayList<>();
 
+    /**
+     * The cache of fetched CRLs, may be null.
+     */
+    private RevocationDataCache revocationDataCache;
+
     /**
      * Creates a CrlClientOnline instance that will try to find
      * a single CRL by walking through the certificate chain.
@@ -150,6 +155,11 @@ public class CrlClientOnline implements ICrlClient {
         for (URL urlt : urllist) {
             try {
                 LOGGER.info("Checking CRL: " + urlt);
+                if (revocationDataCache != null) {
+                    ar.add(revocationDataCache.getCrl(urlt));
+                    LOGGER.info("Added CRL found at: " + urlt);
+                    continue;
+                }
                 InputStream inp = SignUtils.getHttpResponse(urlt);
                 byte[] buf = new byte[1024];
                 ByteArrayOutputStream bout = new ByteArrayOutputStream();
@@ -169,6 +179,16 @@ public class CrlClientOnline implements ICrlClient {
         return ar;
     }
 
+    /**
+     * Sets the cache the CRLs are taken from, so that a CRL is only fetched again when it expires.
+     * The same cache can be shared between several clients and verifiers.
+     *
+     * @param revocationDataCache the cache to use, or null to fetch the CRLs on every call
+     */
+    public void setRevocationDataCache(RevocationDataCache revocationDataCache) {
+        this.revocationDataCache = revocationDataCache;
+    }
+
     /**
      * Adds an URL to the list of CRL URLs
      *
@@ -43,8 +43,13 @@
  */
 package com.itextpdf.signatures;
 
+import com.itextpdf.io.source.IByteBufferConsumer;
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.io.source.RandomAccessSourceUtil;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -217,6 +222,28 @@ public class DigestAlgorithms {
         return messageDigest.digest();
     }
 
+    /**
+     * Create a digest of the specified ranges of the source. Memory mapped and in-memory sources
+     * are passed to the digest directly, without copying their content to intermediate arrays.
+     *
+     * @param source the source of the data to be digested
+     * @param ranges the ranges of the data to be digested, as pairs of start position and length,
+     *               e.g. the signature /ByteRange
+     * @param messageDigest algorithm to be used
+     * @return digest of the data
+     * @throws IOException
+     */
+    public static byte[] digest(IRandomAccessSource source, long[] ranges, final MessageDigest messageDigest)
+            throws IOException {
+        RandomAccessSourceUtil.read(source, ranges, new IByteBufferConsumer() {
+            @Override
+            public void accept(ByteBuffer buffer) {
+                messageDigest.update(buffer);
+            }
+        });
+        return messageDigest.digest();
+    }
+
     /**
      * Gets the digest name for a certain id
      *
@@ -0,0 +1,135 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import com.itextpdf.io.util.ZlibCodecPool;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.Deflater;
+
+/**
+ * A store of the certificates, CRLs and OCSP responses written to the DSS dictionaries of many documents
+ * by {@link LtvVerification}. Validation data is identified by its hash: the same data is compressed only once
+ * for all documents, and kept in memory only once.
+ * <p>
+ * A store can be shared between several {@link LtvVerification} instances used from different threads.
+ * The data is kept until {@link #clear()} is called, so a store should be used for one batch of documents
+ * validated with the same certificate chains.
+ */
+public class DssDataStore {
+
+    private final ConcurrentMap<ByteBuffer, byte[]> compressed = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the number of distinct entries in the store.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return compressed.size();
+    }
+
+    /**
+     * Removes all entries from the store.
+     */
+    public void clear() {
+        compressed.clear();
+    }
+
+    /**
+     * Gets the key the data is identified by.
+     *
+     * @param data validation data
+     * @return the hash of the data
+     */
+    static ByteBuffer getKey(byte[] data) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the deflated validation data, compressing it if it's not in the store yet.
+     *
+     * @param key  the key of the data, see {@link #getKey(byte[])}
+     * @param data validation data
+     * @return the data compressed with the default compression level
+     */
+    byte[] getCompressed(ByteBuffer key, byte[] data) {
+        byte[] result = compressed.get(key);
+        if (result == null) {
+            result = compress(data);
+            byte[] stored = compressed.putIfAbsent(key, result);
+            if (stored != null) {
+                result = stored;
+            }
+        }
+        return result;
+    }
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = ZlibCodecPool.obtainDeflater(CompressionConstants.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            ZlibCodecPool.releaseDeflater(deflater);
+        }
+    }
+}
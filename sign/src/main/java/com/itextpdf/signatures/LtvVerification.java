@@ -101,6 +101,7 @@ public class LtvVerification {
     private Map<PdfName, ValidationData> validated = new HashMap<>();
     private boolean used = false;
     private String securityProviderCode = null;
+    private DssDataStore dssDataStore = null;
     /**
      * What type of verification to include.
      */
@@ -177,6 +178,16 @@ public class LtvVerification {
         this.securityProviderCode = securityProviderCode;
     }
 
+    /**
+     * Sets the store of validation data shared between documents. The certificates, CRLs and OCSP responses
+     * added to many documents are then compressed only once.
+     *
+     * @param dssDataStore the store, or null to compress the validation data of every document separately
+     */
+    public void setDssDataStore(DssDataStore dssDataStore) {
+        this.dssDataStore = dssDataStore;
+    }
+
     /**
      * Add verification for a particular signature.
      *
@@ -193,7 +204,7 @@ public class LtvVerification {
     public boolean addVerification(String signatureName, IOcspClient ocsp, ICrlClient crl, CertificateOption certOption, Level level, CertificateInclusion certInclude) throws IOException, GeneralSecurityException {
         if (used)
             throw new IllegalStateException(PdfException.VerificationAlreadyOutput);
-        PdfPKCS7 pk = sgnUtil.verifySignature(signatureName, securityProviderCode);
+        PdfPKCS7 pk = sgnUtil.readSignatureData(signatureName, securityProviderCode);
         LOGGER.info("Adding verification for " + signatureName);
         Certificate[] xc = pk.getCertificates();
         X509Certificate cert;
@@ -409,33 +420,21 @@ public class LtvVerification {
         if (document.getPdfVersion().compareTo(PdfVersion.PDF_2_0) < 0) {
             catalog.addDeveloperExtension(PdfDeveloperExtension.ESIC_1_7_EXTENSIONLEVEL5);
         }
+        // the same validation data is often added for several signatures, write it only once
+        Map<java.nio.ByteBuffer, PdfStream> written = new HashMap<>();
         for (PdfName vkey : validated.keySet()) {
             PdfArray ocsp = new PdfArray();
             PdfArray crl = new PdfArray();
             PdfArray cert = new PdfArray();
             PdfDictionary vri = new PdfDictionary();
             for (byte[] b : validated.get(vkey).crls) {
-                PdfStream ps = new PdfStream(b);
-                ps.setCompressionLevel(CompressionConstants.DEFAULT_COMPRESSION);
-                ps.makeIndirect(document);
-                crl.add(ps);
-                crls.add(ps);
-                crls.setModified();
+                crl.add(getDssStream(b, crls, written));
             }
             for (byte[] b : validated.get(vkey).ocsps) {
-                PdfStream ps = new PdfStream(b);
-                ps.setCompressionLevel(CompressionConstants.DEFAULT_COMPRESSION);
-                ocsp.add(ps);
-                ocsps.add(ps);
-                ocsps.setModified();
+                ocsp.add(getDssStream(b, ocsps, written));
             }
             for (byte[] b : validated.get(vkey).certs) {
-                PdfStream ps = new PdfStream(b);
-                ps.setCompressionLevel(CompressionConstants.DEFAULT_COMPRESSION);
-                ps.makeIndirect(document);
-                cert.add(ps);
-                certs.add(ps);
-                certs.setModified();
+                cert.add(getDssStream(b, certs, written));
             }
             if (ocsp.size() > 0) {
                 ocsp.makeIndirect(document);
@@ -473,6 +472,29 @@ public class LtvVerification {
         catalog.put(PdfName.DSS, dss);
     }
 
+    /**
+     * Gets the stream with validation data, creating it and adding it to the DSS array
+     * if the same data hasn't been written by this merge yet.
+     */
+    private PdfStream getDssStream(byte[] data, PdfArray dssArray, Map<java.nio.ByteBuffer, PdfStream> written) {
+        java.nio.ByteBuffer key = DssDataStore.getKey(data);
+        PdfStream ps = written.get(key);
+        if (ps == null) {
+            if (dssDataStore != null) {
+                ps = new PdfStream(dssDataStore.getCompressed(key, data));
+                ps.put(PdfName.Filter, PdfName.FlateDecode);
+            } else {
+                ps = new PdfStream(data);
+                ps.setCompressionLevel(CompressionConstants.DEFAULT_COMPRESSION);
+            }
+            ps.makeIndirect(document);
+            dssArray.add(ps);
+            dssArray.setModified();
+            written.put(key, ps);
+        }
+        return ps;
+    }
+
     private static class ValidationData {
         public List<byte[]> crls = new ArrayList<>();
         public List<byte[]> ocsps = new ArrayList<>();
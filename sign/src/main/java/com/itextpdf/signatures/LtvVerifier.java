@@ -192,7 +192,7 @@ public class LtvVerifier extends RootStoreVerifier {
             List<VerificationOK> list = verify(signCert, issuerCert, signDate);
             if (list.size() == 0) {
                 try {
-                    signCert.verify(signCert.getPublicKey());
+                    verifySignature(signCert, signCert.getPublicKey());
                     if (latestRevision && chain.length > 1) {
                         list.add(new VerificationOK(signCert, this.getClass(), "Root certificate in final revision"));
                     }
@@ -228,7 +228,7 @@ public class LtvVerifier extends RootStoreVerifier {
             cert.checkValidity(signDate);
             // check if the previous certificate was issued by this certificate
             if (i > 0)
-                chain[i-1].verify(chain[i].getPublicKey());
+                verifySignature((X509Certificate) chain[i-1], chain[i].getPublicKey());
         }
         LOGGER.info("All certificates are valid on " + signDate.toString());
     }
@@ -247,13 +247,18 @@ public class LtvVerifier extends RootStoreVerifier {
         // we'll verify agains the rootstore (if present)
         RootStoreVerifier rootStoreVerifier = new RootStoreVerifier(verifier);
         rootStoreVerifier.setRootStore(rootStore);
+        rootStoreVerifier.setValidationCache(validationCache);
         // We'll verify against a list of CRLs
         CRLVerifier crlVerifier = new CRLVerifier(rootStoreVerifier, getCRLsFromDSS());
         crlVerifier.setRootStore(rootStore);
+        crlVerifier.setRevocationDataCache(revocationDataCache);
+        crlVerifier.setValidationCache(validationCache);
         crlVerifier.setOnlineCheckingAllowed(latestRevision || onlineCheckingAllowed);
         // We'll verify against a list of OCSPs
         OCSPVerifier ocspVerifier = new OCSPVerifier(crlVerifier, getOCSPResponsesFromDSS());
         ocspVerifier.setRootStore(rootStore);
+        ocspVerifier.setRevocationDataCache(revocationDataCache);
+        ocspVerifier.setValidationCache(validationCache);
         ocspVerifier.setOnlineCheckingAllowed(latestRevision || onlineCheckingAllowed);
         // We verify the chain
         return ocspVerifier.verify(signCert, issuerCert, signDate);
@@ -305,7 +310,11 @@ public class LtvVerifier extends RootStoreVerifier {
             return crls;
         for (int i = 0; i < crlarray.size(); i++) {
             PdfStream stream = crlarray.getAsStream(i);
-            crls.add((X509CRL) SignUtils.parseCrlFromStream(new ByteArrayInputStream(stream.getBytes())));
+            if (validationCache != null) {
+                crls.add(validationCache.getCrl(stream.getBytes()));
+            } else {
+                crls.add((X509CRL) SignUtils.parseCrlFromStream(new ByteArrayInputStream(stream.getBytes())));
+            }
         }
         return crls;
     }
@@ -325,6 +334,13 @@ public class LtvVerifier extends RootStoreVerifier {
             return ocsps;
         for (int i = 0; i < ocsparray.size(); i++) {
             PdfStream stream = ocsparray.getAsStream(i);
+            if (validationCache != null) {
+                BasicOCSPResp basicResponse = validationCache.getOcspResponse(stream.getBytes());
+                if (basicResponse != null) {
+                    ocsps.add(basicResponse);
+                }
+                continue;
+            }
             OCSPResp ocspResponse = new OCSPResp(stream.getBytes());
             if (ocspResponse.getStatus() == 0)
                 try {
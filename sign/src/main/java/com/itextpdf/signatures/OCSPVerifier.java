@@ -54,7 +54,9 @@ import org.bouncycastle.cert.ocsp.SingleResp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URL;
 import java.security.GeneralSecurityException;
 import java.security.cert.*;
 import com.itextpdf.io.util.MessageFormatUtil;
@@ -249,7 +251,7 @@ public class OCSPVerifier extends RootStoreVerifier {
         }
 
         //check "This certificate MUST be issued directly by the CA that issued the certificate in question".
-        responderCert.verify(issuerCert.getPublicKey());
+        verifySignature(responderCert, issuerCert.getPublicKey());
 
         // validating ocsp signers certificate
         // Check if responders certificate has id-pkix-ocsp-nocheck extension,
@@ -257,7 +259,12 @@ public class OCSPVerifier extends RootStoreVerifier {
         if (responderCert.getExtensionValue(OCSPObjectIdentifiers.id_pkix_ocsp_nocheck.getId()) == null) {
             CRL crl;
             try {
-                crl = CertificateUtil.getCRL(responderCert);
+                String crlUrl = CertificateUtil.getCRLURL(responderCert);
+                if (revocationDataCache != null && crlUrl != null) {
+                    crl = SignUtils.parseCrlFromStream(new ByteArrayInputStream(revocationDataCache.getCrl(new URL(crlUrl))));
+                } else {
+                    crl = CertificateUtil.getCRL(crlUrl);
+                }
             } catch (Exception ignored) {
                 crl = (CRL) null;
             }
@@ -265,6 +272,8 @@ public class OCSPVerifier extends RootStoreVerifier {
                 CRLVerifier crlVerifier = new CRLVerifier(null, null);
                 crlVerifier.setRootStore(rootStore);
                 crlVerifier.setOnlineCheckingAllowed(onlineCheckingAllowed);
+                crlVerifier.setRevocationDataCache(revocationDataCache);
+                crlVerifier.setValidationCache(validationCache);
                 crlVerifier.verify((X509CRL)crl, responderCert, issuerCert, DateTimeUtil.getCurrentTimeDate());
                 return;
             }
@@ -281,6 +290,9 @@ public class OCSPVerifier extends RootStoreVerifier {
      * @return	true if the OCSP response verifies against the responder certificate
      */
     public boolean isSignatureValid(BasicOCSPResp ocspResp, Certificate responderCert) {
+        if (validationCache != null) {
+            return validationCache.isOcspSignatureValid(ocspResp, responderCert);
+        }
         try {
             return SignUtils.isSignatureValid(ocspResp, responderCert, "BC");
         } catch (Exception e) {
@@ -300,6 +312,7 @@ public class OCSPVerifier extends RootStoreVerifier {
             return null;
         }
         OcspClientBouncyCastle ocsp = new OcspClientBouncyCastle(null);
+        ocsp.setRevocationDataCache(revocationDataCache);
         BasicOCSPResp ocspResp = ocsp.getBasicOCSPResp(signCert, issuerCert, null);
         if (ocspResp == null) {
             return null;
@@ -66,6 +66,7 @@ import java.security.GeneralSecurityException;
 import java.security.Security;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
 
 /**
  * OcspClient implementation using BouncyCastle.
@@ -81,6 +82,8 @@ public class OcspClientBouncyCastle implements IOcspClient {
 
     private final OCSPVerifier verifier;
 
+    private RevocationDataCache revocationDataCache;
+
     /**
      * Create {@code OcspClient}
      *
@@ -91,6 +94,16 @@ public class OcspClientBouncyCastle implements IOcspClient {
         this.verifier = verifier;
     }
 
+    /**
+     * Sets the cache the OCSP responses are taken from, so that a response is only fetched again when it expires.
+     * The same cache can be shared between several clients and verifiers.
+     *
+     * @param revocationDataCache the cache to use, or null to fetch the responses on every call
+     */
+    public void setRevocationDataCache(RevocationDataCache revocationDataCache) {
+        this.revocationDataCache = revocationDataCache;
+    }
+
     /**
      * Gets OCSP response. If {@link OCSPVerifier} was set, the response will be checked.
      */
@@ -177,11 +190,27 @@ public class OcspClientBouncyCastle implements IOcspClient {
         }
         if (url == null)
             return null;
+        if (revocationDataCache != null) {
+            final X509Certificate finalCheckCert = checkCert;
+            final X509Certificate finalRootCert = rootCert;
+            final String finalUrl = url;
+            byte[] response = revocationDataCache.getOcspResponse(checkCert, rootCert, url, new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    return fetchOcspResponse(finalCheckCert, finalRootCert, finalUrl);
+                }
+            });
+            return response != null ? new OCSPResp(response) : null;
+        }
+        return new OCSPResp(fetchOcspResponse(checkCert, rootCert, url));
+    }
+
+    private static byte[] fetchOcspResponse(X509Certificate checkCert, X509Certificate rootCert, String url) throws GeneralSecurityException, OCSPException, IOException, OperatorException {
         LOGGER.info("Getting OCSP from " + url);
         OCSPReq request = generateOCSPRequest(rootCert, checkCert.getSerialNumber());
         byte[] array = request.getEncoded();
         URL urlt = new URL(url);
         InputStream in = SignUtils.getHttpResponseForOcspRequest(array, urlt);
-        return new OCSPResp(StreamUtil.inputStreamToArray(in));
+        return StreamUtil.inputStreamToArray(in);
     }
 }
@@ -0,0 +1,409 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import com.itextpdf.signatures.PdfSigner.CryptoStandard;
+import com.itextpdf.signatures.PdfSigner.PreparedDetachedSignature;
+import org.bouncycastle.asn1.esf.SignaturePolicyIdentifier;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Signs many documents with detached signatures, making a single {@link IExternalBatchSignature#sign(byte[][])}
+ * call per batch of documents instead of one external call per document.
+ * <p>
+ * The documents are processed in batches of {@link #setBatchSize(int)} signers: every signer of a batch
+ * pre-closes its document and calculates the authenticated attributes, all of them are signed in one call,
+ * then the signatures are embedded and the documents are closed. Signers are taken from the passed iterator
+ * only when the batch they belong to is started, so at most one batch of documents is kept in memory
+ * if the iterator creates them lazily. The signatures of a batch which don't fit their reserved space are
+ * signed once more, in one additional call, after the space has been enlarged.
+ * <p>
+ * If an {@link ExecutorService} is set, the documents of a batch are prepared and completed concurrently.
+ * In that case the digest, CRL, OCSP and timestamp clients shall be safe to be used from several threads.
+ */
+public class PdfBatchSigner {
+
+    private final IExternalBatchSignature externalSignature;
+    private final IExternalDigest externalDigest;
+    private final Certificate[] chain;
+
+    private Collection<ICrlClient> crlList;
+    private IOcspClient ocspClient;
+    private ITSAClient tsaClient;
+    private int estimatedSize;
+    private CryptoStandard sigtype = CryptoStandard.CMS;
+    private SignaturePolicyIdentifier signaturePolicy;
+    private int batchSize = 64;
+    private ExecutorService executorService;
+    private SignatureSizeEstimator signatureSizeEstimator;
+
+    /**
+     * Creates a batch signer.
+     *
+     * @param externalSignature the interface providing the actual signing of a batch
+     * @param externalDigest    an implementation that provides the digest
+     * @param chain             the certificate chain
+     */
+    public PdfBatchSigner(IExternalBatchSignature externalSignature, IExternalDigest externalDigest, Certificate[] chain) {
+        this.externalSignature = externalSignature;
+        this.externalDigest = externalDigest;
+        this.chain = chain;
+    }
+
+    /**
+     * Sets the CRL clients used for every signed document.
+     *
+     * @param crlList the CRL list
+     * @return this instance
+     */
+    public PdfBatchSigner setCrlList(Collection<ICrlClient> crlList) {
+        this.crlList = crlList;
+        return this;
+    }
+
+    /**
+     * Sets the OCSP client used for every signed document.
+     *
+     * @param ocspClient the OCSP client
+     * @return this instance
+     */
+    public PdfBatchSigner setOcspClient(IOcspClient ocspClient) {
+        this.ocspClient = ocspClient;
+        return this;
+    }
+
+    /**
+     * Sets the timestamp client used for every signed document.
+     *
+     * @param tsaClient the Timestamp client
+     * @return this instance
+     */
+    public PdfBatchSigner setTsaClient(ITSAClient tsaClient) {
+        this.tsaClient = tsaClient;
+        return this;
+    }
+
+    /**
+     * Sets the estimator of the space reserved for the signatures, which learns the signature size
+     * from the documents already signed, see {@link PdfSigner#setSignatureSizeEstimator(SignatureSizeEstimator)}.
+     * It is only used if the estimated size is 0.
+     *
+     * @param signatureSizeEstimator the estimator, or null to use the default estimation
+     * @return this instance
+     */
+    public PdfBatchSigner setSignatureSizeEstimator(SignatureSizeEstimator signatureSizeEstimator) {
+        this.signatureSizeEstimator = signatureSizeEstimator;
+        return this;
+    }
+
+    /**
+     * Sets the reserved size for every signature.
+     *
+     * @param estimatedSize the reserved size for the signature. It will be estimated if 0
+     * @return this instance
+     */
+    public PdfBatchSigner setEstimatedSize(int estimatedSize) {
+        this.estimatedSize = estimatedSize;
+        return this;
+    }
+
+    /**
+     * Sets the cryptographic standard of the signatures.
+     *
+     * @param sigtype Either Signature.CMS or Signature.CADES
+     * @return this instance
+     */
+    public PdfBatchSigner setCryptoStandard(CryptoStandard sigtype) {
+        this.sigtype = sigtype;
+        return this;
+    }
+
+    /**
+     * Sets the signature policy (for EPES signatures).
+     *
+     * @param signaturePolicy the signature policy
+     * @return this instance
+     */
+    public PdfBatchSigner setSignaturePolicy(SignaturePolicyInfo signaturePolicy) {
+        return setSignaturePolicy(signaturePolicy.toSignaturePolicyIdentifier());
+    }
+
+    /**
+     * Sets the signature policy (for EPES signatures).
+     *
+     * @param signaturePolicy the signature policy
+     * @return this instance
+     */
+    public PdfBatchSigner setSignaturePolicy(SignaturePolicyIdentifier signaturePolicy) {
+        this.signaturePolicy = signaturePolicy;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of documents signed by a single {@link IExternalBatchSignature#sign(byte[][])} call.
+     *
+     * @param batchSize the batch size, 64 by default
+     * @return this instance
+     */
+    public PdfBatchSigner setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size shall be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the executor which prepares and completes the documents of a batch concurrently.
+     * The executor is not shut down by the batch signer.
+     *
+     * @param executorService the executor, or {@code null} to process the documents in the calling thread
+     * @return this instance
+     */
+    public PdfBatchSigner setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Signs the documents of all the passed signers using the detached mode.
+     * <br><br>
+     * NOTE: This method closes the underlying pdf documents. This means, that the passed instances
+     * of PdfSigner cannot be used after this method call. A failure of one document does not stop the
+     * other ones: the failed signer is closed without writing its output and reported in the result.
+     * If the external signature of a batch fails, all the signers of that batch are reported as failed.
+     *
+     * @param signers the signers of the documents, each of them is used once
+     * @return the signed and the failed signers
+     */
+    public BatchSigningResult signDetached(Iterator<PdfSigner> signers) {
+        BatchSigningResult result = new BatchSigningResult();
+        List<PdfSigner> batch = new ArrayList<>(batchSize);
+        while (signers.hasNext()) {
+            batch.add(signers.next());
+            if (batch.size() == batchSize || !signers.hasNext()) {
+                signBatch(batch, result);
+                batch.clear();
+            }
+        }
+        return result;
+    }
+
+    private void signBatch(final List<PdfSigner> batch, BatchSigningResult result) {
+        boolean[] signed = new boolean[batch.size()];
+        try {
+            final String hashAlgorithm = externalSignature.getHashAlgorithm();
+            List<Callable<PreparedDetachedSignature>> preparations = new ArrayList<>(batch.size());
+            for (final PdfSigner signer : batch) {
+                preparations.add(new Callable<PreparedDetachedSignature>() {
+                    @Override
+                    public PreparedDetachedSignature call() throws Exception {
+                        if (signatureSizeEstimator != null) {
+                            signer.setSignatureSizeEstimator(signatureSizeEstimator);
+                        }
+                        return signer.prepareDetachedSignature(externalDigest, hashAlgorithm, chain, crlList, ocspClient, tsaClient,
+                                estimatedSize, sigtype, signaturePolicy);
+                    }
+                });
+            }
+            List<PreparedDetachedSignature> prepared = new ArrayList<>(batch.size());
+            Exception[] preparationFailures = invokeAll(preparations, prepared);
+
+            List<PdfSigner> pendingSigners = new ArrayList<>(batch.size());
+            List<PreparedDetachedSignature> pendingPrepared = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (preparationFailures[i] != null) {
+                    result.addFailure(batch.get(i), preparationFailures[i]);
+                } else {
+                    pendingSigners.add(batch.get(i));
+                    pendingPrepared.add(prepared.get(i));
+                }
+            }
+            if (pendingSigners.isEmpty()) {
+                return;
+            }
+
+            // signatures which don't fit their reserved space are signed once more in an enlarged space
+            while (!pendingSigners.isEmpty()) {
+                List<PreparedDetachedSignature> retries = signAndComplete(pendingSigners, pendingPrepared, batch, signed, result);
+                List<PdfSigner> retriedSigners = new ArrayList<>();
+                List<PreparedDetachedSignature> retriedPrepared = new ArrayList<>();
+                for (int i = 0; i < pendingSigners.size(); i++) {
+                    if (retries.get(i) != null) {
+                        retriedSigners.add(pendingSigners.get(i));
+                        retriedPrepared.add(retries.get(i));
+                    }
+                }
+                pendingSigners = retriedSigners;
+                pendingPrepared = retriedPrepared;
+            }
+        } finally {
+            // every signer which has not been signed may still hold its document, temporary file and output stream
+            for (int i = 0; i < batch.size(); i++) {
+                if (!signed[i]) {
+                    batch.get(i).abortDetachedSignature();
+                }
+            }
+        }
+    }
+
+    /**
+     * Signs the prepared signatures in one external call and embeds them. The signers which are closed
+     * or failed are added to the result, the closed ones are also marked as signed in the batch.
+     *
+     * @return the signature to be completed once more in an enlarged space for every signer, or null for the signers
+     * which are done
+     */
+    private List<PreparedDetachedSignature> signAndComplete(final List<PdfSigner> pendingSigners, final List<PreparedDetachedSignature> pendingPrepared,
+                                                            List<PdfSigner> batch, boolean[] signed, BatchSigningResult result) {
+        List<PreparedDetachedSignature> retries = new ArrayList<>(pendingSigners.size());
+        byte[][] messages = new byte[pendingPrepared.size()][];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = pendingPrepared.get(i).getAuthenticatedAttributes();
+        }
+        final byte[][] signatures;
+        final String encryptionAlgorithm;
+        try {
+            signatures = externalSignature.sign(messages);
+            if (signatures == null || signatures.length != messages.length) {
+                throw new GeneralSecurityException("The batch signature returned a different number of signatures than requested");
+            }
+            encryptionAlgorithm = externalSignature.getEncryptionAlgorithm();
+        } catch (Exception e) {
+            for (PdfSigner signer : pendingSigners) {
+                result.addFailure(signer, e);
+                retries.add(null);
+            }
+            return retries;
+        }
+
+        List<Callable<PreparedDetachedSignature>> completions = new ArrayList<>(pendingSigners.size());
+        for (int i = 0; i < pendingSigners.size(); i++) {
+            final int index = i;
+            completions.add(new Callable<PreparedDetachedSignature>() {
+                @Override
+                public PreparedDetachedSignature call() throws Exception {
+                    return pendingSigners.get(index).completeDetachedSignature(pendingPrepared.get(index), signatures[index], encryptionAlgorithm);
+                }
+            });
+        }
+        Exception[] completionFailures = invokeAll(completions, retries);
+        for (int i = 0; i < pendingSigners.size(); i++) {
+            if (completionFailures[i] != null) {
+                result.addFailure(pendingSigners.get(i), completionFailures[i]);
+            } else if (retries.get(i) == null) {
+                result.addSigned(pendingSigners.get(i));
+                signed[batch.indexOf(pendingSigners.get(i))] = true;
+            }
+        }
+        return retries;
+    }
+
+    /**
+     * Runs the tasks and collects their results, a failed task gets a null result.
+     *
+     * @return the failure of every task, or null for the tasks which succeeded
+     */
+    private <T> Exception[] invokeAll(List<Callable<T>> tasks, List<T> results) {
+        Exception[] failures = new Exception[tasks.size()];
+        if (executorService == null) {
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    results.add(tasks.get(i).call());
+                } catch (Exception e) {
+                    results.add(null);
+                    failures[i] = e;
+                }
+            }
+        } else {
+            List<Future<T>> futures;
+            try {
+                futures = executorService.invokeAll(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (int i = 0; i < tasks.size(); i++) {
+                    results.add(null);
+                    failures[i] = new IOException(e.getMessage(), e);
+                }
+                return failures;
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(null);
+                    failures[i] = toException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(null);
+                    failures[i] = new IOException(e.getMessage(), e);
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Rethrows errors as is and wraps any other non-exception throwable.
+     */
+    private static Exception toException(Throwable e) {
+        if (e instanceof Exception) {
+            return (Exception) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IOException(e.getMessage(), e);
+    }
+}
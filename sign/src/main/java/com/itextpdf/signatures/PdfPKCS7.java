@@ -85,6 +85,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
@@ -737,6 +738,39 @@ public class PdfPKCS7 {
             sig.update(buf, off, len);
     }
 
+    /**
+     * Update the digest with the remaining bytes of the buffer.
+     * This method is used both for signing and verifying
+     *
+     * @param buffer the data buffer
+     * @throws SignatureException on error
+     */
+    public void update(ByteBuffer buffer) throws SignatureException {
+        if (rsaData != null || digestAttr != null || isTsp)
+            messageDigest.update(buffer);
+        else
+            sig.update(buffer);
+    }
+
+    /**
+     * Gets the message digest the signed data is fed into by the {@code update} methods.
+     *
+     * @return the message digest, or null if the signed data is fed directly into the signature
+     */
+    MessageDigest getDataDigest() {
+        return rsaData != null || digestAttr != null || isTsp ? messageDigest : null;
+    }
+
+    /**
+     * Replaces the message digest the signed data is fed into, e.g. with a digest
+     * which has already been updated with the signed data.
+     *
+     * @param dataDigest a digest with the same algorithm as the one returned by {@link #getDataDigest()}
+     */
+    void setDataDigest(MessageDigest dataDigest) {
+        this.messageDigest = dataDigest;
+    }
+
     // adbe.x509.rsa_sha1 (PKCS#1)
 
     /**
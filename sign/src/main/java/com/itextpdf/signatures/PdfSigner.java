@@ -90,7 +90,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.security.GeneralSecurityException;
-import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
@@ -228,6 +227,16 @@ public class PdfSigner {
      */
     protected boolean closed;
 
+    /**
+     * The estimator of the space reserved for detached signatures, may be null.
+     */
+    private SignatureSizeEstimator signatureSizeEstimator;
+
+    /**
+     * The space reserved for the /ByteRange of the pre-closed document.
+     */
+    private PdfLiteral byteRangeLiteral;
+
     /**
      * Creates a PdfSigner instance. Uses a {@link java.io.ByteArrayOutputStream} instead of a temporary file.
      *
@@ -512,6 +521,18 @@ public class PdfSigner {
         this.fieldLock = fieldLock;
     }
 
+    /**
+     * Sets the estimator of the space reserved for detached signatures. It is used by the
+     * {@code signDetached} methods if their estimated size is 0, once it has seen a signature
+     * with the same certificate chain and timestamp client.
+     *
+     * @param signatureSizeEstimator the estimator, which can be shared between signers, or null
+     *                               to always use the default estimation
+     */
+    public void setSignatureSizeEstimator(SignatureSizeEstimator signatureSizeEstimator) {
+        this.signatureSizeEstimator = signatureSizeEstimator;
+    }
+
     /**
      * Signs the document using the detached mode, CMS or CAdES equivalent.
      * <br><br>
@@ -577,6 +598,23 @@ public class PdfSigner {
      */
     public void signDetached(IExternalDigest externalDigest, IExternalSignature externalSignature, Certificate[] chain, Collection<ICrlClient> crlList, IOcspClient ocspClient,
                              ITSAClient tsaClient, int estimatedSize, CryptoStandard sigtype, SignaturePolicyIdentifier signaturePolicy) throws IOException, GeneralSecurityException {
+        PreparedDetachedSignature prepared = prepareDetachedSignature(externalDigest, externalSignature.getHashAlgorithm(), chain,
+                crlList, ocspClient, tsaClient, estimatedSize, sigtype, signaturePolicy);
+        while (prepared != null) {
+            byte[] extSignature = externalSignature.sign(prepared.getAuthenticatedAttributes());
+            prepared = completeDetachedSignature(prepared, extSignature, externalSignature.getEncryptionAlgorithm());
+        }
+    }
+
+    /**
+     * Pre-closes the document and calculates the authenticated attributes which are to be signed
+     * by the external signature. This is the first half of
+     * {@link #signDetached(IExternalDigest, IExternalSignature, Certificate[], Collection, IOcspClient, ITSAClient, int, CryptoStandard, SignaturePolicyIdentifier)},
+     * the signing is finished by {@link #completeDetachedSignature(PreparedDetachedSignature, byte[], String)}.
+     */
+    PreparedDetachedSignature prepareDetachedSignature(IExternalDigest externalDigest, String hashAlgorithm, Certificate[] chain, Collection<ICrlClient> crlList,
+                                                       IOcspClient ocspClient, ITSAClient tsaClient, int estimatedSize, CryptoStandard sigtype,
+                                                       SignaturePolicyIdentifier signaturePolicy) throws IOException, GeneralSecurityException {
         if (closed) {
             throw new PdfException(PdfException.ThisInstanceOfPdfSignerAlreadyClosed);
         }
@@ -591,6 +629,19 @@ public class PdfSigner {
         int i = 0;
         while (crlBytes == null && i < chain.length)
             crlBytes = processCrl(chain[i++], crlList);
+        byte[] ocsp = null;
+        if (chain.length >= 2 && ocspClient != null) {
+            ocsp = ocspClient.getEncoded((X509Certificate) chain[0], (X509Certificate) chain[1], null);
+        }
+        String sizeKey = null;
+        int revocationDataSize = 0;
+        if (signatureSizeEstimator != null) {
+            sizeKey = SignatureSizeEstimator.getKey(chain, tsaClient);
+            revocationDataSize = SignatureSizeEstimator.getRevocationDataSize(ocsp, crlBytes);
+            if (estimatedSize == 0) {
+                estimatedSize = signatureSizeEstimator.estimate(sizeKey, revocationDataSize);
+            }
+        }
         if (estimatedSize == 0) {
             estimatedSize = 8192;
             if (crlBytes != null) {
@@ -608,7 +659,6 @@ public class PdfSigner {
         if (sigtype == CryptoStandard.CADES && !isDocumentPdf2()) {
             addDeveloperExtension(PdfDeveloperExtension.ESIC_1_7_EXTENSIONLEVEL2);
         }
-        String hashAlgorithm = externalSignature.getHashAlgorithm();
         PdfSignature dic = new PdfSignature(PdfName.Adobe_PPKLite, sigtype == CryptoStandard.CADES ? PdfName.ETSI_CAdES_DETACHED : PdfName.Adbe_pkcs7_detached);
         dic.setReason(appearance.getReason());
         dic.setLocation(appearance.getLocation());
@@ -626,22 +676,58 @@ public class PdfSigner {
         if (signaturePolicy != null) {
             sgn.setSignaturePolicy(signaturePolicy);
         }
-        InputStream data = getRangeStream();
-        byte[] hash = DigestAlgorithms.digest(data, SignUtils.getMessageDigest(hashAlgorithm, externalDigest));
-        byte[] ocsp = null;
-        if (chain.length >= 2 && ocspClient != null) {
-            ocsp = ocspClient.getEncoded((X509Certificate) chain[0], (X509Certificate) chain[1], null);
-        }
+        byte[] hash = DigestAlgorithms.digest(getUnderlyingSource(), range, SignUtils.getMessageDigest(hashAlgorithm, externalDigest));
         byte[] sh = sgn.getAuthenticatedAttributeBytes(hash, ocsp, crlBytes, sigtype);
-        byte[] extSignature = externalSignature.sign(sh);
-        sgn.setExternalDigest(extSignature, null, externalSignature.getEncryptionAlgorithm());
+        PreparedDetachedSignature prepared = new PreparedDetachedSignature(sgn, hash, ocsp, crlBytes, sh, tsaClient, estimatedSize, sigtype);
+        prepared.sizeKey = sizeKey;
+        prepared.revocationDataSize = revocationDataSize;
+        prepared.hashAlgorithm = hashAlgorithm;
+        prepared.externalDigest = externalDigest;
+        return prepared;
+    }
 
-        byte[] encodedSig = sgn.getEncodedPKCS7(hash, tsaClient, ocsp, crlBytes, sigtype);
+    /**
+     * Embeds the signature of the authenticated attributes calculated by
+     * {@link #prepareDetachedSignature(IExternalDigest, String, Certificate[], Collection, IOcspClient, ITSAClient, int, CryptoStandard, SignaturePolicyIdentifier)}
+     * and closes the document.
+     * <p>
+     * If the signature container doesn't fit the reserved space, the space is enlarged to the size of the container
+     * plus a margin, and the authenticated attributes of the enlarged document are returned to be signed once more.
+     * The document is only enlarged once, if the second container doesn't fit either, an exception is thrown.
+     *
+     * @return the signature to be completed in the enlarged space, or null if the document is closed
+     */
+    PreparedDetachedSignature completeDetachedSignature(PreparedDetachedSignature prepared, byte[] extSignature, String encryptionAlgorithm) throws IOException, GeneralSecurityException {
+        PdfPKCS7 sgn = prepared.sgn;
+        sgn.setExternalDigest(extSignature, null, encryptionAlgorithm);
 
-        if (estimatedSize < encodedSig.length)
-            throw new IOException("Not enough space");
+        byte[] encodedSig = sgn.getEncodedPKCS7(prepared.hash, prepared.tsaClient, prepared.ocsp, prepared.crlBytes, prepared.sigtype);
 
-        byte[] paddedSig = new byte[estimatedSize];
+        if (prepared.sizeKey != null) {
+            signatureSizeEstimator.record(prepared.sizeKey, prepared.revocationDataSize, prepared.estimatedSize, encodedSig.length);
+        }
+        if (prepared.estimatedSize < encodedSig.length) {
+            if (prepared.retried) {
+                throw new IOException("Not enough space");
+            }
+            int estimatedSize = prepared.sizeKey != null
+                    ? signatureSizeEstimator.getRetrySize(encodedSig.length)
+                    : encodedSig.length + SignatureSizeEstimator.DEFAULT_MARGIN;
+            enlargeContentsSpace(estimatedSize);
+
+            byte[] hash = DigestAlgorithms.digest(getUnderlyingSource(), range, SignUtils.getMessageDigest(prepared.hashAlgorithm, prepared.externalDigest));
+            byte[] sh = sgn.getAuthenticatedAttributeBytes(hash, prepared.ocsp, prepared.crlBytes, prepared.sigtype);
+            PreparedDetachedSignature retry = new PreparedDetachedSignature(sgn, hash, prepared.ocsp, prepared.crlBytes, sh,
+                    prepared.tsaClient, estimatedSize, prepared.sigtype);
+            retry.sizeKey = prepared.sizeKey;
+            retry.revocationDataSize = prepared.revocationDataSize;
+            retry.hashAlgorithm = prepared.hashAlgorithm;
+            retry.externalDigest = prepared.externalDigest;
+            retry.retried = true;
+            return retry;
+        }
+
+        byte[] paddedSig = new byte[prepared.estimatedSize];
         System.arraycopy(encodedSig, 0, paddedSig, 0, encodedSig.length);
 
         PdfDictionary dic2 = new PdfDictionary();
@@ -649,6 +735,40 @@ public class PdfSigner {
         close(dic2);
 
         closed = true;
+        return null;
+    }
+
+    /**
+     * Releases the document, the temporary storage and the output stream of a signer whose detached signature
+     * is not going to be completed. Nothing is written to the output stream. Does nothing if the signer
+     * is already closed.
+     */
+    void abortDetachedSignature() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!document.isClosed()) {
+                document.close();
+            }
+        } catch (Exception ignored) {
+        }
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (Exception ignored) {
+            }
+        }
+        if (originalOS != null) {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            try {
+                originalOS.close();
+            } catch (Exception ignored) {
+            }
+        }
     }
 
     /**
@@ -685,8 +805,14 @@ public class PdfSigner {
         InputStream data = getRangeStream();
         byte[] encodedSig = externalSignatureContainer.sign(data);
 
-        if (estimatedSize < encodedSig.length)
-            throw new IOException("Not enough space");
+        if (estimatedSize < encodedSig.length) {
+            // the space is enlarged once, and the container is created again for the enlarged document
+            estimatedSize = encodedSig.length + SignatureSizeEstimator.DEFAULT_MARGIN;
+            enlargeContentsSpace(estimatedSize);
+            encodedSig = externalSignatureContainer.sign(getRangeStream());
+            if (estimatedSize < encodedSig.length)
+                throw new IOException("Not enough space");
+        }
 
         byte[] paddedSig = new byte[estimatedSize];
         System.arraycopy(encodedSig, 0, paddedSig, 0, encodedSig.length);
@@ -728,23 +854,16 @@ public class PdfSigner {
         Map<PdfName, Integer> exc = new HashMap<>();
         exc.put(PdfName.Contents, contentEstimated * 2 + 2);
         preClose(exc);
-        InputStream data = getRangeStream();
-        MessageDigest messageDigest = tsa.getMessageDigest();
-        byte[] buf = new byte[4096];
-        int n;
-        while ((n = data.read(buf)) > 0) {
-            messageDigest.update(buf, 0, n);
+        byte[] tsToken = getTimeStampToken(tsa);
+
+        if (contentEstimated < tsToken.length) {
+            // the space is enlarged once, and the document is timestamped again
+            contentEstimated = tsToken.length + SignatureSizeEstimator.DEFAULT_MARGIN;
+            enlargeContentsSpace(contentEstimated);
+            tsToken = getTimeStampToken(tsa);
+            if (contentEstimated < tsToken.length)
+                throw new IOException("Not enough space");
         }
-        byte[] tsImprint = messageDigest.digest();
-        byte[] tsToken;
-        try {
-            tsToken = tsa.getTimeStampToken(tsImprint);
-        } catch (Exception e) {
-            throw new GeneralSecurityException(e.getMessage(), e);
-        }
-
-        if (contentEstimated + 2 < tsToken.length)
-            throw new IOException("Not enough space");
 
         byte[] paddedSig = new byte[contentEstimated];
         System.arraycopy(tsToken, 0, paddedSig, 0, tsToken.length);
@@ -756,6 +875,15 @@ public class PdfSigner {
         closed = true;
     }
 
+    private byte[] getTimeStampToken(ITSAClient tsa) throws IOException, GeneralSecurityException {
+        byte[] tsImprint = DigestAlgorithms.digest(getUnderlyingSource(), range, tsa.getMessageDigest());
+        try {
+            return tsa.getTimeStampToken(tsImprint);
+        } catch (Exception e) {
+            throw new GeneralSecurityException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Signs a PDF where space was already reserved.
      *
@@ -974,9 +1102,35 @@ public class PdfSigner {
         cryptoDictionary.getPdfObject().flush(false);
         document.close();
 
-        range = new long[exclusionLocations.size() * 2];
-        long byteRangePosition = exclusionLocations.get(PdfName.ByteRange).getPosition();
+        byteRangeLiteral = exclusionLocations.get(PdfName.ByteRange);
         exclusionLocations.remove(PdfName.ByteRange);
+        if (tempFile == null) {
+            bout = temporaryOS.toByteArray();
+            writeByteRange();
+        } else {
+            try {
+                raf = FileUtil.getRandomAccessFile(tempFile);
+                writeByteRange();
+            } catch (IOException e) {
+                try {
+                    raf.close();
+                } catch (Exception ignored) {
+                }
+                try {
+                    tempFile.delete();
+                } catch (Exception ignored) {
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Calculates the byte range of the pre-closed document from the positions of the
+     * excluded entries, and writes it to the space reserved for it.
+     */
+    private void writeByteRange() throws IOException {
+        range = new long[exclusionLocations.size() * 2 + 2];
         int idx = 1;
         for (PdfLiteral lit1 : exclusionLocations.values()) {
             long n = lit1.getPosition();
@@ -987,43 +1141,81 @@ public class PdfSigner {
         for (int k = 3; k < range.length - 2; k += 2)
             range[k] -= range[k - 1];
 
+        long length = tempFile == null ? bout.length : raf.length();
+        range[range.length - 1] = length - range[range.length - 2];
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PdfOutputStream os = new PdfOutputStream(bos);
+        os.write('[');
+        for (int k = 0; k < range.length; ++k) {
+            os.writeLong(range[k]).write(' ');
+        }
+        os.write(']');
+        // the rest of the reserved space is cleared, since a byte range may be written again after enlarging the signature space
+        byte[] byteRange = new byte[byteRangeLiteral.getBytesCount()];
+        Arrays.fill(byteRange, (byte) ' ');
+        System.arraycopy(bos.toByteArray(), 0, byteRange, 0, (int) bos.size());
         if (tempFile == null) {
-            bout = temporaryOS.toByteArray();
-            range[range.length - 1] = bout.length - range[range.length - 2];
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            PdfOutputStream os = new PdfOutputStream(bos);
-            os.write('[');
-            for (int k = 0; k < range.length; ++k) {
-                os.writeLong(range[k]).write(' ');
-            }
-            os.write(']');
-            System.arraycopy(bos.toByteArray(), 0, bout, (int) byteRangePosition, (int) bos.size());
+            System.arraycopy(byteRange, 0, bout, (int) byteRangeLiteral.getPosition(), byteRange.length);
         } else {
+            raf.seek(byteRangeLiteral.getPosition());
+            raf.write(byteRange, 0, byteRange.length);
+        }
+    }
+
+    /**
+     * Enlarges the space reserved for the /Contents of the pre-closed document, and writes its new byte range.
+     * This is used when the signature doesn't fit the reserved space, so that it can be created once more
+     * without preparing the document again.
+     *
+     * @param estimatedSize the new size of the signature
+     */
+    private void enlargeContentsSpace(int estimatedSize) throws IOException {
+        PdfLiteral contents = exclusionLocations.get(PdfName.Contents);
+        int extraBytes = estimatedSize * 2 + 2 - contents.getBytesCount();
+        long contentsEnd = contents.getPosition() + contents.getBytesCount();
+        if (tempFile == null) {
+            ByteArrayOutputStream extended = new ByteArrayOutputStream(bout.length + extraBytes);
+            ReservedSpaceExtender.insertSpaces(getUnderlyingSource(), contentsEnd, extraBytes, extended);
+            bout = extended.toByteArray();
+        } else {
+            File extended = File.createTempFile("pdf", null, tempFile.getAbsoluteFile().getParentFile());
             try {
-                raf = FileUtil.getRandomAccessFile(tempFile);
-                long len = raf.length();
-                range[range.length - 1] = len - range[range.length - 2];
-                ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                PdfOutputStream os = new PdfOutputStream(bos);
-                os.write('[');
-                for (int k = 0; k < range.length; ++k) {
-                    os.writeLong(range[k]).write(' ');
-                }
-                os.write(']');
-                raf.seek(byteRangePosition);
-                raf.write(bos.toByteArray(), 0, (int) bos.size());
-            } catch (IOException e) {
+                OutputStream extendedOS = FileUtil.getFileOutputStream(extended);
                 try {
-                    raf.close();
-                } catch (Exception ignored) {
+                    ReservedSpaceExtender.insertSpaces(getUnderlyingSource(), contentsEnd, extraBytes, extendedOS);
+                } finally {
+                    extendedOS.close();
                 }
+                // the document is written back, because the temporary file is the output if there is no output stream
+                RandomAccessFile extendedRaf = FileUtil.getRandomAccessFile(extended);
                 try {
-                    tempFile.delete();
-                } catch (Exception ignored) {
+                    byte[] buf = new byte[8192];
+                    raf.seek(0);
+                    int r;
+                    while ((r = extendedRaf.read(buf)) > 0) {
+                        raf.write(buf, 0, r);
+                    }
+                    raf.setLength(extendedRaf.length());
+                } finally {
+                    extendedRaf.close();
                 }
-                throw e;
+            } finally {
+                extended.delete();
+            }
+        }
+
+        PdfLiteral enlarged = new PdfLiteral(estimatedSize * 2 + 2);
+        enlarged.setPosition(contents.getPosition());
+        exclusionLocations.put(PdfName.Contents, enlarged);
+        for (PdfLiteral literal : exclusionLocations.values()) {
+            if (literal.getPosition() >= contentsEnd) {
+                literal.setPosition(literal.getPosition() + extraBytes);
             }
         }
+        if (byteRangeLiteral.getPosition() >= contentsEnd) {
+            byteRangeLiteral.setPosition(byteRangeLiteral.getPosition() + extraBytes);
+        }
+        writeByteRange();
     }
 
     /**
@@ -1292,4 +1484,44 @@ public class PdfSigner {
          */
         void getSignatureDictionary(PdfSignature sig);
     }
+
+    /**
+     * The state of a detached signature between pre-closing the document and embedding the signature.
+     */
+    static class PreparedDetachedSignature {
+        private final PdfPKCS7 sgn;
+        private final byte[] hash;
+        private final byte[] ocsp;
+        private final Collection<byte[]> crlBytes;
+        private final byte[] authenticatedAttributes;
+        private final ITSAClient tsaClient;
+        private final int estimatedSize;
+        private final CryptoStandard sigtype;
+        private String sizeKey;
+        private int revocationDataSize;
+        private String hashAlgorithm;
+        private IExternalDigest externalDigest;
+        private boolean retried;
+
+        PreparedDetachedSignature(PdfPKCS7 sgn, byte[] hash, byte[] ocsp, Collection<byte[]> crlBytes, byte[] authenticatedAttributes,
+                                  ITSAClient tsaClient, int estimatedSize, CryptoStandard sigtype) {
+            this.sgn = sgn;
+            this.hash = hash;
+            this.ocsp = ocsp;
+            this.crlBytes = crlBytes;
+            this.authenticatedAttributes = authenticatedAttributes;
+            this.tsaClient = tsaClient;
+            this.estimatedSize = estimatedSize;
+            this.sigtype = sigtype;
+        }
+
+        /**
+         * Gets the DER-encoded authenticated attributes which shall be signed by the external signature.
+         *
+         * @return the bytes to be signed
+         */
+        byte[] getAuthenticatedAttributes() {
+            return authenticatedAttributes;
+        }
+    }
 }
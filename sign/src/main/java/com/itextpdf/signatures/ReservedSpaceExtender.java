@@ -0,0 +1,388 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import com.itextpdf.io.source.ByteUtils;
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RandomAccessFileOrArray;
+import com.itextpdf.io.util.ZlibCodecPool;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.filters.FlateDecodeFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Enlarges the space reserved for the signature in a pre-closed document, see {@link PdfSigner#preClose(java.util.Map)}.
+ * <p>
+ * The spaces are inserted right after the reserved space, so every object written after it moves. The offsets
+ * of such objects are corrected in the last cross-reference section, which may be a cross-reference table,
+ * a cross-reference stream or both of them in a hybrid file, and the startxref value is written again.
+ * Only the last cross-reference section is changed, because the previous revisions precede the reserved space.
+ */
+final class ReservedSpaceExtender {
+
+    private static final String NOT_ENOUGH_SPACE = "Not enough space";
+
+    private final IRandomAccessSource source;
+    private final long position;
+    private final int count;
+
+    private ReservedSpaceExtender(IRandomAccessSource source, long position, int count) {
+        this.source = source;
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * Writes the pre-closed document with spaces inserted at the given position.
+     *
+     * @param source   the pre-closed document
+     * @param position the position right after the reserved space
+     * @param count    the number of spaces to insert
+     * @param out      the stream the extended document is written to
+     * @throws IOException if the document can't be read or written, or if its last cross-reference
+     *                     section can't be corrected
+     */
+    static void insertSpaces(IRandomAccessSource source, long position, int count, OutputStream out) throws IOException {
+        new ReservedSpaceExtender(source, position, count).write(out);
+    }
+
+    private void write(OutputStream out) throws IOException {
+        PdfTokenizer tokenizer = new PdfTokenizer(new RandomAccessFileOrArray(source));
+        long startxrefKeyword = tokenizer.getStartxref();
+        tokenizer.seek(startxrefKeyword);
+        tokenizer.nextToken();
+        tokenizer.nextToken();
+        long startxref = tokenizer.getLongValue();
+        if (startxref <= position) {
+            throw new IOException(NOT_ENOUGH_SPACE);
+        }
+
+        copy(0, position, out);
+        for (int i = 0; i < count; i++) {
+            out.write(' ');
+        }
+        long newStartxref;
+        tokenizer.seek(startxref);
+        tokenizer.nextToken();
+        if (tokenizer.tokenValueEqualsTo(PdfTokenizer.Xref)) {
+            byte[] table = read(startxref, (int) (startxrefKeyword - startxref));
+            long xrefStm = findXRefStm(table);
+            if (xrefStm > position) {
+                // a hybrid file, the cross-reference stream precedes the table
+                copy(position, xrefStm, out);
+                ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                long streamEnd = writeXrefStream(tokenizer, xrefStm, stream);
+                stream.writeTo(out);
+                copy(streamEnd, startxref, out);
+                newStartxref = startxref + count + stream.size() - (streamEnd - xrefStm);
+            } else {
+                copy(position, startxref, out);
+                newStartxref = startxref + count;
+            }
+            out.write(correctXrefTable(table));
+        } else {
+            copy(position, startxref, out);
+            newStartxref = startxref + count;
+            long streamEnd = writeXrefStream(tokenizer, startxref, out);
+            copy(streamEnd, startxrefKeyword, out);
+        }
+        out.write(ByteUtils.getIsoBytes("startxref\n" + newStartxref + "\n%%EOF\n"));
+    }
+
+    private long shift(long offset) {
+        return offset >= position ? offset + count : offset;
+    }
+
+    private long findXRefStm(byte[] table) {
+        String text = new String(table, StandardCharsets.ISO_8859_1);
+        int trailer = text.lastIndexOf("trailer");
+        int key = trailer < 0 ? -1 : text.indexOf("/XRefStm", trailer);
+        if (key < 0) {
+            return -1;
+        }
+        int start = key + "/XRefStm".length();
+        while (start < text.length() && !Character.isDigit(text.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < text.length() && Character.isDigit(text.charAt(end))) {
+            end++;
+        }
+        return Long.parseLong(text.substring(start, end));
+    }
+
+    /**
+     * Corrects the offsets of the in-use entries of the cross-reference table, and the /XRefStm entry of its trailer.
+     */
+    private byte[] correctXrefTable(byte[] table) throws IOException {
+        String text = new String(table, StandardCharsets.ISO_8859_1);
+        StringBuilder corrected = new StringBuilder(text.length() + 16);
+        int index = text.indexOf('\n', text.indexOf("xref")) + 1;
+        corrected.append(text, 0, index);
+        while (true) {
+            int lineEnd = text.indexOf('\n', index);
+            String line = text.substring(index, lineEnd + 1);
+            if (line.trim().startsWith("trailer")) {
+                break;
+            }
+            corrected.append(line);
+            String[] subsection = line.trim().split(" ");
+            if (subsection.length != 2) {
+                throw new IOException(NOT_ENOUGH_SPACE);
+            }
+            index = lineEnd + 1;
+            int entries = Integer.parseInt(subsection[1]);
+            for (int i = 0; i < entries; i++, index += 20) {
+                String entry = text.substring(index, index + 20);
+                if (entry.charAt(17) == 'n') {
+                    StringBuilder offset = new StringBuilder("0000000000").append(shift(Long.parseLong(entry.substring(0, 10))));
+                    corrected.append(offset, offset.length() - 10, offset.length()).append(entry, 10, 20);
+                } else {
+                    corrected.append(entry);
+                }
+            }
+        }
+        String trailer = text.substring(index);
+        long xrefStm = findXRefStm(table);
+        if (xrefStm >= 0) {
+            trailer = trailer.replace("/XRefStm " + xrefStm, "/XRefStm " + shift(xrefStm));
+        }
+        corrected.append(trailer);
+        return ByteUtils.getIsoBytes(corrected.toString());
+    }
+
+    /**
+     * Writes the cross-reference stream starting at the given position with corrected offsets.
+     *
+     * @return the position right after the stream object
+     */
+    private long writeXrefStream(PdfTokenizer tokenizer, long start, OutputStream out) throws IOException {
+        tokenizer.seek(start);
+        tokenizer.nextValidToken();
+        if (tokenizer.getTokenType() != PdfTokenizer.TokenType.Obj) {
+            throw new IOException(NOT_ENOUGH_SPACE);
+        }
+        tokenizer.nextValidToken();
+        if (tokenizer.getTokenType() != PdfTokenizer.TokenType.StartDic) {
+            throw new IOException(NOT_ENOUGH_SPACE);
+        }
+        int[] widths = null;
+        boolean compressed = false;
+        long lengthStart = -1;
+        long lengthEnd = -1;
+        int length = -1;
+        int level = 1;
+        String key = null;
+        while (level > 0) {
+            tokenizer.nextValidToken();
+            switch (tokenizer.getTokenType()) {
+                case StartDic:
+                case StartArray:
+                    if (level == 1 && "DecodeParms".equals(key)) {
+                        throw new IOException(NOT_ENOUGH_SPACE);
+                    } else if (level == 1 && "W".equals(key)) {
+                        widths = new int[3];
+                        for (int i = 0; i < 3; i++) {
+                            tokenizer.nextValidToken();
+                            widths[i] = tokenizer.getIntValue();
+                        }
+                        tokenizer.nextValidToken();
+                    } else {
+                        level++;
+                    }
+                    key = null;
+                    break;
+                case EndDic:
+                case EndArray:
+                    level--;
+                    break;
+                case Name:
+                    if (level == 1 && key == null) {
+                        key = tokenizer.getStringValue();
+                    } else {
+                        if ("Filter".equals(key)) {
+                            compressed = "FlateDecode".equals(tokenizer.getStringValue());
+                            if (!compressed) {
+                                throw new IOException(NOT_ENOUGH_SPACE);
+                            }
+                        }
+                        key = null;
+                    }
+                    break;
+                case Number:
+                    if (level == 1 && "Length".equals(key)) {
+                        length = tokenizer.getIntValue();
+                        lengthEnd = tokenizer.getPosition();
+                        lengthStart = lengthEnd - tokenizer.getStringValue().length();
+                    } else if (level == 1 && "Prev".equals(key) && shift(tokenizer.getLongValue()) != tokenizer.getLongValue()) {
+                        throw new IOException(NOT_ENOUGH_SPACE);
+                    }
+                    key = null;
+                    break;
+                case EndOfFile:
+                    throw new IOException(NOT_ENOUGH_SPACE);
+                default:
+                    key = null;
+                    break;
+            }
+        }
+        if (widths == null || length < 0) {
+            throw new IOException(NOT_ENOUGH_SPACE);
+        }
+        tokenizer.nextToken();
+        if (!tokenizer.tokenValueEqualsTo(PdfTokenizer.Stream)) {
+            throw new IOException(NOT_ENOUGH_SPACE);
+        }
+        // the stream keyword is followed by either CRLF or LF
+        long dataStart = tokenizer.getPosition();
+        if (source.get(dataStart) == '\r') {
+            dataStart++;
+        }
+        if (source.get(dataStart) == '\n') {
+            dataStart++;
+        }
+        byte[] data = read(dataStart, length);
+        byte[] entries = compressed ? FlateDecodeFilter.flateDecode(data, true) : data;
+        if (entries == null) {
+            throw new IOException(NOT_ENOUGH_SPACE);
+        }
+        correctXrefStreamEntries(entries, widths);
+        byte[] corrected = compressed ? deflate(entries) : entries;
+
+        copy(start, lengthStart, out);
+        out.write(ByteUtils.getIsoBytes(String.valueOf(corrected.length)));
+        copy(lengthEnd, dataStart, out);
+        out.write(corrected);
+
+        tokenizer.seek(dataStart + length);
+        do {
+            tokenizer.nextToken();
+        } while (tokenizer.getTokenType() != PdfTokenizer.TokenType.EndOfFile
+                && !tokenizer.tokenValueEqualsTo(ByteUtils.getIsoBytes("endobj")));
+        long end = tokenizer.getPosition();
+        // the end of line after endobj belongs to the stream object as well
+        while (end < source.length() && (source.get(end) == '\n' || source.get(end) == '\r')) {
+            end++;
+        }
+        copy(dataStart + length, end, out);
+        return end;
+    }
+
+    private void correctXrefStreamEntries(byte[] entries, int[] widths) throws IOException {
+        int entrySize = widths[0] + widths[1] + widths[2];
+        if (entrySize == 0 || entries.length % entrySize != 0) {
+            throw new IOException(NOT_ENOUGH_SPACE);
+        }
+        for (int index = 0; index < entries.length; index += entrySize) {
+            // the type is 1 by default, if its field is omitted
+            long type = widths[0] == 0 ? 1 : readBigEndian(entries, index, widths[0]);
+            if (type != 1) {
+                continue;
+            }
+            long offset = readBigEndian(entries, index + widths[0], widths[1]);
+            long shifted = shift(offset);
+            if (widths[1] < 8 && shifted >= 1L << (8 * widths[1])) {
+                throw new IOException(NOT_ENOUGH_SPACE);
+            }
+            for (int i = widths[1] - 1; i >= 0; i--) {
+                entries[index + widths[0] + i] = (byte) shifted;
+                shifted >>>= 8;
+            }
+        }
+    }
+
+    private static long readBigEndian(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        Deflater deflater = ZlibCodecPool.obtainDeflater(CompressionConstants.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+            DeflaterOutputStream zip = new DeflaterOutputStream(out, deflater);
+            zip.write(data);
+            zip.finish();
+            return out.toByteArray();
+        } finally {
+            ZlibCodecPool.releaseDeflater(deflater);
+        }
+    }
+
+    private byte[] read(long from, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = source.get(from + read, bytes, read, length - read);
+            if (n <= 0) {
+                throw new IOException(NOT_ENOUGH_SPACE);
+            }
+            read += n;
+        }
+        return bytes;
+    }
+
+    private void copy(long from, long to, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        long pos = from;
+        while (pos < to) {
+            int n = source.get(pos, buffer, 0, (int) Math.min(buffer.length, to - pos));
+            if (n <= 0) {
+                throw new IOException(NOT_ENOUGH_SPACE);
+            }
+            out.write(buffer, 0, n);
+            pos += n;
+        }
+    }
+}
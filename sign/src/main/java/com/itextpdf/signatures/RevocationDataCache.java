@@ -0,0 +1,363 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import com.itextpdf.io.util.StreamUtil;
+import org.bouncycastle.asn1.ocsp.OCSPResponseStatus;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A thread-safe cache of encoded CRLs and OCSP responses, which can be shared between
+ * {@link CrlClientOnline}, {@link OcspClientBouncyCastle} and the verifiers extending {@link RootStoreVerifier},
+ * so that signing or verifying many documents with the same certificate chain fetches the revocation data only once.
+ * <p>
+ * Cached data expires at the <code>nextUpdate</code> time of the CRL or of the OCSP response. Data that does not
+ * specify when the next update is available is kept for the default time to live.
+ * Concurrent requests for the same data wait for a single fetch. If a storage directory is given,
+ * fetched data is also stored there and reused by other cache instances, e.g. by later runs of the application.
+ * <p>
+ * Note that a cached OCSP response contains the nonce of the request it has been fetched for.
+ */
+public class RevocationDataCache {
+
+    /**
+     * The default time to live of revocation data without <code>nextUpdate</code>, in milliseconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 60 * 60 * 1000L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RevocationDataCache.class);
+
+    private static final String CRL_EXTENSION = ".crl";
+    private static final String OCSP_EXTENSION = ".ocsp";
+
+    private final ConcurrentMap<String, CachedData> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, FutureTask<CachedData>> inFlight = new ConcurrentHashMap<>();
+    private final File storageDirectory;
+    private volatile long defaultTimeToLive = DEFAULT_TIME_TO_LIVE;
+
+    /**
+     * Creates a cache which keeps revocation data in memory only.
+     */
+    public RevocationDataCache() {
+        this(null);
+    }
+
+    /**
+     * Creates a cache which also stores revocation data in the given directory.
+     *
+     * @param storageDirectory the directory for the fetched data, it is created if it doesn't exist;
+     *                         may be null to keep the data in memory only
+     */
+    public RevocationDataCache(File storageDirectory) {
+        if (storageDirectory != null && !storageDirectory.isDirectory() && !storageDirectory.mkdirs()) {
+            LOGGER.warn("Revocation data cache directory can not be created: " + storageDirectory);
+            storageDirectory = null;
+        }
+        this.storageDirectory = storageDirectory;
+    }
+
+    /**
+     * Sets how long revocation data, which does not specify when the next update is available, is kept.
+     *
+     * @param defaultTimeToLive the time to live in milliseconds
+     */
+    public void setDefaultTimeToLive(long defaultTimeToLive) {
+        this.defaultTimeToLive = defaultTimeToLive;
+    }
+
+    /**
+     * Gets the encoded CRL published at the given URL, fetching it if it is not cached or has expired.
+     *
+     * @param url the URL of the CRL
+     * @return the encoded CRL
+     * @throws IOException if the CRL can not be fetched or parsed
+     */
+    public byte[] getCrl(final URL url) throws IOException {
+        return get(CRL_EXTENSION + url.toExternalForm(), CRL_EXTENSION, new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                LOGGER.info("Fetching CRL from " + url);
+                InputStream in = SignUtils.getHttpResponse(url);
+                try {
+                    return StreamUtil.inputStreamToArray(in);
+                } finally {
+                    in.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets an encoded OCSP response for the given certificate, fetching it with the given loader
+     * if it is not cached or has expired.
+     *
+     * @param checkCert  the certificate which status is checked
+     * @param issuerCert the issuer of the certificate
+     * @param url        the URL of the OCSP responder
+     * @param loader     fetches the encoded OCSP response (not just the basic response) from the responder
+     * @return the encoded OCSP response, or null if the loader returned null
+     * @throws IOException if the loader fails or the response can not be parsed
+     */
+    byte[] getOcspResponse(X509Certificate checkCert, X509Certificate issuerCert, String url, Callable<byte[]> loader) throws IOException {
+        String key = OCSP_EXTENSION + url + '|' + issuerCert.getSubjectX500Principal().getName() + '|' + checkCert.getSerialNumber().toString(16);
+        return get(key, OCSP_EXTENSION, loader);
+    }
+
+    /**
+     * Removes all revocation data from memory. Stored data is kept.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Gets the number of revocation data entries kept in memory.
+     *
+     * @return the number of entries, including the expired ones which weren't requested again yet
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private byte[] get(final String key, final String type, final Callable<byte[]> loader) throws IOException {
+        CachedData cached = getValid(key);
+        if (cached != null) {
+            return cached.data;
+        }
+        FutureTask<CachedData> task = new FutureTask<>(new Callable<CachedData>() {
+            @Override
+            public CachedData call() throws Exception {
+                // another thread might have finished the same fetch after our lookup
+                CachedData cached = getValid(key);
+                if (cached == null) {
+                    cached = load(key, type);
+                }
+                if (cached == null) {
+                    cached = fetch(key, type, loader);
+                }
+                return cached;
+            }
+        });
+        FutureTask<CachedData> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        }
+        try {
+            cached = running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        return cached != null ? cached.data : null;
+    }
+
+    private CachedData getValid(String key) {
+        CachedData cached = cache.get(key);
+        if (cached != null && cached.expires <= System.currentTimeMillis()) {
+            cache.remove(key, cached);
+            cached = null;
+        }
+        return cached;
+    }
+
+    private CachedData fetch(String key, String type, Callable<byte[]> loader) throws Exception {
+        byte[] data = loader.call();
+        if (data == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long expires = getExpirationTime(data, type, now);
+        CachedData cached = new CachedData(data, expires);
+        if (expires > now) {
+            cache.put(key, cached);
+            store(key, type, data);
+        }
+        return cached;
+    }
+
+    private CachedData load(String key, String type) {
+        File file = getStorageFile(key, type);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try {
+            InputStream in = new FileInputStream(file);
+            byte[] data;
+            try {
+                data = StreamUtil.inputStreamToArray(in);
+            } finally {
+                in.close();
+            }
+            long expires = getExpirationTime(data, type, file.lastModified());
+            if (expires > System.currentTimeMillis()) {
+                CachedData cached = new CachedData(data, expires);
+                cache.put(key, cached);
+                return cached;
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Stored revocation data can not be read: " + file + ": " + e.getMessage());
+        }
+        if (!file.delete()) {
+            LOGGER.warn("Expired revocation data can not be deleted: " + file);
+        }
+        return null;
+    }
+
+    private void store(String key, String type, byte[] data) {
+        File file = getStorageFile(key, type);
+        if (file == null) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp" + Thread.currentThread().getId());
+        try {
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(data);
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+                LOGGER.warn("Revocation data can not be stored: " + file);
+                temp.delete();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Revocation data can not be stored: " + file + ": " + e.getMessage());
+            temp.delete();
+        }
+    }
+
+    private File getStorageFile(String key, String type) {
+        if (storageDirectory == null) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes("UTF-8"));
+            StringBuilder name = new StringBuilder(hash.length * 2 + type.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return new File(storageDirectory, name.append(type).toString());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the time the data expires at, i.e. the earliest <code>nextUpdate</code> in it,
+     * or the default time to live after the time the data was fetched.
+     */
+    private long getExpirationTime(byte[] data, String type, long fetched) throws IOException, GeneralSecurityException {
+        Date nextUpdate = null;
+        if (CRL_EXTENSION.equals(type)) {
+            nextUpdate = ((X509CRL) SignUtils.parseCrlFromStream(new ByteArrayInputStream(data))).getNextUpdate();
+        } else {
+            OCSPResp response = new OCSPResp(data);
+            if (response.getStatus() != OCSPResponseStatus.SUCCESSFUL) {
+                // don't keep error responses
+                return fetched;
+            }
+            try {
+                for (SingleResp resp : ((BasicOCSPResp) response.getResponseObject()).getResponses()) {
+                    Date respNextUpdate = resp.getNextUpdate();
+                    if (respNextUpdate == null) {
+                        nextUpdate = null;
+                        break;
+                    }
+                    if (nextUpdate == null || respNextUpdate.before(nextUpdate)) {
+                        nextUpdate = respNextUpdate;
+                    }
+                }
+            } catch (OCSPException e) {
+                throw new IOException(e);
+            }
+        }
+        return nextUpdate != null ? nextUpdate.getTime() : fetched + defaultTimeToLive;
+    }
+
+    private static final class CachedData {
+        final byte[] data;
+        final long expires;
+
+        CachedData(byte[] data, long expires) {
+            this.data = data;
+            this.expires = expires;
+        }
+    }
+}
@@ -61,6 +61,9 @@ public class RootStoreVerifier extends CertificateVerifier {
     /** A key store against which certificates can be verified. */
     protected KeyStore rootStore = null;
 
+    /** A cache for the CRLs and OCSP responses fetched online, may be null. */
+    protected RevocationDataCache revocationDataCache = null;
+
     /**
      * Creates a RootStoreVerifier in a chain of verifiers.
      *
@@ -81,6 +84,16 @@ public class RootStoreVerifier extends CertificateVerifier {
         this.rootStore = keyStore;
     }
 
+    /**
+     * Sets the cache for the CRLs and OCSP responses fetched online,
+     * so that verifying many certificates of the same issuers fetches the revocation data only once.
+     *
+     * @param revocationDataCache the cache to use, or null to fetch the revocation data on every check
+     */
+    public void setRevocationDataCache(RevocationDataCache revocationDataCache) {
+        this.revocationDataCache = revocationDataCache;
+    }
+
     /**
      * Verifies a single certificate against a key store (if present).
      *
@@ -103,7 +116,7 @@ public class RootStoreVerifier extends CertificateVerifier {
             // loop over the trusted anchors in the root store
             for (X509Certificate anchor : SignUtils.getCertificates(rootStore)) {
                 try {
-                    signCert.verify(anchor.getPublicKey());
+                    verifySignature(signCert, anchor.getPublicKey());
                     result.add(new VerificationOK(signCert, this.getClass(), "Certificate verified against root store."));
                     result.addAll(super.verify(signCert, issuerCert, signDate));
                     return result;
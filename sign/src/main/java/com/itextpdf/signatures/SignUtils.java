@@ -283,6 +283,10 @@ final class SignUtils {
             tsaConnection.setRequestProperty("Authorization", "Basic " +
                     Base64.encodeBytes(userPassword.getBytes(StandardCharsets.UTF_8), Base64.DONT_BREAK_LINES));
         }
+        if (tsaConnection instanceof HttpURLConnection) {
+            // send the request without buffering it in the connection
+            ((HttpURLConnection) tsaConnection).setFixedLengthStreamingMode(requestBytes.length);
+        }
         OutputStream out = tsaConnection.getOutputStream();
         out.write(requestBytes);
         out.close();
@@ -0,0 +1,229 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Learns the size of the detached signature containers created by {@link PdfSigner}, so that the space reserved
+ * for further signatures with the same certificate chain and timestamp client fits the container closely.
+ * <p>
+ * The size of a container is its revocation data (the embedded OCSP response and CRLs), which is known before
+ * the space is reserved, plus an overhead for the certificates, the signed attributes, the signature value and
+ * the timestamp token. The estimator keeps the largest overhead seen for every certificate chain and timestamp
+ * client, and reserves that overhead plus a safety margin and the actual revocation data size. Until the first
+ * signature with a chain has been created, the default estimation of {@link PdfSigner} is used.
+ * <p>
+ * An estimator can be shared between signers used from several threads, e.g. by setting it on
+ * {@link PdfBatchSigner}. It also counts the reserved and the used bytes, so that the space wasted on
+ * padding and the number of signatures which didn't fit their reserved space can be monitored.
+ */
+public class SignatureSizeEstimator {
+
+    /**
+     * The default number of bytes reserved on top of the largest overhead seen.
+     */
+    public static final int DEFAULT_MARGIN = 64;
+
+    private final ConcurrentMap<String, AtomicInteger> overheads = new ConcurrentHashMap<>();
+    private final int margin;
+
+    private final AtomicLong signatureCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**
+     * Creates an estimator with the {@link #DEFAULT_MARGIN default margin}.
+     */
+    public SignatureSizeEstimator() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * Creates an estimator.
+     *
+     * @param margin the number of bytes reserved on top of the largest overhead seen, which shall cover
+     *               the size variations of the signature value and of the timestamp token
+     */
+    public SignatureSizeEstimator(int margin) {
+        this.margin = margin;
+    }
+
+    /**
+     * Gets the number of signatures whose size has been recorded. A signature which didn't fit its reserved space
+     * is created once more in an enlarged space, both containers are counted.
+     *
+     * @return the number of signatures
+     */
+    public long getSignatureCount() {
+        return signatureCount.get();
+    }
+
+    /**
+     * Gets the number of signatures which were larger than the space reserved for them, and had to be created
+     * once more in an enlarged space.
+     *
+     * @return the number of signatures that didn't fit
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Gets the total number of bytes reserved for the signatures which did fit.
+     *
+     * @return the reserved bytes
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * Gets the total size of the signatures which did fit.
+     *
+     * @return the used bytes
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Gets the total number of padding bytes written after the signatures, i.e. the reserved but unused bytes.
+     *
+     * @return the wasted bytes
+     */
+    public long getWastedBytes() {
+        return reservedBytes.get() - usedBytes.get();
+    }
+
+    /**
+     * Gets the key the overhead of signatures with the given chain and timestamp client is kept for.
+     */
+    static String getKey(Certificate[] chain, ITSAClient tsaClient) throws GeneralSecurityException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        for (Certificate certificate : chain) {
+            md.update(certificate.getEncoded());
+        }
+        String key = new BigInteger(1, md.digest()).toString(16);
+        if (tsaClient != null) {
+            key += '|' + tsaClient.getClass().getName() + '|' + tsaClient.getTokenSizeEstimate();
+        }
+        return key;
+    }
+
+    /**
+     * Gets the size of the revocation data embedded in the signature container.
+     */
+    static int getRevocationDataSize(byte[] ocsp, Collection<byte[]> crlBytes) {
+        int size = ocsp != null ? ocsp.length : 0;
+        if (crlBytes != null) {
+            for (byte[] crl : crlBytes) {
+                size += crl.length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the size of a signature container.
+     *
+     * @param key                the key of the chain and timestamp client, see {@link #getKey(Certificate[], ITSAClient)}
+     * @param revocationDataSize the size of the revocation data embedded in the container
+     * @return the number of bytes to reserve, or 0 if no signature with the same key has been recorded yet
+     */
+    int estimate(String key, int revocationDataSize) {
+        AtomicInteger overhead = overheads.get(key);
+        return overhead != null ? overhead.get() + revocationDataSize + margin : 0;
+    }
+
+    /**
+     * Gets the size of the space a container is created again in, after it didn't fit its reserved space.
+     *
+     * @param used the size of the container which didn't fit
+     * @return the number of bytes to reserve
+     */
+    int getRetrySize(int used) {
+        return used + margin;
+    }
+
+    /**
+     * Records the size of a created signature container.
+     *
+     * @param key                the key of the chain and timestamp client, see {@link #getKey(Certificate[], ITSAClient)}
+     * @param revocationDataSize the size of the revocation data embedded in the container
+     * @param reserved           the number of bytes reserved for the container
+     * @param used               the size of the container
+     */
+    void record(String key, int revocationDataSize, int reserved, int used) {
+        AtomicInteger overhead = overheads.get(key);
+        if (overhead == null) {
+            AtomicInteger created = new AtomicInteger();
+            overhead = overheads.putIfAbsent(key, created);
+            if (overhead == null) {
+                overhead = created;
+            }
+        }
+        int current = used - revocationDataSize;
+        int max = overhead.get();
+        while (current > max && !overhead.compareAndSet(max, current)) {
+            max = overhead.get();
+        }
+        signatureCount.incrementAndGet();
+        if (used > reserved) {
+            overflowCount.incrementAndGet();
+        } else {
+            reservedBytes.addAndGet(reserved);
+            usedBytes.addAndGet(used);
+        }
+    }
+}
@@ -46,9 +46,11 @@ package com.itextpdf.signatures;
 import com.itextpdf.forms.PdfAcroForm;
 import com.itextpdf.forms.fields.PdfFormField;
 import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.source.IByteBufferConsumer;
+import com.itextpdf.io.source.IRandomAccessSource;
 import com.itextpdf.io.source.RASInputStream;
 import com.itextpdf.io.source.RandomAccessFileOrArray;
-import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.io.source.RandomAccessSourceUtil;
 import com.itextpdf.io.source.WindowRandomAccessSource;
 import com.itextpdf.kernel.PdfException;
 import com.itextpdf.kernel.pdf.PdfArray;
@@ -60,10 +62,13 @@ import com.itextpdf.kernel.pdf.PdfString;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.SignatureException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -116,29 +121,8 @@ public class SignatureUtil {
         if (signature == null)
             return null;
         try {
-            PdfName sub = signature.getSubFilter();
-            PdfString contents = signature.getContents();
-            PdfPKCS7 pk = null;
-            if (sub.equals(PdfName.Adbe_x509_rsa_sha1)) {
-                PdfString cert = signature.getPdfObject().getAsString(PdfName.Cert);
-                if (cert == null)
-                    cert = signature.getPdfObject().getAsArray(PdfName.Cert).getAsString(0);
-                pk = new PdfPKCS7(PdfEncodings.convertToBytes(contents.getValue(), null), cert.getValueBytes(), provider);
-            }
-            else
-                pk = new PdfPKCS7(PdfEncodings.convertToBytes(contents.getValue(), null), sub, provider);
+            PdfPKCS7 pk = createPkcs7(signature, provider);
             updateByteRange(pk, signature);
-            PdfString date = signature.getDate();
-            if (date != null)
-                pk.setSignDate(PdfDate.decode(date.toString()));
-            String signName = signature.getName();
-            pk.setSignName(signName);
-            String reason = signature.getReason();
-            if (reason != null)
-                pk.setReason(reason);
-            String location = signature.getLocation();
-            if (location != null)
-                pk.setLocation(location);
             return pk;
         }
         catch (Exception e) {
@@ -146,6 +130,81 @@ public class SignatureUtil {
         }
     }
 
+    /**
+     * Verifies all signatures of the document, see {@link #verifySignature(String)}.
+     *
+     * @return a map from the signature field names to the PdfPKCS7 objects to continue the verification,
+     * ordered like {@link #getSignatureNames()}
+     */
+    public Map<String, PdfPKCS7> verifySignatures() {
+        return verifySignatures(null);
+    }
+
+    /**
+     * Verifies all signatures of the document, see {@link #verifySignature(String, String)}.
+     * <p>
+     * The signed byte ranges of the revisions of a document are nested: every signature covers the
+     * start of the file up to its /Contents entry. Instead of reading the file once per signature, the start of
+     * the file is digested once, and each signature continues from a copy of the digest state taken at its
+     * /Contents entry, so that only the rest of its revision is read separately.
+     *
+     * @param provider the provider or null for the default provider
+     * @return a map from the signature field names to the PdfPKCS7 objects to continue the verification,
+     * ordered like {@link #getSignatureNames()}
+     */
+    public Map<String, PdfPKCS7> verifySignatures(String provider) {
+        Map<String, PdfPKCS7> result = new LinkedHashMap<>();
+        // signatures which digest their byte ranges, grouped by digest algorithm and provider
+        Map<String, List<DigestedSignature>> digested = new LinkedHashMap<>();
+        try {
+            for (String name : getSignatureNames()) {
+                PdfSignature signature = getSignature(name);
+                PdfPKCS7 pk = createPkcs7(signature, provider);
+                result.put(name, pk);
+                long[] range = signature.getByteRange().toLongArray();
+                MessageDigest digest = pk.getDataDigest();
+                if (digest != null && range.length == 4 && range[0] == 0) {
+                    String key = digest.getAlgorithm() + '/' + digest.getProvider().getName();
+                    List<DigestedSignature> group = digested.get(key);
+                    if (group == null) {
+                        group = new ArrayList<>();
+                        digested.put(key, group);
+                    }
+                    group.add(new DigestedSignature(pk, range));
+                } else {
+                    updateByteRange(pk, signature);
+                }
+            }
+            for (List<DigestedSignature> group : digested.values()) {
+                updateNestedByteRanges(group);
+            }
+        }
+        catch (Exception e) {
+            throw new PdfException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the signature container of a signature without verifying the signed data, e.g. to get
+     * its certificates. The document is not read, except the signature dictionary.
+     *
+     * @param name the signature field name
+     * @param provider the provider or null for the default provider
+     * @return the PdfPKCS7 object, or null if there is no such signature
+     */
+    PdfPKCS7 readSignatureData(String name, String provider) {
+        PdfSignature signature = getSignature(name);
+        if (signature == null)
+            return null;
+        try {
+            return createPkcs7(signature, provider);
+        }
+        catch (Exception e) {
+            throw new PdfException(e);
+        }
+    }
+
     public PdfSignature getSignature(String name) {
         PdfDictionary sigDict = getSignatureDictionary(name);
         return sigDict != null ? new PdfSignature(sigDict) : null;
@@ -167,28 +226,93 @@ public class SignatureUtil {
         return merged.getAsDictionary(PdfName.V);
     }
 
+    /* Reads the signature container and the signature dictionary entries, the signed data is not read */
+    private PdfPKCS7 createPkcs7(PdfSignature signature, String provider) {
+        PdfName sub = signature.getSubFilter();
+        PdfString contents = signature.getContents();
+        PdfPKCS7 pk = null;
+        if (sub.equals(PdfName.Adbe_x509_rsa_sha1)) {
+            PdfString cert = signature.getPdfObject().getAsString(PdfName.Cert);
+            if (cert == null)
+                cert = signature.getPdfObject().getAsArray(PdfName.Cert).getAsString(0);
+            pk = new PdfPKCS7(PdfEncodings.convertToBytes(contents.getValue(), null), cert.getValueBytes(), provider);
+        }
+        else
+            pk = new PdfPKCS7(PdfEncodings.convertToBytes(contents.getValue(), null), sub, provider);
+        PdfString date = signature.getDate();
+        if (date != null)
+            pk.setSignDate(PdfDate.decode(date.toString()));
+        String signName = signature.getName();
+        pk.setSignName(signName);
+        String reason = signature.getReason();
+        if (reason != null)
+            pk.setReason(reason);
+        String location = signature.getLocation();
+        if (location != null)
+            pk.setLocation(location);
+        return pk;
+    }
+
+    /**
+     * Digests the byte ranges of signatures which use the same digest algorithm in a single pass over the start
+     * of the file. The byte ranges of the group are of the form [0 a b c].
+     */
+    private void updateNestedByteRanges(List<DigestedSignature> group) throws IOException {
+        Collections.sort(group, new Comparator<DigestedSignature>() {
+            @Override
+            public int compare(DigestedSignature o1, DigestedSignature o2) {
+                return Long.compare(o1.range[1], o2.range[1]);
+            }
+        });
+        RandomAccessFileOrArray rf = document.getReader().getSafeFile();
+        // the source view we use is based on a Safe view, so it's not closed
+        IRandomAccessSource source = rf.createSourceView();
+        MessageDigest running;
+        try {
+            running = (MessageDigest) group.get(0).pkcs7.getDataDigest().clone();
+        } catch (CloneNotSupportedException e) {
+            // the provider can't copy the digest state, digest each byte range separately
+            for (DigestedSignature entry : group) {
+                RandomAccessSourceUtil.read(source, entry.range, new DigestUpdater(entry.pkcs7.getDataDigest()));
+            }
+            return;
+        }
+        long position = 0;
+        for (DigestedSignature entry : group) {
+            long[] range = entry.range;
+            RandomAccessSourceUtil.read(source, position, range[1] - position, new DigestUpdater(running));
+            position = range[1];
+            MessageDigest digest;
+            try {
+                digest = (MessageDigest) running.clone();
+            } catch (CloneNotSupportedException e) {
+                // can't happen, the same digest has already been copied
+                throw new IllegalStateException(e);
+            }
+            RandomAccessSourceUtil.read(source, range[2], range[3], new DigestUpdater(digest));
+            entry.pkcs7.setDataDigest(digest);
+        }
+    }
+
     /* Updates the /ByteRange with the provided value */
-    private void updateByteRange(PdfPKCS7 pkcs7, PdfSignature signature) {
+    private void updateByteRange(final PdfPKCS7 pkcs7, PdfSignature signature) {
         PdfArray b = signature.getByteRange();
         RandomAccessFileOrArray rf = document.getReader().getSafeFile();
-        InputStream rg = null;
         try {
-            rg = new RASInputStream(new RandomAccessSourceFactory().createRanged(rf.createSourceView(), b.toLongArray()));
-            byte[] buf = new byte[8192];
-            int rd;
-            while ((rd = rg.read(buf, 0, buf.length)) > 0) {
-                pkcs7.update(buf, 0, rd);
-            }
+            // the source view we use is based on a Safe view, so it's not closed
+            RandomAccessSourceUtil.read(rf.createSourceView(), b.toLongArray(), new IByteBufferConsumer() {
+                @Override
+                public void accept(java.nio.ByteBuffer buffer) throws IOException {
+                    try {
+                        pkcs7.update(buffer);
+                    } catch (SignatureException e) {
+                        throw new IOException(e.getMessage(), e);
+                    }
+                }
+            });
         }
         catch (Exception e) {
             throw new PdfException(e);
-        } finally {
-            try {
-                if (rg != null) rg.close();
-            } catch (IOException e) {
-                // this really shouldn't ever happen - the source view we use is based on a Safe view, which is a no-op anyway
-                throw new PdfException(e);
-            }
         }
     }
 
@@ -363,6 +487,33 @@ public class SignatureUtil {
         }
     }
 
+    /**
+     * A signature whose byte range of the form [0 a b c] is digested together with the other signatures
+     * using the same digest algorithm.
+     */
+    private static class DigestedSignature {
+        private final PdfPKCS7 pkcs7;
+        private final long[] range;
+
+        DigestedSignature(PdfPKCS7 pkcs7, long[] range) {
+            this.pkcs7 = pkcs7;
+            this.range = range;
+        }
+    }
+
+    private static class DigestUpdater implements IByteBufferConsumer {
+        private final MessageDigest digest;
+
+        DigestUpdater(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void accept(java.nio.ByteBuffer buffer) {
+            digest.update(buffer);
+        }
+    }
+
     private static class SorterComparator implements Comparator<Object[]> {
         @Override
         public int compare(Object[] o1, Object[] o2) {
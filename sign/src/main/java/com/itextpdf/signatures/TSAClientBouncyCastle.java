@@ -272,8 +272,13 @@ public class TSAClientBouncyCastle implements ITSAClient {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         byte[] buffer = new byte[1024];
         int bytesRead = 0;
-        while ((bytesRead = inp.read(buffer, 0, buffer.length)) >= 0) {
-            baos.write(buffer, 0, bytesRead);
+        try {
+            while ((bytesRead = inp.read(buffer, 0, buffer.length)) >= 0) {
+                baos.write(buffer, 0, bytesRead);
+            }
+        } finally {
+            // closing the fully read response lets the connection be reused for the next request
+            inp.close();
         }
         byte[] respBytes = baos.toByteArray();
 
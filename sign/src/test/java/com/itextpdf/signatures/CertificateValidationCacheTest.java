@@ -0,0 +1,223 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import com.itextpdf.io.util.DateTimeUtil;
+import com.itextpdf.signatures.testutils.Pkcs12FileHelper;
+import com.itextpdf.signatures.testutils.builder.TestCrlBuilder;
+import com.itextpdf.signatures.testutils.client.TestOcspClient;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.bouncycastle.asn1.ocsp.BasicOCSPResponse;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
+
+@Category(IntegrationTest.class)
+public class CertificateValidationCacheTest extends ExtendedITextTest {
+
+    private static final String certsSrc = "./src/test/resources/com/itextpdf/signatures/certs/";
+    private static final char[] password = "testpass".toCharArray();
+
+    private static X509Certificate caCert;
+    private static PrivateKey caPrivateKey;
+    private static X509Certificate checkCert;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        caCert = (X509Certificate) Pkcs12FileHelper.readFirstChain(certsSrc + "rootRsa.p12", password)[0];
+        caPrivateKey = Pkcs12FileHelper.readFirstKey(certsSrc + "rootRsa.p12", password, password);
+        checkCert = (X509Certificate) Pkcs12FileHelper.readFirstChain(certsSrc + "signCertRsa01.p12", password)[0];
+    }
+
+    @Test
+    public void certificateSignatureCachedTest() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache();
+        CertificateVerifier verifier = new CertificateVerifier(null);
+        verifier.setValidationCache(cache);
+        Date signDate = DateTimeUtil.getCurrentTimeDate();
+
+        Assert.assertTrue(verifier.verify(checkCert, caCert, signDate).isEmpty());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertTrue(verifier.verify(checkCert, caCert, signDate).isEmpty());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void failedCertificateSignatureCachedTest() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache();
+        GeneralSecurityException first = null;
+        try {
+            cache.verifyCertificate(checkCert, checkCert.getPublicKey());
+        } catch (GeneralSecurityException e) {
+            first = e;
+        }
+        Assert.assertNotNull(first);
+        try {
+            cache.verifyCertificate(checkCert, checkCert.getPublicKey());
+            Assert.fail("Cached failure shall be thrown again");
+        } catch (GeneralSecurityException e) {
+            Assert.assertNotSame(first, e);
+            Assert.assertSame(first, e.getCause());
+            Assert.assertEquals(first.getMessage(), e.getMessage());
+        }
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void expiredResultsCheckedAgainTest() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache();
+        cache.setTimeToLive(-1);
+        cache.verifyCertificate(checkCert, caCert.getPublicKey());
+        cache.verifyCertificate(checkCert, caCert.getPublicKey());
+        Assert.assertEquals(1, cache.size());
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void ocspResponseCheckedOnceTest() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache();
+        byte[] encoded = new TestOcspClient(caCert, caPrivateKey).getEncoded(checkCert, caCert, null);
+        BasicOCSPResp ocspResp = new BasicOCSPResp(BasicOCSPResponse.getInstance(encoded));
+        OCSPVerifier verifier = new OCSPVerifier(null, Collections.singletonList(ocspResp));
+        verifier.setOnlineCheckingAllowed(false);
+        verifier.setValidationCache(cache);
+        Date signDate = DateTimeUtil.getCurrentTimeDate();
+
+        Assert.assertEquals(1, verifier.verify(checkCert, caCert, signDate).size());
+        int size = cache.size();
+        Assert.assertEquals(1, verifier.verify(checkCert, caCert, signDate).size());
+        Assert.assertEquals(size, cache.size());
+    }
+
+    @Test
+    public void ocspResponderTrustCheckedByEveryVerifierTest() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache();
+        byte[] encoded = new TestOcspClient(caCert, caPrivateKey).getEncoded(checkCert, caCert, null);
+        BasicOCSPResp ocspResp = new BasicOCSPResp(BasicOCSPResponse.getInstance(encoded));
+        Date signDate = DateTimeUtil.getCurrentTimeDate();
+
+        OCSPVerifier trustingVerifier = new OCSPVerifier(null, Collections.singletonList(ocspResp));
+        trustingVerifier.setOnlineCheckingAllowed(false);
+        trustingVerifier.setValidationCache(cache);
+        Assert.assertEquals(1, trustingVerifier.verify(checkCert, caCert, signDate).size());
+
+        // the trust decision depends on the configuration of the verifier, so it is not taken from the cache
+        OCSPVerifier distrustingVerifier = new OCSPVerifier(null, Collections.singletonList(ocspResp)) {
+            @Override
+            void verifySignature(X509Certificate cert, PublicKey key) throws GeneralSecurityException {
+                throw new GeneralSecurityException("Responder is not trusted");
+            }
+        };
+        distrustingVerifier.setOnlineCheckingAllowed(false);
+        distrustingVerifier.setValidationCache(cache);
+        try {
+            distrustingVerifier.verify(checkCert, caCert, signDate);
+            Assert.fail("OCSP responder is not expected to be trusted");
+        } catch (GeneralSecurityException e) {
+            Assert.assertEquals("Responder is not trusted", e.getMessage());
+        }
+    }
+
+    @Test
+    public void crlParsedAndCheckedOnceTest() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache();
+        Date now = DateTimeUtil.getCurrentTimeDate();
+        TestCrlBuilder crlBuilder = new TestCrlBuilder(caCert, DateTimeUtil.addDaysToDate(now, -1));
+        crlBuilder.setNextUpdate(DateTimeUtil.addDaysToDate(now, 1));
+        byte[] encoded = crlBuilder.makeCrl(caPrivateKey);
+
+        X509CRL crl = cache.getCrl(encoded);
+        Assert.assertSame(crl, cache.getCrl(encoded));
+
+        CRLVerifier verifier = new CRLVerifier(null, Collections.singletonList(crl));
+        verifier.setOnlineCheckingAllowed(false);
+        verifier.setValidationCache(cache);
+        Assert.assertEquals(1, verifier.verify(checkCert, caCert, now).size());
+        Assert.assertEquals(1, verifier.verify(checkCert, caCert, now).size());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void expiredEntriesSweptOnInsertTest() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache();
+        cache.setTimeToLive(-1);
+        for (int i = 1; i <= 3; i++) {
+            cache.getCrl(makeCrl(i));
+        }
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void sizeIsBoundedTest() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache();
+        cache.setMaxSize(4);
+        for (int i = 1; i <= 10; i++) {
+            cache.getCrl(makeCrl(i));
+            Assert.assertTrue(cache.size() <= 4);
+        }
+        byte[] latest = makeCrl(10);
+        Assert.assertSame(cache.getCrl(latest), cache.getCrl(latest));
+    }
+
+    private static byte[] makeCrl(int daysAgo) throws Exception {
+        Date now = DateTimeUtil.getCurrentTimeDate();
+        TestCrlBuilder crlBuilder = new TestCrlBuilder(caCert, DateTimeUtil.addDaysToDate(now, -daysAgo));
+        crlBuilder.setNextUpdate(DateTimeUtil.addDaysToDate(now, 1));
+        return crlBuilder.makeCrl(caPrivateKey);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import com.itextpdf.signatures.testutils.Pkcs12FileHelper;
+import com.itextpdf.signatures.testutils.server.TestTsaServer;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.tsp.TimeStampToken;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Category(IntegrationTest.class)
+public class ConcurrentTSAClientBouncyCastleTest extends ExtendedITextTest {
+
+    private static final String certsSrc = "./src/test/resources/com/itextpdf/signatures/certs/";
+    private static final char[] password = "testpass".toCharArray();
+
+    private TestTsaServer server;
+
+    @BeforeClass
+    public static void before() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Before
+    public void startServer() throws Exception {
+        String tsaCertFileName = certsSrc + "tsCertRsa.p12";
+        Certificate[] tsaChain = Pkcs12FileHelper.readFirstChain(tsaCertFileName, password);
+        PrivateKey tsaPrivateKey = Pkcs12FileHelper.readFirstKey(tsaCertFileName, password, password);
+        server = new TestTsaServer(Arrays.asList(tsaChain), tsaPrivateKey).start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void concurrentRequestsLimitTest() throws Exception {
+        server.setResponseDelay(20);
+        final ConcurrentTSAClientBouncyCastle tsaClient = new ConcurrentTSAClientBouncyCastle(server.getUrl(), null, null,
+                4096, DigestAlgorithms.SHA256, 2);
+
+        int requests = 12;
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<byte[]>> tokens = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                final byte[] imprint = MessageDigest.getInstance("SHA-256").digest(("document " + i).getBytes());
+                tokens.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        return tsaClient.getTimeStampToken(imprint);
+                    }
+                }));
+            }
+            for (int i = 0; i < requests; i++) {
+                TimeStampToken token = new TimeStampToken(new org.bouncycastle.cms.CMSSignedData(tokens.get(i).get()));
+                byte[] expectedImprint = MessageDigest.getInstance("SHA-256").digest(("document " + i).getBytes());
+                Assert.assertArrayEquals(expectedImprint, token.getTimeStampInfo().getMessageImprintDigest());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(requests, server.getRequestCount());
+        Assert.assertTrue(server.getMaxActiveRequests() <= 2);
+        Assert.assertEquals(requests, tsaClient.getRequestCount());
+        Assert.assertEquals(0, tsaClient.getFailedRequestCount());
+        Assert.assertTrue(tsaClient.getMaxLatencyMillis() >= 20);
+        Assert.assertTrue(tsaClient.getAverageLatencyMillis() <= tsaClient.getMaxLatencyMillis());
+        // six requests are sent at once through two slots, so the last ones wait for at least two responses
+        Assert.assertTrue(tsaClient.getMaxQueueWaitMillis() >= 20);
+        Assert.assertTrue(tsaClient.getAverageQueueWaitMillis() <= tsaClient.getMaxQueueWaitMillis());
+        Assert.assertEquals(2, tsaClient.getAvailableRequestSlots());
+    }
+
+    @Test
+    public void connectionReuseTest() throws Exception {
+        ConcurrentTSAClientBouncyCastle tsaClient = new ConcurrentTSAClientBouncyCastle(server.getUrl());
+        int requests = 5;
+        for (int i = 0; i < requests; i++) {
+            byte[] imprint = MessageDigest.getInstance("SHA-256").digest(("document " + i).getBytes());
+            Assert.assertNotNull(tsaClient.getTimeStampToken(imprint));
+        }
+        Assert.assertEquals(requests, server.getRequestCount());
+        Assert.assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void failedRequestTest() throws Exception {
+        ConcurrentTSAClientBouncyCastle tsaClient = new ConcurrentTSAClientBouncyCastle("http://127.0.0.1:1/tsa");
+        byte[] imprint = MessageDigest.getInstance("SHA-256").digest("document".getBytes());
+        try {
+            tsaClient.getTimeStampToken(imprint);
+            Assert.fail("Request to an unavailable server shall fail");
+        } catch (Exception expected) {
+        }
+        Assert.assertEquals(1, tsaClient.getRequestCount());
+        Assert.assertEquals(1, tsaClient.getFailedRequestCount());
+        Assert.assertEquals(0, tsaClient.getMaxQueueWaitMillis(), 10);
+        Assert.assertEquals(ConcurrentTSAClientBouncyCastle.DEFAULT_MAX_CONCURRENT_REQUESTS, tsaClient.getAvailableRequestSlots());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidLimitTest() {
+        new ConcurrentTSAClientBouncyCastle(server.getUrl(), null, null, 4096, DigestAlgorithms.SHA256, 0);
+    }
+}
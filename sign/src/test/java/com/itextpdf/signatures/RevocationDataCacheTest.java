@@ -0,0 +1,247 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import com.itextpdf.io.util.DateTimeUtil;
+import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.signatures.testutils.Pkcs12FileHelper;
+import com.itextpdf.signatures.testutils.builder.TestCrlBuilder;
+import com.itextpdf.signatures.testutils.builder.TestOcspResponseBuilder;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.bouncycastle.asn1.ocsp.BasicOCSPResponse;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Category(IntegrationTest.class)
+public class RevocationDataCacheTest extends ExtendedITextTest {
+
+    private static final String certsSrc = "./src/test/resources/com/itextpdf/signatures/certs/";
+    private static final String destinationFolder = "./target/test/com/itextpdf/signatures/RevocationDataCacheTest/";
+    private static final char[] password = "testpass".toCharArray();
+
+    private static X509Certificate caCert;
+    private static PrivateKey caPrivateKey;
+    private static X509Certificate checkCert;
+
+    private HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile byte[] crl;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        createOrClearDestinationFolder(destinationFolder);
+        caCert = (X509Certificate) Pkcs12FileHelper.readFirstChain(certsSrc + "rootRsa.p12", password)[0];
+        caPrivateKey = Pkcs12FileHelper.readFirstKey(certsSrc + "rootRsa.p12", password, password);
+        checkCert = (X509Certificate) Pkcs12FileHelper.readFirstChain(certsSrc + "signCertRsa01.p12", password)[0];
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/crl", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                try {
+                    // keep the request in flight long enough for concurrent requests to pile up
+                    Thread.sleep(200);
+                } catch (InterruptedException ignored) {
+                }
+                respond(exchange, "application/pkix-crl", crl);
+            }
+        });
+        server.createContext("/ocsp", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                try {
+                    byte[] request = StreamUtil.inputStreamToArray(exchange.getRequestBody());
+                    byte[] basicResponse = new TestOcspResponseBuilder(caCert).makeOcspResponse(request, caPrivateKey);
+                    OCSPResp response = new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL,
+                            new BasicOCSPResp(BasicOCSPResponse.getInstance(basicResponse)));
+                    respond(exchange, "application/ocsp-response", response.getEncoded());
+                } catch (Exception e) {
+                    exchange.sendResponseHeaders(500, -1);
+                    exchange.close();
+                }
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void crlFetchedOnceTest() throws Exception {
+        crl = createCrl(DateTimeUtil.addDaysToDate(DateTimeUtil.getCurrentTimeDate(), 30));
+        CrlClientOnline client = new CrlClientOnline(getUrl("/crl"));
+        client.setRevocationDataCache(new RevocationDataCache());
+
+        Collection<byte[]> first = client.getEncoded(checkCert, null);
+        Collection<byte[]> second = client.getEncoded(checkCert, null);
+
+        Assert.assertEquals(1, requestCount.get());
+        Assert.assertEquals(1, first.size());
+        Assert.assertArrayEquals(crl, first.iterator().next());
+        Assert.assertArrayEquals(crl, second.iterator().next());
+    }
+
+    @Test
+    public void concurrentRequestsFetchOnceTest() throws Exception {
+        crl = createCrl(DateTimeUtil.addDaysToDate(DateTimeUtil.getCurrentTimeDate(), 30));
+        final RevocationDataCache cache = new RevocationDataCache();
+        final URL url = getUrl("/crl");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        return cache.getCrl(url);
+                    }
+                }));
+            }
+            for (Future<byte[]> result : results) {
+                Assert.assertArrayEquals(crl, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void expiredCrlFetchedAgainTest() throws Exception {
+        crl = createCrl(DateTimeUtil.addDaysToDate(DateTimeUtil.getCurrentTimeDate(), -1));
+        RevocationDataCache cache = new RevocationDataCache();
+        URL url = getUrl("/crl");
+
+        Assert.assertArrayEquals(crl, cache.getCrl(url));
+        Assert.assertArrayEquals(crl, cache.getCrl(url));
+
+        Assert.assertEquals(2, requestCount.get());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void storedCrlReusedTest() throws Exception {
+        crl = createCrl(DateTimeUtil.addDaysToDate(DateTimeUtil.getCurrentTimeDate(), 30));
+        File storage = new File(destinationFolder, "storedCrlReusedTest");
+        URL url = getUrl("/crl");
+
+        Assert.assertArrayEquals(crl, new RevocationDataCache(storage).getCrl(url));
+        Assert.assertArrayEquals(crl, new RevocationDataCache(storage).getCrl(url));
+
+        Assert.assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void ocspResponseFetchedOnceTest() throws Exception {
+        RevocationDataCache cache = new RevocationDataCache();
+        OcspClientBouncyCastle client = new OcspClientBouncyCastle(null);
+        client.setRevocationDataCache(cache);
+        String url = getUrl("/ocsp").toExternalForm();
+
+        byte[] first = client.getEncoded(checkCert, caCert, url);
+        byte[] second = client.getEncoded(checkCert, caCert, url);
+
+        Assert.assertNotNull(first);
+        Assert.assertArrayEquals(first, second);
+        Assert.assertEquals(1, requestCount.get());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    private URL getUrl(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static byte[] createCrl(Date nextUpdate) throws Exception {
+        TestCrlBuilder crlBuilder = new TestCrlBuilder(caCert, DateTimeUtil.addDaysToDate(nextUpdate, -2));
+        crlBuilder.setNextUpdate(nextUpdate);
+        return crlBuilder.makeCrl(caPrivateKey);
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+}
@@ -0,0 +1,242 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.signatures.testutils.Pkcs12FileHelper;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.Certificate;
+
+@Category(IntegrationTest.class)
+public class SignatureSizeEstimatorTest extends ExtendedITextTest {
+
+    private static final String sourceFolder = "./src/test/resources/com/itextpdf/signatures/sign/SigningTest/";
+    private static final String destinationFolder = "./target/test/com/itextpdf/signatures/SignatureSizeEstimatorTest/";
+    private static final String keystorePath = sourceFolder + "test.p12";
+    private static final char[] password = "kspass".toCharArray();
+
+    private Certificate[] chain;
+    private PrivateKey pk;
+
+    @BeforeClass
+    public static void before() {
+        Security.addProvider(new BouncyCastleProvider());
+        createOrClearDestinationFolder(destinationFolder);
+    }
+
+    @Before
+    public void init() throws GeneralSecurityException, IOException {
+        pk = Pkcs12FileHelper.readFirstKey(keystorePath, password, password);
+        chain = Pkcs12FileHelper.readFirstChain(keystorePath, password);
+    }
+
+    @Test
+    public void reservedSizeAdaptsTest() throws GeneralSecurityException, IOException {
+        SignatureSizeEstimator estimator = new SignatureSizeEstimator();
+
+        sign(estimator, destinationFolder + "reservedSizeAdapts0.pdf");
+        long firstWaste = estimator.getWastedBytes();
+        // the default estimation reserves 8192 bytes, which is far more than a CMS container with a single certificate
+        Assert.assertTrue(firstWaste > 4096);
+
+        for (int i = 1; i < 4; i++) {
+            sign(estimator, destinationFolder + "reservedSizeAdapts" + i + ".pdf");
+        }
+
+        Assert.assertEquals(4, estimator.getSignatureCount());
+        Assert.assertEquals(0, estimator.getOverflowCount());
+        Assert.assertTrue(estimator.getWastedBytes() - firstWaste <= 3 * SignatureSizeEstimator.DEFAULT_MARGIN);
+        for (int i = 0; i < 4; i++) {
+            assertSignatureValid(destinationFolder + "reservedSizeAdapts" + i + ".pdf");
+        }
+    }
+
+    @Test
+    public void overflowLearnedTest() throws GeneralSecurityException, IOException {
+        SignatureSizeEstimator estimator = new SignatureSizeEstimator();
+        // pretend that a much smaller container has been created with the same chain before
+        estimator.record(SignatureSizeEstimator.getKey(chain, null), 0, 512, 512);
+
+        // the container doesn't fit, so it's created once more in an enlarged space
+        sign(estimator, destinationFolder + "overflowLearned0.pdf");
+        Assert.assertEquals(1, estimator.getOverflowCount());
+        Assert.assertEquals(SignatureSizeEstimator.DEFAULT_MARGIN, estimator.getWastedBytes());
+        assertSignatureValid(destinationFolder + "overflowLearned0.pdf");
+
+        // the size of the container which didn't fit has been learned
+        sign(estimator, destinationFolder + "overflowLearned1.pdf");
+        Assert.assertEquals(1, estimator.getOverflowCount());
+        Assert.assertEquals(4, estimator.getSignatureCount());
+        Assert.assertEquals(2 * SignatureSizeEstimator.DEFAULT_MARGIN, estimator.getWastedBytes());
+        assertSignatureValid(destinationFolder + "overflowLearned1.pdf");
+    }
+
+    @Test
+    public void undersizedXrefTableTest() throws GeneralSecurityException, IOException {
+        String dest = destinationFolder + "undersizedXrefTable.pdf";
+        signUndersized(sourceFolder + "simpleDocument.pdf", dest, new StampingProperties(), false);
+        assertSignatureValid(dest);
+    }
+
+    @Test
+    public void undersizedTempFileTest() throws GeneralSecurityException, IOException {
+        String dest = destinationFolder + "undersizedTempFile.pdf";
+        signUndersized(sourceFolder + "simpleDocument.pdf", dest, new StampingProperties(), true);
+        assertSignatureValid(dest);
+    }
+
+    @Test
+    public void undersizedXrefStreamInAppendModeTest() throws GeneralSecurityException, IOException {
+        String src = destinationFolder + "fullCompression.pdf";
+        PdfDocument document = new PdfDocument(new PdfReader(sourceFolder + "simpleDocument.pdf"),
+                new PdfWriter(src, new WriterProperties().setFullCompressionMode(true)));
+        document.close();
+
+        String dest = destinationFolder + "undersizedXrefStreamInAppendMode.pdf";
+        signUndersized(src, dest, new StampingProperties().useAppendMode(), false);
+        assertSignatureValid(dest);
+    }
+
+    @Test
+    public void undersizedHybridInAppendModeTest() throws GeneralSecurityException, IOException {
+        String dest = destinationFolder + "undersizedHybridInAppendMode.pdf";
+        signUndersized("./src/test/resources/com/itextpdf/signatures/sign/PdfSignatureAppearanceTest/hybrid.pdf",
+                dest, new StampingProperties().useAppendMode(), true);
+        assertSignatureValid(dest);
+    }
+
+    @Test
+    public void undersizedExternalContainerTest() throws GeneralSecurityException, IOException {
+        String dest = destinationFolder + "undersizedExternalContainer.pdf";
+        PdfSigner signer = new PdfSigner(new PdfReader(sourceFolder + "simpleDocument.pdf"), new FileOutputStream(dest), new StampingProperties());
+        signer.setFieldName("Signature1");
+        signer.signExternalContainer(new IExternalSignatureContainer() {
+            @Override
+            public byte[] sign(InputStream data) throws GeneralSecurityException {
+                try {
+                    BouncyCastleDigest digest = new BouncyCastleDigest();
+                    PdfPKCS7 sgn = new PdfPKCS7(pk, chain, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME, digest, false);
+                    byte[] hash = DigestAlgorithms.digest(data, digest.getMessageDigest(DigestAlgorithms.SHA256));
+                    byte[] sh = sgn.getAuthenticatedAttributeBytes(hash, null, null, PdfSigner.CryptoStandard.CMS);
+                    sgn.update(sh, 0, sh.length);
+                    return sgn.getEncodedPKCS7(hash, null, null, null, PdfSigner.CryptoStandard.CMS);
+                } catch (IOException e) {
+                    throw new GeneralSecurityException(e);
+                }
+            }
+
+            @Override
+            public void modifySigningDictionary(PdfDictionary signDic) {
+                signDic.put(PdfName.Filter, PdfName.Adobe_PPKLite);
+                signDic.put(PdfName.SubFilter, PdfName.Adbe_pkcs7_detached);
+            }
+        }, 100);
+        assertSignatureValid(dest);
+    }
+
+    private void sign(SignatureSizeEstimator estimator, String dest) throws GeneralSecurityException, IOException {
+        PdfSigner signer = new PdfSigner(new PdfReader(sourceFolder + "simpleDocument.pdf"), new FileOutputStream(dest), new StampingProperties());
+        signer.getSignatureAppearance().setPageRect(new Rectangle(36, 648, 200, 100));
+        signer.setFieldName("Signature1");
+        signer.setSignatureSizeEstimator(estimator);
+        IExternalSignature signature = new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME);
+        signer.signDetached(new BouncyCastleDigest(), signature, chain, null, null, null, 0, PdfSigner.CryptoStandard.CMS);
+    }
+
+    private void signUndersized(String src, String dest, StampingProperties properties, boolean useTempFile)
+            throws GeneralSecurityException, IOException {
+        // the estimator reserves far less than a container with a single certificate takes
+        SignatureSizeEstimator estimator = new SignatureSizeEstimator() {
+            @Override
+            int estimate(String key, int revocationDataSize) {
+                return 256;
+            }
+        };
+        PdfSigner signer = useTempFile
+                ? new PdfSigner(new PdfReader(src), new FileOutputStream(dest), destinationFolder, properties)
+                : new PdfSigner(new PdfReader(src), new FileOutputStream(dest), properties);
+        signer.getSignatureAppearance().setPageRect(new Rectangle(36, 648, 200, 100));
+        signer.setFieldName("Signature1");
+        signer.setSignatureSizeEstimator(estimator);
+        IExternalSignature signature = new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME);
+        signer.signDetached(new BouncyCastleDigest(), signature, chain, null, null, null, 0, PdfSigner.CryptoStandard.CMS);
+
+        Assert.assertEquals(2, estimator.getSignatureCount());
+        Assert.assertEquals(1, estimator.getOverflowCount());
+        Assert.assertEquals(SignatureSizeEstimator.DEFAULT_MARGIN, estimator.getWastedBytes());
+    }
+
+    private static void assertSignatureValid(String dest) throws IOException, GeneralSecurityException {
+        PdfDocument document = new PdfDocument(new PdfReader(dest));
+        try {
+            // the cross-reference sections shall still point to the objects after the enlarged signature
+            Assert.assertFalse(document.getReader().hasRebuiltXref());
+            SignatureUtil signatureUtil = new SignatureUtil(document);
+            Assert.assertTrue(signatureUtil.signatureCoversWholeDocument("Signature1"));
+            Assert.assertTrue(signatureUtil.verifySignature("Signature1").verify());
+        } finally {
+            document.close();
+        }
+    }
+}
@@ -42,21 +42,42 @@
  */
 package com.itextpdf.signatures;
 
+import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.signatures.testutils.Pkcs12FileHelper;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Category(IntegrationTest.class)
 public class SignatureUtilTest extends ExtendedITextTest {
 
     private static final String sourceFolder = "./src/test/resources/com/itextpdf/signatures/SignatureUtilTest/";
+    private static final String destinationFolder = "./target/test/com/itextpdf/signatures/SignatureUtilTest/";
+    private static final String keystorePath = "./src/test/resources/com/itextpdf/signatures/sign/SigningTest/test.p12";
+    private static final char[] password = "kspass".toCharArray();
+
+    @BeforeClass
+    public static void before() {
+        Security.addProvider(new BouncyCastleProvider());
+        createOrClearDestinationFolder(destinationFolder);
+    }
 
     @Test
     public void getSignaturesTest01() throws IOException {
@@ -79,4 +100,32 @@ public class SignatureUtilTest extends ExtendedITextTest {
         Assert.assertEquals(0, signatureNames.size());
     }
 
+    @Test
+    public void verifySignaturesTest() throws IOException, GeneralSecurityException {
+        PrivateKey pk = Pkcs12FileHelper.readFirstKey(keystorePath, password, password);
+        Certificate[] chain = Pkcs12FileHelper.readFirstChain(keystorePath, password);
+        String[] hashAlgorithms = {DigestAlgorithms.SHA256, DigestAlgorithms.SHA512, DigestAlgorithms.SHA256, DigestAlgorithms.SHA256};
+        String src = sourceFolder + "simpleDocument.pdf";
+        for (int i = 0; i < hashAlgorithms.length; i++) {
+            String dest = destinationFolder + "verifySignatures" + i + ".pdf";
+            PdfSigner signer = new PdfSigner(new PdfReader(src), new FileOutputStream(dest), new StampingProperties().useAppendMode());
+            signer.getSignatureAppearance().setPageRect(new Rectangle(36, 36 + 110 * i, 200, 100));
+            signer.setFieldName("Signature" + (i + 1));
+            IExternalSignature signature = new PrivateKeySignature(pk, hashAlgorithms[i], BouncyCastleProvider.PROVIDER_NAME);
+            signer.signDetached(new BouncyCastleDigest(), signature, chain, null, null, null, 0, PdfSigner.CryptoStandard.CMS);
+            src = dest;
+        }
+
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(src));
+        SignatureUtil signatureUtil = new SignatureUtil(pdfDocument);
+        Map<String, PdfPKCS7> verified = signatureUtil.verifySignatures(BouncyCastleProvider.PROVIDER_NAME);
+
+        Assert.assertEquals(signatureUtil.getSignatureNames(), new ArrayList<>(verified.keySet()));
+        Assert.assertEquals(hashAlgorithms.length, verified.size());
+        for (Map.Entry<String, PdfPKCS7> entry : verified.entrySet()) {
+            Assert.assertTrue(entry.getKey(), entry.getValue().verify());
+            Assert.assertTrue(entry.getKey(), signatureUtil.verifySignature(entry.getKey(), BouncyCastleProvider.PROVIDER_NAME).verify());
+        }
+        pdfDocument.close();
+    }
 }
@@ -49,6 +49,9 @@ import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.signatures.DssDataStore;
+import com.itextpdf.signatures.ICrlClient;
+import com.itextpdf.signatures.IOcspClient;
 import com.itextpdf.signatures.LtvVerification;
 import com.itextpdf.signatures.testutils.Pkcs12FileHelper;
 import com.itextpdf.signatures.testutils.client.TestCrlClient;
@@ -63,6 +66,8 @@ import java.security.Security;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -126,6 +131,54 @@ public class LtvWithTwoSignatures extends ExtendedITextTest {
         Assert.assertEquals(1, crls.size());
     }
 
+    @Test
+    public void addLtvInfoWithSharedDataTest() throws GeneralSecurityException, java.io.IOException {
+        String caCertFileName = certsSrc + "rootRsa.p12";
+        X509Certificate caCert = (X509Certificate) Pkcs12FileHelper.readFirstChain(caCertFileName, password)[0];
+        PrivateKey caPrivateKey = Pkcs12FileHelper.readFirstKey(caCertFileName, password, password);
+        // both signatures get the same validation data, as when a batch is signed with the same chain
+        final byte[] ocspBytes = new TestOcspClient(caCert, caPrivateKey).getEncoded(
+                (X509Certificate) Pkcs12FileHelper.readFirstChain(certsSrc + "signCertRsa01.p12", password)[0], caCert, null);
+        final Collection<byte[]> crlBytes = new TestCrlClient(caCert, caPrivateKey).getEncoded(null, null);
+        IOcspClient ocspClient = new IOcspClient() {
+            @Override
+            public byte[] getEncoded(X509Certificate checkCert, X509Certificate issuerCert, String url) {
+                return ocspBytes;
+            }
+        };
+        ICrlClient crlClient = new ICrlClient() {
+            @Override
+            public Collection<byte[]> getEncoded(X509Certificate checkCert, String url) {
+                return crlBytes;
+            }
+        };
+
+        DssDataStore store = new DssDataStore();
+        for (int i = 0; i < 2; i++) {
+            String dest = destinationFolder + "ltvSharedData0" + i + ".pdf";
+            PdfDocument document = new PdfDocument(new PdfReader(sourceFolder + "signedDoc.pdf"), new PdfWriter(dest), new StampingProperties().useAppendMode());
+            LtvVerification ltvVerification = new LtvVerification(document, "BC");
+            ltvVerification.setDssDataStore(store);
+            for (String sigName : Arrays.asList("sig", "sig2")) {
+                ltvVerification.addVerification(sigName, ocspClient, crlClient, LtvVerification.CertificateOption.SIGNING_CERTIFICATE, LtvVerification.Level.OCSP_CRL, LtvVerification.CertificateInclusion.YES);
+            }
+            ltvVerification.merge();
+            document.close();
+
+            PdfDocument result = new PdfDocument(new PdfReader(dest));
+            PdfDictionary dssDictionary = result.getCatalog().getPdfObject().getAsDictionary(PdfName.DSS);
+            Assert.assertEquals(2, dssDictionary.getAsDictionary(PdfName.VRI).size());
+            Assert.assertEquals(1, dssDictionary.getAsArray(PdfName.OCSPs).size());
+            Assert.assertEquals(1, dssDictionary.getAsArray(PdfName.Certs).size());
+            PdfArray crls = dssDictionary.getAsArray(PdfName.CRLs);
+            Assert.assertEquals(1, crls.size());
+            Assert.assertArrayEquals(crlBytes.iterator().next(), crls.getAsStream(0).getBytes());
+            result.close();
+        }
+        // the certificate, the CRL and the OCSP response
+        Assert.assertEquals(3, store.size());
+    }
+
     private void AddLtvInfo(String src, String dest, String sigName, TestOcspClient testOcspClient,TestCrlClient testCrlClient ) throws java.io.IOException, GeneralSecurityException {
         PdfDocument document = new PdfDocument(new PdfReader(src), new PdfWriter(dest), new StampingProperties().useAppendMode());
         LtvVerification ltvVerification = new LtvVerification(document, "BC");
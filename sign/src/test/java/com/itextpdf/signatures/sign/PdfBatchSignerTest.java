@@ -0,0 +1,329 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures.sign;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.signatures.BatchSigningResult;
+import com.itextpdf.signatures.BouncyCastleDigest;
+import com.itextpdf.signatures.DigestAlgorithms;
+import com.itextpdf.signatures.IExternalBatchSignature;
+import com.itextpdf.signatures.IExternalSignature;
+import com.itextpdf.signatures.PdfBatchSigner;
+import com.itextpdf.signatures.PdfPKCS7;
+import com.itextpdf.signatures.PdfSigner;
+import com.itextpdf.signatures.PrivateKeySignature;
+import com.itextpdf.signatures.SignatureUtil;
+import com.itextpdf.signatures.testutils.Pkcs12FileHelper;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Category(IntegrationTest.class)
+public class PdfBatchSignerTest extends ExtendedITextTest {
+
+    public static final String sourceFolder = "./src/test/resources/com/itextpdf/signatures/sign/SigningTest/";
+    public static final String destinationFolder = "./target/test/com/itextpdf/signatures/sign/PdfBatchSignerTest/";
+    public static final String keystorePath = "./src/test/resources/com/itextpdf/signatures/sign/SigningTest/test.p12";
+    public static final char[] password = "kspass".toCharArray();
+
+    private Certificate[] chain;
+    private PrivateKey pk;
+
+    @BeforeClass
+    public static void before() {
+        Security.addProvider(new BouncyCastleProvider());
+        createOrClearDestinationFolder(destinationFolder);
+    }
+
+    @Before
+    public void init() throws KeyStoreException, IOException, CertificateException, NoSuchAlgorithmException, UnrecoverableKeyException {
+        pk = Pkcs12FileHelper.readFirstKey(keystorePath, password, password);
+        chain = Pkcs12FileHelper.readFirstChain(keystorePath, password);
+    }
+
+    @Test
+    public void batchSigningTest() throws GeneralSecurityException, IOException {
+        CountingBatchSignature batchSignature = new CountingBatchSignature(
+                new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME));
+        List<String> destinations = createDestinations("batchSigning", 5);
+
+        BatchSigningResult result = new PdfBatchSigner(batchSignature, new BouncyCastleDigest(), chain)
+                .setBatchSize(2)
+                .signDetached(createSigners(destinations).iterator());
+
+        Assert.assertEquals(5, result.getSignedCount());
+        Assert.assertTrue(result.isSuccessful());
+        Assert.assertEquals(3, batchSignature.calls);
+        for (String dest : destinations) {
+            assertSignatureValid(dest);
+        }
+    }
+
+    @Test
+    public void concurrentBatchSigningTest() throws GeneralSecurityException, IOException {
+        CountingBatchSignature batchSignature = new CountingBatchSignature(
+                new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME));
+        List<String> destinations = createDestinations("concurrentBatchSigning", 8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            new PdfBatchSigner(batchSignature, new BouncyCastleDigest(), chain)
+                    .setCryptoStandard(PdfSigner.CryptoStandard.CADES)
+                    .setExecutorService(executor)
+                    .signDetached(createSigners(destinations).iterator());
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(1, batchSignature.calls);
+        for (String dest : destinations) {
+            assertSignatureValid(dest);
+        }
+    }
+
+    @Test
+    public void undersizedBatchSigningTest() throws GeneralSecurityException, IOException {
+        CountingBatchSignature batchSignature = new CountingBatchSignature(
+                new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME));
+        List<String> destinations = createDestinations("undersizedBatchSigning", 3);
+
+        // none of the signatures fits, so all of them are signed once more in a single additional call
+        BatchSigningResult result = new PdfBatchSigner(batchSignature, new BouncyCastleDigest(), chain)
+                .setEstimatedSize(256)
+                .signDetached(createSigners(destinations).iterator());
+
+        Assert.assertEquals(3, result.getSignedCount());
+        Assert.assertTrue(result.isSuccessful());
+        Assert.assertEquals(2, batchSignature.calls);
+        for (String dest : destinations) {
+            assertSignatureValid(dest);
+        }
+    }
+
+    @Test
+    public void failingBatchSignatureTest() throws GeneralSecurityException, IOException {
+        CountingBatchSignature batchSignature = new CountingBatchSignature(
+                new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME));
+        batchSignature.failingCall = 2;
+        List<String> destinations = createDestinations("failingBatchSignature", 5);
+        List<PdfSigner> signers = createSigners(destinations);
+
+        BatchSigningResult result = new PdfBatchSigner(batchSignature, new BouncyCastleDigest(), chain)
+                .setBatchSize(2)
+                .signDetached(signers.iterator());
+
+        Assert.assertFalse(result.isSuccessful());
+        Assert.assertEquals(3, batchSignature.calls);
+        Assert.assertEquals(Arrays.asList(signers.get(0), signers.get(1), signers.get(4)), result.getSignedSigners());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(signers.get(2), signers.get(3))), result.getFailures().keySet());
+        for (Exception cause : result.getFailures().values()) {
+            Assert.assertEquals("Batch signature failed", cause.getMessage());
+        }
+        assertSignatureValid(destinations.get(0));
+        assertSignatureValid(destinations.get(4));
+        assertClosedAndEmpty(signers.get(2), destinations.get(2));
+        assertClosedAndEmpty(signers.get(3), destinations.get(3));
+    }
+
+    @Test
+    public void wrongSignatureCountTest() throws GeneralSecurityException, IOException {
+        IExternalBatchSignature batchSignature = new CountingBatchSignature(
+                new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME)) {
+            @Override
+            public byte[][] sign(byte[][] messages) throws GeneralSecurityException {
+                return new byte[messages.length - 1][];
+            }
+        };
+        List<String> destinations = createDestinations("wrongSignatureCount", 3);
+        List<PdfSigner> signers = createSigners(destinations);
+
+        BatchSigningResult result = new PdfBatchSigner(batchSignature, new BouncyCastleDigest(), chain)
+                .signDetached(signers.iterator());
+
+        Assert.assertEquals(0, result.getSignedCount());
+        Assert.assertEquals(3, result.getFailures().size());
+        for (int i = 0; i < signers.size(); i++) {
+            Assert.assertTrue(result.getFailures().get(signers.get(i)) instanceof GeneralSecurityException);
+            assertClosedAndEmpty(signers.get(i), destinations.get(i));
+        }
+    }
+
+    @Test
+    public void failingPreparationTest() throws GeneralSecurityException, IOException {
+        CountingBatchSignature batchSignature = new CountingBatchSignature(
+                new PrivateKeySignature(pk, DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME));
+        List<String> destinations = createDestinations("failingPreparation", 3);
+        List<PdfSigner> signers = createSigners(destinations);
+        // the document has a single page, so the signature field cannot be added
+        signers.get(1).getSignatureAppearance().setPageNumber(5);
+
+        BatchSigningResult result = new PdfBatchSigner(batchSignature, new BouncyCastleDigest(), chain)
+                .signDetached(signers.iterator());
+
+        Assert.assertEquals(1, batchSignature.calls);
+        Assert.assertEquals(Arrays.asList(signers.get(0), signers.get(2)), result.getSignedSigners());
+        Assert.assertEquals(Collections.singleton(signers.get(1)), result.getFailures().keySet());
+        assertSignatureValid(destinations.get(0));
+        assertSignatureValid(destinations.get(2));
+        assertClosedAndEmpty(signers.get(1), destinations.get(1));
+    }
+
+    private List<String> createDestinations(String prefix, int count) {
+        List<String> destinations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            destinations.add(destinationFolder + prefix + i + ".pdf");
+        }
+        return destinations;
+    }
+
+    private List<PdfSigner> createSigners(List<String> destinations) throws IOException {
+        List<PdfSigner> signers = new ArrayList<>();
+        for (String dest : destinations) {
+            PdfSigner signer = new PdfSigner(new PdfReader(sourceFolder + "simpleDocument.pdf"), new CloseTrackingOutputStream(dest), new StampingProperties());
+            signer.getSignatureAppearance()
+                    .setReason("Batch")
+                    .setLocation("TestCity")
+                    .setPageRect(new Rectangle(36, 648, 200, 100));
+            signer.setFieldName("Signature1");
+            signers.add(signer);
+        }
+        return signers;
+    }
+
+    private static void assertSignatureValid(String dest) throws IOException, GeneralSecurityException {
+        PdfDocument document = new PdfDocument(new PdfReader(dest));
+        try {
+            SignatureUtil signatureUtil = new SignatureUtil(document);
+            Assert.assertTrue(signatureUtil.signatureCoversWholeDocument("Signature1"));
+            PdfPKCS7 pkcs7 = signatureUtil.verifySignature("Signature1");
+            Assert.assertTrue(pkcs7.verify());
+        } finally {
+            document.close();
+        }
+    }
+
+    private static void assertClosedAndEmpty(PdfSigner signer, String dest) {
+        Assert.assertTrue(signer.getDocument().isClosed());
+        Assert.assertEquals(0, new File(dest).length());
+        Assert.assertTrue(closedStreams.contains(dest));
+    }
+
+    private static final Set<String> closedStreams = Collections.synchronizedSet(new HashSet<String>());
+
+    private static class CloseTrackingOutputStream extends FileOutputStream {
+        private final String path;
+
+        CloseTrackingOutputStream(String path) throws FileNotFoundException {
+            super(path);
+            this.path = path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            closedStreams.add(path);
+        }
+    }
+
+    private static class CountingBatchSignature implements IExternalBatchSignature {
+        private final IExternalSignature signature;
+        private int calls;
+        private int failingCall;
+
+        CountingBatchSignature(IExternalSignature signature) {
+            this.signature = signature;
+        }
+
+        @Override
+        public String getHashAlgorithm() {
+            return signature.getHashAlgorithm();
+        }
+
+        @Override
+        public String getEncryptionAlgorithm() {
+            return signature.getEncryptionAlgorithm();
+        }
+
+        @Override
+        public byte[][] sign(byte[][] messages) throws GeneralSecurityException {
+            calls++;
+            if (calls == failingCall) {
+                throw new GeneralSecurityException("Batch signature failed");
+            }
+            byte[][] signatures = new byte[messages.length][];
+            for (int i = 0; i < messages.length; i++) {
+                signatures[i] = signature.sign(messages[i]);
+            }
+            return signatures;
+        }
+    }
+}
@@ -97,6 +97,29 @@ public class TimestampSigTest extends ExtendedITextTest {
         PadesSigTest.basicCheckSignedDoc(destinationFolder + "timestampTest01.pdf", "timestampSig1");
     }
 
+    @Test
+    public void undersizedTimestampTest() throws IOException, GeneralSecurityException {
+        String tsaCertFileName = certsSrc + "tsCertRsa.p12";
+        String srcFileName = sourceFolder + "helloWorldDoc.pdf";
+        String outFileName = destinationFolder + "undersizedTimestamp.pdf";
+
+        Certificate[] tsaChain = Pkcs12FileHelper.readFirstChain(tsaCertFileName, password);
+        PrivateKey tsaPrivateKey = Pkcs12FileHelper.readFirstKey(tsaCertFileName, password, password);
+
+        PdfSigner signer = new PdfSigner(new PdfReader(srcFileName), new FileOutputStream(outFileName), new StampingProperties());
+
+        // the token doesn't fit the estimated size, so the document is timestamped once more in an enlarged space
+        TestTsaClient testTsa = new TestTsaClient(Arrays.asList(tsaChain), tsaPrivateKey) {
+            @Override
+            public int getTokenSizeEstimate() {
+                return 256;
+            }
+        };
+        signer.timestamp(testTsa, "timestampSig1");
+
+        PadesSigTest.basicCheckSignedDoc(outFileName, "timestampSig1");
+    }
+
 
 //        TimeStampToken tsWrong = new TimeStampResponse(Files.readAllBytes(Paths.get("c:\\Users\\yulian\\Desktop\\myTs"))).getTimeStampToken();
 //
@@ -54,6 +54,11 @@ import java.security.cert.X509Certificate;
 import java.util.Date;
 import java.util.List;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.cmp.PKIStatus;
+import org.bouncycastle.asn1.cmp.PKIStatusInfo;
+import org.bouncycastle.asn1.cms.ContentInfo;
+import org.bouncycastle.asn1.tsp.TimeStampResp;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.cert.jcajce.JcaCertStore;
 import org.bouncycastle.cms.SignerInfoGenerator;
@@ -111,4 +116,10 @@ public class TestTimestampTokenBuilder {
         TimeStampToken tsToken = tsTokGen.generate(request, serialNumber, genTime);
         return tsToken.getEncoded();
     }
+
+    public byte[] createTimeStampResponse(TimeStampRequest request) throws OperatorCreationException, TSPException, IOException, CertificateEncodingException {
+        byte[] token = createTimeStampToken(request);
+        TimeStampResp response = new TimeStampResp(new PKIStatusInfo(PKIStatus.granted), ContentInfo.getInstance(ASN1Primitive.fromByteArray(token)));
+        return response.getEncoded();
+    }
 }
@@ -0,0 +1,155 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.signatures.testutils.server;
+
+import com.itextpdf.io.util.StreamUtil;
+import com.itextpdf.signatures.testutils.builder.TestTimestampTokenBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bouncycastle.tsp.TimeStampRequest;
+
+/**
+ * A local Time Stamp Authority answering RFC 3161 requests over HTTP, so that timestamp clients
+ * can be tested and benchmarked without network access.
+ */
+public class TestTsaServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final TestTimestampTokenBuilder tokenBuilder;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveRequests = new AtomicInteger();
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private volatile long responseDelay;
+
+    public TestTsaServer(List<Certificate> tsaCertificateChain, PrivateKey tsaPrivateKey) throws IOException {
+        tokenBuilder = new TestTimestampTokenBuilder(tsaCertificateChain, tsaPrivateKey);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/tsa", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleRequest(exchange);
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+    }
+
+    public TestTsaServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/tsa";
+    }
+
+    /**
+     * Sets the time every response is delayed, to simulate a remote TSA.
+     */
+    public void setResponseDelay(long responseDelayMillis) {
+        this.responseDelay = responseDelayMillis;
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public int getMaxActiveRequests() {
+        return maxActiveRequests.get();
+    }
+
+    /**
+     * Gets the number of distinct client connections the requests were received on.
+     */
+    public int getConnectionCount() {
+        return clientPorts.size();
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        int active = activeRequests.incrementAndGet();
+        int max = maxActiveRequests.get();
+        while (active > max && !maxActiveRequests.compareAndSet(max, active)) {
+            max = maxActiveRequests.get();
+        }
+        try {
+            TimeStampRequest request = new TimeStampRequest(StreamUtil.inputStreamToArray(exchange.getRequestBody()));
+            if (responseDelay > 0) {
+                Thread.sleep(responseDelay);
+            }
+            byte[] response = tokenBuilder.createTimeStampResponse(request);
+            exchange.getResponseHeaders().set("Content-Type", "application/timestamp-reply");
+            exchange.sendResponseHeaders(200, response.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(response);
+            out.close();
+        } catch (Exception e) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+}
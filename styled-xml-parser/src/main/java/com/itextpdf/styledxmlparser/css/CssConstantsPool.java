@@ -0,0 +1,93 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.styledxmlparser.css;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pool of the {@link CommonCssConstants} strings. The property names and the keyword values of the parsed
+ * declarations are replaced with the constants, so that a style sheet keeps a single instance of every
+ * known name instead of a new string per declaration.
+ */
+final class CssConstantsPool {
+
+    private static final Map<String, String> constants = loadConstants();
+
+    private CssConstantsPool() {
+    }
+
+    /**
+     * Gets the {@link CommonCssConstants} constant equal to the passed value.
+     *
+     * @param value the value
+     * @return the equal constant, or the passed value if there is no such constant
+     */
+    static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String constant = constants.get(value);
+        return constant != null ? constant : value;
+    }
+
+    private static Map<String, String> loadConstants() {
+        Field[] fields = CommonCssConstants.class.getDeclaredFields();
+        Map<String, String> constants = new HashMap<>(fields.length);
+        final int flags = Modifier.STATIC | Modifier.PUBLIC | Modifier.FINAL;
+        try {
+            for (Field field : fields) {
+                if ((field.getModifiers() & flags) == flags && field.getType().equals(String.class)) {
+                    String constant = (String) field.get(null);
+                    constants.put(constant, constant);
+                }
+            }
+        } catch (Exception e) {
+            constants.clear();
+        }
+        return constants;
+    }
+}
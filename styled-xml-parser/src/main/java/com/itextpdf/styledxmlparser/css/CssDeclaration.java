@@ -63,8 +63,8 @@ public class CssDeclaration {
      * @param expression the expression
      */
     public CssDeclaration(String property, String expression) {
-        this.property = CssUtils.normalizeCssProperty(property);
-        this.expression = CssUtils.normalizeCssProperty(expression);
+        this.property = CssConstantsPool.intern(CssUtils.normalizeCssProperty(property));
+        this.expression = CssConstantsPool.intern(CssUtils.normalizeCssProperty(expression));
     }
 
     /* (non-Javadoc)
@@ -48,6 +48,7 @@ import com.itextpdf.styledxmlparser.node.INode;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -123,6 +124,16 @@ public class CssNestedAtRule extends CssAtRule {
         return body;
     }
 
+    /**
+     * Makes the body and all the statements in it unmodifiable.
+     */
+    void makeReadOnly() {
+        for (CssStatement statement : body) {
+            CssStyleSheet.makeReadOnly(statement);
+        }
+        body = Collections.unmodifiableList(body);
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#toString()
      */
@@ -42,9 +42,16 @@
  */
 package com.itextpdf.styledxmlparser.css;
 
+import com.itextpdf.io.util.MessageFormatUtil;
+import com.itextpdf.styledxmlparser.LogMessageConstant;
 import com.itextpdf.styledxmlparser.css.media.MediaDeviceDescription;
+import com.itextpdf.styledxmlparser.css.resolve.shorthand.IShorthandResolver;
+import com.itextpdf.styledxmlparser.css.resolve.shorthand.ShorthandResolverFactory;
 import com.itextpdf.styledxmlparser.css.selector.ICssSelector;
+import com.itextpdf.styledxmlparser.css.validate.CssDeclarationValidationMaster;
 import com.itextpdf.styledxmlparser.node.INode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -68,6 +75,12 @@ public class CssRuleSet extends CssStatement {
     /** The important CSS declarations. */
     private List<CssDeclaration> importantDeclarations;
 
+    /** The valid normal CSS declarations with the shorthands expanded, created on the first use. */
+    private volatile List<CssDeclaration> resolvedNormalDeclarations;
+
+    /** The valid important CSS declarations with the shorthands expanded, created on the first use. */
+    private volatile List<CssDeclaration> resolvedImportantDeclarations;
+
     /**
      * Creates a new {@link CssRuleSet} from selector and raw list of declarations.
      * The declarations are split into normal and important under the hood.
@@ -155,6 +168,85 @@ public class CssRuleSet extends CssStatement {
         return importantDeclarations;
     }
 
+    /**
+     * Gets the valid normal CSS declarations, with the shorthand declarations expanded into the longhand ones.
+     * The declarations are resolved once, on the first call, so the normal declarations shall not be
+     * changed after the rule set is used for matching.
+     *
+     * @return the resolved normal declarations
+     */
+    public List<CssDeclaration> getResolvedNormalDeclarations() {
+        List<CssDeclaration> declarations = resolvedNormalDeclarations;
+        if (declarations == null) {
+            declarations = resolveDeclarations(normalDeclarations);
+            resolvedNormalDeclarations = declarations;
+        }
+        return declarations;
+    }
+
+    /**
+     * Gets the valid important CSS declarations, with the shorthand declarations expanded into the longhand ones.
+     * The declarations are resolved once, on the first call, so the important declarations shall not be
+     * changed after the rule set is used for matching.
+     *
+     * @return the resolved important declarations
+     */
+    public List<CssDeclaration> getResolvedImportantDeclarations() {
+        List<CssDeclaration> declarations = resolvedImportantDeclarations;
+        if (declarations == null) {
+            declarations = resolveDeclarations(importantDeclarations);
+            resolvedImportantDeclarations = declarations;
+        }
+        return declarations;
+    }
+
+    /**
+     * Resolves the declarations and makes the lists of declarations unmodifiable.
+     */
+    void makeReadOnly() {
+        normalDeclarations = Collections.unmodifiableList(normalDeclarations);
+        importantDeclarations = Collections.unmodifiableList(importantDeclarations);
+        getResolvedNormalDeclarations();
+        getResolvedImportantDeclarations();
+    }
+
+    /**
+     * Expands the shorthand declarations and leaves out the invalid declarations.
+     *
+     * @param declarations the declarations
+     * @return the resolved declarations
+     */
+    private static List<CssDeclaration> resolveDeclarations(List<CssDeclaration> declarations) {
+        List<CssDeclaration> resolvedDeclarations = new ArrayList<>(declarations.size());
+        for (CssDeclaration declaration : declarations) {
+            IShorthandResolver shorthandResolver = ShorthandResolverFactory.getShorthandResolver(declaration.getProperty());
+            if (shorthandResolver == null) {
+                addDeclarationIfValid(resolvedDeclarations, declaration);
+            } else {
+                List<CssDeclaration> resolvedShorthandProps = shorthandResolver.resolveShorthand(declaration.getExpression());
+                for (CssDeclaration resolvedProp : resolvedShorthandProps) {
+                    addDeclarationIfValid(resolvedDeclarations, resolvedProp);
+                }
+            }
+        }
+        return Collections.unmodifiableList(resolvedDeclarations);
+    }
+
+    /**
+     * Adds a declaration to the list if the declaration is valid.
+     *
+     * @param declarations the list of declarations
+     * @param cssDeclaration the css declaration
+     */
+    private static void addDeclarationIfValid(List<CssDeclaration> declarations, CssDeclaration cssDeclaration) {
+        if (CssDeclarationValidationMaster.checkDeclaration(cssDeclaration)) {
+            declarations.add(cssDeclaration);
+        } else {
+            Logger logger = LoggerFactory.getLogger(ICssResolver.class);
+            logger.warn(MessageFormatUtil.format(LogMessageConstant.INVALID_CSS_PROPERTY_DECLARATION, cssDeclaration));
+        }
+    }
+
     /**
      * Split CSS declarations into normal and important CSS declarations.
      *
@@ -0,0 +1,390 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.styledxmlparser.css;
+
+import com.itextpdf.styledxmlparser.CommonAttributeConstants;
+import com.itextpdf.styledxmlparser.css.media.CssMediaRule;
+import com.itextpdf.styledxmlparser.css.media.MediaDeviceDescription;
+import com.itextpdf.styledxmlparser.css.pseudo.CssPseudoElementNode;
+import com.itextpdf.styledxmlparser.css.selector.CssSelector;
+import com.itextpdf.styledxmlparser.css.selector.item.CssClassSelectorItem;
+import com.itextpdf.styledxmlparser.css.selector.item.CssIdSelectorItem;
+import com.itextpdf.styledxmlparser.css.selector.item.CssPseudoElementSelectorItem;
+import com.itextpdf.styledxmlparser.css.selector.item.CssSeparatorSelectorItem;
+import com.itextpdf.styledxmlparser.css.selector.item.CssTagSelectorItem;
+import com.itextpdf.styledxmlparser.css.selector.item.ICssSelectorItem;
+import com.itextpdf.styledxmlparser.node.ICustomElementNode;
+import com.itextpdf.styledxmlparser.node.IDocumentNode;
+import com.itextpdf.styledxmlparser.node.IElementNode;
+import com.itextpdf.styledxmlparser.node.INode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the statements of a {@link CssStyleSheet}, which finds the rule sets matching a node
+ * without testing the selector of every rule set against the node.
+ * <p>
+ * Rule sets with a {@link CssSelector} are put into buckets by the id, class or tag of their rightmost
+ * compound selector, so that only the rule sets of the buckets the node belongs to are tested. For the
+ * compounds which shall match ancestors of the node, the ids, classes and tags are kept as hashes, and
+ * most of the rule sets which can't match are rejected by a filter of the ancestors of the node without
+ * matching the selector. All other statements are checked for every node as before.
+ */
+final class CssRuleSetIndex {
+
+    private static final char ID_KEY = '#';
+    private static final char CLASS_KEY = '.';
+    private static final char TAG_KEY = ' ';
+
+    private static final int[] NO_KEYS = new int[0];
+
+    private static final Comparator<MatchedRuleSet> MATCHED_RULE_SET_COMPARATOR = new Comparator<MatchedRuleSet>() {
+        @Override
+        public int compare(MatchedRuleSet o1, MatchedRuleSet o2) {
+            if (o1.specificity != o2.specificity) {
+                return o1.specificity < o2.specificity ? -1 : 1;
+            }
+            if (o1.position != o2.position) {
+                return o1.position < o2.position ? -1 : 1;
+            }
+            return o1.index - o2.index;
+        }
+    };
+
+    /** Rule sets by the id of the rightmost compound selector. */
+    private final Map<String, List<IndexEntry>> idRuleSets = new HashMap<>();
+
+    /** Rule sets by a class of the rightmost compound selector. */
+    private final Map<String, List<IndexEntry>> classRuleSets = new HashMap<>();
+
+    /** Rule sets by the tag of the rightmost compound selector. */
+    private final Map<String, List<IndexEntry>> tagRuleSets = new HashMap<>();
+
+    /** Rule sets which can match only pseudo-elements. */
+    private final List<IndexEntry> pseudoElementRuleSets = new ArrayList<>();
+
+    /** Rule sets which can match any element. */
+    private final List<IndexEntry> universalRuleSets = new ArrayList<>();
+
+    /** Statements which are not indexed. */
+    private final List<IndexEntry> otherStatements = new ArrayList<>();
+
+    /**
+     * Creates a new {@link CssRuleSetIndex} instance.
+     *
+     * @param statements the statements of the style sheet, in the order of the style sheet
+     */
+    CssRuleSetIndex(List<CssStatement> statements) {
+        int position = 0;
+        for (CssStatement statement : statements) {
+            if (statement.getClass() == CssMediaRule.class) {
+                CssMediaRule mediaRule = (CssMediaRule) statement;
+                for (CssStatement childStatement : mediaRule.getStatements()) {
+                    addStatement(childStatement, mediaRule, position++);
+                }
+            } else {
+                addStatement(statement, null, position++);
+            }
+        }
+    }
+
+    /**
+     * Gets the rule sets matching the node, sorted the same way as by {@link com.itextpdf.styledxmlparser.CssRuleSetComparator}.
+     * The rule sets with the same specificity stay in the order of the style sheet.
+     *
+     * @param node the node
+     * @param deviceDescription the media device description
+     * @return the matching rule sets
+     */
+    List<CssRuleSet> getCssRuleSets(INode node, MediaDeviceDescription deviceDescription) {
+        List<MatchedRuleSet> matchedRuleSets = new ArrayList<>();
+        if (node instanceof IElementNode) {
+            AncestorFilter ancestorFilter = new AncestorFilter(node);
+            if (node instanceof CssPseudoElementNode) {
+                matchRuleSets(pseudoElementRuleSets, node, deviceDescription, ancestorFilter, matchedRuleSets);
+            } else if (!(node instanceof ICustomElementNode) && !(node instanceof IDocumentNode)) {
+                IElementNode element = (IElementNode) node;
+                String id = element.getAttribute(CommonAttributeConstants.ID);
+                if (id != null) {
+                    matchRuleSets(idRuleSets.get(id), node, deviceDescription, ancestorFilter, matchedRuleSets);
+                }
+                String classAttr = element.getAttribute(CommonAttributeConstants.CLASS);
+                if (classAttr != null && classAttr.length() > 0) {
+                    String[] classNames = classAttr.split(" ");
+                    for (int i = 0; i < classNames.length; i++) {
+                        classNames[i] = classNames[i].trim();
+                        if (!containsBefore(classNames, i)) {
+                            matchRuleSets(classRuleSets.get(classNames[i]), node, deviceDescription, ancestorFilter, matchedRuleSets);
+                        }
+                    }
+                }
+                matchRuleSets(tagRuleSets.get(element.name()), node, deviceDescription, ancestorFilter, matchedRuleSets);
+            }
+            matchRuleSets(universalRuleSets, node, deviceDescription, ancestorFilter, matchedRuleSets);
+        }
+        for (IndexEntry entry : otherStatements) {
+            if (entry.mediaRule == null || entry.mediaRule.matchMediaDevice(deviceDescription)) {
+                List<CssRuleSet> ruleSets = entry.statement.getCssRuleSets(node, deviceDescription);
+                for (int i = 0; i < ruleSets.size(); i++) {
+                    CssRuleSet ruleSet = ruleSets.get(i);
+                    matchedRuleSets.add(new MatchedRuleSet(ruleSet, ruleSet.getSelector().calculateSpecificity(), entry.position, i));
+                }
+            }
+        }
+
+        Collections.sort(matchedRuleSets, MATCHED_RULE_SET_COMPARATOR);
+        List<CssRuleSet> result = new ArrayList<>(matchedRuleSets.size());
+        for (MatchedRuleSet matchedRuleSet : matchedRuleSets) {
+            result.add(matchedRuleSet.ruleSet);
+        }
+        return result;
+    }
+
+    private void addStatement(CssStatement statement, CssMediaRule mediaRule, int position) {
+        if (statement.getClass() != CssRuleSet.class || ((CssRuleSet) statement).getSelector().getClass() != CssSelector.class) {
+            otherStatements.add(new IndexEntry(statement, mediaRule, position, 0, NO_KEYS));
+            return;
+        }
+        CssSelector selector = (CssSelector) ((CssRuleSet) statement).getSelector();
+        List<ICssSelectorItem> items = selector.getSelectorItems();
+
+        // the rightmost compound selector, which shall match the node itself
+        String id = null;
+        String className = null;
+        String tagName = null;
+        boolean pseudoElement = false;
+        int i = items.size() - 1;
+        for (; i >= 0 && !(items.get(i) instanceof CssSeparatorSelectorItem); i--) {
+            ICssSelectorItem item = items.get(i);
+            if (item instanceof CssIdSelectorItem) {
+                id = ((CssIdSelectorItem) item).getId();
+            } else if (item instanceof CssClassSelectorItem) {
+                className = ((CssClassSelectorItem) item).getClassName();
+            } else if (item instanceof CssTagSelectorItem && !((CssTagSelectorItem) item).isUniversal()) {
+                tagName = ((CssTagSelectorItem) item).getTagName();
+            } else if (item instanceof CssPseudoElementSelectorItem) {
+                pseudoElement = true;
+            }
+        }
+
+        // a compound selector followed by a descendant or child combinator shall match an ancestor of the node
+        List<Integer> ancestorKeys = new ArrayList<>();
+        boolean ancestor = false;
+        for (; i >= 0; i--) {
+            ICssSelectorItem item = items.get(i);
+            if (item instanceof CssSeparatorSelectorItem) {
+                char separator = ((CssSeparatorSelectorItem) item).getSeparator();
+                ancestor = separator == ' ' || separator == '>';
+            } else if (ancestor) {
+                if (item instanceof CssIdSelectorItem) {
+                    ancestorKeys.add(getKey(ID_KEY, ((CssIdSelectorItem) item).getId()));
+                } else if (item instanceof CssClassSelectorItem) {
+                    ancestorKeys.add(getKey(CLASS_KEY, ((CssClassSelectorItem) item).getClassName()));
+                } else if (item instanceof CssTagSelectorItem && !((CssTagSelectorItem) item).isUniversal()) {
+                    ancestorKeys.add(getKey(TAG_KEY, ((CssTagSelectorItem) item).getTagName()));
+                }
+            }
+        }
+        int[] keys = new int[ancestorKeys.size()];
+        for (int j = 0; j < keys.length; j++) {
+            keys[j] = (int) ancestorKeys.get(j);
+        }
+
+        IndexEntry entry = new IndexEntry(statement, mediaRule, position, selector.calculateSpecificity(), keys);
+        if (pseudoElement) {
+            pseudoElementRuleSets.add(entry);
+        } else if (id != null) {
+            addToBucket(idRuleSets, id, entry);
+        } else if (className != null) {
+            addToBucket(classRuleSets, className, entry);
+        } else if (tagName != null) {
+            addToBucket(tagRuleSets, tagName, entry);
+        } else {
+            universalRuleSets.add(entry);
+        }
+    }
+
+    private static void matchRuleSets(List<IndexEntry> entries, INode node, MediaDeviceDescription deviceDescription,
+            AncestorFilter ancestorFilter, List<MatchedRuleSet> matchedRuleSets) {
+        if (entries == null) {
+            return;
+        }
+        for (IndexEntry entry : entries) {
+            if (entry.mediaRule != null && !entry.mediaRule.matchMediaDevice(deviceDescription)) {
+                continue;
+            }
+            if (entry.ancestorKeys.length > 0 && !ancestorFilter.mayContainAll(entry.ancestorKeys)) {
+                continue;
+            }
+            CssRuleSet ruleSet = (CssRuleSet) entry.statement;
+            if (ruleSet.getSelector().matches(node)) {
+                matchedRuleSets.add(new MatchedRuleSet(ruleSet, entry.specificity, entry.position, 0));
+            }
+        }
+    }
+
+    private static void addToBucket(Map<String, List<IndexEntry>> buckets, String key, IndexEntry entry) {
+        List<IndexEntry> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            buckets.put(key, bucket);
+        }
+        bucket.add(entry);
+    }
+
+    private static boolean containsBefore(String[] values, int index) {
+        for (int i = 0; i < index; i++) {
+            if (values[i].equals(values[index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getKey(char type, String value) {
+        return value.hashCode() * 31 + type;
+    }
+
+    /**
+     * An indexed statement.
+     */
+    private static final class IndexEntry {
+        final CssStatement statement;
+        final CssMediaRule mediaRule;
+        final int position;
+        final int specificity;
+        final int[] ancestorKeys;
+
+        IndexEntry(CssStatement statement, CssMediaRule mediaRule, int position, int specificity, int[] ancestorKeys) {
+            this.statement = statement;
+            this.mediaRule = mediaRule;
+            this.position = position;
+            this.specificity = specificity;
+            this.ancestorKeys = ancestorKeys;
+        }
+    }
+
+    /**
+     * A rule set matching a node, with its place in the cascade.
+     */
+    private static final class MatchedRuleSet {
+        final CssRuleSet ruleSet;
+        final int specificity;
+        final int position;
+        final int index;
+
+        MatchedRuleSet(CssRuleSet ruleSet, int specificity, int position, int index) {
+            this.ruleSet = ruleSet;
+            this.specificity = specificity;
+            this.position = position;
+            this.index = index;
+        }
+    }
+
+    /**
+     * A bloom filter of the ids, classes and tags of the ancestors of a node. It may give false positives,
+     * but never false negatives. The filter is filled on the first check only.
+     */
+    private static final class AncestorFilter {
+        private static final int SIZE = 256;
+
+        private final INode node;
+        private long[] bits;
+
+        AncestorFilter(INode node) {
+            this.node = node;
+        }
+
+        boolean mayContainAll(int[] keys) {
+            if (bits == null) {
+                bits = new long[SIZE / 64];
+                for (INode ancestor = node.parentNode(); ancestor != null; ancestor = ancestor.parentNode()) {
+                    if (ancestor instanceof IElementNode && !(ancestor instanceof ICustomElementNode) && !(ancestor instanceof IDocumentNode)) {
+                        addElement((IElementNode) ancestor);
+                    }
+                }
+            }
+            for (int key : keys) {
+                int hash = key * 0x9E3779B9;
+                if (!isSet(hash >>> 24) || !isSet((hash >>> 16) & (SIZE - 1))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addElement(IElementNode element) {
+            add(getKey(TAG_KEY, element.name()));
+            String id = element.getAttribute(CommonAttributeConstants.ID);
+            if (id != null) {
+                add(getKey(ID_KEY, id));
+            }
+            String classAttr = element.getAttribute(CommonAttributeConstants.CLASS);
+            if (classAttr != null && classAttr.length() > 0) {
+                for (String className : classAttr.split(" ")) {
+                    add(getKey(CLASS_KEY, className.trim()));
+                }
+            }
+        }
+
+        private void add(int key) {
+            int hash = key * 0x9E3779B9;
+            set(hash >>> 24);
+            set((hash >>> 16) & (SIZE - 1));
+        }
+
+        private void set(int bit) {
+            bits[bit >>> 6] |= 1L << (bit & 63);
+        }
+
+        private boolean isSet(int bit) {
+            return (bits[bit >>> 6] & (1L << (bit & 63))) != 0;
+        }
+    }
+}
@@ -42,16 +42,8 @@
  */
 package com.itextpdf.styledxmlparser.css;
 
-import com.itextpdf.io.util.MessageFormatUtil;
-import com.itextpdf.styledxmlparser.CssRuleSetComparator;
-import com.itextpdf.styledxmlparser.LogMessageConstant;
 import com.itextpdf.styledxmlparser.css.media.MediaDeviceDescription;
-import com.itextpdf.styledxmlparser.css.resolve.shorthand.IShorthandResolver;
-import com.itextpdf.styledxmlparser.css.resolve.shorthand.ShorthandResolverFactory;
-import com.itextpdf.styledxmlparser.css.validate.CssDeclarationValidationMaster;
 import com.itextpdf.styledxmlparser.node.INode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -64,9 +56,34 @@ import java.util.Map;
  */
 public class CssStyleSheet {
 
+    /** The maximal number of shared lists of declarations. */
+    private static final int MAX_SHARED_DECLARATIONS = 1024;
+
     /** The list of CSS statements. */
     private List<CssStatement> statements;
 
+    /** Indicates if the style sheet can't be changed anymore. */
+    private boolean readOnly;
+
+    /** The index of the statements, which is created on the first matching and dropped whenever a statement is added. */
+    private CssRuleSetIndex ruleSetIndex;
+
+    /** The declarations already resolved for the lists of matching rule sets, shared by all nodes matched by the same rule sets. */
+    private final Map<List<CssRuleSet>, List<CssDeclaration>> sharedDeclarations = new LinkedHashMap<List<CssRuleSet>, List<CssDeclaration>>(16, 0.75f, true) {
+        private static final long serialVersionUID = 4917652837612938467L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<CssRuleSet>, List<CssDeclaration>> eldest) {
+            return size() > MAX_SHARED_DECLARATIONS;
+        }
+    };
+
+    /** The number of times the declarations were found among the shared ones. */
+    private long sharedDeclarationsHits;
+
+    /** The number of times the declarations were resolved. */
+    private long sharedDeclarationsMisses;
+
     /**
      * Creates a new {@link CssStyleSheet} instance.
      */
@@ -81,6 +98,8 @@ public class CssStyleSheet {
      */
     public void addStatement(CssStatement statement) {
         statements.add(statement);
+        ruleSetIndex = null;
+        clearSharedDeclarations();
     }
 
     /**
@@ -91,6 +110,58 @@ public class CssStyleSheet {
     // TODO move this functionality to the parser (parse into)
     public void appendCssStyleSheet(CssStyleSheet anotherCssStyleSheet) {
         statements.addAll(anotherCssStyleSheet.statements);
+        ruleSetIndex = null;
+        clearSharedDeclarations();
+    }
+
+    /**
+     * Makes the style sheet unmodifiable, so that it can be parsed once and then shared between threads
+     * and documents. The statements can't be added anymore, neither to the style sheet, nor to its nested
+     * at-rules, and the declarations of all rule sets are resolved in advance.
+     *
+     * @return this style sheet
+     */
+    public CssStyleSheet makeReadOnly() {
+        if (!readOnly) {
+            for (CssStatement statement : statements) {
+                makeReadOnly(statement);
+            }
+            statements = Collections.unmodifiableList(statements);
+            ruleSetIndex = new CssRuleSetIndex(statements);
+            readOnly = true;
+        }
+        return this;
+    }
+
+    /**
+     * Checks if the style sheet was made read-only.
+     *
+     * @return true, if the style sheet can't be changed
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Makes the statement unmodifiable.
+     *
+     * @param statement the statement
+     */
+    static void makeReadOnly(CssStatement statement) {
+        if (statement instanceof CssRuleSet) {
+            ((CssRuleSet) statement).makeReadOnly();
+        } else if (statement instanceof CssNestedAtRule) {
+            ((CssNestedAtRule) statement).makeReadOnly();
+        }
+    }
+
+    /**
+     * Drops the shared declarations, which may become invalid when a statement is added.
+     */
+    private void clearSharedDeclarations() {
+        synchronized (sharedDeclarations) {
+            sharedDeclarations.clear();
+        }
     }
 
     /* (non-Javadoc)
@@ -126,12 +197,53 @@ public class CssStyleSheet {
      */
     public List<CssDeclaration> getCssDeclarations(INode node, MediaDeviceDescription deviceDescription) {
         List<CssRuleSet> ruleSets = getCssRuleSets(node, deviceDescription);
+        List<CssDeclaration> declarations;
+        synchronized (sharedDeclarations) {
+            declarations = sharedDeclarations.get(ruleSets);
+            if (declarations != null) {
+                sharedDeclarationsHits++;
+            } else {
+                sharedDeclarationsMisses++;
+            }
+        }
+        if (declarations == null) {
+            declarations = resolveDeclarations(ruleSets);
+            synchronized (sharedDeclarations) {
+                sharedDeclarations.put(ruleSets, declarations);
+            }
+        }
+        return new ArrayList<>(declarations);
+    }
+
+    /**
+     * Gets the share of the {@link #getCssDeclarations(INode, MediaDeviceDescription)} calls, for which the
+     * declarations were taken from another node matched by the same rule sets instead of being resolved again.
+     * Only the declarations of the style sheet are shared here, the computed styles of the nodes are
+     * left to the CSS resolvers.
+     *
+     * @return the hit rate from 0 to 1, or 0 if no declarations were requested yet
+     */
+    public float getSharedDeclarationsHitRate() {
+        synchronized (sharedDeclarations) {
+            long requests = sharedDeclarationsHits + sharedDeclarationsMisses;
+            return requests == 0 ? 0 : (float) sharedDeclarationsHits / requests;
+        }
+    }
+
+    /**
+     * Resolves the declarations of the matching rule sets, with the important declarations overriding
+     * the normal ones and the more specific rule sets overriding the less specific ones.
+     *
+     * @param ruleSets the matching rule sets, sorted by specificity
+     * @return the CSS declarations
+     */
+    private static List<CssDeclaration> resolveDeclarations(List<CssRuleSet> ruleSets) {
         Map<String, CssDeclaration> declarations = new LinkedHashMap<>();
         for (CssRuleSet ruleSet : ruleSets) {
-            populateDeclarationsMap(ruleSet.getNormalDeclarations(), declarations);
+            populateDeclarationsMap(ruleSet.getResolvedNormalDeclarations(), declarations);
         }
         for (CssRuleSet ruleSet : ruleSets) {
-            populateDeclarationsMap(ruleSet.getImportantDeclarations(), declarations);
+            populateDeclarationsMap(ruleSet.getResolvedImportantDeclarations(), declarations);
         }
         return new ArrayList<>(declarations.values());
     }
@@ -139,20 +251,12 @@ public class CssStyleSheet {
     /**
      * Populates the CSS declarations map.
      *
-     * @param declarations the declarations
+     * @param declarations the resolved declarations
      * @param map the map
      */
     private static void populateDeclarationsMap(List<CssDeclaration> declarations, Map<String, CssDeclaration> map) {
         for (CssDeclaration declaration : declarations) {
-            IShorthandResolver shorthandResolver = ShorthandResolverFactory.getShorthandResolver(declaration.getProperty());
-            if (shorthandResolver == null) {
-                putDeclarationInMapIfValid(map, declaration);
-            } else {
-                List<CssDeclaration> resolvedShorthandProps = shorthandResolver.resolveShorthand(declaration.getExpression());
-                for (CssDeclaration resolvedProp : resolvedShorthandProps) {
-                    putDeclarationInMapIfValid(map, resolvedProp);
-                }
-            }
+            map.put(declaration.getProperty(), declaration);
         }
     }
 
@@ -164,27 +268,12 @@ public class CssStyleSheet {
      * @return the css rule sets
      */
     private List<CssRuleSet> getCssRuleSets(INode node, MediaDeviceDescription deviceDescription) {
-        List<CssRuleSet> ruleSets = new ArrayList<>();
-        for (CssStatement statement : statements) {
-            ruleSets.addAll(statement.getCssRuleSets(node, deviceDescription));
-        }
-        Collections.sort(ruleSets, new CssRuleSetComparator());
-        return ruleSets;
-    }
-
-    /**
-     * Puts a declaration in a styles map if the declaration is valid.
-     *
-     * @param stylesMap the styles map
-     * @param cssDeclaration the css declaration
-     */
-    private static void putDeclarationInMapIfValid(Map<String, CssDeclaration> stylesMap, CssDeclaration cssDeclaration) {
-        if (CssDeclarationValidationMaster.checkDeclaration(cssDeclaration)) {
-            stylesMap.put(cssDeclaration.getProperty(), cssDeclaration);
-        } else {
-            Logger logger = LoggerFactory.getLogger(ICssResolver.class);
-            logger.warn(MessageFormatUtil.format(LogMessageConstant.INVALID_CSS_PROPERTY_DECLARATION, cssDeclaration));
+        CssRuleSetIndex index = ruleSetIndex;
+        if (index == null) {
+            index = new CssRuleSetIndex(statements);
+            ruleSetIndex = index;
         }
+        return index.getCssRuleSets(node, deviceDescription);
     }
 
 }
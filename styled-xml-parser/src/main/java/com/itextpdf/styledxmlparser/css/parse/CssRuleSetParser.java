@@ -86,17 +86,19 @@ public final class CssRuleSetParser {
                 declarations.addAll(parsePropertyDeclarations(propertiesStr.substring(closedCommentPos + 2, propertiesStr.length())));
             }
         } else {
-            int pos = getSemicolonPosition(propertiesStr, 0);
+            // the declarations are cut out of the string in place, without copying the rest of the string for every declaration
+            int start = 0;
+            int pos = getSemicolonPosition(propertiesStr, start);
             while (pos != -1) {
-                String[] propertySplit = splitCssProperty(propertiesStr.substring(0, pos));
+                String[] propertySplit = splitCssProperty(propertiesStr.substring(start, pos));
                 if (propertySplit != null) {
                     declarations.add(new CssDeclaration(propertySplit[0], propertySplit[1]));
                 }
-                propertiesStr = propertiesStr.substring(pos + 1);
-                pos = getSemicolonPosition(propertiesStr, 0);
+                start = pos + 1;
+                pos = getSemicolonPosition(propertiesStr, start);
             }
-            if (!propertiesStr.replaceAll("[\\n\\r\\t ]", "").isEmpty()) {
-                String[] propertySplit = splitCssProperty(propertiesStr);
+            if (!isBlank(propertiesStr, start)) {
+                String[] propertySplit = splitCssProperty(propertiesStr.substring(start));
                 if (propertySplit != null) {
                     declarations.add(new CssDeclaration(propertySplit[0], propertySplit[1]));
                 }
@@ -164,6 +166,23 @@ public final class CssRuleSetParser {
         return result;
     }
 
+    /**
+     * Checks if the string contains only spaces, tabs and line breaks from the position.
+     *
+     * @param str   the string
+     * @param start the position
+     * @return true, if there is nothing but spaces, tabs and line breaks from the position
+     */
+    private static boolean isBlank(String str, int start) {
+        for (int i = start; i < str.length(); i++) {
+            char ch = str.charAt(i);
+            if (ch != '\n' && ch != '\r' && ch != '\t' && ch != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Gets the semicolon position.
      *
@@ -47,7 +47,6 @@ import com.itextpdf.styledxmlparser.PortUtil;
 import com.itextpdf.styledxmlparser.css.CssStyleSheet;
 import com.itextpdf.styledxmlparser.css.parse.syntax.CssParserStateController;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -75,11 +74,25 @@ public final class CssStyleSheetParser {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static CssStyleSheet parse(InputStream stream, String baseUrl) throws IOException {
+        return parse(PortUtil.wrapInBufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)), baseUrl); // TODO determine charset correctly DEVSIX-1458
+    }
+
+    /**
+     * Parses the characters of a reader into a {@link CssStyleSheet}. The characters are read in chunks
+     * and processed as they are read, so the style sheet is never held in memory as a whole.
+     * The parsed style sheet may be made read-only with {@link CssStyleSheet#makeReadOnly()} to be shared
+     * between threads and documents.
+     *
+     * @param reader the reader
+     * @param baseUrl the base url
+     * @return the resulting {@link CssStyleSheet}
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static CssStyleSheet parse(Reader reader, String baseUrl) throws IOException {
         CssParserStateController controller = new CssParserStateController(baseUrl);
-        Reader br = PortUtil.wrapInBufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)); // TODO determine charset correctly DEVSIX-1458
         char[] buffer = new char[8192];
         int length;
-        while ((length = br.read(buffer, 0, buffer.length)) > 0) {
+        while ((length = reader.read(buffer, 0, buffer.length)) > 0) {
             for(int i = 0 ; i < length; i++) {
                 controller.process(buffer[i]);
             }
@@ -106,13 +119,11 @@ public final class CssStyleSheetParser {
      * @return the resulting {@link CssStyleSheet}
      */
     public static CssStyleSheet parse(String data, String baseUrl) {
-        // TODO charset? better to create parse logic based on string completely
-        ByteArrayInputStream stream = new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
-        try {
-            return parse(stream, baseUrl);
-        } catch (IOException exc) {
-            return null;
+        CssParserStateController controller = new CssParserStateController(baseUrl);
+        for (int i = 0; i < data.length(); i++) {
+            controller.process(data.charAt(i));
         }
+        return controller.getParsingResult();
     }
 
     /**
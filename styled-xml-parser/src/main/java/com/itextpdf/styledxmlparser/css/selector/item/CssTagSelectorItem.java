@@ -69,6 +69,24 @@ public class CssTagSelectorItem implements ICssSelectorItem {
         this.isUniversal = "*".equals(tagName);
     }
 
+    /**
+     * Gets the tag name in lower case, or "*" for the universal selector.
+     *
+     * @return the tag name
+     */
+    public String getTagName() {
+        return tagName;
+    }
+
+    /**
+     * Checks if the selector matches all elements.
+     *
+     * @return true, if the selector is the universal selector
+     */
+    public boolean isUniversal() {
+        return isUniversal;
+    }
+
     /* (non-Javadoc)
      * @see com.itextpdf.styledxmlparser.css.selector.item.ICssSelectorItem#getSpecificity()
      */
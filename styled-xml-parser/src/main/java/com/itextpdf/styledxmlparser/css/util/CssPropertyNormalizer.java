@@ -81,8 +81,8 @@ class CssPropertyNormalizer {
                 }
                 if (str.charAt(i) == '\'' || str.charAt(i) == '"') {
                     i = appendQuotedString(sb, str, i);
-                } else if ((str.charAt(i) == 'u' || str.charAt(i) == 'U') && str.substring(i).matches("^[uU][rR][lL]\\(.*?")) {
-                    sb.append(str.substring(i, i + 4).toLowerCase());
+                } else if ((str.charAt(i) == 'u' || str.charAt(i) == 'U') && isUrlFunction(str, i)) {
+                    sb.append("url(");
                     i = appendUrlContent(sb, str, i + 4);
                 } else {
                     sb.append(Character.toLowerCase(str.charAt(i)));
@@ -148,6 +148,27 @@ class CssPropertyNormalizer {
         }
     }
 
+    /**
+     * Checks if a url function starts at the position, and the rest of the string contains no
+     * line terminators, i.e. if the rest of the string matches "[uU][rR][lL]\\(.*".
+     *
+     * @param str the string
+     * @param start the position
+     * @return true, if the url function starts at the position
+     */
+    private static boolean isUrlFunction(String str, int start) {
+        if (!str.regionMatches(true, start, "url(", 0, 4)) {
+            return false;
+        }
+        for (int i = start + 4; i < str.length(); i++) {
+            char ch = str.charAt(i);
+            if (ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Checks if spaces can be trimmed after a specific character.
      *
@@ -0,0 +1,160 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.styledxmlparser.css;
+
+import com.itextpdf.styledxmlparser.CssRuleSetComparator;
+import com.itextpdf.styledxmlparser.css.media.MediaDeviceDescription;
+import com.itextpdf.styledxmlparser.css.media.MediaType;
+import com.itextpdf.styledxmlparser.css.parse.CssStyleSheetParser;
+import com.itextpdf.styledxmlparser.css.pseudo.CssPseudoElementNode;
+import com.itextpdf.styledxmlparser.node.IDocumentNode;
+import com.itextpdf.styledxmlparser.node.IElementNode;
+import com.itextpdf.styledxmlparser.node.INode;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.JsoupHtmlParser;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Category(UnitTest.class)
+public class CssRuleSetIndexTest extends ExtendedITextTest {
+
+    private static final String HTML = "<html><body id='main' class='page wide'>"
+            + "<div class='box'><p id='first' class='text'>a</p><p class='text  lead'>b</p><span>c</span></div>"
+            + "<ul><li class='item'>1</li><li class='item last'><a href='#' class='link'>2</a></li></ul>"
+            + "<section><div><p>d</p><p title='x'>e</p></div></section>"
+            + "</body></html>";
+
+    private static final String CSS = "p { color: red }\n"
+            + "P { font-size: 10pt }\n"
+            + ".text { color: blue }\n"
+            + "#first { color: green }\n"
+            + "p.text.lead { font-weight: bold }\n"
+            + "div p { margin: 1pt }\n"
+            + "div > p { padding: 1pt }\n"
+            + ".box > .text + .text { color: navy }\n"
+            + "p ~ span { color: gray }\n"
+            + "section p:first-child { color: olive }\n"
+            + "body.wide li.item a { color: teal }\n"
+            + "#main .item:last-child { color: maroon !important }\n"
+            + "[title] { color: silver }\n"
+            + "* { line-height: 1 }\n"
+            + "ul li { list-style: none }\n"
+            + "table p { color: white }\n"
+            + "p::before { content: 'x' }\n"
+            + "div p::after { content: 'y' }\n"
+            + ":not(p) { opacity: 1 }\n"
+            + "@media print { p { color: black } .item { color: purple } }\n"
+            + "@media screen { p { color: yellow } }\n"
+            + "@page { margin: 0 }\n"
+            + "p, .link { text-decoration: underline }\n";
+
+    @Test
+    public void indexMatchesSameRuleSetsAsStatementsTest() {
+        IDocumentNode document = new JsoupHtmlParser().parse(HTML);
+        CssStyleSheet css = CssStyleSheetParser.parse(CSS);
+        List<INode> nodes = new ArrayList<>();
+        collectNodes(document, nodes);
+        nodes.add(new CssPseudoElementNode(findFirst(document, "p"), "before"));
+        nodes.add(new CssPseudoElementNode(findFirst(document, "p"), "after"));
+
+        CssRuleSetIndex index = new CssRuleSetIndex(css.getStatements());
+        MediaDeviceDescription[] deviceDescriptions = {new MediaDeviceDescription(MediaType.PRINT), new MediaDeviceDescription(MediaType.SCREEN)};
+        int matched = 0;
+        for (MediaDeviceDescription deviceDescription : deviceDescriptions) {
+            for (INode node : nodes) {
+                List<CssRuleSet> expected = getCssRuleSets(css, node, deviceDescription);
+                Assert.assertEquals(expected, index.getCssRuleSets(node, deviceDescription));
+                matched += expected.size();
+            }
+        }
+        Assert.assertTrue(matched > 0);
+    }
+
+    @Test
+    public void indexIsUpdatedWhenStatementIsAddedTest() {
+        IDocumentNode document = new JsoupHtmlParser().parse(HTML);
+        IElementNode paragraph = findFirst(document, "p");
+        CssStyleSheet css = CssStyleSheetParser.parse("p { color: red }");
+        Assert.assertEquals(1, css.getCssDeclarations(paragraph, MediaDeviceDescription.createDefault()).size());
+
+        css.appendCssStyleSheet(CssStyleSheetParser.parse("#first { color: green }"));
+        List<CssDeclaration> declarations = css.getCssDeclarations(paragraph, MediaDeviceDescription.createDefault());
+        Assert.assertEquals(1, declarations.size());
+        Assert.assertEquals("color: green", declarations.get(0).toString());
+    }
+
+    private static List<CssRuleSet> getCssRuleSets(CssStyleSheet css, INode node, MediaDeviceDescription deviceDescription) {
+        List<CssRuleSet> ruleSets = new ArrayList<>();
+        for (CssStatement statement : css.getStatements()) {
+            ruleSets.addAll(statement.getCssRuleSets(node, deviceDescription));
+        }
+        Collections.sort(ruleSets, new CssRuleSetComparator());
+        return ruleSets;
+    }
+
+    private static void collectNodes(INode node, List<INode> nodes) {
+        nodes.add(node);
+        for (INode child : node.childNodes()) {
+            collectNodes(child, nodes);
+        }
+    }
+
+    private static IElementNode findFirst(INode node, String name) {
+        for (INode child : node.childNodes()) {
+            if (child instanceof IElementNode && name.equals(((IElementNode) child).name())) {
+                return (IElementNode) child;
+            }
+            IElementNode found = findFirst(child, name);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+}
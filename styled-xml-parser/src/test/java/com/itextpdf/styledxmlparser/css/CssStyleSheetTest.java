@@ -0,0 +1,158 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.styledxmlparser.css;
+
+import com.itextpdf.styledxmlparser.LogMessageConstant;
+import com.itextpdf.styledxmlparser.css.media.MediaDeviceDescription;
+import com.itextpdf.styledxmlparser.css.media.MediaType;
+import com.itextpdf.styledxmlparser.css.parse.CssStyleSheetParser;
+import com.itextpdf.styledxmlparser.css.selector.CssSelector;
+import com.itextpdf.styledxmlparser.node.IDocumentNode;
+import com.itextpdf.styledxmlparser.node.IElementNode;
+import com.itextpdf.styledxmlparser.node.INode;
+import com.itextpdf.styledxmlparser.node.impl.jsoup.JsoupHtmlParser;
+import com.itextpdf.test.ExtendedITextTest;
+import com.itextpdf.test.annotations.LogMessage;
+import com.itextpdf.test.annotations.LogMessages;
+import com.itextpdf.test.annotations.type.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+@Category(UnitTest.class)
+public class CssStyleSheetTest extends ExtendedITextTest {
+
+    @Test
+    @LogMessages(messages = @LogMessage(messageTemplate = LogMessageConstant.INVALID_CSS_PROPERTY_DECLARATION))
+    public void resolvedDeclarationsTest() {
+        CssStyleSheet css = CssStyleSheetParser.parse("p { border: 1px solid #000; color: notacolor; margin: 2pt !important }");
+        CssRuleSet ruleSet = (CssRuleSet) css.getStatements().get(0);
+
+        List<CssDeclaration> normalDeclarations = ruleSet.getResolvedNormalDeclarations();
+        Assert.assertEquals(12, normalDeclarations.size());
+        Assert.assertEquals("border-top-width: 1px", normalDeclarations.get(0).toString());
+        // the declarations are resolved and validated once
+        Assert.assertSame(normalDeclarations, ruleSet.getResolvedNormalDeclarations());
+
+        List<CssDeclaration> importantDeclarations = ruleSet.getResolvedImportantDeclarations();
+        Assert.assertEquals(4, importantDeclarations.size());
+        Assert.assertEquals("margin-top: 2pt", importantDeclarations.get(0).toString());
+    }
+
+    @Test
+    public void sharedDeclarationsTest() {
+        IDocumentNode document = new JsoupHtmlParser().parse("<html><body>"
+                + "<p class='a'>1</p><p class='a'>2</p><p class='b'>3</p><p class='a'>4</p></body></html>");
+        CssStyleSheet css = CssStyleSheetParser.parse("p { border: 1px solid #000 } .b { color: red } .a { color: blue !important }");
+        List<IElementNode> paragraphs = new ArrayList<>();
+        collectElements(document, "p", paragraphs);
+        Assert.assertEquals(4, paragraphs.size());
+
+        List<CssDeclaration> first = css.getCssDeclarations(paragraphs.get(0), MediaDeviceDescription.createDefault());
+        Assert.assertEquals(13, first.size());
+        Assert.assertEquals("color: blue", first.get(12).toString());
+        Assert.assertEquals(first, css.getCssDeclarations(paragraphs.get(1), MediaDeviceDescription.createDefault()));
+        Assert.assertEquals("color: red", css.getCssDeclarations(paragraphs.get(2), MediaDeviceDescription.createDefault()).get(12).toString());
+        Assert.assertEquals(first, css.getCssDeclarations(paragraphs.get(3), MediaDeviceDescription.createDefault()));
+        Assert.assertEquals(0.5f, css.getSharedDeclarationsHitRate(), 1e-6f);
+
+        // the shared declarations are dropped as the new statements may override them
+        css.appendCssStyleSheet(CssStyleSheetParser.parse(".a { color: green !important }"));
+        Assert.assertEquals("color: green", css.getCssDeclarations(paragraphs.get(0), MediaDeviceDescription.createDefault()).get(12).toString());
+    }
+
+    @Test
+    public void readOnlyStyleSheetTest() throws IOException {
+        CssStyleSheet css = CssStyleSheetParser.parse(new StringReader("p { color: red } @media print { p { margin: 1pt } }"), null);
+        Assert.assertFalse(css.isReadOnly());
+        Assert.assertSame(css, css.makeReadOnly());
+        Assert.assertTrue(css.isReadOnly());
+
+        IDocumentNode document = new JsoupHtmlParser().parse("<html><body><p>1</p></body></html>");
+        List<IElementNode> paragraphs = new ArrayList<>();
+        collectElements(document, "p", paragraphs);
+        Assert.assertEquals(5, css.getCssDeclarations(paragraphs.get(0), new MediaDeviceDescription(MediaType.PRINT)).size());
+
+        try {
+            css.addStatement(new CssRuleSet(new CssSelector("div"), new ArrayList<CssDeclaration>()));
+            Assert.fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            ((CssNestedAtRule) css.getStatements().get(1)).addStatementToBody(new CssRuleSet(new CssSelector("div"), new ArrayList<CssDeclaration>()));
+            Assert.fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            ((CssRuleSet) css.getStatements().get(0)).getNormalDeclarations().add(new CssDeclaration("color", "blue"));
+            Assert.fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void parsedNamesAreInternedTest() {
+        CssStyleSheet css = CssStyleSheetParser.parse("p { COLOR: Red; background: url(a;b.png) no-repeat; font-weight: bold }");
+        List<CssDeclaration> declarations = ((CssRuleSet) css.getStatements().get(0)).getNormalDeclarations();
+        Assert.assertEquals(3, declarations.size());
+        Assert.assertSame(CommonCssConstants.COLOR, declarations.get(0).getProperty());
+        Assert.assertEquals("red", declarations.get(0).getExpression());
+        Assert.assertEquals("url(a;b.png) no-repeat", declarations.get(1).getExpression());
+        Assert.assertSame(CommonCssConstants.FONT_WEIGHT, declarations.get(2).getProperty());
+        Assert.assertSame(CommonCssConstants.BOLD, declarations.get(2).getExpression());
+    }
+
+    private static void collectElements(INode node, String name, List<IElementNode> elements) {
+        for (INode child : node.childNodes()) {
+            if (child instanceof IElementNode && name.equals(((IElementNode) child).name())) {
+                elements.add((IElementNode) child);
+            }
+            collectElements(child, name, elements);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.svg.converter;
+
+import com.itextpdf.kernel.PdfException;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import com.itextpdf.styledxmlparser.resolver.font.BasicFontProvider;
+import com.itextpdf.styledxmlparser.resolver.resource.ResourceResolver;
+import com.itextpdf.svg.exceptions.SvgLogMessageConstant;
+import com.itextpdf.svg.exceptions.SvgProcessingException;
+import com.itextpdf.svg.processors.ISvgConverterProperties;
+import com.itextpdf.svg.processors.ISvgProcessorResult;
+import com.itextpdf.svg.renderers.ISvgNodeRenderer;
+import com.itextpdf.svg.renderers.SvgDrawContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An SVG image that has been parsed and processed once and can be drawn into any number
+ * of {@link PdfDocument} instances afterwards.
+ * <p>
+ * The processed renderer tree is kept as a template and is never drawn itself: every
+ * conversion works on a deep copy of it, with its own {@link SvgDrawContext}, so one
+ * instance can be shared between documents and threads. Instances are obtained with
+ * {@link SvgConverter#compile(String, ISvgConverterProperties)} and its overloads.
+ * <p>
+ * When XObject caching is enabled, the renderer tree is drawn only once, into a private
+ * in-memory document. Every following conversion copies the resulting content stream and
+ * its resources into the target document, which is much cheaper than drawing the tree again.
+ */
+public final class CompiledSvg {
+
+    private final ISvgNodeRenderer rootRenderer;
+    private final Map<String, ISvgNodeRenderer> namedObjects;
+    private final FontProvider fontProvider;
+    private final FontSet tempFonts;
+    private final String baseUri;
+    private final float width;
+    private final float height;
+    private final boolean xObjectCaching;
+
+    private PdfStream templateStream;
+
+    CompiledSvg(ISvgProcessorResult processorResult, ISvgConverterProperties props, boolean xObjectCaching) {
+        this.rootRenderer = processorResult.getRootRenderer();
+        this.namedObjects = Collections.unmodifiableMap(new HashMap<>(processorResult.getNamedObjects()));
+        this.fontProvider = processorResult.getFontProvider();
+        this.tempFonts = processorResult.getTempFonts();
+        this.baseUri = props != null ? props.getBaseUri() : "";
+        float[] wh = SvgConverter.extractWidthAndHeight(rootRenderer);
+        this.width = wh[0];
+        this.height = wh[1];
+        this.xObjectCaching = xObjectCaching;
+    }
+
+    /**
+     * Gets the width of the XObjects created from this SVG image.
+     *
+     * @return the width in PDF units
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the XObjects created from this SVG image.
+     *
+     * @return the height in PDF units
+     */
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks whether the drawn content stream is kept and copied into documents
+     * instead of drawing the renderer tree for every document.
+     *
+     * @return true if XObject caching is enabled
+     */
+    public boolean isXObjectCaching() {
+        return xObjectCaching;
+    }
+
+    /**
+     * Converts this SVG image to an {@link PdfFormXObject XObject} that can be used on the
+     * passed {@link PdfDocument}. This method does NOT manipulate the {@link PdfDocument}
+     * in any way, apart from adding the copied objects when XObject caching is enabled.
+     *
+     * @param document the {@link PdfDocument} instance to draw on
+     * @return a {@link PdfFormXObject XObject} containing the PDF instructions
+     * corresponding to this SVG image
+     */
+    public PdfFormXObject convertToXObject(PdfDocument document) {
+        if (document == null) {
+            throw new SvgProcessingException(SvgLogMessageConstant.PARAMETER_CANNOT_BE_NULL);
+        }
+        if (xObjectCaching) {
+            return copyTemplate(document);
+        }
+        return draw(document);
+    }
+
+    /**
+     * Draws this SVG image on a canvas at the origin of its coordinate system.
+     *
+     * @param canvas the {@link PdfCanvas} to draw on
+     */
+    public void drawOnCanvas(PdfCanvas canvas) {
+        drawOnCanvas(canvas, 0, 0);
+    }
+
+    /**
+     * Draws this SVG image on a canvas at the specified coordinates.
+     *
+     * @param canvas the {@link PdfCanvas} to draw on
+     * @param x      x-coordinate of the location to draw at
+     * @param y      y-coordinate of the location to draw at
+     */
+    public void drawOnCanvas(PdfCanvas canvas, float x, float y) {
+        canvas.addXObject(convertToXObject(canvas.getDocument()), x, y);
+    }
+
+    private PdfFormXObject draw(PdfDocument document) {
+        SvgDrawContext drawContext = new SvgDrawContext(new ResourceResolver(baseUri), createDrawFontProvider());
+        drawContext.setTempFonts(tempFonts);
+        drawContext.addNamedObjects(namedObjects);
+        return SvgConverter.convertToXObject(rootRenderer.createDeepCopy(), document, drawContext);
+    }
+
+    private synchronized PdfFormXObject copyTemplate(PdfDocument document) {
+        if (templateStream == null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            PdfDocument pdfDocument = new PdfDocument(new PdfWriter(baos));
+            PdfFormXObject form = draw(pdfDocument);
+            new PdfCanvas(pdfDocument.addNewPage(new PageSize(width, height))).addXObject(form, 0, 0);
+            pdfDocument.close();
+            PdfDocument templateDocument;
+            try {
+                templateDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+            } catch (IOException e) {
+                throw new SvgProcessingException(PdfException.IoException, e);
+            }
+            PdfDictionary xObjects = templateDocument.getPage(1).getResources().getResource(PdfName.XObject);
+            templateStream = xObjects.getAsStream(xObjects.keySet().iterator().next());
+        }
+        return new PdfFormXObject((PdfStream) templateStream.copyTo(document, false));
+    }
+
+    /*
+     * A font provider keeps the fonts it has created for one document, so the default
+     * providers are recreated for every draw on top of the same font set. Other providers
+     * are used as they are and must take care of this themselves.
+     */
+    private FontProvider createDrawFontProvider() {
+        if (fontProvider == null) {
+            return null;
+        }
+        Class<?> providerClass = fontProvider.getClass();
+        if (providerClass == BasicFontProvider.class || providerClass == FontProvider.class) {
+            return new FontProvider(fontProvider.getFontSet(), fontProvider.getDefaultFontFamily());
+        }
+        return fontProvider;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: Bruno Lowagie, Paulo Soares, et al.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.svg.converter;
+
+import com.itextpdf.svg.exceptions.SvgLogMessageConstant;
+import com.itextpdf.svg.exceptions.SvgProcessingException;
+import com.itextpdf.svg.processors.ISvgConverterProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of {@link CompiledSvg} instances keyed by SVG content.
+ * <p>
+ * All entries are compiled with the converter properties passed to the constructor and
+ * with XObject caching enabled, so the same SVG content is parsed, processed and drawn
+ * only once while it stays in the cache. Drawing it into a new document then only copies
+ * the generated content stream and its resources. The least recently used entry is
+ * dropped when the cache is full.
+ */
+public class CompiledSvgCache {
+
+    private static final int DEFAULT_MAX_SIZE = 64;
+
+    private final ISvgConverterProperties props;
+    private final Map<String, CompiledSvg> cache;
+
+    /**
+     * Creates a cache holding up to 64 SVG images compiled with default properties.
+     */
+    public CompiledSvgCache() {
+        this(null, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache of compiled SVG images.
+     *
+     * @param props   {@link ISvgConverterProperties} used to compile every entry, may be null
+     * @param maxSize the maximum number of SVG images kept in the cache
+     */
+    public CompiledSvgCache(ISvgConverterProperties props, final int maxSize) {
+        this.props = props;
+        this.cache = new LinkedHashMap<String, CompiledSvg>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledSvg> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the compiled SVG for the passed content, compiling it if it is not cached yet.
+     *
+     * @param content the String value containing valid SVG content
+     * @return the {@link CompiledSvg} for the passed content
+     */
+    public CompiledSvg get(String content) {
+        if (content == null) {
+            throw new SvgProcessingException(SvgLogMessageConstant.PARAMETER_CANNOT_BE_NULL);
+        }
+        synchronized (cache) {
+            CompiledSvg compiledSvg = cache.get(content);
+            if (compiledSvg != null) {
+                return compiledSvg;
+            }
+        }
+        // compile outside of the lock, a concurrent compilation of the same content is harmless
+        CompiledSvg compiledSvg = SvgConverter.compile(content, props, true);
+        synchronized (cache) {
+            CompiledSvg existing = cache.get(content);
+            if (existing != null) {
+                return existing;
+            }
+            cache.put(content, compiledSvg);
+        }
+        return compiledSvg;
+    }
+
+    /**
+     * Gets the number of SVG images currently kept in the cache.
+     *
+     * @return the number of cached SVG images
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Removes all SVG images from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
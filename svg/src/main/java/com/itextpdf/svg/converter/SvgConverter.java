@@ -798,7 +798,7 @@ public final class SvgConverter {
      * @return an {@link PdfFormXObject XObject}containing the PDF instructions
      * corresponding to the passed node renderer tree.
      */
-    private static PdfFormXObject convertToXObject(ISvgNodeRenderer topSvgRenderer, PdfDocument document, SvgDrawContext context) {
+    static PdfFormXObject convertToXObject(ISvgNodeRenderer topSvgRenderer, PdfDocument document, SvgDrawContext context) {
         checkNull(topSvgRenderer);
         checkNull(document);
         checkNull(context);
@@ -817,6 +817,73 @@ public final class SvgConverter {
         return pdfForm;
     }
 
+    /**
+     * Parses and processes a String containing valid SVG content once, so that the
+     * result can be drawn into any number of {@link PdfDocument} instances.
+     *
+     * @param content the String value containing valid SVG content
+     * @return a {@link CompiledSvg} that can be converted to an XObject for any document
+     */
+    public static CompiledSvg compile(String content) {
+        return compile(content, null);
+    }
+
+    /**
+     * Parses and processes a String containing valid SVG content once, so that the
+     * result can be drawn into any number of {@link PdfDocument} instances.
+     *
+     * @param content the String value containing valid SVG content
+     * @param props   {@link ISvgConverterProperties} to customize the behavior
+     * @return a {@link CompiledSvg} that can be converted to an XObject for any document
+     */
+    public static CompiledSvg compile(String content, ISvgConverterProperties props) {
+        return compile(content, props, false);
+    }
+
+    /**
+     * Parses and processes a String containing valid SVG content once, so that the
+     * result can be drawn into any number of {@link PdfDocument} instances.
+     *
+     * @param content        the String value containing valid SVG content
+     * @param props          {@link ISvgConverterProperties} to customize the behavior
+     * @param xObjectCaching if true, the SVG is drawn only once and the resulting XObject
+     *                       is copied into every document, see {@link CompiledSvg}
+     * @return a {@link CompiledSvg} that can be converted to an XObject for any document
+     */
+    public static CompiledSvg compile(String content, ISvgConverterProperties props, boolean xObjectCaching) {
+        checkNull(content);
+        return new CompiledSvg(process(parse(content), props), props, xObjectCaching);
+    }
+
+    /**
+     * Parses and processes a Stream containing valid SVG content once, so that the
+     * result can be drawn into any number of {@link PdfDocument} instances.
+     *
+     * @param stream the {@link InputStream Stream} object containing valid SVG content
+     * @param props  {@link ISvgConverterProperties} to customize the behavior
+     * @return a {@link CompiledSvg} that can be converted to an XObject for any document
+     * @throws IOException when the Stream cannot be read correctly
+     */
+    public static CompiledSvg compile(InputStream stream, ISvgConverterProperties props) throws IOException {
+        return compile(stream, props, false);
+    }
+
+    /**
+     * Parses and processes a Stream containing valid SVG content once, so that the
+     * result can be drawn into any number of {@link PdfDocument} instances.
+     *
+     * @param stream         the {@link InputStream Stream} object containing valid SVG content
+     * @param props          {@link ISvgConverterProperties} to customize the behavior
+     * @param xObjectCaching if true, the SVG is drawn only once and the resulting XObject
+     *                       is copied into every document, see {@link CompiledSvg}
+     * @return a {@link CompiledSvg} that can be converted to an XObject for any document
+     * @throws IOException when the Stream cannot be read correctly
+     */
+    public static CompiledSvg compile(InputStream stream, ISvgConverterProperties props, boolean xObjectCaching) throws IOException {
+        checkNull(stream);
+        return new CompiledSvg(process(parse(stream, props), props), props, xObjectCaching);
+    }
+
     /**
      * Parse and process an Inputstream containing an SVG, using the default Svg processor ({@link DefaultSvgProcessor})
      * The parsing of the stream is done using UTF-8 as the default charset.
@@ -76,6 +76,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -88,6 +89,16 @@ public class SvgStyleResolver implements ICssResolver {
     private CssStyleSheet css;
     private static final String DEFAULT_CSS_PATH = "com/itextpdf/svg/default.css";
 
+    /**
+     * The maximal number of shared computed styles.
+     */
+    private static final int MAX_SHARED_STYLES = 1024;
+
+    /**
+     * The read-only default style sheet, which is parsed once and shared by the resolvers.
+     */
+    private static volatile CssStyleSheet sharedDefaultCss;
+
     /**
      * The device description.
      */
@@ -103,6 +114,28 @@ public class SvgStyleResolver implements ICssResolver {
      */
     private StyleResolverUtil sru = new StyleResolverUtil();
 
+    /**
+     * The computed styles, shared by the nodes with the same matched declarations, attributes and parent styles.
+     */
+    private final Map<SharedStylesKey, Map<String, String>> sharedStyles = new LinkedHashMap<SharedStylesKey, Map<String, String>>(16, 0.75f, true) {
+        private static final long serialVersionUID = -2387213563186574628L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SharedStylesKey, Map<String, String>> eldest) {
+            return size() > MAX_SHARED_STYLES;
+        }
+    };
+
+    /**
+     * The number of times the styles were found among the shared ones.
+     */
+    private long sharedStylesHits;
+
+    /**
+     * The number of times the styles were computed.
+     */
+    private long sharedStylesMisses;
+
 
     /**
      * Creates a {@link SvgStyleResolver} with a given default CSS.
@@ -117,13 +150,18 @@ public class SvgStyleResolver implements ICssResolver {
      * Creates a SvgStyleResolver.
      */
     public SvgStyleResolver() {
-        try (InputStream defaultCss = ResourceUtil.getResourceStream(DEFAULT_CSS_PATH)) {
-            this.css = CssStyleSheetParser.parse(defaultCss);
-        } catch (IOException e) {
-            Logger logger = LoggerFactory.getLogger(this.getClass());
-            logger.warn(SvgLogMessageConstant.ERROR_INITIALIZING_DEFAULT_CSS, e);
-            this.css = new CssStyleSheet();
+        CssStyleSheet styleSheet = sharedDefaultCss;
+        if (styleSheet == null) {
+            try (InputStream defaultCss = ResourceUtil.getResourceStream(DEFAULT_CSS_PATH)) {
+                styleSheet = CssStyleSheetParser.parse(defaultCss).makeReadOnly();
+                sharedDefaultCss = styleSheet;
+            } catch (IOException e) {
+                Logger logger = LoggerFactory.getLogger(this.getClass());
+                logger.warn(SvgLogMessageConstant.ERROR_INITIALIZING_DEFAULT_CSS, e);
+                styleSheet = new CssStyleSheet();
+            }
         }
+        this.css = styleSheet;
     }
 
     /**
@@ -142,39 +180,72 @@ public class SvgStyleResolver implements ICssResolver {
 
     @Override
     public Map<String, String> resolveStyles(INode node, AbstractCssContext context) {
-        Map<String, String> styles = new HashMap<>();
         //Load in from collected style sheets
         List<CssDeclaration> styleSheetDeclarations = css.getCssDeclarations(node, MediaDeviceDescription.createDefault());
-        for (CssDeclaration ssd : styleSheetDeclarations) {
-            styles.put(ssd.getProperty(), ssd.getExpression());
-        }
 
-        //Load in attributes declarations
+        List<IAttribute> attributes = new ArrayList<>();
         if (node instanceof IElementNode) {
-            IElementNode eNode = (IElementNode) node;
-            for (IAttribute attr : eNode.getAttributes()) {
-                processAttribute(attr, styles);
+            for (IAttribute attr : ((IElementNode) node).getAttributes()) {
+                attributes.add(attr);
             }
         }
 
-        //Load in and merge inherited declarations from parent
+        Map<String, String> parentStyles = null;
         if (node.parentNode() instanceof IStylesContainer) {
-            IStylesContainer parentNode = (IStylesContainer) node.parentNode();
-            Map<String, String> parentStyles = parentNode.getStyles();
-
+            parentStyles = ((IStylesContainer) node.parentNode()).getStyles();
             if (parentStyles == null && !(node.parentNode() instanceof IDocumentNode)) {
                 Logger logger = LoggerFactory.getLogger(SvgStyleResolver.class);
                 logger.error(LogMessageConstant.ERROR_RESOLVING_PARENT_STYLES);
             }
-            if (parentStyles != null) {
-                for (Map.Entry<String, String> entry : parentStyles.entrySet()) {
-                    String parentFontSizeString = parentStyles.get(CommonCssConstants.FONT_SIZE);
-                    if (parentFontSizeString == null) {
-                        parentFontSizeString = "0";
-                    }
+        }
+
+        // the styles only depend on the matched declarations, the attributes and the parent styles,
+        // so the nodes with the same ones, e.g. the siblings of the same kind, share the computed styles
+        SharedStylesKey key = new SharedStylesKey(styleSheetDeclarations, attributes, parentStyles);
+        Map<String, String> styles = sharedStyles.get(key);
+        if (styles != null) {
+            sharedStylesHits++;
+        } else {
+            sharedStylesMisses++;
+            styles = computeStyles(styleSheetDeclarations, attributes, parentStyles);
+            sharedStyles.put(key.snapshot(), styles);
+        }
+        return new HashMap<>(styles);
+    }
 
-                    sru.mergeParentStyleDeclaration(styles, entry.getKey(), entry.getValue(), parentFontSizeString);
+    /**
+     * Gets the share of the {@link #resolveStyles(INode, AbstractCssContext)} calls, for which the styles were
+     * taken from another node with the same matched declarations, attributes and parent styles instead of
+     * being computed again.
+     *
+     * @return the hit rate from 0 to 1, or 0 if no styles were resolved yet
+     */
+    public float getStyleSharingHitRate() {
+        long requests = sharedStylesHits + sharedStylesMisses;
+        return requests == 0 ? 0 : (float) sharedStylesHits / requests;
+    }
+
+    private Map<String, String> computeStyles(List<CssDeclaration> styleSheetDeclarations, List<IAttribute> attributes,
+            Map<String, String> parentStyles) {
+        Map<String, String> styles = new HashMap<>();
+        for (CssDeclaration ssd : styleSheetDeclarations) {
+            styles.put(ssd.getProperty(), ssd.getExpression());
+        }
+
+        //Load in attributes declarations
+        for (IAttribute attr : attributes) {
+            processAttribute(attr, styles);
+        }
+
+        //Load in and merge inherited declarations from parent
+        if (parentStyles != null) {
+            for (Map.Entry<String, String> entry : parentStyles.entrySet()) {
+                String parentFontSizeString = parentStyles.get(CommonCssConstants.FONT_SIZE);
+                if (parentFontSizeString == null) {
+                    parentFontSizeString = "0";
                 }
+
+                sru.mergeParentStyleDeclaration(styles, entry.getKey(), entry.getValue(), parentFontSizeString);
             }
         }
 
@@ -282,4 +353,61 @@ public class SvgStyleResolver implements ICssResolver {
         }
         return parsed;
     }
+
+    /**
+     * The inputs of the computed styles of a node.
+     */
+    private static final class SharedStylesKey {
+        private final List<CssDeclaration> declarations;
+        private final List<String> attributes;
+        private final Map<String, String> parentStyles;
+        private final int hashCode;
+
+        SharedStylesKey(List<CssDeclaration> declarations, List<IAttribute> attributes, Map<String, String> parentStyles) {
+            this.declarations = declarations;
+            this.attributes = new ArrayList<>(attributes.size() * 2);
+            for (IAttribute attr : attributes) {
+                this.attributes.add(attr.getKey());
+                this.attributes.add(attr.getValue());
+            }
+            this.parentStyles = parentStyles;
+            this.hashCode = 31 * (31 * declarations.hashCode() + this.attributes.hashCode())
+                    + (parentStyles == null ? 0 : parentStyles.hashCode());
+        }
+
+        private SharedStylesKey(SharedStylesKey key) {
+            this.declarations = key.declarations;
+            this.attributes = key.attributes;
+            this.parentStyles = key.parentStyles == null ? null : new HashMap<>(key.parentStyles);
+            this.hashCode = key.hashCode;
+        }
+
+        /**
+         * Copies the key, so that it is not affected by the later changes of the parent styles.
+         *
+         * @return the copy of the key
+         */
+        SharedStylesKey snapshot() {
+            return new SharedStylesKey(this);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SharedStylesKey)) {
+                return false;
+            }
+            SharedStylesKey other = (SharedStylesKey) o;
+            return hashCode == other.hashCode && declarations.equals(other.declarations)
+                    && attributes.equals(other.attributes)
+                    && (parentStyles == null ? other.parentStyles == null : parentStyles.equals(other.parentStyles));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,142 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2018 iText Group NV
+    Authors: iText Software.
+
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License version 3
+    as published by the Free Software Foundation with the addition of the
+    following permission added to Section 15 as permitted in Section 7(a):
+    FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+    ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+    OF THIRD PARTY RIGHTS
+
+    This program is distributed in the hope that it will be useful, but
+    WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+    or FITNESS FOR A PARTICULAR PURPOSE.
+    See the GNU Affero General Public License for more details.
+    You should have received a copy of the GNU Affero General Public License
+    along with this program; if not, see http://www.gnu.org/licenses or write to
+    the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+    Boston, MA, 02110-1301 USA, or download the license from the following URL:
+    http://itextpdf.com/terms-of-use/
+
+    The interactive user interfaces in modified source and object code versions
+    of this program must display Appropriate Legal Notices, as required under
+    Section 5 of the GNU Affero General Public License.
+
+    In accordance with Section 7(b) of the GNU Affero General Public License,
+    a covered work must retain the producer line in every PDF that is created
+    or manipulated using iText.
+
+    You can be released from the requirements of the license by purchasing
+    a commercial license. Buying such a license is mandatory as soon as you
+    develop commercial activities involving the iText software without
+    disclosing the source code of your own applications.
+    These activities include: offering paid services to customers as an ASP,
+    serving PDFs on the fly in a web application, shipping iText with a closed
+    source product.
+
+    For more information, please contact iText Software Corp. at this
+    address: sales@itextpdf.com
+ */
+package com.itextpdf.svg.converter;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.test.annotations.type.IntegrationTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(IntegrationTest.class)
+public class CompiledSvgTest {
+
+    private static final String CONTENT = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"100\" height=\"50\">" +
+            "<rect id=\"r\" width=\"10\" height=\"10\" fill=\"green\"/>" +
+            "<circle cx=\"25\" cy=\"25\" r=\"20\" stroke=\"black\" fill=\"red\"/>" +
+            "<path d=\"M 50 10 L 90 10 L 90 40 z\" fill=\"blue\"/>" +
+            "<use href=\"#r\" x=\"60\" y=\"30\"/>" +
+            "<text x=\"5\" y=\"45\">icon</text>" +
+            "</svg>";
+
+    @Test
+    public void compiledSvgMatchesDirectConversionTest() {
+        CompiledSvg compiledSvg = SvgConverter.compile(CONTENT);
+        Assert.assertEquals(75, compiledSvg.getWidth(), 0);
+        Assert.assertEquals(37.5f, compiledSvg.getHeight(), 0);
+        for (int i = 0; i < 3; i++) {
+            PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+            document.addNewPage();
+            byte[] expected = SvgConverter.convertToXObject(CONTENT, document).getPdfObject().getBytes();
+            PdfFormXObject form = compiledSvg.convertToXObject(document);
+            Assert.assertArrayEquals(expected, form.getPdfObject().getBytes());
+            document.close();
+        }
+    }
+
+    @Test
+    public void compiledSvgDrawnIntoSeveralDocumentsTest() throws IOException {
+        CompiledSvg compiledSvg = SvgConverter.compile(CONTENT);
+        byte[] first = drawAndReadXObjectContent(compiledSvg);
+        byte[] second = drawAndReadXObjectContent(compiledSvg);
+        Assert.assertTrue(first.length > 0);
+        Assert.assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void cachedXObjectIsCopiedTest() throws IOException {
+        CompiledSvg compiledSvg = SvgConverter.compile(CONTENT, null, true);
+        Assert.assertTrue(compiledSvg.isXObjectCaching());
+        byte[] expected = drawAndReadXObjectContent(SvgConverter.compile(CONTENT));
+        Assert.assertArrayEquals(expected, drawAndReadXObjectContent(compiledSvg));
+        Assert.assertArrayEquals(expected, drawAndReadXObjectContent(compiledSvg));
+
+        PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        document.addNewPage();
+        PdfFormXObject form = compiledSvg.convertToXObject(document);
+        Assert.assertSame(form.getPdfObject(), compiledSvg.convertToXObject(document).getPdfObject());
+        Assert.assertNotNull(form.getResources().getResource(PdfName.XObject));
+        document.close();
+    }
+
+    @Test
+    public void cacheKeepsCompiledSvgPerContentTest() {
+        CompiledSvgCache cache = new CompiledSvgCache(null, 1);
+        CompiledSvg compiledSvg = cache.get(CONTENT);
+        Assert.assertTrue(compiledSvg.isXObjectCaching());
+        Assert.assertSame(compiledSvg, cache.get(CONTENT));
+        Assert.assertEquals(1, cache.size());
+
+        String other = "<svg width=\"10\" height=\"10\"><rect width=\"5\" height=\"5\"/></svg>";
+        Assert.assertNotSame(compiledSvg, cache.get(other));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNotSame(compiledSvg, cache.get(CONTENT));
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static byte[] drawAndReadXObjectContent(CompiledSvg compiledSvg) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument document = new PdfDocument(new PdfWriter(baos));
+        compiledSvg.drawOnCanvas(new PdfCanvas(document.addNewPage()), 10, 10);
+        document.close();
+
+        PdfDocument result = new PdfDocument(new PdfReader(new ByteArrayInputStream(baos.toByteArray())));
+        PdfResources resources = result.getPage(1).getResources();
+        PdfStream xObject = resources.getResource(PdfName.XObject).getAsStream(resources.getResourceNames(PdfName.XObject).iterator().next());
+        byte[] bytes = xObject.getBytes();
+        result.close();
+        return bytes;
+    }
+}
@@ -139,6 +139,43 @@ public class SvgStyleResolverTest extends SvgIntegrationTest {
         Assert.assertEquals(expected, actual);
     }
 
+    @Test
+    public void styleSharingTest() {
+        Element styleTag = new Element(Tag.valueOf("style"), "");
+        JsoupElementNode jSoupStyle = new JsoupElementNode(styleTag);
+        jSoupStyle.addChild(new JsoupTextNode(new TextNode("circle { stroke: #da0000; stroke-width: 2 }", "")));
+        JsoupElementNode group = new JsoupElementNode(new Element(Tag.valueOf("g"), ""));
+        Map<String, String> groupStyles = new HashMap<>();
+        groupStyles.put("fill", "blue");
+        groupStyles.put("font-size", "12");
+        group.setStyles(groupStyles);
+        JsoupElementNode[] circles = new JsoupElementNode[4];
+        for (int i = 0; i < circles.length; i++) {
+            Element circle = new Element(Tag.valueOf("circle"), "");
+            circle.attributes().put(new Attribute("r", i == 3 ? "20" : "10"));
+            circles[i] = new JsoupElementNode(circle);
+            group.addChild(circles[i]);
+        }
+        SvgStyleResolver resolver = new SvgStyleResolver(jSoupStyle, new SvgProcessorContext(new SvgConverterProperties()));
+        AbstractCssContext svgContext = new SvgCssContext();
+
+        Map<String, String> first = resolver.resolveStyles(circles[0], svgContext);
+        Assert.assertEquals("#da0000", first.get("stroke"));
+        Assert.assertEquals("10", first.get("r"));
+        Map<String, String> second = resolver.resolveStyles(circles[1], svgContext);
+        Assert.assertEquals(first, second);
+        // the shared styles are copied, so the changes of one node don't affect the others
+        second.put("stroke", "blue");
+        Assert.assertEquals(first, resolver.resolveStyles(circles[2], svgContext));
+        Assert.assertEquals("20", resolver.resolveStyles(circles[3], svgContext).get("r"));
+        Assert.assertEquals(0.5f, resolver.getStyleSharingHitRate(), 1e-6f);
+
+        // the styles depend on the parent styles
+        groupStyles.put("font-size", "14");
+        Assert.assertEquals("10", resolver.resolveStyles(circles[0], svgContext).get("r"));
+        Assert.assertEquals(0.4f, resolver.getStyleSharingHitRate(), 1e-6f);
+    }
+
     @Test
     public void fontsResolverTagTest() {
         Element styleTag = new Element(Tag.valueOf("style"), "");